@@ -215,9 +215,9 @@ String[] TwoByte = {
         /* 153 */       null,
         /* 154 */       "com.splicemachine.db.impl.sql.execute.SumAggregator",
         /* 155 */       null,
-        /* 156 */       null, 
-        /* 157 */       null, 
-        /* 158 */       null, 
+        /* 156 */       "com.splicemachine.db.impl.sql.execute.ApproxCountDistinctAggregator",
+        /* 157 */       "com.splicemachine.db.impl.sql.execute.ApproxPercentileAggregator",
+        /* 158 */       "com.splicemachine.db.impl.sql.execute.ApproxTopKAggregator",
         /* 159 */       null, 
         /* 160 */       null, 
         /* 161 */       null, 
@@ -1034,6 +1034,24 @@ public interface StoredFormatIds {
     int AGG_USER_ADAPTOR_V01_ID =
             (MIN_ID_2 + 323);
 
+    /**
+        class com.splicemachine.db.impl.sql.execute.ApproxCountDistinctAggregator
+     */
+    int AGG_APPROX_COUNT_DISTINCT_V01_ID =
+            (MIN_ID_2 + 156);
+
+    /**
+        class com.splicemachine.db.impl.sql.execute.ApproxPercentileAggregator
+     */
+    int AGG_APPROX_PERCENTILE_V01_ID =
+            (MIN_ID_2 + 157);
+
+    /**
+        class com.splicemachine.db.impl.sql.execute.ApproxTopKAggregator
+     */
+    int AGG_APPROX_TOP_K_V01_ID =
+            (MIN_ID_2 + 158);
+
     /**
         class com.splicemachine.db.Database.Language.Execution.StatisticsConstantAction
     */
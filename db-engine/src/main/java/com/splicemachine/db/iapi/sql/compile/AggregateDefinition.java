@@ -72,6 +72,11 @@ public interface AggregateDefinition {
 					return type;
 				}
 			}
+			// aggregates which take parameters carry them in their name, as in APPROX_TOP_K(10)
+			int parameters = function.indexOf('(');
+			if (parameters > 0) {
+				return fromString(function.substring(0, parameters));
+			}
 			throw new UnsupportedOperationException(format("%s aggregation function not implemented",function));
 	}
 
@@ -93,7 +98,10 @@ public interface AggregateDefinition {
 		FIRST_VALUE_FUNCTION("FIRST_VALUE"),
 		LAG_FUNCTION("LAG"),
 		LEAD_FUNCTION("LEAD"),
-		ROW_NUMBER_FUNCTION("ROW_NUMBER");
+		ROW_NUMBER_FUNCTION("ROW_NUMBER"),
+		APPROX_COUNT_DISTINCT_FUNCTION("APPROX_COUNT_DISTINCT"),
+		APPROX_PERCENTILE_FUNCTION("APPROX_PERCENTILE"),
+		APPROX_TOP_K_FUNCTION("APPROX_TOP_K");
 
 		private final String name;
 
@@ -155,6 +155,18 @@ public interface CompilerContext extends Context
 	int			CONDITIONAL_RESTRICTION		= NEXT_VALUE_FOR_ILLEGAL;
 	int			GROUP_BY_RESTRICTION		= NEXT_VALUE_FOR_ILLEGAL;
 
+	/**
+	 * Query fragments whose value may change between two executions of the statement over the same data
+	 * with the same parameters
+	 */
+	int			NON_DETERMINISTIC_FRAGMENTS		= (
+																			DATETIME_ILLEGAL |
+																			USER_ILLEGAL |
+																			NON_DETERMINISTIC_ILLEGAL |
+																			SQL_IN_ROUTINES_ILLEGAL |
+																			NEXT_VALUE_FOR_ILLEGAL
+																			);
+
 	/////////////////////////////////////////////////////////////////////////////////////
 	//
 	//	BEHAVIOR
@@ -633,4 +645,23 @@ public interface CompilerContext extends Context
 
 	Vector<Integer> getSkipStatsTableList();
 
+	/**
+	 * Note that the statement reads the given table.
+	 *
+	 * @param conglomerateId the heap conglomerate of the table
+	 */
+	void addReadConglomerate(long conglomerateId);
+
+	/**
+	 * Note that the results of the statement depend on something other than the tables it reads and its
+	 * parameters, such as the current time, the current user or an external table.
+	 */
+	void setNonDeterministic();
+
+	/**
+	 * @return the heap conglomerates of the tables the statement reads, or null if its results depend on
+	 * anything else
+	 */
+	long[] getReadConglomerates();
+
 }
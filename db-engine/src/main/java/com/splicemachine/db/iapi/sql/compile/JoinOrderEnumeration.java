@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.iapi.sql.compile;
+
+import com.splicemachine.db.iapi.util.StringUtil;
+
+/**
+ * The strategy used by the optimizer to pick the join order of a FROM list.
+ */
+public enum JoinOrderEnumeration{
+    /**
+     * Choose the strategy from the number of tables being joined.
+     */
+    AUTO("auto"),
+    /**
+     * Walk the join order permutations (with pruning) until they are exhausted or the optimizer times out.
+     */
+    PERMUTATION("permutation"),
+    /**
+     * Bottom-up dynamic programming over the connected subsets of the join graph.
+     */
+    DYNAMIC_PROGRAMMING("dp"),
+    /**
+     * Repeatedly add the table that keeps the intermediate result smallest.
+     */
+    GREEDY("greedy");
+
+    private final String hintName;
+
+    JoinOrderEnumeration(String hintName){
+        this.hintName=hintName;
+    }
+
+    public String hintName(){
+        return hintName;
+    }
+
+    /**
+     * @return the strategy named by {@code value} (as used in the {@code joinOrderEnumeration} hint), or
+     * {@code null} if there is no such strategy.
+     */
+    public static JoinOrderEnumeration fromHint(String value){
+        for(JoinOrderEnumeration joe : values()){
+            if(StringUtil.SQLEqualsIgnoreCase(value,joe.hintName))
+                return joe;
+        }
+        return null;
+    }
+}
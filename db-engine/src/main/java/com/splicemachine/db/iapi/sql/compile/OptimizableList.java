@@ -104,6 +104,12 @@ public interface OptimizableList {
 	 */
 	boolean optimizeJoinOrder();
 
+	/**
+	 * The join order enumeration strategy requested for this list, or null if the
+	 * user did not ask for one and the optimizer should use its default.
+	 */
+	JoinOrderEnumeration getJoinOrderEnumeration();
+
 	/**
 	 * Tell whether the join order is legal.
 	 */
@@ -51,6 +51,7 @@ public enum OptimizerFlag{
     SKIPPING_JOIN_ORDER(DEBUG),
     ILLEGAL_USER_JOIN_ORDER(ERROR),
     USER_JOIN_ORDER_OPTIMIZED(INFO),
+    JOIN_ORDER_ENUMERATED(INFO),
     CONSIDERING_JOIN_ORDER(DEBUG),
     TOTAL_COST_NON_SA_PLAN(TRACE),
     TOTAL_COST_SA_PLAN(TRACE),
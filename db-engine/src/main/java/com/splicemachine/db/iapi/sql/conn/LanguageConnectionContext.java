@@ -37,6 +37,7 @@ import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.db.Database;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.compile.CompilerContext;
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
 import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
 import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
@@ -1351,4 +1352,42 @@ public interface LanguageConnectionContext extends Context {
 	 */
 	void setControlExecutionLimiter(ControlExecutionLimiter executionLimiter);
 
+	/**
+	 * Gets the number of regions a control mode table scan of this session reads concurrently
+	 * @return the parallelism, or 0 if the session uses the configured default
+	 */
+	int getControlScanParallelism();
+
+	/**
+	 * Sets the number of regions a control mode table scan of this session reads concurrently
+	 * @param parallelism the parallelism, or 0 to use the configured default
+	 */
+	void setControlScanParallelism(int parallelism);
+
+	/**
+	 * Gets the number of rows the right side of a broadcast join of this session may load before the
+	 * join falls back to a merge sort join
+	 * @return the threshold, or 0 if the session uses the configured default
+	 */
+	long getBroadcastFallbackRowThreshold();
+
+	/**
+	 * Sets the number of rows the right side of a broadcast join of this session may load before the
+	 * join falls back to a merge sort join
+	 * @param threshold the threshold, or 0 to use the configured default
+	 */
+	void setBroadcastFallbackRowThreshold(long threshold);
+
+	/**
+	 * Gets the join order enumeration strategy of this session, used for FROM lists without a hint
+	 * @return the strategy, or null if the session lets the FROM list size decide
+	 */
+	JoinOrderEnumeration getJoinOrderEnumeration();
+
+	/**
+	 * Sets the join order enumeration strategy of this session, used for FROM lists without a hint
+	 * @param joinOrderEnumeration the strategy, or null to let the FROM list size decide
+	 */
+	void setJoinOrderEnumeration(JoinOrderEnumeration joinOrderEnumeration);
+
 }
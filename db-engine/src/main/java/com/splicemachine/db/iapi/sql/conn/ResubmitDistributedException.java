@@ -27,4 +27,8 @@ public class ResubmitDistributedException extends StandardException {
     public ResubmitDistributedException() {
         super("resub.U");
     }
+
+    protected ResubmitDistributedException(String messageID, Object[] args) {
+        super(messageID, args);
+    }
 }
@@ -203,5 +203,11 @@ public interface ExecPreparedStatement
 	 */
 	void setDatasetProcessorType(CompilerContext.DataSetProcessorType type);
 
+	/**
+	 * @return the heap conglomerates of the tables this statement reads, or null if its results depend on
+	 * anything other than the contents of those tables and its parameters
+	 */
+	long[] getReadConglomerates();
+
 }
 
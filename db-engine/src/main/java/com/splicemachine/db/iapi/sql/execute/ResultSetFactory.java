@@ -1745,6 +1745,7 @@ public interface ResultSetFactory {
 									  String encoding,
 									  String fieldSeparator,
 									  String quoteChar,
+									  String format,
 									  int srcResultDescriptionSavedObjectNum) throws StandardException;
 
     /**
@@ -32,6 +32,7 @@
 package com.splicemachine.db.impl.jdbc;
 
 import com.splicemachine.db.iapi.sql.compile.CompilerContext;
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
 import com.splicemachine.db.iapi.util.StringUtil;
 import com.splicemachine.db.jdbc.InternalDriver;
 
@@ -133,6 +134,9 @@ public final class TransactionResourceImpl
 	private String url;
 	private String drdaID;
     private CompilerContext.DataSetProcessorType useSpark;
+    private int controlScanParallelism;
+    private long broadcastFallbackRowThreshold;
+    private JoinOrderEnumeration joinOrderEnumeration;
 
 	// set these up after constructor, called by EmbedConnection
 	protected Database database;
@@ -167,6 +171,35 @@ public final class TransactionResourceImpl
             }
         } else
             useSpark = CompilerContext.DataSetProcessorType.DEFAULT_CONTROL;
+        String parallelismString = info.getProperty("controlScanParallelism",null);
+        if (parallelismString != null) {
+            try {
+                controlScanParallelism = Integer.parseInt(parallelismString.trim());
+            } catch (NumberFormatException nfe) {
+                controlScanParallelism = -1;
+            }
+            if (controlScanParallelism < 1)
+                throw new SQLException(StandardException.newException(SQLState.INVALID_ATTRIBUTE,
+                        "controlScanParallelism", parallelismString, "a positive integer"));
+        }
+        String fallbackString = info.getProperty("broadcastFallbackRowThreshold",null);
+        if (fallbackString != null) {
+            try {
+                broadcastFallbackRowThreshold = Long.parseLong(fallbackString.trim());
+            } catch (NumberFormatException nfe) {
+                broadcastFallbackRowThreshold = -1;
+            }
+            if (broadcastFallbackRowThreshold < 1)
+                throw new SQLException(StandardException.newException(SQLState.INVALID_ATTRIBUTE,
+                        "broadcastFallbackRowThreshold", fallbackString, "a positive integer"));
+        }
+        String joinOrderString = info.getProperty("joinOrderEnumeration",null);
+        if (joinOrderString != null) {
+            joinOrderEnumeration = JoinOrderEnumeration.fromHint(joinOrderString.trim());
+            if (joinOrderEnumeration == null)
+                throw new SQLException(StandardException.newException(SQLState.INVALID_ATTRIBUTE,
+                        "joinOrderEnumeration", joinOrderString, "auto, permutation, dp or greedy"));
+        }
 
 		// make a new context manager for this TransactionResource
 
@@ -205,6 +238,9 @@ public final class TransactionResourceImpl
 	{
 		// setting up local connection
 		lcc = database.setupConnection(cm, username, drdaID, dbname,useSpark);
+		lcc.setControlScanParallelism(controlScanParallelism);
+		lcc.setBroadcastFallbackRowThreshold(broadcastFallbackRowThreshold);
+		lcc.setJoinOrderEnumeration(joinOrderEnumeration);
 	}
 
 	/**
@@ -160,6 +160,8 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
     private boolean hasXPlainTableOrProcedure;
 
     private CompilerContext.DataSetProcessorType datasetProcessorType;
+
+    private long[] readConglomerates;
     //
     // constructors
     //
@@ -1089,6 +1091,7 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         clone.updateColumns = updateColumns;
         clone.updateMode = updateMode;
         clone.needsSavepoint = needsSavepoint;
+        clone.readConglomerates = readConglomerates;
     }
 
     @Override
@@ -1146,4 +1149,13 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
     public void setDatasetProcessorType(CompilerContext.DataSetProcessorType datasetProcessorType) {
         this.datasetProcessorType = datasetProcessorType;
     }
+
+    @Override
+    public long[] getReadConglomerates() {
+        return readConglomerates;
+    }
+
+    public void setReadConglomerates(long[] readConglomerates) {
+        this.readConglomerates = readConglomerates;
+    }
 }
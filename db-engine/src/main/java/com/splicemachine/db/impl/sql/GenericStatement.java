@@ -650,6 +650,7 @@ public class GenericStatement implements Statement{
             preparedStmt.setNeedsSavepoint(qt.needsSavepoint());
             preparedStmt.setCursorInfo((CursorInfo)cc.getCursorInfo());
             preparedStmt.setIsAtomic(qt.isAtomic());
+            preparedStmt.setReadConglomerates(cc.getReadConglomerates());
             preparedStmt.setExecuteStatementNameAndSchema(qt.executeStatementName(), qt.executeSchemaName());
             preparedStmt.setSPSName(qt.getSPSName());
             preparedStmt.completeCompile(qt);
@@ -538,6 +538,11 @@ public class AggregateNode extends UnaryOperatorNode
                 temp2.setWindowFunction(isWindowFunction);
             }
 
+            if (instance instanceof ApproximateAggregateDefinition)
+            {
+                ((ApproximateAggregateDefinition)instance).setAggregateName(aggregateName);
+            }
+
             this.uad = (AggregateDefinition)instance;
         }
 		setOperator(aggregateName);
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Some parts of this source code are based on Apache Derby, and the following notices apply to
+ * Apache Derby:
+ *
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified the Apache Derby code in this file.
+ *
+ * All such Splice Machine modifications are Copyright 2012 - 2017 Splice Machine, Inc.,
+ * and are licensed to you under the GNU Affero General Public License.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.iapi.reference.ClassName;
+import com.splicemachine.db.iapi.reference.Limits;
+import com.splicemachine.db.iapi.services.context.ContextService;
+import com.splicemachine.db.iapi.sql.compile.AggregateDefinition;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.TypeId;
+
+/**
+ * Definition for the APPROX_COUNT_DISTINCT(), APPROX_PERCENTILE() and
+ * APPROX_TOP_K() aggregates, which are computed over sketches.
+ *
+ */
+public class ApproximateAggregateDefinition
+		implements AggregateDefinition
+{
+	public static final String COUNT_DISTINCT = "APPROX_COUNT_DISTINCT";
+	public static final String PERCENTILE = "APPROX_PERCENTILE";
+	public static final String TOP_K = "APPROX_TOP_K";
+	/** The largest number of values APPROX_TOP_K() returns, its result has to fit in a VARCHAR */
+	public static final int MAX_TOP_K = 1024;
+
+	private String aggregateName;
+
+	/**
+	 * Niladic constructor.  Does nothing.  For ease
+	 * Of use, only.
+	 */
+	public ApproximateAggregateDefinition() { super(); }
+
+	/**
+	 * @return true if {@code functionName} names one of the approximate aggregates
+	 */
+	public static boolean isApproximateAggregate(String functionName)
+	{
+		return COUNT_DISTINCT.equals(functionName) || PERCENTILE.equals(functionName) || TOP_K.equals(functionName);
+	}
+
+	/**
+	 * Determines the result datatype.  The input has to be
+	 * orderable; APPROX_COUNT_DISTINCT returns a BIGINT,
+	 * APPROX_PERCENTILE the input type and APPROX_TOP_K a
+	 * VARCHAR listing the most frequent values.
+	 *
+	 * @param inputType	the input type, either a user type or a java.lang object
+	 *
+	 * @return the output Class (null if cannot operate on
+	 *	value expression of this type.
+	 */
+	public final DataTypeDescriptor	getAggregator(DataTypeDescriptor inputType,
+				StringBuffer aggregatorClass)
+	{
+		LanguageConnectionContext lcc = (LanguageConnectionContext)
+			ContextService.getContext(LanguageConnectionContext.CONTEXT_ID);
+
+		TypeId compType = inputType.getTypeId();
+		if (!compType.orderable(lcc.getLanguageConnectionFactory().getClassFactory()))
+			return null;
+
+		if (aggregateName.startsWith(COUNT_DISTINCT))
+		{
+			aggregatorClass.append(ClassName.ApproxCountDistinctAggregator);
+			return DataTypeDescriptor.getBuiltInDataTypeDescriptor(java.sql.Types.BIGINT, false);
+		}
+		if (aggregateName.startsWith(PERCENTILE))
+		{
+			aggregatorClass.append(ClassName.ApproxPercentileAggregator);
+			return inputType.getNullabilityType(true);
+		}
+		aggregatorClass.append(ClassName.ApproxTopKAggregator);
+		return DataTypeDescriptor.getBuiltInDataTypeDescriptor(java.sql.Types.VARCHAR, true, Limits.DB2_VARCHAR_MAXWIDTH);
+	}
+
+	/**
+	 * This is set by the parser.
+	 */
+	public final void setAggregateName(String aggregateName)
+	{
+		this.aggregateName = aggregateName;
+	}
+}
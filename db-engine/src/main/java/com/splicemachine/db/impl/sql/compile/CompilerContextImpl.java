@@ -137,6 +137,8 @@ public class CompilerContextImpl extends ContextImpl
         referencedSequences = null;
         dataSetProcessorType = DataSetProcessorType.DEFAULT_CONTROL;
         skipStatsTableList.clear();
+        readConglomerates.clear();
+        nonDeterministic = false;
 	}
 
 	//
@@ -1038,6 +1040,8 @@ public class CompilerContextImpl extends ContextImpl
 	private HashMap requiredUsagePrivileges;
 	private HashMap requiredRolePrivileges;
     private HashMap referencedSequences;
+    private final Set<Long> readConglomerates = new HashSet<>();
+    private boolean nonDeterministic;
     private DataSetProcessorType dataSetProcessorType = DataSetProcessorType.DEFAULT_CONTROL;
 
     @Override
@@ -1059,4 +1063,26 @@ public class CompilerContextImpl extends ContextImpl
 	public Vector<Integer> getSkipStatsTableList() {
     	return skipStatsTableList;
 	}
+
+	@Override
+	public void addReadConglomerate(long conglomerateId) {
+		readConglomerates.add(conglomerateId);
+	}
+
+	@Override
+	public void setNonDeterministic() {
+		nonDeterministic = true;
+	}
+
+	@Override
+	public long[] getReadConglomerates() {
+		if (nonDeterministic || referencedSequences != null)
+			return null;
+		long[] conglomerates = new long[readConglomerates.size()];
+		int i = 0;
+		for (Long conglomerateId : readConglomerates)
+			conglomerates[i++] = conglomerateId;
+		Arrays.sort(conglomerates);
+		return conglomerates;
+	}
 } // end of class CompilerContextImpl
@@ -51,10 +51,13 @@ import java.util.List;
  * EXAMPLE:
  * <p/>
  * EXPORT('/dir', true, 3, 'utf-8', ',', '"') select a, b, sqrt(c) from table1 where a > 100;
+ * <p/>
+ * An optional seventh argument names the format of the exported files: 'csv' (the default), 'parquet' or 'orc'.
  */
 public class ExportNode extends DMLStatementNode {
 
     private static final int EXPECTED_ARGUMENT_COUNT = 6;
+    private static final int MAX_ARGUMENT_COUNT = 7;
     public static final int DEFAULT_INT_VALUE = Integer.MIN_VALUE;
 
     private StatementNode node;
@@ -65,6 +68,7 @@ public class ExportNode extends DMLStatementNode {
     private String encoding;
     private String fieldSeparator;
     private String quoteCharacter;
+    private String format;
 
     @Override
     int activationKind() {
@@ -78,7 +82,9 @@ public class ExportNode extends DMLStatementNode {
 
     @Override
     public void init(Object statementNode, Object argumentsVector) throws StandardException {
-        if (!(argumentsVector instanceof List) || ((List) argumentsVector).size() != EXPECTED_ARGUMENT_COUNT) {
+        if (!(argumentsVector instanceof List)
+                || ((List) argumentsVector).size() < EXPECTED_ARGUMENT_COUNT
+                || ((List) argumentsVector).size() > MAX_ARGUMENT_COUNT) {
             throw StandardException.newException(SQLState.LANG_DB2_NUMBER_OF_ARGS_INVALID, "EXPORT");
         }
         List argsList = (List) argumentsVector;
@@ -90,6 +96,7 @@ public class ExportNode extends DMLStatementNode {
         this.encoding = stringValue(argsList.get(3));
         this.fieldSeparator = stringValue(argsList.get(4));
         this.quoteCharacter = stringValue(argsList.get(5));
+        this.format = argsList.size() > EXPECTED_ARGUMENT_COUNT ? stringValue(argsList.get(6)) : "";
     }
 
     @Override
@@ -116,11 +123,12 @@ public class ExportNode extends DMLStatementNode {
         mb.push(encoding);
         mb.push(fieldSeparator);
         mb.push(quoteCharacter);
+        mb.push(format);
 
         /* Save result description of source node for use in export formatting. */
         mb.push(acb.addItem(node.makeResultDescription()));
 
-        mb.callMethod(VMOpcode.INVOKEINTERFACE, null, "getExportResultSet", ClassName.NoPutResultSet, 10);
+        mb.callMethod(VMOpcode.INVOKEINTERFACE, null, "getExportResultSet", ClassName.NoPutResultSet, 11);
     }
 
     @Override
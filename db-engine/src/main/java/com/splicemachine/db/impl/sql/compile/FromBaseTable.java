@@ -1115,6 +1115,10 @@ public class FromBaseTable extends FromTable {
         }else{
 			/* This represents a table - query is dependent on the TableDescriptor */
             compilerContext.createDependency(tableDescriptor);
+            if(tableDescriptor.getStoredAs()!=null)
+                compilerContext.setNonDeterministic();
+            else
+                compilerContext.addReadConglomerate(tableDescriptor.getHeapConglomerateId());
 
 			/* Get the base conglomerate descriptor */
             baseConglomerateDescriptor= tableDescriptor.getConglomerateDescriptor(tableDescriptor.getHeapConglomerateId());
@@ -35,6 +35,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.services.sanity.SanityManager;
 import com.splicemachine.db.iapi.sql.compile.C_NodeTypes;
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
 import com.splicemachine.db.iapi.sql.compile.Optimizable;
 import com.splicemachine.db.iapi.sql.compile.OptimizableList;
 import com.splicemachine.db.iapi.sql.compile.Optimizer;
@@ -55,6 +56,8 @@ public class FromList extends QueryTreeNodeVector<QueryTreeNode> implements Opti
     boolean fixedJoinOrder=true;
     // true by default.
     boolean useStatistics=true;
+    // null unless specified through the joinOrderEnumeration property
+    JoinOrderEnumeration joinOrderEnumeration;
 
     // FromList could have a view in it's list. If the view is defined in SESSION
     // schema, then we do not want to cache the statement's plan. This boolean
@@ -756,6 +759,12 @@ public class FromList extends QueryTreeNodeVector<QueryTreeNode> implements Opti
                         throw StandardException.newException(SQLState.LANG_INVALID_STATISTICS_SPEC,value);
                     }
                     break;
+                case "joinOrderEnumeration":
+                    joinOrderEnumeration=JoinOrderEnumeration.fromHint(value);
+                    if(joinOrderEnumeration==null){
+                        throw StandardException.newException(SQLState.LANG_INVALID_FROM_LIST_PROPERTY,key,value);
+                    }
+                    break;
                 default:
                     throw StandardException.newException(SQLState.LANG_INVALID_FROM_LIST_PROPERTY,key,value);
             }
@@ -824,6 +833,11 @@ public class FromList extends QueryTreeNodeVector<QueryTreeNode> implements Opti
         return !fixedJoinOrder;
     }
 
+    @Override
+    public JoinOrderEnumeration getJoinOrderEnumeration(){
+        return joinOrderEnumeration;
+    }
+
     @Override
     public boolean legalJoinOrder(int numTablesInQuery){
         JBitSet assignedTableMap=new JBitSet(numTablesInQuery);
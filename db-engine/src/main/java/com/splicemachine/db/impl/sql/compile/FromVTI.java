@@ -239,22 +239,24 @@ public class FromVTI extends FromTable implements VTIEnvironment {
 		 * NOTE: We only cost the VTI once.
 		 */
         if (implementsVTICosting) {
-            try {
-                VTICosting vtic = getVTICosting();
-                estimatedCost = vtic.getEstimatedCostPerInstantiation(this);
-                estimatedRowCount = vtic.getEstimatedRowCount(this);
-                supportsMultipleInstantiations = vtic.supportsMultipleInstantiations(this);
-                costEstimate.setEstimatedCost(estimatedCost);
-                costEstimate.setRowCount(estimatedRowCount);
-                costEstimate.setSingleScanRowCount(estimatedRowCount);
-                costEstimate.setLocalCost(estimatedCost);
-                costEstimate.setRemoteCost(estimatedCost);
-            }
-            catch (SQLException sqle)
-            {
-                throw StandardException.unexpectedUserException(sqle);
+            if (!vtiCosted) {
+                try {
+                    VTICosting vtic = getVTICosting();
+                    estimatedCost = vtic.getEstimatedCostPerInstantiation(this);
+                    estimatedRowCount = vtic.getEstimatedRowCount(this);
+                    supportsMultipleInstantiations = vtic.supportsMultipleInstantiations(this);
+                }
+                catch (SQLException sqle)
+                {
+                    throw StandardException.unexpectedUserException(sqle);
+                }
+                vtiCosted = true;
             }
-            vtiCosted = true;
+            costEstimate.setEstimatedCost(estimatedCost);
+            costEstimate.setRowCount(estimatedRowCount);
+            costEstimate.setSingleScanRowCount(estimatedRowCount);
+            costEstimate.setLocalCost(estimatedCost);
+            costEstimate.setRemoteCost(estimatedCost);
         }
 
         AccessPath currentAccessPath=getCurrentAccessPath();
@@ -503,6 +505,9 @@ public class FromVTI extends FromTable implements VTIEnvironment {
 
         LanguageConnectionContext lcc = getLanguageConnectionContext();
 
+        // the rows of a table function don't come from tables we can track
+        getCompilerContext().setNonDeterministic();
+
 		/* NOTE - setting of table number moved to FromList.bindTables()
 		 * in order to avoid an ordering problem with join columns in
 		 * parameters.
@@ -532,7 +537,8 @@ public class FromVTI extends FromTable implements VTIEnvironment {
 
         if ( isDerbyStyleTableFunction ) {
             Method boundMethod = (Method) methodCall.getResolvedMethod();
-            isRestrictedTableFunction = RestrictedVTI.class.isAssignableFrom( boundMethod.getReturnType() );
+            isRestrictedTableFunction = RestrictedVTI.class.isAssignableFrom( boundMethod.getReturnType() ) ||
+                    implementsSpliceRestrictedVTI( routineInfo, methodCall.getJavaClassName() );
             implementsVTICosting = implementsDerbyStyleVTICosting( methodCall.getJavaClassName() );
         }
 
@@ -549,6 +555,7 @@ public class FromVTI extends FromTable implements VTIEnvironment {
                 throw StandardException.newException(SQLState.LANG_DOES_NOT_IMPLEMENT,
                         getVTIName(),DATASET_PROVIDER);
             implementsVTICosting = constructor.assignableTo(ClassName.VTICosting);
+            isRestrictedTableFunction = constructor.assignableTo(RestrictedVTI.class.getName());
         }
 
 
@@ -1710,6 +1717,29 @@ public class FromVTI extends FromTable implements VTIEnvironment {
                 ( SQLState.LANG_NO_COSTING_CONSTRUCTOR, className );
     }
 
+    /**
+     * Return true if this is a SPLICE_JDBC_RESULT_SET table function whose
+     * declaring class implements RestrictedVTI. Such functions are declared to
+     * return a DatasetProvider, so the bound method's return type cannot tell us
+     * whether the projection and restriction can be pushed down.
+     */
+    private boolean implementsSpliceRestrictedVTI( RoutineAliasInfo routineInfo, String className )
+            throws StandardException
+    {
+        if ( routineInfo.getParameterStyle() != RoutineAliasInfo.PS_SPLICE_JDBC_RESULT_SET ) { return false; }
+
+        Class           vtiClass = lookupClass( className );
+        Class           restrictedVTIClass = lookupClass( RestrictedVTI.class.getName() );
+
+        try {
+            return restrictedVTIClass.isAssignableFrom( vtiClass );
+        }
+        catch (Throwable t)
+        {
+            throw StandardException.unexpectedUserException( t );
+        }
+    }
+
     /**
      * Get the VTICosting implementation for this optimizable VTI.
      */
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
+import com.splicemachine.db.iapi.sql.compile.Optimizable;
+import com.splicemachine.db.iapi.sql.compile.OptimizableList;
+import com.splicemachine.db.iapi.sql.compile.OptimizablePredicate;
+import com.splicemachine.db.iapi.sql.compile.OptimizablePredicateList;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.util.JBitSet;
+
+import java.util.Arrays;
+
+/**
+ * Picks a (left-deep) join order for a FROM list without walking the join order permutations.
+ *
+ * The join graph is built from the optimizer's predicate list: two optimizables are connected when a
+ * predicate references both of them, and the edge carries the predicate's join selectivity. The base
+ * cardinality of each optimizable is the single scan row count of its best access path, as costed by the
+ * optimizer. A join order is then scored by the sum of the cardinalities of its intermediate results, and
+ * the cheapest order is found either with dynamic programming over the connected subsets of the graph or,
+ * for large FROM lists, greedily.
+ *
+ * The resulting order is only a proposal: the optimizer still costs it (access paths and join strategies)
+ * through the regular {@code CostEstimate} machinery before accepting it.
+ */
+class JoinOrderEnumerator{
+    /** Beyond this many optimizables, dynamic programming is never used regardless of what was asked for */
+    static final int MAX_DP_OPTIMIZABLES=20;
+    /** The join graph is kept in long bitmaps, so larger FROM lists are left to the permutation search */
+    static final int MAX_OPTIMIZABLES=Long.SIZE-1;
+
+    private final OptimizableList optimizableList;
+    private final int numOptimizables;
+    private final double[] rowCounts;
+    private final double[][] selectivity;
+    private final long[] neighbors;
+    private final JBitSet scratchMap;
+    private double cost=Double.MAX_VALUE;
+
+    JoinOrderEnumerator(OptimizableList optimizableList,
+                        OptimizablePredicateList predicateList,
+                        double[] rowCounts,
+                        int numTablesInQuery) throws StandardException{
+        this.optimizableList=optimizableList;
+        this.numOptimizables=optimizableList.size();
+        this.rowCounts=new double[numOptimizables];
+        for(int i=0;i<numOptimizables;i++){
+            this.rowCounts[i]=Math.max(1.0d,rowCounts[i]);
+        }
+        this.selectivity=new double[numOptimizables][numOptimizables];
+        for(double[] row : selectivity){
+            Arrays.fill(row,1.0d);
+        }
+        this.neighbors=new long[numOptimizables];
+        this.scratchMap=new JBitSet(numTablesInQuery);
+        buildJoinGraph(predicateList);
+    }
+
+    /**
+     * Pick the join order enumeration strategy for a FROM list.
+     *
+     * @param requested the strategy asked for by the FROM list hint or the session, or {@code null} for AUTO
+     * @param numOptimizables the size of the FROM list
+     * @param dpThreshold minimum FROM list size for which AUTO picks dynamic programming
+     * @param greedyThreshold FROM list size beyond which AUTO picks the greedy strategy
+     * @param optimizeJoinOrder false if the join order of the FROM list is fixed
+     * @return the strategy to use, never AUTO
+     */
+    static JoinOrderEnumeration resolve(JoinOrderEnumeration requested,
+                                        int numOptimizables,
+                                        int dpThreshold,
+                                        int greedyThreshold,
+                                        boolean optimizeJoinOrder){
+        JoinOrderEnumeration mode=requested;
+        if(mode==null || mode==JoinOrderEnumeration.AUTO){
+            if(numOptimizables<dpThreshold)
+                mode=JoinOrderEnumeration.PERMUTATION;
+            else if(numOptimizables<=greedyThreshold)
+                mode=JoinOrderEnumeration.DYNAMIC_PROGRAMMING;
+            else
+                mode=JoinOrderEnumeration.GREEDY;
+        }
+        if(mode==JoinOrderEnumeration.DYNAMIC_PROGRAMMING && numOptimizables>MAX_DP_OPTIMIZABLES)
+            mode=JoinOrderEnumeration.GREEDY;
+        if(numOptimizables<=2 || numOptimizables>MAX_OPTIMIZABLES || !optimizeJoinOrder)
+            mode=JoinOrderEnumeration.PERMUTATION;
+        return mode;
+    }
+
+    /**
+     * @return the estimated cost (sum of intermediate result sizes) of the last join order returned.
+     */
+    double getCost(){
+        return cost;
+    }
+
+    /**
+     * Find the cheapest legal join order with dynamic programming. Subsets of the FROM list are only
+     * extended with optimizables connected to them, unless no connected optimizable is left (in which
+     * case a cartesian product can't be avoided).
+     *
+     * @return the join order, or {@code null} if no legal join order was found.
+     */
+    int[] dynamicProgramming(){
+        assert numOptimizables<=MAX_DP_OPTIMIZABLES: "Too many optimizables for dynamic programming";
+        int full=(1<<numOptimizables)-1;
+        double[] bestCost=new double[full+1];
+        double[] cardinality=new double[full+1];
+        int[] neighborMap=new int[full+1];
+        byte[] lastOptimizable=new byte[full+1];
+        Arrays.fill(bestCost,Double.MAX_VALUE);
+        Arrays.fill(cardinality,-1.0d);
+
+        for(int i=0;i<numOptimizables;i++){
+            if(!isLegal(i,0))
+                continue;
+            int set=1<<i;
+            bestCost[set]=rowCounts[i];
+            cardinality[set]=rowCounts[i];
+            neighborMap[set]=(int)neighbors[i];
+            lastOptimizable[set]=(byte)i;
+        }
+
+        // every proper subset of a set is numerically smaller than the set itself
+        for(int set=1;set<full;set++){
+            if(bestCost[set]==Double.MAX_VALUE)
+                continue;
+            int frontier=neighborMap[set] & ~set;
+            for(int next=0;next<numOptimizables;next++){
+                int bit=1<<next;
+                if((set & bit)!=0)
+                    continue;
+                if(frontier!=0 && (frontier & bit)==0)
+                    continue;
+                if(!isLegal(next,set))
+                    continue;
+                int newSet=set|bit;
+                if(cardinality[newSet]<0){
+                    cardinality[newSet]=joinCardinality(cardinality[set],set,next);
+                    neighborMap[newSet]=neighborMap[set]|(int)neighbors[next];
+                }
+                double newCost=bestCost[set]+rowCounts[next]+cardinality[newSet];
+                if(newCost<bestCost[newSet]){
+                    bestCost[newSet]=newCost;
+                    lastOptimizable[newSet]=(byte)next;
+                }
+            }
+        }
+
+        if(bestCost[full]==Double.MAX_VALUE)
+            return null;
+        cost=bestCost[full];
+        int[] joinOrder=new int[numOptimizables];
+        int set=full;
+        for(int pos=numOptimizables-1;pos>=0;pos--){
+            int opt=lastOptimizable[set];
+            joinOrder[pos]=opt;
+            set&=~(1<<opt);
+        }
+        return joinOrder;
+    }
+
+    /**
+     * Build a join order greedily from every legal starting optimizable, always adding the connected
+     * optimizable which keeps the intermediate result smallest, and keep the cheapest of those orders.
+     *
+     * @return the join order, or {@code null} if no legal join order was found.
+     */
+    int[] greedy(){
+        int[] bestOrder=null;
+        double best=Double.MAX_VALUE;
+        int[] joinOrder=new int[numOptimizables];
+        for(int start=0;start<numOptimizables;start++){
+            if(!isLegal(start,0))
+                continue;
+            long set=1L<<start;
+            long neighborSet=neighbors[start];
+            double card=rowCounts[start];
+            double total=rowCounts[start];
+            joinOrder[0]=start;
+            int pos=1;
+            for(;pos<numOptimizables;pos++){
+                long frontier=neighborSet & ~set;
+                int choice=-1;
+                double choiceCard=Double.MAX_VALUE;
+                for(int next=0;next<numOptimizables;next++){
+                    long bit=1L<<next;
+                    if((set & bit)!=0 || (frontier!=0 && (frontier & bit)==0))
+                        continue;
+                    if(!isLegal(next,set))
+                        continue;
+                    double nextCard=joinCardinality(card,set,next);
+                    if(nextCard<choiceCard){
+                        choiceCard=nextCard;
+                        choice=next;
+                    }
+                }
+                if(choice<0)
+                    break;
+                joinOrder[pos]=choice;
+                set|=1L<<choice;
+                neighborSet|=neighbors[choice];
+                card=choiceCard;
+                total+=rowCounts[choice]+card;
+                if(total>=best)
+                    break;
+            }
+            if(pos==numOptimizables && total<best){
+                best=total;
+                bestOrder=joinOrder.clone();
+            }
+        }
+        if(bestOrder!=null)
+            cost=best;
+        return bestOrder;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void buildJoinGraph(OptimizablePredicateList predicateList) throws StandardException{
+        if(predicateList==null)
+            return;
+        for(int p=0;p<predicateList.size();p++){
+            OptimizablePredicate pred=predicateList.getOptPredicate(p);
+            JBitSet referenced=pred.getReferencedMap();
+            if(referenced==null)
+                continue;
+            int outer=-1;
+            int inner=-1;
+            boolean binary=true;
+            for(int i=0;i<numOptimizables && binary;i++){
+                if(!referenced.intersects(optimizableList.getOptimizable(i).getReferencedTableMap()))
+                    continue;
+                if(outer<0)
+                    outer=i;
+                else if(inner<0)
+                    inner=i;
+                else
+                    binary=false;
+            }
+            if(!binary || inner<0)
+                continue;
+
+            Optimizable innerTable=optimizableList.getOptimizable(inner);
+            ConglomerateDescriptor cd=innerTable.getBestAccessPath()==null?null:
+                    innerTable.getBestAccessPath().getConglomerateDescriptor();
+            double sel=pred.joinSelectivity(innerTable,cd,(long)rowCounts[inner],(long)rowCounts[outer],
+                    SelectivityUtil.SelectivityJoinType.INNER);
+            if(!(sel>0.0d) || sel>1.0d)
+                sel=1.0d;
+            selectivity[outer][inner]*=sel;
+            selectivity[inner][outer]*=sel;
+            neighbors[outer]|=1L<<inner;
+            neighbors[inner]|=1L<<outer;
+        }
+    }
+
+    private double joinCardinality(double outerCardinality,long outerSet,int next){
+        double card=outerCardinality*rowCounts[next];
+        for(int i=0;i<numOptimizables;i++){
+            if((outerSet & (1L<<i))!=0)
+                card*=selectivity[next][i];
+        }
+        return Math.max(1.0d,card);
+    }
+
+    private boolean isLegal(int next,long outerSet){
+        scratchMap.clearAll();
+        for(int i=0;i<numOptimizables;i++){
+            if((outerSet & (1L<<i))!=0)
+                scratchMap.or(optimizableList.getOptimizable(i).getReferencedTableMap());
+        }
+        return optimizableList.getOptimizable(next).legalJoinOrder(scratchMap);
+    }
+}
@@ -33,6 +33,7 @@ package com.splicemachine.db.impl.sql.compile;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.compile.CostEstimate;
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
 import com.splicemachine.db.iapi.sql.compile.JoinStrategy;
 import com.splicemachine.db.iapi.sql.compile.OptimizableList;
 import com.splicemachine.db.iapi.sql.compile.OptimizablePredicateList;
@@ -100,6 +101,11 @@ public class Level2OptimizerImpl extends OptimizerImpl{
         return new Level2CostEstimateImpl(theCost,theRowCount,theSingleScanRowCount);
     }
 
+    @Override
+    protected JoinOrderEnumeration getSessionJoinOrderEnumeration(){
+        return lcc.getJoinOrderEnumeration();
+    }
+
     @Override
     public OptimizerTrace tracer(){
         if(tracer==null){
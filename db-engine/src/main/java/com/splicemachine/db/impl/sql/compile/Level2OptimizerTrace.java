@@ -37,6 +37,8 @@ import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.IndexRowGenerator;
 
+import java.util.Arrays;
+
 /**
  * @author Scott Fines
  *         Date: 4/3/15
@@ -119,6 +121,10 @@ public class Level2OptimizerTrace implements OptimizerTrace{
             case USER_JOIN_ORDER_OPTIMIZED:
                 traceString="User-specified join order has now been optimized.";
                 break;
+            case JOIN_ORDER_ENUMERATED:
+                traceString="Join order enumerated by "+objectParam1+" in "+objectParam2+" ms: "+
+                    Arrays.toString((int[])objectParam3)+", estimated intermediate rows: "+doubleParam;
+                break;
             case CONSIDERING_JOIN_ORDER:
                 traceString=buildJoinOrder("Considering join order: ",false,intParam1,optimizer.proposedJoinOrder);
                 break;
@@ -97,6 +97,12 @@ public class OptimizerImpl implements Optimizer{
     private boolean desiredJoinOrderFound;
     private int permuteState;
     private int[] firstLookOrder;
+    /* How the join order to jump to is picked; resolved when the first join order is requested */
+    private JoinOrderEnumeration joinOrderEnumeration;
+    /* True while jumping to a join order picked by the JoinOrderEnumerator */
+    private boolean jumpingToEnumeratedOrder;
+    /* True once the enumerated join order has been costed, which ends the search */
+    private boolean enumeratedJoinOrderFound;
 
     protected boolean ruleBasedOptimization;
 
@@ -331,6 +337,12 @@ public class OptimizerImpl implements Optimizer{
 		 * phase in certain situations.  DERBY-1866.
 		 */
         desiredJoinOrderFound=false;
+
+        // Likewise, jump to the enumerated join order again in the next round
+        enumeratedJoinOrderFound=false;
+        jumpingToEnumeratedOrder=false;
+        if(joinOrderEnumeration!=null && joinOrderEnumeration!=JoinOrderEnumeration.PERMUTATION)
+            permuteState=READY_TO_JUMP;
     }
 
     @Override
@@ -354,6 +366,8 @@ public class OptimizerImpl implements Optimizer{
 		 * references the optimizer.)
 		 */
         optimizableList.initAccessPaths(this);
+        if(joinOrderEnumeration==null)
+            resolveJoinOrderEnumeration();
         //check whether or not optimization time has been exceeded
         checkTimeout();
 
@@ -518,6 +532,7 @@ public class OptimizerImpl implements Optimizer{
             reloadBestPlan=true;
             rewindJoinOrder();  //fall
             permuteState=NO_JUMP;  //give up
+            jumpingToEnumeratedOrder=false;
         }
 
 		/*
@@ -540,7 +555,7 @@ public class OptimizerImpl implements Optimizer{
                 pullOptimizableFromJoinOrder();
             }
 
-            if(desiredJoinOrderFound || timeExceeded){
+            if(desiredJoinOrderFound || timeExceeded || enumeratedJoinOrderFound){
 				/*
 				** If the desired join order has been found (which will happen
 				** if the user specifies a join order), pretend that there are
@@ -548,7 +563,8 @@ public class OptimizerImpl implements Optimizer{
 				** us to back out of the current join order.
 				**
 				** Also, don't look at any more join orders if we have taken
-				** too much time with this optimization.
+				** too much time with this optimization, or if we have already
+				** costed the join order picked by the join order enumerator.
 				*/
                 nextOptimizable=numOptimizables;
             }else if(permuteState==JUMPING){  //still jumping
@@ -648,6 +664,7 @@ public class OptimizerImpl implements Optimizer{
                             rewindJoinOrder();
                         }
                         permuteState=NO_JUMP;
+                        jumpingToEnumeratedOrder=false;
                         break;
                     }
                 }
@@ -669,6 +686,13 @@ public class OptimizerImpl implements Optimizer{
                     // We walk the "high" first, then fall back and
                     // walk the "low".
                     permuteState=WALK_HIGH;
+
+                    // An enumerated join order has already been chosen over
+                    // the other permutations, so once it is costed we're done
+                    if(jumpingToEnumeratedOrder){
+                        jumpingToEnumeratedOrder=false;
+                        enumeratedJoinOrderFound=true;
+                    }
                 }
             }else{
 				/* Find the next unused table at this join position */
@@ -760,21 +784,20 @@ public class OptimizerImpl implements Optimizer{
                         }
                         rc[i]=ce.singleScanRowCount();
                     }
+                    if(permuteState==JUMPING && joinOrderEnumeration!=JoinOrderEnumeration.PERMUTATION){
+                        // The enumerator needs all of the join predicates, so
+                        // get them back from the optimizables first.  If no order
+                        // could be enumerated, jump to the row count order (even
+                        // if it is the one we just costed, as we're back on the
+                        // ground now).
+                        joinPosition--;
+                        rewindJoinOrder();  //jump from ground
+                        if(!enumerateJoinOrder(rc))
+                            sortByRowCount(rc);
+                        continue;
+                    }
                     if(permuteState==JUMPING){
-                        boolean doIt=false;
-                        int temp;
-                        for(int i=0;i<numOptimizables;i++){    //simple selection sort
-                            int k=i;
-                            for(int j=i+1;j<numOptimizables;j++)
-                                if(rc[j]<rc[k]) k=j;
-                            if(k!=i){
-                                rc[k]=rc[i];    //destroy the bridge
-                                temp=firstLookOrder[i];
-                                firstLookOrder[i]=firstLookOrder[k];
-                                firstLookOrder[k]=temp;
-                                doIt=true;
-                            }
-                        }
+                        boolean doIt=sortByRowCount(rc);
 
                         if(doIt){
                             joinPosition--;
@@ -2361,6 +2384,77 @@ public class OptimizerImpl implements Optimizer{
         return optimizable.estimateCost(predList, cd, outerCost,this, currentRowOrdering);
     }
 
+    /**
+     * Decide how the join order to jump to is picked, using the FROM list's hint if there is one, then the
+     * session's setting, and the number of optimizables otherwise. Any mode other than {@link JoinOrderEnumeration#PERMUTATION} makes
+     * us jump even for FROM lists too small to trigger the row count heuristic.
+     */
+    private void resolveJoinOrderEnumeration(){
+        JoinOrderEnumeration mode=optimizableList.getJoinOrderEnumeration();
+        if(mode==null || mode==JoinOrderEnumeration.AUTO)
+            mode=getSessionJoinOrderEnumeration();
+        mode=JoinOrderEnumerator.resolve(mode,
+                numOptimizables,
+                getDPJoinEnumerationThreshold(),
+                getGreedyJoinEnumerationThreshold(),
+                optimizableList.optimizeJoinOrder());
+        joinOrderEnumeration=mode;
+
+        if(mode!=JoinOrderEnumeration.PERMUTATION && permuteState==NO_JUMP && joinPosition<0){
+            permuteState=READY_TO_JUMP;
+            if(firstLookOrder==null)
+                firstLookOrder=new int[numOptimizables];
+        }
+    }
+
+    /**
+     * Put the join order picked by the {@link JoinOrderEnumerator} into firstLookOrder.
+     *
+     * @param rowCounts the single scan row count of each optimizable's best access path
+     * @return true if a join order was found
+     */
+    private boolean enumerateJoinOrder(double[] rowCounts) throws StandardException{
+        long start=System.currentTimeMillis();
+        JoinOrderEnumerator enumerator=new JoinOrderEnumerator(optimizableList,predicateList,rowCounts,numTablesInQuery);
+        int[] joinOrder=joinOrderEnumeration==JoinOrderEnumeration.DYNAMIC_PROGRAMMING?
+                enumerator.dynamicProgramming():enumerator.greedy();
+        if(joinOrder==null)
+            return false;
+        System.arraycopy(joinOrder,0,firstLookOrder,0,numOptimizables);
+        jumpingToEnumeratedOrder=true;
+        if(optimizerTrace){
+            tracer().trace(OptimizerFlag.JOIN_ORDER_ENUMERATED,0,0,enumerator.getCost(),
+                    joinOrderEnumeration,System.currentTimeMillis()-start,joinOrder);
+        }
+        return true;
+    }
+
+    /**
+     * Sort firstLookOrder so that the optimizables with the smallest row counts come first.
+     * Note that this destroys the row counts.
+     *
+     * @return true if the order differs from the order of the FROM list
+     */
+    private boolean sortByRowCount(double[] rc){
+        boolean doIt=false;
+        int temp;
+        for(int i=0;i<numOptimizables;i++)
+            firstLookOrder[i]=i;
+        for(int i=0;i<numOptimizables;i++){    //simple selection sort
+            int k=i;
+            for(int j=i+1;j<numOptimizables;j++)
+                if(rc[j]<rc[k]) k=j;
+            if(k!=i){
+                rc[k]=rc[i];    //destroy the bridge
+                temp=firstLookOrder[i];
+                firstLookOrder[i]=firstLookOrder[k];
+                firstLookOrder[k]=temp;
+                doIt=true;
+            }
+        }
+        return doIt;
+    }
+
     private boolean checkTimeout(){
         /*
          * Check whether or not optimization time as timed out
@@ -2375,6 +2469,8 @@ public class OptimizerImpl implements Optimizer{
          */
         if(noTimeout) return false;
         if(timeExceeded || numTablesInQuery<=6) return timeExceeded;
+        // let the jump to an enumerated join order finish, it is the plan we're after
+        if(jumpingToEnumeratedOrder) return false;
 
         // All of the following are assumed to be in milliseconds,
         // even if originally derived from a different unit:
@@ -2422,6 +2518,39 @@ public class OptimizerImpl implements Optimizer{
         return Long.MAX_VALUE; // milliseconds
     }
 
+    /**
+     * Returns the join order enumeration strategy asked for by the session, which applies to
+     * FROM lists without a {@code joinOrderEnumeration} hint. By default, this returns
+     * {@code null}, which lets the FROM list size decide.
+     *
+     * @return the session's join order enumeration strategy, or null
+     */
+    protected JoinOrderEnumeration getSessionJoinOrderEnumeration() {
+        return null;
+    }
+
+    /**
+     * Returns the number of optimizables from which the join order is picked by dynamic
+     * programming rather than by searching the permutations, unless the FROM list or the
+     * session asks for a specific {@link JoinOrderEnumeration}. By default, this returns
+     * {@link Integer#MAX_VALUE}, which disables it.
+     *
+     * @return minimum FROM list size for dynamic programming join enumeration
+     */
+    protected int getDPJoinEnumerationThreshold() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of optimizables beyond which the join order is picked greedily
+     * instead of by dynamic programming. By default, this returns {@link Integer#MAX_VALUE}.
+     *
+     * @return maximum FROM list size for dynamic programming join enumeration
+     */
+    protected int getGreedyJoinEnumerationThreshold() {
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * In the presence of consecutive broadcast joins, we should not only check whether
      * individual join can fit in memory but also the accumulative memory usage.
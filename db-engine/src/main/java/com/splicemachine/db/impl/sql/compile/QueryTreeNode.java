@@ -1072,6 +1072,7 @@ public abstract class QueryTreeNode implements Node, Visitable{
      */
     public void checkReliability(String fragmentType,int fragmentBitMask)
             throws StandardException{
+        noteNonDeterminism(fragmentBitMask);
         // if we're in a context that forbids unreliable fragments, raise an error
         if((getCompilerContext().getReliability()&fragmentBitMask)!=0){
             throwReliabilityException(fragmentType,fragmentBitMask);
@@ -1091,6 +1092,7 @@ public abstract class QueryTreeNode implements Node, Visitable{
      */
     public void checkReliability(int fragmentBitMask,String fragmentType)
             throws StandardException{
+        noteNonDeterminism(fragmentBitMask);
         // if we're in a context that forbids unreliable fragments, raise an error
         if((getCompilerContext().getReliability()&fragmentBitMask)!=0){
             String fragmentTypeTxt=MessageService.getTextMessage(fragmentType);
@@ -1098,6 +1100,15 @@ public abstract class QueryTreeNode implements Node, Visitable{
         }
     }
 
+    /**
+     * Marks the statement as non-deterministic if the fragment being checked may return different values
+     * from one execution to the next.
+     */
+    private void noteNonDeterminism(int fragmentBitMask){
+        if((fragmentBitMask&CompilerContext.NON_DETERMINISTIC_FRAGMENTS)!=0)
+            getCompilerContext().setNonDeterministic();
+    }
+
     /**
      * Bind a UDT. This involves looking it up in the DataDictionary and filling
      * in its class name.
@@ -40,6 +40,7 @@ import com.splicemachine.db.iapi.sql.compile.CompilerContext;
 import com.splicemachine.db.iapi.sql.compile.C_NodeTypes;
 import com.splicemachine.db.iapi.types.JSQLType;
 import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.StringDataValue;
 import com.splicemachine.db.iapi.types.TypeId;
 
@@ -166,6 +167,42 @@ public class StaticMethodCallNode extends MethodCallNode {
     /** Flag that this function invocation appears in a GROUP BY clause */
     public  void    setAppearsInGroupBy() { appearsInGroupBy = true; }
 
+	/**
+	 * Get the name of the approximate aggregate this calls, with the
+	 * constant it is given as its second parameter, if any, in parentheses
+	 * after it, e.g. APPROX_PERCENTILE(0.5). That's how the aggregator gets
+	 * to know it, like COUNT(*) gets to know it counts every row.
+	 *
+	 * @exception StandardException		Thrown if the second parameter is not a valid constant
+	 */
+	private String approximateAggregateName() throws StandardException
+	{
+		if (methodParms.length == 1)
+			return methodName;
+
+		ValueNode parameter = ((SQLToJavaValueNode) methodParms[ 1 ]).getSQLValueNode();
+		DataValueDescriptor value = parameter instanceof ConstantNode ? ((ConstantNode) parameter).getValue() : null;
+		if (value == null || value.isNull())
+		{
+			throw StandardException.newException(SQLState.LANG_INVALID_FUNCTION_ARGUMENT, "?", methodName);
+		}
+		if (methodName.equals(ApproximateAggregateDefinition.PERCENTILE))
+		{
+			double fraction = value.getDouble();
+			if (fraction < 0d || fraction > 1d)
+			{
+				throw StandardException.newException(SQLState.LANG_INVALID_FUNCTION_ARGUMENT, value.getString(), methodName);
+			}
+			return methodName + "(" + fraction + ")";
+		}
+		int k = value.getInt();
+		if (k <= 0 || k > ApproximateAggregateDefinition.MAX_TOP_K)
+		{
+			throw StandardException.newException(SQLState.LANG_INVALID_FUNCTION_ARGUMENT, value.getString(), methodName);
+		}
+		return methodName + "(" + k + ")";
+	}
+
 	/**
 	 * Bind this expression.  This means binding the sub-expressions,
 	 * as well as figuring out what the return type is for this expression.
@@ -250,6 +287,30 @@ public class StaticMethodCallNode extends MethodCallNode {
 			                   
 			    return this;
 			}
+
+			// The approximate aggregates are built in, but called like functions rather
+			// than being keywords of the grammar; they're only taken to be aggregates when
+			// no routine of their name is found.
+			if ( ad == null && noSchema && !forCallStatement &&
+			     ApproximateAggregateDefinition.isApproximateAggregate(methodName) && methodParms != null &&
+			     methodParms.length == (methodName.equals(ApproximateAggregateDefinition.COUNT_DISTINCT) ? 1 : 2) )
+			{
+			    resolvedAggregate = (AggregateNode) getNodeFactory().getNode
+			                         (
+				                     C_NodeTypes.AGGREGATE_NODE,
+				                     ((SQLToJavaValueNode) methodParms[ 0 ]).getSQLValueNode(),
+				                     ApproximateAggregateDefinition.class,
+				                     Boolean.FALSE,
+				                     approximateAggregateName(),
+				                     getContextManager()
+				                     );
+			                    if ( appearsInGroupBy )
+			                    {
+			                        throw StandardException.newException(SQLState.LANG_AGGREGATE_IN_GROUPBY_LIST);
+			                    }
+
+			    return this;
+			}
 				
 			/* Throw exception if no routine found */
 			if (ad == null)
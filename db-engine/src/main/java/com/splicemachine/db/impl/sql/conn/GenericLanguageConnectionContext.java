@@ -52,6 +52,7 @@ import com.splicemachine.db.iapi.services.stream.HeaderPrintWriter;
 import com.splicemachine.db.iapi.sql.*;
 import com.splicemachine.db.iapi.sql.compile.ASTVisitor;
 import com.splicemachine.db.iapi.sql.compile.CompilerContext;
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
 import com.splicemachine.db.iapi.sql.compile.OptimizerFactory;
 import com.splicemachine.db.iapi.sql.compile.TypeCompilerFactory;
 import com.splicemachine.db.iapi.sql.conn.*;
@@ -306,6 +307,21 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
      */
     private ControlExecutionLimiter limiter;
 
+    /**
+     * Number of regions a control mode table scan reads concurrently, 0 to use the configured default
+     */
+    private int controlScanParallelism;
+
+    /**
+     * Number of rows the right side of a broadcast join may load, 0 to use the configured default
+     */
+    private long broadcastFallbackRowThreshold;
+
+    /**
+     * Join order enumeration strategy for FROM lists without a hint, null to decide by the FROM list size
+     */
+    private JoinOrderEnumeration joinOrderEnumeration;
+
     /* constructor */
     public GenericLanguageConnectionContext(
             ContextManager cm,
@@ -3539,4 +3555,34 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
     public void setControlExecutionLimiter(ControlExecutionLimiter executionLimiter) {
         limiter = executionLimiter;
     }
+
+    @Override
+    public int getControlScanParallelism() {
+        return controlScanParallelism;
+    }
+
+    @Override
+    public void setControlScanParallelism(int parallelism) {
+        controlScanParallelism = parallelism;
+    }
+
+    @Override
+    public long getBroadcastFallbackRowThreshold() {
+        return broadcastFallbackRowThreshold;
+    }
+
+    @Override
+    public void setBroadcastFallbackRowThreshold(long threshold) {
+        broadcastFallbackRowThreshold = threshold;
+    }
+
+    @Override
+    public JoinOrderEnumeration getJoinOrderEnumeration() {
+        return joinOrderEnumeration;
+    }
+
+    @Override
+    public void setJoinOrderEnumeration(JoinOrderEnumeration joinOrderEnumeration) {
+        this.joinOrderEnumeration = joinOrderEnumeration;
+    }
 }
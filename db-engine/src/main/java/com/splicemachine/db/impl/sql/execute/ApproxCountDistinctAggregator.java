@@ -0,0 +1,195 @@
+/*
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Some parts of this source code are based on Apache Derby, and the following notices apply to
+ * Apache Derby:
+ *
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified the Apache Derby code in this file.
+ *
+ * All such Splice Machine modifications are Copyright 2012 - 2017 Splice Machine, Inc.,
+ * and are licensed to you under the GNU Affero General Public License.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.services.loader.ClassFactory;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.yahoo.memory.NativeMemory;
+import com.yahoo.sketches.theta.Sketch;
+import com.yahoo.sketches.theta.Sketches;
+import com.yahoo.sketches.theta.Union;
+import com.yahoo.sketches.theta.UpdateSketch;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Aggregator for APPROX_COUNT_DISTINCT(). Estimates the number of distinct
+ * values with a theta sketch, so partial aggregates are merged by a union
+ * of their sketches instead of by shuffling every distinct value.
+ *
+ */
+public final class ApproxCountDistinctAggregator extends SystemAggregator
+{
+	private UpdateSketch sketch; // the values accumulated by this aggregator
+	private Union union; // the sketches merged into this aggregator
+
+	public ExecAggregator setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType )
+	{
+		return this;
+	}
+
+	protected void accumulate(DataValueDescriptor addend) throws StandardException
+	{
+		if (sketch == null)
+			sketch = addend.getThetaSketch();
+		addend.updateThetaSketch(sketch);
+	}
+
+	public void add(DataValueDescriptor addend) throws StandardException
+	{
+		accumulate(addend);
+	}
+
+	/**
+	 * @see ExecAggregator#merge
+	 *
+	 * @exception	StandardException	on error
+	 */
+	public void merge(ExecAggregator addend) throws StandardException
+	{
+		if (addend == null)
+			return;
+		ApproxCountDistinctAggregator other = (ApproxCountDistinctAggregator) addend;
+		if (other.sketch != null)
+			union().update(other.sketch);
+		if (other.union != null)
+			union().update(other.union.getResult());
+		if (other.eliminatedNulls)
+			eliminatedNulls = true;
+	}
+
+	/**
+	 * Return the estimated number of distinct values.
+	 *
+	 * @return the estimate as a Long
+	 */
+	public DataValueDescriptor getResult()
+	{
+		Sketch result = getSketch();
+		return new SQLLongint(result == null ? 0L : Math.round(result.getEstimate()));
+	}
+
+	/**
+	 * @return ExecAggregator the new aggregator
+	 */
+	public ExecAggregator newAggregator()
+	{
+		return new ApproxCountDistinctAggregator();
+	}
+
+	private Union union()
+	{
+		if (union == null)
+			union = Sketches.setOperationBuilder().buildUnion();
+		return union;
+	}
+
+	/**
+	 * @return everything this aggregator has seen in a single sketch, or null if it
+	 * has seen nothing
+	 */
+	private Sketch getSketch()
+	{
+		if (union == null)
+			return sketch;
+		Union result = Sketches.setOperationBuilder().buildUnion();
+		result.update(union.getResult());
+		if (sketch != null)
+			result.update(sketch);
+		return result.getResult();
+	}
+
+	/////////////////////////////////////////////////////////////
+	// 
+	// EXTERNALIZABLE INTERFACE
+	// 
+	/////////////////////////////////////////////////////////////
+
+	public void writeExternal(ObjectOutput out) throws IOException
+	{
+		super.writeExternal(out);
+		Sketch result = getSketch();
+		out.writeBoolean(result != null);
+		if (result != null)
+		{
+			byte[] bytes = result.toByteArray();
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/** 
+	 * @see java.io.Externalizable#readExternal 
+	 *
+	 * @exception IOException on error
+	 * @exception ClassNotFoundException on error
+	 */
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+	{
+		super.readExternal(in);
+		sketch = null;
+		union = null;
+		if (in.readBoolean())
+		{
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			NativeMemory mem = new NativeMemory(bytes);
+			try
+			{
+				union().update(Sketch.heapify(mem));
+			}
+			finally
+			{
+				mem.freeMemory();
+			}
+		}
+	}
+
+	/////////////////////////////////////////////////////////////
+	// 
+	// FORMATABLE INTERFACE
+	// 
+	/////////////////////////////////////////////////////////////
+	/**
+	 * Get the formatID which corresponds to this class.
+	 *
+	 *	@return	the formatID of this class
+	 */
+	public	int	getTypeFormatId() { return StoredFormatIds.AGG_APPROX_COUNT_DISTINCT_V01_ID; }
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Some parts of this source code are based on Apache Derby, and the following notices apply to
+ * Apache Derby:
+ *
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified the Apache Derby code in this file.
+ *
+ * All such Splice Machine modifications are Copyright 2012 - 2017 Splice Machine, Inc.,
+ * and are licensed to you under the GNU Affero General Public License.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.services.loader.ClassFactory;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.stats.DVDArrayOfItemsSerDe;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.yahoo.memory.NativeMemory;
+import com.yahoo.sketches.quantiles.ItemsSketch;
+import com.yahoo.sketches.quantiles.ItemsUnion;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Aggregator for APPROX_PERCENTILE(). Estimates the value at a fraction of
+ * the ordered input with a quantiles sketch, which partial aggregates are
+ * merged into by a union of their sketches.
+ * <p>
+ * The fraction is given in the aggregate name, as in APPROX_PERCENTILE(0.5).
+ *
+ */
+public final class ApproxPercentileAggregator extends SystemAggregator
+{
+	private double fraction;
+	private DataValueDescriptor prototype; // a value of the input type, which orders and serializes the sketch items
+	private ItemsSketch<DataValueDescriptor> sketch;
+
+	public ExecAggregator setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType )
+	{
+		fraction = Double.parseDouble(aggregateName.substring(aggregateName.indexOf('(') + 1, aggregateName.lastIndexOf(')')));
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void accumulate(DataValueDescriptor addend) throws StandardException
+	{
+		if (sketch == null)
+		{
+			prototype = addend.getNewNull();
+			sketch = prototype.getQuantilesSketch();
+		}
+		sketch.update(addend.cloneValue(false));
+	}
+
+	public void add(DataValueDescriptor addend) throws StandardException
+	{
+		accumulate(addend);
+	}
+
+	/**
+	 * @see ExecAggregator#merge
+	 *
+	 * @exception	StandardException	on error
+	 */
+	@SuppressWarnings("unchecked")
+	public void merge(ExecAggregator addend) throws StandardException
+	{
+		if (addend == null)
+			return;
+		ApproxPercentileAggregator other = (ApproxPercentileAggregator) addend;
+		if (other.eliminatedNulls)
+			eliminatedNulls = true;
+		if (other.sketch == null)
+			return;
+		if (sketch == null)
+			prototype = other.prototype;
+		ItemsUnion<DataValueDescriptor> union = ItemsUnion.getInstance(other.sketch.getK(), prototype);
+		if (sketch != null)
+			union.update(sketch);
+		union.update(other.sketch);
+		sketch = union.getResult();
+	}
+
+	/**
+	 * Return the estimated value at the fraction of the ordered input.
+	 *
+	 * @return the value, or null if there was no input
+	 */
+	public DataValueDescriptor getResult()
+	{
+		if (sketch == null || sketch.isEmpty())
+			return null;
+		return sketch.getQuantile(fraction);
+	}
+
+	/**
+	 * @return ExecAggregator the new aggregator
+	 */
+	public ExecAggregator newAggregator()
+	{
+		ApproxPercentileAggregator pa = new ApproxPercentileAggregator();
+		pa.fraction = fraction;
+		return pa;
+	}
+
+	/////////////////////////////////////////////////////////////
+	// 
+	// EXTERNALIZABLE INTERFACE
+	// 
+	/////////////////////////////////////////////////////////////
+
+	public void writeExternal(ObjectOutput out) throws IOException
+	{
+		super.writeExternal(out);
+		out.writeDouble(fraction);
+		out.writeBoolean(sketch != null);
+		if (sketch != null)
+		{
+			out.writeObject(prototype);
+			byte[] bytes = sketch.toByteArray(new DVDArrayOfItemsSerDe(prototype));
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/** 
+	 * @see java.io.Externalizable#readExternal 
+	 *
+	 * @exception IOException on error
+	 * @exception ClassNotFoundException on error
+	 */
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+	{
+		super.readExternal(in);
+		fraction = in.readDouble();
+		prototype = null;
+		sketch = null;
+		if (in.readBoolean())
+		{
+			prototype = (DataValueDescriptor) in.readObject();
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			NativeMemory mem = new NativeMemory(bytes);
+			try
+			{
+				sketch = ItemsSketch.getInstance(mem, prototype, new DVDArrayOfItemsSerDe(prototype));
+			}
+			finally
+			{
+				mem.freeMemory();
+			}
+		}
+	}
+
+	/////////////////////////////////////////////////////////////
+	// 
+	// FORMATABLE INTERFACE
+	// 
+	/////////////////////////////////////////////////////////////
+	/**
+	 * Get the formatID which corresponds to this class.
+	 *
+	 *	@return	the formatID of this class
+	 */
+	public	int	getTypeFormatId() { return StoredFormatIds.AGG_APPROX_PERCENTILE_V01_ID; }
+
+	public String toString()
+	{
+		return "ApproxPercentile(" + fraction + ")";
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Some parts of this source code are based on Apache Derby, and the following notices apply to
+ * Apache Derby:
+ *
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified the Apache Derby code in this file.
+ *
+ * All such Splice Machine modifications are Copyright 2012 - 2017 Splice Machine, Inc.,
+ * and are licensed to you under the GNU Affero General Public License.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.services.loader.ClassFactory;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.stats.DVDArrayOfItemsSerDe;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.yahoo.memory.NativeMemory;
+import com.yahoo.sketches.frequencies.ErrorType;
+import com.yahoo.sketches.frequencies.ItemsSketch;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Aggregator for APPROX_TOP_K(). Estimates the most frequent values with a
+ * frequent items sketch, which partial aggregates are merged into, and
+ * returns them as a string of value=estimate pairs, most frequent first.
+ * <p>
+ * The number of values to return is given in the aggregate name, as in
+ * APPROX_TOP_K(10). The sketch's map is sized to hold at least four times
+ * as many values, as it only tracks three quarters of its size, and the
+ * error of its estimates shrinks as it grows.
+ *
+ */
+public final class ApproxTopKAggregator extends SystemAggregator
+{
+	// the map size column statistics use, sketches are never smaller
+	private static final int MIN_MAP_SIZE = 256;
+
+	private int k;
+	private DataValueDescriptor prototype; // a value of the input type, which serializes the sketch items
+	private ItemsSketch<DataValueDescriptor> sketch;
+
+	public ExecAggregator setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType )
+	{
+		k = Integer.parseInt(aggregateName.substring(aggregateName.indexOf('(') + 1, aggregateName.lastIndexOf(')')));
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void accumulate(DataValueDescriptor addend) throws StandardException
+	{
+		if (sketch == null)
+		{
+			prototype = addend.getNewNull();
+			sketch = newSketch();
+		}
+		sketch.update(addend.cloneValue(false));
+	}
+
+	public void add(DataValueDescriptor addend) throws StandardException
+	{
+		accumulate(addend);
+	}
+
+	/**
+	 * @see ExecAggregator#merge
+	 *
+	 * @exception	StandardException	on error
+	 */
+	@SuppressWarnings("unchecked")
+	public void merge(ExecAggregator addend) throws StandardException
+	{
+		if (addend == null)
+			return;
+		ApproxTopKAggregator other = (ApproxTopKAggregator) addend;
+		if (other.eliminatedNulls)
+			eliminatedNulls = true;
+		if (other.sketch == null)
+			return;
+		if (sketch == null)
+		{
+			prototype = other.prototype;
+			sketch = newSketch();
+		}
+		sketch.merge(other.sketch);
+	}
+
+	/**
+	 * Return the most frequent values and their estimated frequencies.
+	 *
+	 * @return the values as a String, or null if there was no input
+	 */
+	public DataValueDescriptor getResult() throws StandardException
+	{
+		if (sketch == null || sketch.isEmpty())
+			return null;
+		// rows come sorted by their estimates, highest first
+		ItemsSketch.Row<DataValueDescriptor>[] rows = sketch.getFrequentItems(ErrorType.NO_FALSE_NEGATIVES);
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < rows.length && i < k; i++)
+		{
+			if (i > 0)
+				result.append(", ");
+			result.append(rows[i].getItem().getString()).append('=').append(rows[i].getEstimate());
+		}
+		return new SQLVarchar(result.toString());
+	}
+
+	/**
+	 * @return an empty sketch whose map holds at least 4k values, its size being a power of two
+	 */
+	private ItemsSketch<DataValueDescriptor> newSketch()
+	{
+		int mapSize = Integer.highestOneBit(Math.max(MIN_MAP_SIZE, 4 * k) - 1) << 1;
+		return new ItemsSketch<>(mapSize);
+	}
+
+	/**
+	 * @return ExecAggregator the new aggregator
+	 */
+	public ExecAggregator newAggregator()
+	{
+		ApproxTopKAggregator ta = new ApproxTopKAggregator();
+		ta.k = k;
+		return ta;
+	}
+
+	/////////////////////////////////////////////////////////////
+	// 
+	// EXTERNALIZABLE INTERFACE
+	// 
+	/////////////////////////////////////////////////////////////
+
+	public void writeExternal(ObjectOutput out) throws IOException
+	{
+		super.writeExternal(out);
+		out.writeInt(k);
+		out.writeBoolean(sketch != null);
+		if (sketch != null)
+		{
+			out.writeObject(prototype);
+			byte[] bytes = sketch.toByteArray(new DVDArrayOfItemsSerDe(prototype));
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/** 
+	 * @see java.io.Externalizable#readExternal 
+	 *
+	 * @exception IOException on error
+	 * @exception ClassNotFoundException on error
+	 */
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException
+	{
+		super.readExternal(in);
+		k = in.readInt();
+		prototype = null;
+		sketch = null;
+		if (in.readBoolean())
+		{
+			prototype = (DataValueDescriptor) in.readObject();
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			NativeMemory mem = new NativeMemory(bytes);
+			try
+			{
+				sketch = ItemsSketch.getInstance(mem, new DVDArrayOfItemsSerDe(prototype));
+			}
+			finally
+			{
+				mem.freeMemory();
+			}
+		}
+	}
+
+	/////////////////////////////////////////////////////////////
+	// 
+	// FORMATABLE INTERFACE
+	// 
+	/////////////////////////////////////////////////////////////
+	/**
+	 * Get the formatID which corresponds to this class.
+	 *
+	 *	@return	the formatID of this class
+	 */
+	public	int	getTypeFormatId() { return StoredFormatIds.AGG_APPROX_TOP_K_V01_ID; }
+
+	public String toString()
+	{
+		return "ApproxTopK(" + k + ")";
+	}
+}
@@ -222,6 +222,15 @@ public final class AvgAggregator extends OrderableAggregator
 				accumulate(addend);
 		}
 
+		/**
+		 * Adds in {@code count} values at once, given their sum.
+		 */
+		public void add(DataValueDescriptor sum, long count) throws StandardException{
+				long previousCount = this.count;
+				accumulate(sum);
+				this.count = previousCount + count;
+		}
+
 		/**
 		 * Return the result of the aggregation.  If the count
 		 * is zero, then we haven't averaged anything yet, so
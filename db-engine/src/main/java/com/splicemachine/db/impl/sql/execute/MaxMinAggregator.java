@@ -78,6 +78,13 @@ public final class MaxMinAggregator extends OrderableAggregator {
 		}
 	}
 
+	/**
+	 * @return true if this is MAX(), false if it is MIN()
+	 */
+	public boolean isMax() {
+		return isMax;
+	}
+
 	/**
 	 * @return ExecAggregator the new aggregator
 	 */
@@ -0,0 +1,141 @@
+/*
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Some parts of this source code are based on Apache Derby, and the following notices apply to
+ * Apache Derby:
+ *
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified the Apache Derby code in this file.
+ *
+ * All such Splice Machine modifications are Copyright 2012 - 2017 Splice Machine, Inc.,
+ * and are licensed to you under the GNU Affero General Public License.
+ */
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Types;
+
+/**
+ * Checks that the approximate aggregators come out the same whether the
+ * values are accumulated by one aggregator or by several merged ones.
+ */
+public class ApproxAggregatorTest {
+
+    @Test
+    public void countDistinctMergesOverlappingPartitions() throws Exception {
+        ExecAggregator first = new ApproxCountDistinctAggregator().setup(null, "APPROX_COUNT_DISTINCT", bigint());
+        ExecAggregator second = first.newAggregator();
+        for (int i = 0; i < 150; i++) {
+            first.accumulate(new SQLInteger(i), null);
+            second.accumulate(new SQLInteger(i + 50), null);
+        }
+        second.accumulate(new SQLInteger(), null);
+
+        ExecAggregator merged = first.newAggregator();
+        merged.merge(roundTrip(first));
+        merged.merge(roundTrip(second));
+
+        Assert.assertEquals(200L, merged.getResult().getLong());
+        Assert.assertTrue(merged.didEliminateNulls());
+    }
+
+    @Test
+    public void countDistinctOfNothingIsZero() throws Exception {
+        ExecAggregator aggregator = new ApproxCountDistinctAggregator().setup(null, "APPROX_COUNT_DISTINCT", bigint());
+        Assert.assertEquals(0L, roundTrip(aggregator).getResult().getLong());
+    }
+
+    @Test
+    public void percentileMergesPartitions() throws Exception {
+        DataTypeDescriptor integer = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.INTEGER);
+        ExecAggregator first = new ApproxPercentileAggregator().setup(null, "APPROX_PERCENTILE(0.9)", integer);
+        ExecAggregator second = first.newAggregator();
+        for (int i = 1; i <= 100; i++)
+            (i % 2 == 0 ? first : second).accumulate(new SQLInteger(i), null);
+
+        ExecAggregator merged = roundTrip(first.newAggregator());
+        merged.merge(roundTrip(first));
+        merged.merge(roundTrip(second));
+
+        Assert.assertEquals(90, merged.getResult().getInt(), 1);
+        Assert.assertNull(new ApproxPercentileAggregator().setup(null, "APPROX_PERCENTILE(0.5)", integer).getResult());
+    }
+
+    @Test
+    public void topKListsMostFrequentFirst() throws Exception {
+        DataTypeDescriptor varchar = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR);
+        ExecAggregator first = new ApproxTopKAggregator().setup(null, "APPROX_TOP_K(2)", varchar);
+        ExecAggregator second = first.newAggregator();
+        for (int value = 1; value <= 4; value++) {
+            for (int i = 0; i < value * 10; i++)
+                (i % 3 == 0 ? first : second).accumulate(new SQLInteger(value), null);
+        }
+
+        ExecAggregator merged = first.newAggregator();
+        merged.merge(roundTrip(first));
+        merged.merge(roundTrip(second));
+
+        Assert.assertEquals("4=40, 3=30", merged.getResult().getString());
+    }
+
+    @Test
+    public void topKTracksMoreValuesThanTheStatisticsSketch() throws Exception {
+        DataTypeDescriptor integer = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.INTEGER);
+        ExecAggregator aggregator = new ApproxTopKAggregator().setup(null, "APPROX_TOP_K(500)", integer);
+        // value v appears v times, so the top 500 are 1000 down to 501
+        for (int value = 1; value <= 1000; value++) {
+            for (int i = 0; i < value; i++)
+                aggregator.accumulate(new SQLInteger(value), null);
+        }
+
+        String[] top = roundTrip(aggregator).getResult().getString().split(", ");
+        Assert.assertEquals(500, top.length);
+        for (int i = 0; i < top.length; i++)
+            Assert.assertEquals((1000 - i) + "=" + (1000 - i), top[i]);
+    }
+
+    private static DataTypeDescriptor bigint() {
+        return DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT, false);
+    }
+
+    private static ExecAggregator roundTrip(ExecAggregator aggregator) throws IOException, ClassNotFoundException, StandardException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            aggregator.writeExternal(out);
+        }
+        ExecAggregator copy = aggregator.newAggregator();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy.readExternal(in);
+        }
+        return copy;
+    }
+}
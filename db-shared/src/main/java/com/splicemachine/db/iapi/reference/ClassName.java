@@ -124,6 +124,9 @@ public interface ClassName
 	String SumAggregator = "com.splicemachine.db.impl.sql.execute.SumAggregator";
 	String CountAggregator = "com.splicemachine.db.impl.sql.execute.CountAggregator";
 	String AvgAggregator = "com.splicemachine.db.impl.sql.execute.AvgAggregator";
+	String ApproxCountDistinctAggregator = "com.splicemachine.db.impl.sql.execute.ApproxCountDistinctAggregator";
+	String ApproxPercentileAggregator = "com.splicemachine.db.impl.sql.execute.ApproxPercentileAggregator";
+	String ApproxTopKAggregator = "com.splicemachine.db.impl.sql.execute.ApproxTopKAggregator";
 	String UserDefinedAggregator = "com.splicemachine.db.impl.sql.execute.UserDefinedAggregator";
     String RowNumberFunction = "com.splicemachine.db.impl.sql.execute.RowNumberFunction";
     String DenseRankFunction = "com.splicemachine.db.impl.sql.execute.DenseRankFunction";
@@ -676,6 +676,7 @@ public interface SQLState {
 	String LANG_COL_NOT_NULL									   	   = "01503";
 	String LANG_INDEX_DUPLICATE									   	   = "01504";
 	String LANG_VALUE_TRUNCATED                                        = "01505";
+	String LANG_BROADCAST_JOIN_FALLBACK                                = "01506";
 	String LANG_SYNONYM_UNDEFINED                                      = "01522";
 	String LANG_NULL_ELIMINATED_IN_SET_FUNCTION						   = "01003";
 	String LANG_PRIVILEGE_NOT_REVOKED						   		   = "01006";
@@ -1163,6 +1164,7 @@ public interface SQLState {
 	String LANG_UDA_INSTANTIATION                                      = "42ZC8";
 
 	String LANG_RESUBMIT_DISTRIBUTED                                    = "42ZD0";
+	String LANG_BROADCAST_JOIN_MEMORY_LIMIT                             = "42ZD1";
 	
 	//following 3 matches the DB2 sql states
 	String LANG_DECLARED_GLOBAL_TEMP_TABLE_ONLY_IN_SESSION_SCHEMA = "428EK";
@@ -35,6 +35,8 @@ import com.splicemachine.pipeline.client.BulkWritesResult;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.si.data.hbase.coprocessor.TableType;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.region.RegionServerControl;
 import com.splicemachine.storage.RegionPartition;
 import com.splicemachine.utils.SpliceLogUtils;
@@ -135,13 +137,18 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
                           SpliceMessage.BulkWriteRequest request,
                           RpcCallback<SpliceMessage.BulkWriteResponse> done){
         try{
+            HLCTimestampSource hlc=SIDriver.driver().getHybridLogicalClock();
+            if(hlc!=null && request.hasHlc())
+                hlc.receiveTimestamp(request.getHlc());
             byte[] bytes=bulkWrites(request.getBytes().toByteArray());
             if(bytes==null||bytes.length<=0)
                 LOG.error("No bytes constructed for the result!");
 
-            SpliceMessage.BulkWriteResponse response =SpliceMessage.BulkWriteResponse.newBuilder()
-                    .setBytes(ZeroCopyLiteralByteString.wrap(bytes)).build();
-            done.run(response);
+            SpliceMessage.BulkWriteResponse.Builder response =SpliceMessage.BulkWriteResponse.newBuilder()
+                    .setBytes(ZeroCopyLiteralByteString.wrap(bytes));
+            if(hlc!=null)
+                response.setHlc(hlc.currentTimestamp());
+            done.run(response.build());
         }catch(IOException e){
             LOG.error("Unexpected exception performing bulk write: ",e);
             controller.setFailed(StringUtils.stringifyException(e));
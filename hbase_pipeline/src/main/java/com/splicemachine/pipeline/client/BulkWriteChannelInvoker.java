@@ -21,6 +21,8 @@ import com.splicemachine.access.hbase.HBaseTableInfoFactory;
 import com.splicemachine.coprocessor.SpliceMessage;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.storage.PartitionInfoCache;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.hadoop.hbase.NotServingRegionException;
@@ -72,6 +74,9 @@ public class BulkWriteChannelInvoker {
             SpliceMessage.BulkWriteRequest.Builder builder = SpliceMessage.BulkWriteRequest.newBuilder();
             byte[] requestBytes = compressor.compress(write);
             builder.setBytes(ZeroCopyLiteralByteString.wrap(requestBytes));
+            HLCTimestampSource hlc = SIDriver.driver().getHybridLogicalClock();
+            if (hlc != null)
+                builder.setHlc(hlc.currentTimestamp());
             SpliceMessage.BulkWriteRequest bwr = builder.build();
 
             BlockingRpcCallback<SpliceMessage.BulkWriteResponse> doneCallback =new BlockingRpcCallback<>();
@@ -87,6 +92,8 @@ public class BulkWriteChannelInvoker {
                     throw pef.fromErrorString(controller.errorText());
             }
             SpliceMessage.BulkWriteResponse bulkWriteResponse = doneCallback.get();
+            if (hlc != null && bulkWriteResponse.hasHlc())
+                hlc.receiveTimestamp(bulkWriteResponse.getHlc());
             byte[] bytes = bulkWriteResponse.getBytes().toByteArray();
             if(bytes==null || bytes.length<=0){
                 Logger logger=Logger.getLogger(BulkWriteChannelInvoker.class);
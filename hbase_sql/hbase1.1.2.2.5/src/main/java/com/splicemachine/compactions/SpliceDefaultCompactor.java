@@ -29,6 +29,7 @@ import com.splicemachine.si.data.hbase.coprocessor.TableType;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.server.SICompactionState;
 import com.splicemachine.storage.Partition;
+import com.splicemachine.storage.ZoneMap;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -250,6 +251,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         StoreFile.Writer writer = null;
         List<Path> newFiles =new ArrayList<>();
         boolean cleanSeqId = false;
+        ZoneMap zoneMap = null;
         IOException e = null;
         try {
             InternalScanner scanner = null;
@@ -266,6 +268,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
                             driver.getRollForward(),
                             driver.getConfiguration().getActiveTransactionCacheSize());
+                    zoneMap = new ZoneMap();
+                    state.setZoneMap(zoneMap);
                     boolean purgeDeletedRows = request.isMajor() ? SpliceCompactionUtils.shouldPurge(store) : false;
                     scanner = new SICompactionScanner(state,scanner,purgeDeletedRows);
                 }
@@ -308,6 +312,9 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     if (e != null) {
                         writer.close();
                     } else {
+                        if (zoneMap != null && zoneMap.isValid()) {
+                            writer.appendFileInfo(ZoneMap.FILE_INFO_KEY, zoneMap.toBytes());
+                        }
                         writer.appendMetadata(fd.maxSeqId, request.isAllFiles());
                         writer.close();
                         newFiles.add(writer.getPath());
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.compactions;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.constants.EnvUtils;
+import com.splicemachine.hbase.CellUtils;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.data.hbase.coprocessor.TableType;
+import com.splicemachine.storage.ZoneMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreFlusher;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.compactions.Compactor;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+
+/**
+ * Store flusher extending HBase's default in order to store the {@link ZoneMap} of the flushed user data with
+ * the flushed file
+ */
+public class SpliceDefaultStoreFlusher extends DefaultStoreFlusher {
+    private static final Logger LOG = Logger.getLogger(SpliceDefaultStoreFlusher.class);
+
+    private final boolean userData;
+
+    public SpliceDefaultStoreFlusher(Configuration conf, Store store) {
+        super(conf, store);
+        TableType type = EnvUtils.getTableType(HConfiguration.getConfiguration(), store.getTableName());
+        this.userData = type == TableType.USER_TABLE || type == TableType.DERBY_SYS_TABLE;
+    }
+
+    @Override
+    protected void performFlush(InternalScanner scanner, final Compactor.CellSink sink, long smallestReadPoint) throws IOException {
+        if (!userData || !(sink instanceof StoreFile.Writer)) {
+            super.performFlush(scanner, sink, smallestReadPoint);
+            return;
+        }
+        final ZoneMap zoneMap = new ZoneMap();
+        super.performFlush(scanner, new Compactor.CellSink() {
+            @Override
+            public void append(Cell cell) throws IOException {
+                if (zoneMap.isValid()
+                        && cell.getTypeByte() == KeyValue.Type.Put.getCode()
+                        && CellUtils.singleMatchingQualifier(cell, SIConstants.PACKED_COLUMN_BYTES)) {
+                    try {
+                        zoneMap.update(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+                    } catch (Exception e) {
+                        // the zone map is an optimization, it mustn't fail the flush
+                        LOG.warn("Unable to compute the zone map of the flushed file", e);
+                        zoneMap.invalidate();
+                    }
+                }
+                sink.append(cell);
+            }
+        }, smallestReadPoint);
+        if (zoneMap.isValid())
+            ((StoreFile.Writer) sink).appendFileInfo(ZoneMap.FILE_INFO_KEY, zoneMap.toBytes());
+    }
+}
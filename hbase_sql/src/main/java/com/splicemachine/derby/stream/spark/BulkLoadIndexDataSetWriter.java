@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.clearspring.analytics.util.Lists;
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.stats.ColumnStatisticsImpl;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.impl.SpliceSpark;
+import com.splicemachine.derby.stream.function.*;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.output.DataSetWriter;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.TxnView;
+import scala.Tuple2;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Populates a new index by writing its rows to HFiles and bulk loading them, rather than pushing them through
+ * the write pipeline.
+ *
+ *  1) Sample the base table to build a histogram of index keys, and pre-split the index on it
+ *  2) Encode the index rows and partition them by the region of the index they fall into
+ *  3) Sort each partition and write it to an HFile
+ *  4) Load the HFiles into the index
+ *
+ * The cells are written with the timestamp of the index creation transaction, so they become visible when it
+ * commits. Rows written after the demarcation point of the base table scan are not part of the data set: the
+ * tentative index write handlers keep the index up to date for those.
+ */
+public class BulkLoadIndexDataSetWriter extends BulkDataSetWriter implements DataSetWriter {
+    private String bulkLoadDirectory;
+    private boolean sampling;
+    private DDLMessage.TentativeIndex tentativeIndex;
+
+    public BulkLoadIndexDataSetWriter() {}
+
+    public BulkLoadIndexDataSetWriter(DataSet dataSet,
+                                      OperationContext operationContext,
+                                      DDLMessage.TentativeIndex tentativeIndex,
+                                      TxnView txn,
+                                      String bulkLoadDirectory,
+                                      boolean sampling) {
+        super(dataSet, operationContext, tentativeIndex.getIndex().getConglomerate(), txn);
+        this.tentativeIndex = tentativeIndex;
+        this.bulkLoadDirectory = bulkLoadDirectory;
+        this.sampling = sampling;
+    }
+
+    @Override
+    public DataSet<ExecRow> write() throws StandardException {
+        RowAndIndexGenerator indexGenerator = new BulkLoadIndexRowGenerationFunction(operationContext, txn, tentativeIndex);
+        if (sampling) {
+            double sampleFraction = HConfiguration.getConfiguration().getBulkImportSampleFraction();
+            DataSet sampledIndexRows = dataSet.sampleWithoutReplacement(sampleFraction).flatMap(indexGenerator);
+            RowKeyStatisticsFunction statisticsFunction =
+                    new RowKeyStatisticsFunction(tentativeIndex.getTable().getConglomerate(),
+                            Collections.singletonList(tentativeIndex));
+            List<Tuple2<Long, Tuple2<Double, ColumnStatisticsImpl>>> statistics =
+                    sampledIndexRows.mapPartitions(statisticsFunction).collect();
+
+            List<Tuple2<Long, byte[][]>> cutPoints = getCutPoints(sampleFraction, statistics);
+            if (!cutPoints.isEmpty()) {
+                splitTables(cutPoints);
+            }
+        }
+
+        List<Long> congloms = Lists.newArrayList();
+        congloms.add(heapConglom);
+        final List<BulkImportPartition> bulkImportPartitions = getBulkImportPartitions(congloms, bulkLoadDirectory);
+
+        String compressionAlgorithm = HConfiguration.getConfiguration().getCompressionAlgorithm();
+        HFileGenerationFunction hfileGenerationFunction =
+                new BulkInsertHFileGenerationFunction(operationContext, txn.getTxnId(),
+                        heapConglom, compressionAlgorithm, bulkImportPartitions);
+
+        partitionUsingRDDSortUsingDataFrame(bulkImportPartitions, indexGenerator, hfileGenerationFunction);
+        bulkLoad(bulkImportPartitions, bulkLoadDirectory);
+
+        ValueRow valueRow=new ValueRow(1);
+        valueRow.setColumn(1,new SQLLongint(operationContext.getRecordsWritten()));
+        return new SparkDataSet<>(SpliceSpark.getContext().parallelize(Collections.singletonList(valueRow), 1));
+    }
+
+    @Override
+    public byte[] getDestinationTable(){
+        return Bytes.toBytes(heapConglom);
+    }
+
+    @Override
+    public void setTxn(TxnView txn){
+        this.txn = txn;
+    }
+
+    @Override
+    public TxnView getTxn(){
+        if(txn==null)
+            return operationContext.getTxn();
+        else
+            return txn;
+    }
+}
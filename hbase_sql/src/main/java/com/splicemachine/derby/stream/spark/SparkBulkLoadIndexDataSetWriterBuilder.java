@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.output.BulkLoadIndexDataSetWriterBuilder;
+import com.splicemachine.derby.stream.output.DataSetWriter;
+import com.splicemachine.derby.stream.output.direct.DirectTableWriterBuilder;
+
+public class SparkBulkLoadIndexDataSetWriterBuilder extends DirectTableWriterBuilder implements BulkLoadIndexDataSetWriterBuilder {
+
+    private DataSet dataSet;
+    private DDLMessage.TentativeIndex tentativeIndex;
+    private String bulkLoadDirectory;
+    private boolean sampling = true;
+
+    public SparkBulkLoadIndexDataSetWriterBuilder() {}
+
+    public SparkBulkLoadIndexDataSetWriterBuilder(DataSet dataSet, DDLMessage.TentativeIndex tentativeIndex) {
+        this.dataSet = dataSet;
+        this.tentativeIndex = tentativeIndex;
+        this.destConglomerate = tentativeIndex.getIndex().getConglomerate();
+    }
+
+    @Override
+    public BulkLoadIndexDataSetWriterBuilder bulkLoadDirectory(String bulkLoadDirectory) {
+        this.bulkLoadDirectory = bulkLoadDirectory;
+        return this;
+    }
+
+    @Override
+    public BulkLoadIndexDataSetWriterBuilder sampling(boolean sampling) {
+        this.sampling = sampling;
+        return this;
+    }
+
+    @Override
+    public DataSetWriter build() throws StandardException {
+        return new BulkLoadIndexDataSetWriter(dataSet, opCtx, tentativeIndex, txn, bulkLoadDirectory, sampling);
+    }
+}
@@ -18,6 +18,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.SQLLongint;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.SpliceSpark;
 import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
@@ -41,6 +42,7 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.derby.stream.output.BulkDeleteDataSetWriterBuilder;
+import com.splicemachine.derby.stream.output.BulkLoadIndexDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.BulkInsertDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.DataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.ExportDataSetWriterBuilder;
@@ -537,6 +539,7 @@ public class SparkDataSet<V> implements DataSet<V> {
             FileSystem fs = file.getFileSystem(conf);
             OutputStream fileOut = fs.create(file, false);
             if (isCompressed) {
+                // each task gets its own core, compressing on a shared pool would only make the tasks wait on each other
                 fileOut = new GZIPOutputStream(fileOut);
             }
             final ExportExecRowWriter rowWriter = ExportFunction.initializeRowWriter(fileOut, op.getExportParams());
@@ -844,6 +847,11 @@ public class SparkDataSet<V> implements DataSet<V> {
         return new SparkBulkDeleteTableWriterBuilder(this);
     }
 
+    @Override
+    public BulkLoadIndexDataSetWriterBuilder bulkLoadIndex(DDLMessage.TentativeIndex tentativeIndex) throws StandardException {
+        return new SparkBulkLoadIndexDataSetWriterBuilder(this, tentativeIndex);
+    }
+
     @Override
     public DataSetWriterBuilder deleteData(OperationContext operationContext) throws StandardException{
         return new SparkDeleteTableWriterBuilder<>(((SparkPairDataSet) this.index(new EmptySparkPairDataSet<>()))
@@ -50,6 +50,8 @@ import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.data.HExceptionFactory;
 import com.splicemachine.si.impl.HOperationFactory;
 import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.txn.ReadOnlyTxn;
 import com.splicemachine.storage.DataScan;
 import com.splicemachine.utils.IntArrays;
@@ -460,7 +462,9 @@ public class SMSQLUtil  {
 
         @Override
         public TxnView readTxn(ObjectInput oi) throws IOException {
-            return new SimpleTxnOperationFactory(HExceptionFactory.INSTANCE, HOperationFactory.INSTANCE).readTxn(oi);
+            SIDriver driver = SIDriver.driver();
+            HLCTimestampSource hlc = driver == null ? null : driver.getHybridLogicalClock();
+            return new SimpleTxnOperationFactory(HExceptionFactory.INSTANCE, HOperationFactory.INSTANCE, hlc).readTxn(oi);
         }
 
         @Override
@@ -119,6 +119,7 @@ public class AsyncOlapNIOLayer implements JobExecutor{
     /*Private Helper methods and classes*/
 
     private OlapResult parseFromResponse(OlapMessage.Response response) throws IOException{
+        OlapSerializationUtils.receiveClock(response);
         switch(response.getType()){
             case NOT_SUBMITTED:
                 return new NotSubmittedResult();
@@ -128,6 +129,9 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             case IN_PROGRESS:
                 OlapMessage.ProgressResponse pr=response.getExtension(OlapMessage.ProgressResponse.response);
                 return new SubmittedResult(pr.getTickTimeMillis());
+            case QUEUED:
+                OlapMessage.ProgressResponse qr=response.getExtension(OlapMessage.ProgressResponse.response);
+                return new QueuedResult(qr.getTickTimeMillis());
             case CANCELLED:
                 return new CancelledResult();
             case COMPLETED:
@@ -338,10 +342,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             }
 
             OlapMessage.Submit submit=OlapMessage.Submit.newBuilder().setCommandBytes(olapFuture.data).build();
-            OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
+            OlapMessage.Command cmd=OlapSerializationUtils.stampClock(OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setExtension(OlapMessage.Submit.command,submit)
-                    .setType(OlapMessage.Command.Type.SUBMIT)
+                    .setType(OlapMessage.Command.Type.SUBMIT))
                     .build();
             ChannelFuture writeFuture=c.writeAndFlush(cmd);
             writeFuture.addListener(olapFuture.failListener);
@@ -376,10 +380,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 status.setWaitTimeMillis(olapFuture.waitTimeMillis);
                 olapFuture.waitTimeMillis = 0;
             }
-            OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
+            OlapMessage.Command cmd=OlapSerializationUtils.stampClock(OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setType(OlapMessage.Command.Type.STATUS)
-                    .setExtension(OlapMessage.Status.command,status.build()).build();
+                    .setExtension(OlapMessage.Status.command,status.build())).build();
             ChannelFuture writeFuture=c.writeAndFlush(cmd);
             writeFuture.addListener(new GenericFutureListener<Future<Void>>(){
                 @Override
@@ -416,10 +420,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             final Channel c=channelFuture.getNow();
 
             OlapMessage.Cancel cancel=OlapMessage.Cancel.newBuilder().build();
-            OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
+            OlapMessage.Command cmd=OlapSerializationUtils.stampClock(OlapMessage.Command.newBuilder()
                     .setUniqueName(uniqueName)
                     .setType(OlapMessage.Command.Type.CANCEL)
-                    .setExtension(OlapMessage.Cancel.command,cancel).build();
+                    .setExtension(OlapMessage.Cancel.command,cancel)).build();
             ChannelFuture writeFuture=c.writeAndFlush(cmd);
             writeFuture.addListener(new GenericFutureListener<Future<Void>>(){
                 @Override
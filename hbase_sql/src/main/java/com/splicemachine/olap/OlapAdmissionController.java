@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.olap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides when the jobs submitted to the Olap server start running.
+ *
+ * Every job runs in the {@link OlapResourceGroup} of its user, or else of its role, or else in the default group.
+ * A job starts right away when both the server and its group have room for it, otherwise it's marked
+ * {@link OlapStatus.State#QUEUED} and waits. Whenever a job finishes, the queued jobs are considered by
+ * decreasing priority of their group, and in submission order within a priority, and all of those which fit
+ * are started; a job whose group is full doesn't hold back the jobs of other groups.
+ *
+ * Jobs which have been cancelled, or whose client went away, while queued are dropped, and jobs which have been
+ * queued for longer than the queue timeout of their group are failed.
+ *
+ * System jobs, those run on behalf of no user, start right away and don't count against any limit, so that
+ * compactions and the like never wait behind long running queries.
+ */
+class OlapAdmissionController implements OlapAdmissionManagement{
+    private static final Logger LOG=Logger.getLogger(OlapAdmissionController.class);
+
+    private final ExecutorService executionPool;
+    private final Clock clock;
+    private final int maxConcurrentJobs;
+    private final Map<String,OlapResourceGroup> groups;
+    private final Map<String,OlapResourceGroup> groupsByMember;
+    private final OlapResourceGroup defaultGroup;
+    private final TreeSet<QueuedJob> queue;
+    private final ScheduledExecutorService queueCleaner;
+
+    private long sequence;
+    private int runningJobs;
+
+    OlapAdmissionController(ExecutorService executionPool,
+                            Clock clock,
+                            int maxConcurrentJobs,
+                            Map<String,OlapResourceGroup> groups){
+        this.executionPool=executionPool;
+        this.clock=clock;
+        this.maxConcurrentJobs=maxConcurrentJobs>0?maxConcurrentJobs:Integer.MAX_VALUE;
+        this.groups=groups;
+        this.defaultGroup=groups.get(OlapResourceGroup.DEFAULT_GROUP);
+        assert defaultGroup!=null: "Programmer error: no default resource group";
+        this.groupsByMember=new HashMap<>();
+        for(OlapResourceGroup group : groups.values()){
+            for(String member : group.getMembers()){
+                OlapResourceGroup old=groupsByMember.put(member,group);
+                if(old!=null)
+                    LOG.warn(member+" is a member of resource groups "+old.getName()+" and "+group.getName()+", using "+group.getName());
+            }
+        }
+        this.queue=new TreeSet<>(new Comparator<QueuedJob>(){
+            @Override
+            public int compare(QueuedJob o1,QueuedJob o2){
+                int c=Integer.compare(o2.group.getPriority(),o1.group.getPriority());
+                if(c!=0) return c;
+                return Long.compare(o1.sequence,o2.sequence);
+            }
+        });
+        this.queueCleaner=Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olapQueueCleaner").build());
+        this.queueCleaner.scheduleWithFixedDelay(new Runnable(){
+            @Override
+            public void run(){
+                expire();
+            }
+        },1L,1L,TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs the job once there's room for it
+     *
+     * @param jobRequest the job as submitted
+     * @param jobStatus the status of the job, in the SUBMITTED state
+     * @param job the work to run
+     */
+    void submit(DistributedJob jobRequest,OlapJobStatus jobStatus,Callable<Void> job){
+        if(jobRequest.getUserId()==null){
+            run(jobStatus,job,null);
+            return;
+        }
+        OlapResourceGroup group=groupFor(jobRequest.getUserId(),jobRequest.getRoleId());
+        synchronized(this){
+            QueuedJob queuedJob=new QueuedJob(jobRequest.getUniqueName(),jobStatus,job,group,sequence++,clock.currentTimeMillis());
+            if(queue.isEmpty() && canAdmit(queuedJob)){
+                start(queuedJob);
+                return;
+            }
+            if(!jobStatus.markQueued()){
+                // cancelled in the meantime
+                return;
+            }
+            if(LOG.isDebugEnabled())
+                LOG.debug("Queueing job "+queuedJob.name+" in resource group "+group);
+            queue.add(queuedJob);
+            // the job may still be admitted ahead of those queued before it, if their groups are full
+            admitQueued();
+        }
+    }
+
+    void shutdown(){
+        queueCleaner.shutdownNow();
+    }
+
+    OlapResourceGroup groupFor(String userId,String roleId){
+        OlapResourceGroup group=null;
+        if(userId!=null)
+            group=groupsByMember.get(userId.toUpperCase(Locale.ENGLISH));
+        if(group==null && roleId!=null)
+            group=groupsByMember.get(roleId.toUpperCase(Locale.ENGLISH));
+        return group==null?defaultGroup:group;
+    }
+
+    @Override
+    public synchronized int getRunningJobs(){
+        return runningJobs;
+    }
+
+    @Override
+    public synchronized int getQueuedJobCount(){
+        return queue.size();
+    }
+
+    @Override
+    public synchronized String[] getQueuedJobs(){
+        long now=clock.currentTimeMillis();
+        List<String> jobs=new ArrayList<>(queue.size());
+        for(QueuedJob job : queue){
+            jobs.add(job.name+" group="+job.group.getName()+" queuedMillis="+(now-job.queueTime));
+        }
+        return jobs.toArray(new String[jobs.size()]);
+    }
+
+    @Override
+    public synchronized String[] getResourceGroups(){
+        List<String> descriptions=new ArrayList<>(groups.size());
+        for(OlapResourceGroup group : groups.values()){
+            descriptions.add(group.toString());
+        }
+        return descriptions.toArray(new String[descriptions.size()]);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private boolean canAdmit(QueuedJob job){
+        return runningJobs<maxConcurrentJobs && job.group.canAdmit(job.memory);
+    }
+
+    private void start(QueuedJob job){
+        runningJobs++;
+        job.group.admit(job.memory);
+        try{
+            run(job.status,job.job,job);
+        }catch(RuntimeException e){
+            runningJobs--;
+            job.group.release(job.memory);
+            throw e;
+        }
+    }
+
+    /**
+     * @param admitted the admitted job to release once it finishes, or null if it wasn't admitted
+     */
+    private void run(final OlapJobStatus status,final Callable<Void> job,final QueuedJob admitted){
+        executionPool.submit(new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                try{
+                    return job.call();
+                }catch(Throwable t){
+                    LOG.error("Uncaught exception",t);
+                    if(status.isRunning()){
+                        status.markCompleted(new FailedOlapResult(t));
+                    }
+                }finally{
+                    if(admitted!=null)
+                        release(admitted);
+                }
+                return null;
+            }
+        });
+    }
+
+    private synchronized void release(QueuedJob job){
+        runningJobs--;
+        job.group.release(job.memory);
+        admitQueued();
+    }
+
+    private void admitQueued(){
+        Iterator<QueuedJob> it=queue.iterator();
+        while(it.hasNext() && runningJobs<maxConcurrentJobs){
+            QueuedJob next=it.next();
+            if(next.status.currentState()!=OlapStatus.State.QUEUED){
+                it.remove();
+            }else if(next.group.canAdmit(next.memory)){
+                it.remove();
+                start(next);
+            }
+        }
+    }
+
+    private synchronized void expire(){
+        long now=clock.currentTimeMillis();
+        Iterator<QueuedJob> it=queue.iterator();
+        while(it.hasNext()){
+            QueuedJob next=it.next();
+            long timeout=next.group.getQueueTimeout();
+            if(next.status.currentState()!=OlapStatus.State.QUEUED){
+                it.remove();
+            }else if(timeout>0 && now-next.queueTime>timeout){
+                it.remove();
+                LOG.warn("Job "+next.name+" was queued in resource group "+next.group.getName()+" for more than "+timeout+" ms, failing it");
+                next.status.markCompleted(new FailedOlapResult(new TimeoutException(
+                        "Job was not admitted by resource group "+next.group.getName()+" within "+timeout+" ms")));
+            }
+        }
+    }
+
+    private static class QueuedJob{
+        final String name;
+        final OlapJobStatus status;
+        final Callable<Void> job;
+        final OlapResourceGroup group;
+        final long memory;
+        final long sequence;
+        final long queueTime;
+
+        QueuedJob(String name,OlapJobStatus status,Callable<Void> job,OlapResourceGroup group,long sequence,long queueTime){
+            this.name=name;
+            this.status=status;
+            this.job=job;
+            this.group=group;
+            this.memory=group.getJobMemory();
+            this.sequence=sequence;
+            this.queueTime=queueTime;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.olap;
+
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring the admission of jobs into the Olap server.
+ */
+@MXBean
+public interface OlapAdmissionManagement{
+
+    /**
+     * @return the number of jobs currently running
+     */
+    int getRunningJobs();
+
+    /**
+     * @return the number of jobs waiting to be admitted
+     */
+    int getQueuedJobCount();
+
+    /**
+     * @return a description of each job waiting to be admitted, in the order they will be considered
+     */
+    String[] getQueuedJobs();
+
+    /**
+     * @return a description of the usage of each resource group
+     */
+    String[] getResourceGroups();
+}
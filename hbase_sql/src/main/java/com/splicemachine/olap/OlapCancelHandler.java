@@ -33,6 +33,7 @@ public class OlapCancelHandler extends AbstractOlapHandler{
             ctx.fireChannelRead(command);
             return;
         }
+        OlapSerializationUtils.receiveClock(command);
 
         jobRegistry.clear(command.getUniqueName());
         //no response is needed for cancellation
@@ -64,6 +64,8 @@ public class OlapJobStatus implements OlapStatus{
             case NOT_SUBMITTED:
             case SUBMITTED:
                 return new SubmittedResult(tickTime);
+            case QUEUED:
+                return new QueuedResult(tickTime);
             case RUNNING:
                 return new ProgressResult();
             default:
@@ -107,6 +109,7 @@ public class OlapJobStatus implements OlapStatus{
             State currState = currentState.get();
             switch(currState){
                 case SUBMITTED:
+                case QUEUED:
                 case RUNNING:
                 case CANCELED:
                 case FAILED:
@@ -118,6 +121,10 @@ public class OlapJobStatus implements OlapStatus{
         return true;
     }
 
+    public boolean markQueued(){
+        return currentState.compareAndSet(State.SUBMITTED,State.QUEUED);
+    }
+
     public void markCompleted(OlapResult result){
         boolean shouldContinue;
         do{
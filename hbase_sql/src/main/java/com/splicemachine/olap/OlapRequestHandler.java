@@ -16,6 +16,7 @@ package com.splicemachine.olap;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.access.configuration.SIConfigurations;
 import com.splicemachine.concurrent.Clock;
 import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
 import io.netty.channel.ChannelHandlerContext;
@@ -33,7 +34,7 @@ import java.util.concurrent.ThreadFactory;
 class OlapRequestHandler extends AbstractOlapHandler{
     private static final Logger LOG =Logger.getLogger(OlapRequestHandler.class);
 
-    private final ExecutorService executionPool;
+    private final OlapAdmissionController admissionController;
     private final Clock clock;
     private final long clientCheckTimeMs;
 
@@ -42,7 +43,10 @@ class OlapRequestHandler extends AbstractOlapHandler{
                        Clock clock,
                        long clientCheckTimeMs){
         super(jobRegistry);
-        this.executionPool=configureThreadPool(config);
+        this.admissionController=new OlapAdmissionController(configureThreadPool(config),
+                clock,
+                config.getOlapServerMaxConcurrentJobs(),
+                OlapResourceGroup.parse(config.prefixMatch(SIConfigurations.OLAP_SERVER_RESOURCE_GROUP_PREFIX)));
         this.clock=clock;
         this.clientCheckTimeMs=clientCheckTimeMs;
     }
@@ -55,6 +59,7 @@ class OlapRequestHandler extends AbstractOlapHandler{
             ctx.fireChannelRead(jobRequest);
             return;
         }
+        OlapSerializationUtils.receiveClock(jobRequest);
         OlapMessage.Submit extension=jobRequest.getExtension(OlapMessage.Submit.command);
         DistributedJob jr = OlapSerializationUtils.decode(extension.getCommandBytes());
         if(LOG.isTraceEnabled())
@@ -65,6 +70,7 @@ class OlapRequestHandler extends AbstractOlapHandler{
         OlapJobStatus.State state=jobStatus.currentState();
         switch(state){
             case SUBMITTED:
+            case QUEUED:
             case RUNNING:
             case CANCELED:
             case FAILED:
@@ -94,20 +100,11 @@ class OlapRequestHandler extends AbstractOlapHandler{
             LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted");
         writeResponse(ctx.channel(),jr.getUniqueName(),jobStatus);
 
-        executionPool.submit(new Callable<Void>() {
-            @Override
-            public Void call() throws Exception {
-                try {
-                    return job.call();
-                } catch (Throwable t) {
-                    LOG.error("Uncaught exception", t);
-                    if (jobStatus.isRunning()) {
-                        jobStatus.markCompleted(new FailedOlapResult(t));
-                    }
-                }
-                return null;
-            }
-        });
+        admissionController.submit(jr,jobStatus,job);
+    }
+
+    OlapAdmissionController getAdmissionController(){
+        return admissionController;
     }
 
 
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.olap;
+
+import com.splicemachine.access.configuration.SIConfigurations;
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A set of users and roles whose Olap jobs share a limit on the number of jobs running at the same time
+ * and on the memory those jobs use.
+ *
+ * The usage counters are maintained by the {@link OlapAdmissionController}, under its lock.
+ */
+class OlapResourceGroup{
+    private static final Logger LOG=Logger.getLogger(OlapResourceGroup.class);
+
+    static final String DEFAULT_GROUP="default";
+
+    static final String MEMBERS="members";
+    static final String MAX_CONCURRENT_JOBS="maxConcurrentJobs";
+    static final String MEMORY_BUDGET="memoryBudget";
+    static final String JOB_MEMORY="jobMemory";
+    static final String PRIORITY="priority";
+    static final String QUEUE_TIMEOUT="queueTimeout";
+
+    private final String name;
+    private final Set<String> members;
+    private final int maxConcurrentJobs;
+    private final long memoryBudget;
+    private final long jobMemory;
+    private final int priority;
+    private final long queueTimeout;
+
+    private int runningJobs;
+    private long memoryInUse;
+
+    OlapResourceGroup(String name,Set<String> members,int maxConcurrentJobs,long memoryBudget,long jobMemory,int priority,long queueTimeout){
+        this.name=name;
+        this.members=members;
+        this.maxConcurrentJobs=maxConcurrentJobs;
+        this.memoryBudget=memoryBudget;
+        this.jobMemory=jobMemory;
+        this.priority=priority;
+        this.queueTimeout=queueTimeout;
+    }
+
+    /**
+     * Parses the resource groups out of the properties prefixed by
+     * {@link SIConfigurations#OLAP_SERVER_RESOURCE_GROUP_PREFIX}. The default group is always present.
+     *
+     * @param properties the configuration properties, by name
+     * @return the groups, by name
+     */
+    static Map<String,OlapResourceGroup> parse(Map<String,String> properties){
+        Map<String,Map<String,String>> settings=new HashMap<>();
+        settings.put(DEFAULT_GROUP,new HashMap<String,String>());
+        String prefix=SIConfigurations.OLAP_SERVER_RESOURCE_GROUP_PREFIX;
+        for(Map.Entry<String,String> property : properties.entrySet()){
+            String key=property.getKey();
+            if(!key.startsWith(prefix))
+                continue;
+            int separator=key.lastIndexOf('.');
+            if(separator<=prefix.length()){
+                LOG.warn("Ignoring malformed resource group property "+key);
+                continue;
+            }
+            String group=key.substring(prefix.length(),separator);
+            Map<String,String> groupSettings=settings.get(group);
+            if(groupSettings==null){
+                groupSettings=new HashMap<>();
+                settings.put(group,groupSettings);
+            }
+            groupSettings.put(key.substring(separator+1),property.getValue());
+        }
+
+        Map<String,OlapResourceGroup> groups=new HashMap<>(settings.size());
+        for(Map.Entry<String,Map<String,String>> group : settings.entrySet()){
+            Map<String,String> s=group.getValue();
+            Set<String> members=new HashSet<>();
+            String memberList=s.get(MEMBERS);
+            if(memberList!=null){
+                for(String member : memberList.split(",")){
+                    if(!member.trim().isEmpty())
+                        members.add(member.trim().toUpperCase(Locale.ENGLISH));
+                }
+            }
+            groups.put(group.getKey(),new OlapResourceGroup(group.getKey(),
+                    Collections.unmodifiableSet(members),
+                    getInt(s,MAX_CONCURRENT_JOBS,Integer.MAX_VALUE),
+                    getLong(s,MEMORY_BUDGET,Long.MAX_VALUE),
+                    getLong(s,JOB_MEMORY,0L),
+                    getInt(s,PRIORITY,0),
+                    getLong(s,QUEUE_TIMEOUT,0L)));
+        }
+        return groups;
+    }
+
+    String getName(){
+        return name;
+    }
+
+    Set<String> getMembers(){
+        return members;
+    }
+
+    int getPriority(){
+        return priority;
+    }
+
+    long getQueueTimeout(){
+        return queueTimeout;
+    }
+
+    long getJobMemory(){
+        return jobMemory;
+    }
+
+    int getRunningJobs(){
+        return runningJobs;
+    }
+
+    long getMemoryInUse(){
+        return memoryInUse;
+    }
+
+    /**
+     * A job which needs more memory than the budget allows still runs, on its own, so it doesn't wait forever
+     *
+     * @return true if a job needing {@code memory} fits in the group now
+     */
+    boolean canAdmit(long memory){
+        if(runningJobs>=maxConcurrentJobs)
+            return false;
+        return runningJobs==0 || memoryInUse+memory<=memoryBudget;
+    }
+
+    void admit(long memory){
+        runningJobs++;
+        memoryInUse+=memory;
+    }
+
+    void release(long memory){
+        runningJobs--;
+        memoryInUse-=memory;
+    }
+
+    @Override
+    public String toString(){
+        return name+"{running="+runningJobs+"/"+(maxConcurrentJobs==Integer.MAX_VALUE?"unbounded":maxConcurrentJobs)
+                +", memory="+memoryInUse+"/"+(memoryBudget==Long.MAX_VALUE?"unbounded":memoryBudget)+"MB"
+                +", priority="+priority+"}";
+    }
+
+    private static int getInt(Map<String,String> settings,String key,int deflt){
+        String value=settings.get(key);
+        return value==null?deflt:Integer.parseInt(value.trim());
+    }
+
+    private static long getLong(Map<String,String> settings,String key,long deflt){
+        String value=settings.get(key);
+        return value==null?deflt:Long.parseLong(value.trim());
+    }
+}
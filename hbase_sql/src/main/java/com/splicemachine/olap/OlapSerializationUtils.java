@@ -18,6 +18,8 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.ZeroCopyLiteralByteString;
 import com.splicemachine.olap.OlapMessage;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 
 import java.io.*;
 
@@ -53,7 +55,7 @@ class OlapSerializationUtils{
         OlapMessage.FailedResponse fr=OlapMessage.FailedResponse.newBuilder().setErrorBytes(encode(throwable)).build();
         response.setType(OlapMessage.Response.Type.FAILED);
         response.setExtension(OlapMessage.FailedResponse.response,fr);
-        return response.build();
+        return stampClock(response).build();
     }
 
     static OlapMessage.Response buildResponse(OlapStatus status,boolean[] shouldRemoveAfterWriting,long tickTime) throws IOException{
@@ -74,6 +76,11 @@ class OlapSerializationUtils{
                     OlapMessage.ProgressResponse build=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime).build();
                     response.setExtension(OlapMessage.ProgressResponse.response,build);
                     break;
+                case QUEUED:
+                    response.setType(OlapMessage.Response.Type.QUEUED);
+                    OlapMessage.ProgressResponse queued=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime).build();
+                    response.setExtension(OlapMessage.ProgressResponse.response,queued);
+                    break;
                 case CANCELED:
                     shouldRemoveAfterWriting[0]=true;
                     OlapMessage.CancelledResponse cr=OlapMessage.CancelledResponse.getDefaultInstance();
@@ -97,6 +104,41 @@ class OlapSerializationUtils{
                     throw new IllegalStateException("Programmer error: unexpected state!");
             }
         }
-        return response.build();
+        return stampClock(response).build();
+    }
+
+    /*
+     * With the hybrid logical clock on, every command and response carries the sender's clock, so that the
+     * transactions a job begins on the server are ordered after the client's, and the client's after the job's.
+     */
+    static OlapMessage.Command.Builder stampClock(OlapMessage.Command.Builder command){
+        HLCTimestampSource hlc=hybridLogicalClock();
+        if(hlc!=null)
+            command.setHlc(hlc.currentTimestamp());
+        return command;
+    }
+
+    static OlapMessage.Response.Builder stampClock(OlapMessage.Response.Builder response){
+        HLCTimestampSource hlc=hybridLogicalClock();
+        if(hlc!=null)
+            response.setHlc(hlc.currentTimestamp());
+        return response;
+    }
+
+    static void receiveClock(OlapMessage.Command command){
+        HLCTimestampSource hlc=hybridLogicalClock();
+        if(hlc!=null && command.hasHlc())
+            hlc.receiveTimestamp(command.getHlc());
+    }
+
+    static void receiveClock(OlapMessage.Response response){
+        HLCTimestampSource hlc=hybridLogicalClock();
+        if(hlc!=null && response.hasHlc())
+            hlc.receiveTimestamp(response.getHlc());
+    }
+
+    private static HLCTimestampSource hybridLogicalClock(){
+        SIDriver driver=SIDriver.driver();
+        return driver==null?null:driver.getHybridLogicalClock();
     }
 }
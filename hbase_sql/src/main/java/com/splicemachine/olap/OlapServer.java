@@ -29,7 +29,11 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.apache.log4j.Logger;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -61,8 +65,9 @@ public class OlapServer {
         OlapJobRegistry registry = new MappedJobRegistry(config.getOlapClientTickTime(),
                 config.getOlapServerTickLimit(),
                 TimeUnit.MILLISECONDS);
-        ChannelInboundHandler submitHandler = new OlapRequestHandler(config,
+        OlapRequestHandler submitHandler = new OlapRequestHandler(config,
                 registry,clock,config.getOlapClientTickTime());
+        registerJMX(submitHandler.getAdmissionController());
         ChannelInboundHandler statusHandler = new OlapStatusHandler(registry);
         ChannelInboundHandler cancelHandler = new OlapCancelHandler(registry);
 
@@ -87,6 +92,17 @@ public class OlapServer {
 
     }
 
+    private void registerJMX(OlapAdmissionManagement admissionManagement) {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(admissionManagement, new ObjectName("com.splicemachine.olap:type=OlapAdmissionManagement"));
+        } catch (InstanceAlreadyExistsException ignored) {
+            // another Olap server in the same JVM (e.g. for testing purposes) registered first
+        } catch (Exception e) {
+            LOG.warn("Unable to register Olap admission control with JMX", e);
+        }
+    }
+
     private int getPortNumber() {
         return port;
     }
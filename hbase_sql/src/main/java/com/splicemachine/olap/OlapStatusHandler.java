@@ -41,6 +41,7 @@ public class OlapStatusHandler extends AbstractOlapHandler{
             ctx.fireChannelRead(cmd);
             return;
         }
+        OlapSerializationUtils.receiveClock(cmd);
         OlapJobStatus status = jobRegistry.getStatus(cmd.getUniqueName());
 
         OlapMessage.Status statusMsg = cmd.getExtension(OlapMessage.Status.command);
@@ -48,6 +49,7 @@ public class OlapStatusHandler extends AbstractOlapHandler{
             long waitTime = statusMsg.getWaitTimeMillis();
             switch (status.checkState()) {
                 case SUBMITTED:
+                case QUEUED:
                 case RUNNING:
                     status.wait(waitTime, TimeUnit.MILLISECONDS);
                 default:
@@ -40,7 +40,7 @@ public class FileOrcDataSource
     }
 
     @Override
-    protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    protected synchronized void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
             throws IOException
     {
         input.seek(position);
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.orc;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slices;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source over a local file, mapped in memory. Disk ranges are returned as slices of the mapping, without
+ * copying them, and the mapping can be read from several threads at once.
+ */
+public class MappedOrcDataSource
+        implements OrcDataSource
+{
+    // a mapping can't be larger than Integer.MAX_VALUE bytes
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+    private final String name;
+    private final long size;
+    private MappedByteBuffer[] chunks;
+    // updated by the prefetch thread as well as the reader, when prefetching
+    private final AtomicLong readTimeNanos = new AtomicLong();
+    private final AtomicLong readBytes = new AtomicLong();
+
+    public MappedOrcDataSource(File path)
+            throws IOException
+    {
+        this.name = requireNonNull(path, "path is null").getPath();
+        try (RandomAccessFile file = new RandomAccessFile(path, "r");
+                FileChannel channel = file.getChannel()) {
+            this.size = channel.size();
+            this.chunks = new MappedByteBuffer[toIntExact((size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE)];
+            for (int i = 0; i < chunks.length; i++) {
+                long chunkOffset = i * MAX_CHUNK_SIZE;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkOffset, Math.min(MAX_CHUNK_SIZE, size - chunkOffset));
+            }
+        }
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return readBytes.get();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos.get();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        long start = System.nanoTime();
+        checkRange(position, bufferLength);
+        int copied = 0;
+        while (copied < bufferLength) {
+            ByteBuffer chunk = chunkAt(position + copied);
+            int length = Math.min(bufferLength - copied, chunk.remaining());
+            chunk.get(buffer, bufferOffset + copied, length);
+            copied += length;
+        }
+        readTimeNanos.addAndGet(System.nanoTime() - start);
+        readBytes.addAndGet(bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        requireNonNull(diskRanges, "diskRanges is null");
+
+        ImmutableMap.Builder<K, FixedLengthSliceInput> slices = ImmutableMap.builder();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            checkRange(diskRange.getOffset(), diskRange.getLength());
+            if (diskRange.getLength() == 0) {
+                slices.put(entry.getKey(), Slices.EMPTY_SLICE.getInput());
+                continue;
+            }
+            ByteBuffer chunk = chunkAt(diskRange.getOffset());
+            if (diskRange.getLength() <= chunk.remaining()) {
+                // the range is within a single mapping, so it can be used in place
+                chunk.limit(chunk.position() + diskRange.getLength());
+                slices.put(entry.getKey(), Slices.wrappedBuffer(chunk.slice()).getInput());
+                readBytes.addAndGet(diskRange.getLength());
+            }
+            else {
+                byte[] buffer = new byte[diskRange.getLength()];
+                readFully(diskRange.getOffset(), buffer);
+                slices.put(entry.getKey(), Slices.wrappedBuffer(buffer).getInput());
+            }
+        }
+        return slices.build();
+    }
+
+    @Override
+    public void close()
+    {
+        // the mappings are released once they are no longer referenced
+        chunks = null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+
+    private void checkRange(long position, int length)
+            throws IOException
+    {
+        if (chunks == null) {
+            throw new IOException(name + " is closed");
+        }
+        if (position < 0 || position + length > size) {
+            throw new EOFException(String.format("read request (offset %d length %d) is outside of %s (length %d)", position, length, name, size));
+        }
+    }
+
+    /**
+     * @return a view of the mapping holding {@code position}, positioned on it
+     */
+    private ByteBuffer chunkAt(long position)
+    {
+        ByteBuffer chunk = chunks[toIntExact(position / MAX_CHUNK_SIZE)].duplicate();
+        chunk.position(toIntExact(position % MAX_CHUNK_SIZE));
+        return chunk;
+    }
+}
@@ -447,6 +447,11 @@ public class OrcRecordReader
 
             rowGroups = stripe.getRowGroups().iterator();
         }
+
+        // read the next stripe while this one is decoded
+        if (currentStripe + 1 < stripes.size()) {
+            stripeReader.prefetchStripe(stripes.get(currentStripe + 1), currentStripeSystemMemoryContext);
+        }
     }
 
     private static StreamReader[] createStreamReaders(OrcDataSource orcDataSource,
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.orc;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.splicemachine.orc.memory.LocalMemoryContext;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.splicemachine.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Data source which reads disk ranges ahead of time, in the background, so the next stripe is read from disk while
+ * the current one is decoded. Reads of ranges which were prefetched are served from memory, other reads go to the
+ * underlying data source, which must support reads from several threads at once.
+ *
+ * The prefetched buffers are accounted for in the given memory context until the next prefetch, or until the data
+ * source is closed.
+ *
+ * All the data sources of the JVM share a pool with a thread per core (and at least four). A range which finds no free thread is not
+ * prefetched, and is read on demand instead.
+ */
+public class PrefetchingOrcDataSource
+        implements OrcDataSource
+{
+    private static final ExecutorService PREFETCH_EXECUTOR = newPrefetchExecutor(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    private final OrcDataSource dataSource;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadSize;
+    private final LocalMemoryContext prefetchMemoryUsage;
+    private final Map<DiskRange, Future<byte[]>> prefetched = new LinkedHashMap<>();
+
+    public PrefetchingOrcDataSource(OrcDataSource dataSource, DataSize maxMergeDistance, DataSize maxReadSize, LocalMemoryContext prefetchMemoryUsage)
+    {
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
+        this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+        this.prefetchMemoryUsage = requireNonNull(prefetchMemoryUsage, "prefetchMemoryUsage is null");
+    }
+
+    /**
+     * Starts reading {@code diskRanges} in the background, merging ranges which are close to each other, and drops
+     * whatever was prefetched before. Ranges larger than the maximum read size are left to be read on demand.
+     */
+    public void prefetch(Collection<DiskRange> diskRanges)
+    {
+        releasePrefetched();
+
+        long maxReadSizeBytes = maxReadSize.toBytes();
+        List<DiskRange> smallRanges = new ArrayList<>(diskRanges.size());
+        for (DiskRange diskRange : diskRanges) {
+            if (diskRange.getLength() > 0 && diskRange.getLength() <= maxReadSizeBytes) {
+                smallRanges.add(diskRange);
+            }
+        }
+        if (smallRanges.isEmpty()) {
+            return;
+        }
+
+        long prefetchedBytes = 0;
+        for (DiskRange mergedRange : mergeAdjacentDiskRanges(smallRanges, maxMergeDistance, maxReadSize)) {
+            Future<byte[]> buffer;
+            try {
+                buffer = PREFETCH_EXECUTOR.submit(() -> {
+                    byte[] bytes = new byte[mergedRange.getLength()];
+                    dataSource.readFully(mergedRange.getOffset(), bytes);
+                    return bytes;
+                });
+            }
+            catch (RejectedExecutionException e) {
+                // every prefetch thread is busy, the range is read on demand
+                continue;
+            }
+            prefetched.put(mergedRange, buffer);
+            prefetchedBytes += mergedRange.getLength();
+        }
+        prefetchMemoryUsage.setBytes(prefetchedBytes);
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return dataSource.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return dataSource.getReadTimeNanos();
+    }
+
+    @Override
+    public long getSize()
+    {
+        return dataSource.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        DiskRange diskRange = new DiskRange(position, bufferLength);
+        DiskRange prefetchedRange = findPrefetchedRange(diskRange);
+        if (prefetchedRange == null) {
+            dataSource.readFully(position, buffer, bufferOffset, bufferLength);
+            return;
+        }
+        byte[] prefetchedBuffer = getPrefetchedBuffer(prefetchedRange);
+        System.arraycopy(prefetchedBuffer, toIntExact(position - prefetchedRange.getOffset()), buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        requireNonNull(diskRanges, "diskRanges is null");
+
+        ImmutableMap.Builder<K, FixedLengthSliceInput> slices = ImmutableMap.builder();
+        Map<K, DiskRange> remainingRanges = new LinkedHashMap<>();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            DiskRange prefetchedRange = findPrefetchedRange(diskRange);
+            if (prefetchedRange == null) {
+                remainingRanges.put(entry.getKey(), diskRange);
+                continue;
+            }
+            byte[] prefetchedBuffer = getPrefetchedBuffer(prefetchedRange);
+            int offset = toIntExact(diskRange.getOffset() - prefetchedRange.getOffset());
+            slices.put(entry.getKey(), Slices.wrappedBuffer(prefetchedBuffer, offset, diskRange.getLength()).getInput());
+        }
+        if (!remainingRanges.isEmpty()) {
+            slices.putAll(dataSource.readFully(remainingRanges));
+        }
+        return slices.build();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        releasePrefetched();
+        dataSource.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return dataSource.toString();
+    }
+
+    private DiskRange findPrefetchedRange(DiskRange diskRange)
+    {
+        for (DiskRange prefetchedRange : prefetched.keySet()) {
+            if (prefetchedRange.contains(diskRange)) {
+                return prefetchedRange;
+            }
+        }
+        return null;
+    }
+
+    private byte[] getPrefetchedBuffer(DiskRange prefetchedRange)
+            throws IOException
+    {
+        try {
+            return prefetched.get(prefetchedRange).get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for prefetched range " + prefetchedRange + " of " + this);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to prefetch range " + prefetchedRange + " of " + this, e.getCause());
+        }
+    }
+
+    private static ExecutorService newPrefetchExecutor(int maxThreads)
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("orc-prefetch-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void releasePrefetched()
+    {
+        if (prefetched.isEmpty()) {
+            return;
+        }
+        // reads which already started are left to complete, their buffers are simply dropped
+        for (Future<byte[]> buffer : prefetched.values()) {
+            buffer.cancel(false);
+        }
+        prefetched.clear();
+        prefetchMemoryUsage.setBytes(0);
+    }
+}
@@ -182,6 +182,30 @@ public class StripeReader
         return new Stripe(stripe.getNumberOfRows(), columnEncodings, ImmutableList.of(rowGroup), dictionaryStreamSources);
     }
 
+    /**
+     * Starts reading the streams of {@code stripe} this reader needs in the background, if the data source reads
+     * ahead, so they are already in memory when the stripe is read. Only the stripe footer is read right away.
+     */
+    public void prefetchStripe(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
+    {
+        if (!(orcDataSource instanceof PrefetchingOrcDataSource)) {
+            return;
+        }
+        StripeFooter stripeFooter = readStripeFooter(stripe, systemMemoryUsage);
+
+        ImmutableList.Builder<DiskRange> diskRanges = ImmutableList.builder();
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
+            if (includedOrcColumns.contains(entry.getKey().getColumn())) {
+                DiskRange diskRange = entry.getValue();
+                diskRanges.add(new DiskRange(stripe.getOffset() + diskRange.getOffset(), diskRange.getLength()));
+            }
+        }
+        // the footer is read again when the stripe is
+        diskRanges.add(new DiskRange(stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength(), toIntExact(stripe.getFooterLength())));
+        ((PrefetchingOrcDataSource) orcDataSource).prefetch(diskRanges.build());
+    }
+
     public Map<StreamId, OrcInputStream> readDiskRanges(long stripeOffset, Map<StreamId, DiskRange> diskRanges, AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
@@ -21,6 +21,7 @@ import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.metastore.Warehouse;
 import org.apache.hadoop.hive.metastore.api.MetaException;
@@ -57,7 +58,6 @@ public class OrcMapreduceRecordReader extends RecordReader<NullWritable,Row> {
         Path path = orcNewSplit.getPath();
         FileSystem fileSystem = FileSystem.get(path.toUri(),configuration);
         long size = fileSystem.getFileStatus(path).getLen();
-        FSDataInputStream inputStream = fileSystem.open(path);
         rowStruct = getRowStruct(configuration);
         predicate = getSplicePredicate(configuration);
         List<Integer> partitions = getPartitionIds(configuration);
@@ -71,13 +71,24 @@ public class OrcMapreduceRecordReader extends RecordReader<NullWritable,Row> {
         } catch (MetaException me) {
             throw new IOException(me);
         }
-        OrcDataSource orcDataSource = new HdfsOrcDataSource(path.toString(), size, new DataSize(maxMergeDistance, DataSize.Unit.MEGABYTE),
-                new DataSize(maxReadSize, DataSize.Unit.MEGABYTE),
-                new DataSize(streamBufferSize, DataSize.Unit.MEGABYTE), inputStream);
+        OrcDataSource orcDataSource;
+        if (fileSystem instanceof LocalFileSystem && configuration.getBoolean(MEMORY_MAP,MEMORY_MAP_DEFAULT)) {
+            orcDataSource = new MappedOrcDataSource(((LocalFileSystem) fileSystem).pathToFile(path));
+        } else {
+            FSDataInputStream inputStream = fileSystem.open(path);
+            orcDataSource = new HdfsOrcDataSource(path.toString(), size, new DataSize(maxMergeDistance, DataSize.Unit.MEGABYTE),
+                    new DataSize(maxReadSize, DataSize.Unit.MEGABYTE),
+                    new DataSize(streamBufferSize, DataSize.Unit.MEGABYTE), inputStream);
+        }
+        AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
+        if (configuration.getBoolean(PREFETCH,PREFETCH_DEFAULT)) {
+            orcDataSource = new PrefetchingOrcDataSource(orcDataSource, new DataSize(maxMergeDistance, DataSize.Unit.MEGABYTE),
+                    new DataSize(maxReadSize, DataSize.Unit.MEGABYTE), systemMemoryUsage.newLocalMemoryContext());
+        }
         OrcReader orcReader = new OrcReader(orcDataSource, new OrcMetadataReader(), new DataSize(maxMergeDistance, DataSize.Unit.MEGABYTE),
                 new DataSize(maxReadSize, DataSize.Unit.MEGABYTE));
         orcRecordReader = orcReader.createRecordReader(getColumnsAndTypes(columnIds,rowStruct),
-                predicate, HIVE_STORAGE_TIME_ZONE, new AggregatedMemoryContext(),partitions,values);
+                predicate, HIVE_STORAGE_TIME_ZONE, systemMemoryUsage,partitions,values);
     }
 
     @Override
@@ -48,9 +48,13 @@ public class SpliceOrcNewInputFormat extends InputFormat<NullWritable,Row>
     public static final String MAX_MERGE_DISTANCE ="com.splicemachine.orc.maxMergeDistance";
     public static final String MAX_READ_SIZE ="com.splicemachine.orc.maxReadSize";
     public static final String STREAM_BUFFER_SIZE ="com.splicemachine.orc.streamBufferSize";
+    public static final String MEMORY_MAP ="com.splicemachine.orc.memoryMap";
+    public static final String PREFETCH ="com.splicemachine.orc.prefetch";
     public static final double MAX_MERGE_DISTANCE_DEFAULT = 1;
     public static final double MAX_READ_SIZE_DEFAULT = 8;
     public static final double STREAM_BUFFER_SIZE_DEFAULT = 8;
+    public static final boolean MEMORY_MAP_DEFAULT = true;
+    public static final boolean PREFETCH_DEFAULT = true;
     public static final long DEFAULT_PARTITION_SIZE = 10000;
     public static final String SPLICE_COLLECTSTATS ="com.splicemachine.collectstats";
 
@@ -85,8 +85,9 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
             String sql = activation.getPreparedStatement().getSource();
             sql = sql == null ? root.toString() : sql;
             String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
+            String roleId = activation.getLanguageConnectionContext().getCurrentRoleId(activation);
 
-            RemoteQueryJob jobRequest = new RemoteQueryJob(ah, root.getResultSetNumber(), uuid, host, port, userId, sql,
+            RemoteQueryJob jobRequest = new RemoteQueryJob(ah, root.getResultSetNumber(), uuid, host, port, userId, roleId, sql,
                     streamingBatches, streamingBatchSize);
             olapFuture = EngineDriver.driver().getOlapClient().submit(jobRequest);
             olapFuture.addListener(new Runnable() {
@@ -32,13 +32,14 @@ public class RemoteQueryJob extends DistributedJob {
     String host;
     int port;
     String userId;
+    String roleId;
     String sql;
     int streamingBatches;
     int streamingBatchSize;
 
 
     public RemoteQueryJob(ActivationHolder ah, int rootResultSetNumber, UUID uuid, String host, int port,
-                          String userId, String sql,
+                          String userId, String roleId, String sql,
                           int streamingBatches, int streamingBatchSize) {
         this.ah = ah;
         this.rootResultSetNumber = rootResultSetNumber;
@@ -46,6 +47,7 @@ public class RemoteQueryJob extends DistributedJob {
         this.host = host;
         this.port = port;
         this.userId = userId;
+        this.roleId = roleId;
         this.sql = sql;
         this.streamingBatches = streamingBatches;
         this.streamingBatchSize = streamingBatchSize;
@@ -56,6 +58,16 @@ public class RemoteQueryJob extends DistributedJob {
         return new QueryJob(this, jobStatus);
     }
 
+    @Override
+    public String getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getRoleId() {
+        return roleId;
+    }
+
     @Override
     public String getName() {
         return "query-"+uuid;
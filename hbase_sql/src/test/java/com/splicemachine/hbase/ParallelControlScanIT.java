@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.util.Properties;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Control mode scans of a table split into several regions read the regions concurrently. Rows must still come
+ * back in key order when the plan relies on it, and closing a scan half way through must not break the session.
+ */
+public class ParallelControlScanIT {
+    private static final String SCHEMA = ParallelControlScanIT.class.getSimpleName().toUpperCase();
+    private static final String URL = "jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin;" +
+            "useSpark=false;controlScanParallelism=4";
+    private static final int ROWS = 40960;
+
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    private TestConnection conn;
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        new TableCreator(classWatcher.getOrCreateConnection())
+                .withCreate(String.format("create table %s.t (a int, b int, primary key (a))", SCHEMA))
+                .withInsert(String.format("insert into %s.t values(?,?)", SCHEMA))
+                .withRows(rows(
+                        row(1, 1), row(2, 2), row(3, 3), row(4, 4), row(5, 5),
+                        row(6, 6), row(7, 7), row(8, 8), row(9, 9), row(10, 10)))
+                .create();
+        // a = 1..40960
+        int factor = 10;
+        for (int i = 1; i <= 12; i++) {
+            classWatcher.executeUpdate(String.format("insert into %s.t select a+%d, b from %s.t", SCHEMA, factor, SCHEMA));
+            factor = factor * 2;
+        }
+        classWatcher.executeUpdate(String.format("CALL SYSCS_UTIL.SYSCS_SPLIT_TABLE_OR_INDEX_AT_POINTS('%s', 'T', null, '%s')",
+                SCHEMA, "\\xC2\\x00,\\xC4\\x00,\\xC6\\x00,\\xC8\\x00"));
+        classWatcher.executeQuery(String.format("analyze schema %s", SCHEMA));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        conn = new TestConnection(DriverManager.getConnection(URL, new Properties()));
+        conn.setSchema(SCHEMA);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    public void scanReturnsRowsInKeyOrder() throws Exception {
+        try (ResultSet rs = conn.query("select a from t")) {
+            for (int a = 1; a <= ROWS; a++) {
+                assertTrue("Missing row " + a, rs.next());
+                assertEquals("Row out of key order", a, rs.getInt(1));
+            }
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void mergeJoinGetsOrderedInput() throws Exception {
+        try (ResultSet rs = conn.query("select count(*), sum(cast(t2.a as bigint)) from --splice-properties joinOrder=fixed\n" +
+                "t t1, t t2 --splice-properties joinStrategy=MERGE\n" +
+                "where t1.a = t2.a")) {
+            assertTrue(rs.next());
+            assertEquals(ROWS, rs.getInt(1));
+            assertEquals((long) ROWS * (ROWS + 1) / 2, rs.getLong(2));
+        }
+    }
+
+    @Test
+    public void aggregateSeesEveryRow() throws Exception {
+        try (ResultSet rs = conn.query("select count(*), sum(b) from t where b > 5")) {
+            assertTrue(rs.next());
+            assertEquals(ROWS / 2, rs.getInt(1));
+            assertEquals(40 * 4096, rs.getInt(2));
+        }
+    }
+
+    @Test
+    public void closingTheScanEarlyKeepsTheSessionUsable() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            try (ResultSet rs = conn.query("select a from t")) {
+                for (int a = 1; a <= 10; a++) {
+                    assertTrue(rs.next());
+                    assertEquals(a, rs.getInt(1));
+                }
+            }
+        }
+        try (ResultSet rs = conn.query("select count(*) from t")) {
+            assertTrue(rs.next());
+            assertEquals(ROWS, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.db.shared.common.reference.SQLState;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static org.junit.Assert.*;
+
+/**
+ * Indexes created over a table which already holds enough data for CREATE INDEX to populate them with a
+ * distributed job, which bulk loads non-unique indexes from HFiles and keeps unique ones on the write pipeline.
+ */
+public class PopulateIndexIT {
+    private static final String SCHEMA = PopulateIndexIT.class.getSimpleName().toUpperCase();
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+
+    private static final int ROWS = 3000;
+    private static final int KEYS = 100;
+
+    @ClassRule
+    public static SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @BeforeClass
+    public static void createTables() throws Exception {
+        // pad each row out, so the table is large enough for index creation to run distributed
+        char[] pad = new char[1000];
+        Arrays.fill(pad, 'x');
+        List<Iterable<Object>> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row(i, i % KEYS, new String(pad)));
+        }
+        TestConnection conn = classWatcher.getOrCreateConnection();
+        new TableCreator(conn)
+                .withCreate("create table t (id int, k int, pad varchar(1000))")
+                .withInsert("insert into t values(?,?,?)")
+                .withRows(rows)
+                .create();
+
+        CallableStatement flush = conn.prepareCall("call SYSCS_UTIL.SYSCS_FLUSH_TABLE(?,?)");
+        flush.setString(1, SCHEMA);
+        flush.setString(2, "T");
+        flush.execute();
+    }
+
+    @Test
+    public void nonUniqueIndexOverExistingRows() throws Exception {
+        methodWatcher.execute("create index t_k on t(k)");
+        try {
+            assertEquals(ROWS / KEYS, count("select count(*) from t --splice-properties index=t_k\n where k = 7"));
+            assertEquals(ROWS, count("select count(*) from t --splice-properties index=t_k\n where k >= 0"));
+            assertEquals(count("select sum(id) from t --splice-properties index=null\n where k between 10 and 19"),
+                    count("select sum(id) from t --splice-properties index=t_k\n where k between 10 and 19"));
+        } finally {
+            methodWatcher.execute("drop index t_k");
+        }
+    }
+
+    @Test
+    public void uniqueIndexOverDistinctRows() throws Exception {
+        methodWatcher.execute("create unique index t_id on t(id)");
+        try {
+            assertEquals(ROWS, count("select count(*) from t --splice-properties index=t_id\n where id >= 0"));
+            assertEquals(1234 % KEYS, count("select k from t --splice-properties index=t_id\n where id = 1234"));
+        } finally {
+            methodWatcher.execute("drop index t_id");
+        }
+    }
+
+    @Test
+    public void uniqueIndexOverDuplicateRowsFails() throws Exception {
+        try {
+            methodWatcher.execute("create unique index t_k_unique on t(k)");
+            fail("Created a unique index over duplicate keys");
+        } catch (SQLException se) {
+            assertEquals(SQLState.LANG_DUPLICATE_KEY_CONSTRAINT, se.getSQLState());
+        }
+        assertEquals(0, count("select count(*) from sys.sysconglomerates where conglomeratename = 'T_K_UNIQUE'"));
+    }
+
+    @Test
+    public void uniqueConstraintOverDuplicateRowsFails() throws Exception {
+        try {
+            methodWatcher.execute("alter table t add constraint t_k_constraint unique(k)");
+            fail("Added a unique constraint over duplicate keys");
+        } catch (SQLException se) {
+            assertEquals(SQLState.LANG_DUPLICATE_KEY_CONSTRAINT, se.getSQLState());
+        }
+        assertEquals(0, count("select count(*) from sys.sysconstraints where constraintname = 'T_K_CONSTRAINT'"));
+    }
+
+    private long count(String sql) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+}
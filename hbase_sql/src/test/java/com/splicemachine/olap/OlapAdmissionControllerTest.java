@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.olap;
+
+import com.splicemachine.access.configuration.SIConfigurations;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.SystemClock;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class OlapAdmissionControllerTest {
+    private static final String PREFIX = SIConfigurations.OLAP_SERVER_RESOURCE_GROUP_PREFIX;
+
+    private ExecutorService executor;
+    private OlapAdmissionController controller;
+
+    @Before
+    public void setUp() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PREFIX + "reports.members", "reporter, analysts");
+        properties.put(PREFIX + "reports.maxConcurrentJobs", "1");
+        properties.put(PREFIX + "reports.queueTimeout", "60000");
+        properties.put(PREFIX + "etl.members", "loader");
+        properties.put(PREFIX + "etl.memoryBudget", "100");
+        properties.put(PREFIX + "etl.jobMemory", "60");
+        properties.put(PREFIX + "adhoc.members", "analyst");
+        properties.put(PREFIX + "default.maxConcurrentJobs", "1");
+        executor = Executors.newCachedThreadPool();
+        controller = new OlapAdmissionController(executor, new SystemClock(), 0, OlapResourceGroup.parse(properties));
+    }
+
+    @After
+    public void tearDown() {
+        controller.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void picksGroupByUserThenRole() {
+        Assert.assertEquals("reports", controller.groupFor("REPORTER", null).getName());
+        Assert.assertEquals("reports", controller.groupFor("someone", "ANALYSTS").getName());
+        Assert.assertEquals("etl", controller.groupFor("loader", "ANALYSTS").getName());
+        Assert.assertEquals(OlapResourceGroup.DEFAULT_GROUP, controller.groupFor("someone", null).getName());
+        Assert.assertEquals(OlapResourceGroup.DEFAULT_GROUP, controller.groupFor(null, null).getName());
+    }
+
+    @Test
+    public void queuesJobsBeyondConcurrencyLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OlapJobStatus first = submit("reporter", release);
+        OlapJobStatus second = submit("reporter", release);
+        OlapJobStatus other = submit("loader", new CountDownLatch(0));
+
+        Assert.assertEquals(OlapStatus.State.QUEUED, second.currentState());
+        Assert.assertEquals(1, controller.getQueuedJobCount());
+        Assert.assertTrue("Job of another group should not wait", other.wait(10, TimeUnit.SECONDS));
+
+        release.countDown();
+        Assert.assertTrue(first.wait(10, TimeUnit.SECONDS));
+        Assert.assertTrue(second.wait(10, TimeUnit.SECONDS));
+        Assert.assertEquals(OlapStatus.State.COMPLETE, second.currentState());
+        Assert.assertEquals(0, controller.getQueuedJobCount());
+    }
+
+    @Test
+    public void queuesJobsBeyondMemoryBudget() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OlapJobStatus first = submit("loader", release);
+        OlapJobStatus second = submit("loader", release);
+
+        Assert.assertEquals(OlapStatus.State.QUEUED, second.currentState());
+
+        release.countDown();
+        Assert.assertTrue(first.wait(10, TimeUnit.SECONDS));
+        Assert.assertTrue(second.wait(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledQueuedJobIsDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OlapJobStatus first = submit("reporter", release);
+        OlapJobStatus second = submit("reporter", release);
+        second.cancel();
+
+        release.countDown();
+        Assert.assertTrue(first.wait(10, TimeUnit.SECONDS));
+        Assert.assertEquals(OlapStatus.State.CANCELED, second.currentState());
+    }
+
+    @Test
+    public void systemJobsAreNeverQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OlapJobStatus user = submit("someone", release);
+        OlapJobStatus queued = submit("someone", release);
+        OlapJobStatus system = submit(null, new CountDownLatch(0));
+
+        Assert.assertEquals(OlapStatus.State.QUEUED, queued.currentState());
+        Assert.assertTrue("System job should not wait behind user jobs", system.wait(10, TimeUnit.SECONDS));
+        Assert.assertEquals(OlapStatus.State.COMPLETE, system.currentState());
+        Assert.assertEquals(1, controller.getRunningJobs());
+
+        release.countDown();
+        Assert.assertTrue(user.wait(10, TimeUnit.SECONDS));
+        Assert.assertTrue(queued.wait(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void serverLimitIsUnboundedByDefault() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        OlapJobStatus[] jobs = new OlapJobStatus[64];
+        for (int i = 0; i < jobs.length; i++)
+            jobs[i] = submit("analyst", release);
+
+        Assert.assertEquals(0, controller.getQueuedJobCount());
+        Assert.assertEquals(jobs.length, controller.getRunningJobs());
+
+        release.countDown();
+        for (OlapJobStatus job : jobs)
+            Assert.assertTrue(job.wait(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void serverLimitQueuesJobsOfAllGroups() throws Exception {
+        OlapAdmissionController limited = new OlapAdmissionController(executor, new SystemClock(), 1,
+                OlapResourceGroup.parse(new HashMap<String, String>()));
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            OlapJobStatus first = submit(limited, "someone", release);
+            OlapJobStatus second = submit(limited, "someoneElse", release);
+            Assert.assertEquals(OlapStatus.State.QUEUED, second.currentState());
+
+            release.countDown();
+            Assert.assertTrue(first.wait(10, TimeUnit.SECONDS));
+            Assert.assertTrue(second.wait(10, TimeUnit.SECONDS));
+            Assert.assertEquals(OlapStatus.State.COMPLETE, second.currentState());
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    private OlapJobStatus submit(String user, CountDownLatch release) {
+        return submit(controller, user, release);
+    }
+
+    private static OlapJobStatus submit(OlapAdmissionController controller, String user, final CountDownLatch release) {
+        final OlapJobStatus status = new OlapJobStatus(1000, 120);
+        Assert.assertTrue(status.markSubmitted());
+        controller.submit(new UserJob(user), status, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (!status.markRunning())
+                    return null;
+                release.await();
+                status.markCompleted(new SubmittedResult(0));
+                return null;
+            }
+        });
+        return status;
+    }
+
+    private static class UserJob extends DistributedJob {
+        private final String user;
+
+        UserJob(String user) {
+            this.user = user;
+        }
+
+        @Override
+        public Callable<Void> toCallable(OlapStatus jobStatus, Clock clock, long clientTimeoutCheckIntervalMs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName() {
+            return "userJob";
+        }
+
+        @Override
+        public String getUserId() {
+            return user;
+        }
+    }
+}
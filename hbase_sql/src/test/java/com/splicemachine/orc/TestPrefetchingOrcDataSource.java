@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.orc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.splicemachine.orc.memory.AggregatedMemoryContext;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.units.DataSize;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestPrefetchingOrcDataSource
+{
+    private static final int FILE_SIZE = 64 * 1024;
+
+    private static File file;
+    private static byte[] data;
+
+    @BeforeClass
+    public static void setUp()
+            throws Exception
+    {
+        data = new byte[FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        file = Files.createTempFile("prefetch", ".orc").toFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
+
+    @AfterClass
+    public static void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void testMappedReads()
+            throws IOException
+    {
+        try (MappedOrcDataSource dataSource = new MappedOrcDataSource(file)) {
+            assertEquals(FILE_SIZE, dataSource.getSize());
+
+            byte[] buffer = new byte[100];
+            dataSource.readFully(1000, buffer);
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, 1100), buffer);
+
+            Map<String, FixedLengthSliceInput> slices = dataSource.readFully(ImmutableMap.of("a", new DiskRange(10, 20), "b", new DiskRange(FILE_SIZE - 5, 5)));
+            assertArrayEquals(Arrays.copyOfRange(data, 10, 30), slices.get("a").readSlice(20).getBytes());
+            assertArrayEquals(Arrays.copyOfRange(data, FILE_SIZE - 5, FILE_SIZE), slices.get("b").readSlice(5).getBytes());
+        }
+    }
+
+    @Test
+    public void testPrefetchedRangesAreServedFromMemory()
+            throws IOException
+    {
+        AggregatedMemoryContext memoryUsage = new AggregatedMemoryContext();
+        TestingOrcDataSource testingOrcDataSource = new TestingOrcDataSource(new MappedOrcDataSource(file));
+        try (PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testingOrcDataSource, new DataSize(1, KILOBYTE), new DataSize(1, MEGABYTE), memoryUsage.newLocalMemoryContext())) {
+            // the first two ranges are close enough to be read at once
+            dataSource.prefetch(ImmutableList.of(new DiskRange(0, 100), new DiskRange(200, 100), new DiskRange(10000, 100)));
+            assertEquals(400, memoryUsage.getBytes());
+
+            Map<String, FixedLengthSliceInput> slices = dataSource.readFully(ImmutableMap.of("a", new DiskRange(200, 50), "b", new DiskRange(10000, 100)));
+            assertArrayEquals(Arrays.copyOfRange(data, 200, 250), slices.get("a").readSlice(50).getBytes());
+            assertArrayEquals(Arrays.copyOfRange(data, 10000, 10100), slices.get("b").readSlice(100).getBytes());
+            byte[] buffer = new byte[10];
+            dataSource.readFully(50, buffer);
+            assertArrayEquals(Arrays.copyOfRange(data, 50, 60), buffer);
+            assertEquals(2, testingOrcDataSource.getReadCount());
+
+            // ranges which weren't prefetched are read from the underlying data source
+            dataSource.readFully(20000, buffer);
+            assertArrayEquals(Arrays.copyOfRange(data, 20000, 20010), buffer);
+            assertEquals(3, testingOrcDataSource.getReadCount());
+
+            dataSource.prefetch(ImmutableList.of());
+            assertEquals(0, memoryUsage.getBytes());
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.spark_project.guava.base.Function;
 import org.spark_project.guava.base.Joiner;
 import org.spark_project.guava.collect.ImmutableList;
 import com.splicemachine.compactions.SpliceDefaultCompactionPolicy;
+import com.splicemachine.compactions.SpliceDefaultStoreFlusher;
 import com.splicemachine.hbase.*;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -29,9 +30,11 @@ import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.master.cleaner.TimeToLiveHFileCleaner;
 import org.apache.hadoop.hbase.regionserver.DefaultStoreEngine;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreFlusher;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionPolicy;
 import org.apache.hadoop.hbase.regionserver.compactions.Compactor;
 import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.configuration.DDLConfiguration;
 import com.splicemachine.access.configuration.SQLConfiguration;
 import com.splicemachine.compactions.SpliceDefaultCompactor;
 import com.splicemachine.derby.hbase.SpliceIndexEndpoint;
@@ -102,6 +105,7 @@ class SpliceTestPlatformConfig {
         config.setClass(DefaultStoreEngine.DEFAULT_COMPACTOR_CLASS_KEY, SpliceDefaultCompactor.class, Compactor.class);
        // config.setClass(ConsistencyControlUtils.MVCC_IMPL, SIMultiVersionConsistencyControl.class, ConsistencyControl.class);
         config.setClass(DefaultStoreEngine.DEFAULT_COMPACTION_POLICY_CLASS_KEY, SpliceDefaultCompactionPolicy.class, CompactionPolicy.class);
+        config.setClass(DefaultStoreEngine.DEFAULT_STORE_FLUSHER_CLASS_KEY, SpliceDefaultStoreFlusher.class, DefaultStoreFlusher.class);
 
 
 
@@ -210,6 +214,10 @@ class SpliceTestPlatformConfig {
 
         config.setLong("splice.ddl.drainingWait.maximum", SECONDS.toMillis(15)); // wait 15 seconds before bailing on bad ddl statements
         config.setLong("splice.ddl.maxWaitSeconds",120000);
+        // populate indexes over existing rows through bulk loaded HFiles, so the ITs cover that path
+        if (!"CYGWIN".equals(hbaseRootDirUri)) {
+            config.set(DDLConfiguration.BULK_INDEX_DIRECTORY, hbaseRootDirUri + "/bulk_index");
+        }
         //
         // Snapshots
         //
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.hbase;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.ZeroCopyLiteralByteString;
+import com.splicemachine.coprocessor.SpliceMessage;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Restricts a scan to a sorted list of disjoint key ranges, seeking over the rows between them
+ * instead of reading them. Each range includes its start key but not its stop key, and an
+ * empty stop key means the range is unbounded.
+ *
+ * Only forward scans are supported.
+ */
+public class SkippingScanFilter extends FilterBase implements Writable{
+    protected byte[][] startKeys;
+    protected byte[][] stopKeys;
+    private int range;
+
+    @SuppressWarnings("unused") //serialization constructor: REQUIRED
+    public SkippingScanFilter(){
+        super();
+    }
+
+    public SkippingScanFilter(List<byte[]> startKeys,List<byte[]> stopKeys){
+        this.startKeys=startKeys.toArray(new byte[startKeys.size()][]);
+        this.stopKeys=stopKeys.toArray(new byte[stopKeys.size()][]);
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException{
+        out.writeInt(startKeys.length);
+        for(int i=0;i<startKeys.length;i++){
+            Bytes.writeByteArray(out,startKeys[i]);
+            Bytes.writeByteArray(out,stopKeys[i]);
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException{
+        int size=in.readInt();
+        startKeys=new byte[size][];
+        stopKeys=new byte[size][];
+        for(int i=0;i<size;i++){
+            startKeys[i]=Bytes.readByteArray(in);
+            stopKeys[i]=Bytes.readByteArray(in);
+        }
+        range=0;
+    }
+
+    @Override
+    public ReturnCode filterKeyValue(Cell cell){
+        byte[] row=cell.getRowArray();
+        int offset=cell.getRowOffset();
+        int length=cell.getRowLength();
+        while(range<stopKeys.length){
+            byte[] stop=stopKeys[range];
+            if(stop.length==0 || Bytes.compareTo(row,offset,length,stop,0,stop.length)<0)
+                break;
+            range++;
+        }
+        if(range>=startKeys.length)
+            return ReturnCode.NEXT_ROW; // past the last range, filterAllRemaining() ends the scan
+        byte[] start=startKeys[range];
+        if(Bytes.compareTo(row,offset,length,start,0,start.length)<0)
+            return ReturnCode.SEEK_NEXT_USING_HINT;
+        return ReturnCode.INCLUDE;
+    }
+
+    @Override
+    public Cell getNextCellHint(Cell currentCell){
+        return KeyValueUtil.createFirstOnRow(startKeys[range]);
+    }
+
+    @Override
+    public boolean filterAllRemaining(){
+        return range>=startKeys.length;
+    }
+
+    /**
+     * @return The filter serialized using pb
+     */
+    public byte[] toByteArray(){
+        SpliceMessage.SkippingScanFilterMessage.Builder builder=SpliceMessage.SkippingScanFilterMessage.newBuilder();
+        for(int i=0;i<startKeys.length;i++){
+            builder.addStartKeys(ZeroCopyLiteralByteString.wrap(startKeys[i]));
+            builder.addStopKeys(ZeroCopyLiteralByteString.wrap(stopKeys[i]));
+        }
+        return builder.build().toByteArray();
+    }
+
+    /**
+     * @param bytes A pb serialized {@code SkippingScanFilter} instance
+     * @return An instance of {@code SkippingScanFilter} made from <code>bytes</code>
+     * @throws org.apache.hadoop.hbase.exceptions.DeserializationException
+     * @see #toByteArray
+     */
+    @SuppressWarnings("unused") //Deserialization method-- REQUIRED
+    public static SkippingScanFilter parseFrom(final byte[] bytes) throws DeserializationException{
+        SpliceMessage.SkippingScanFilterMessage proto;
+        try{
+            proto=SpliceMessage.SkippingScanFilterMessage.parseFrom(bytes);
+        }catch(InvalidProtocolBufferException e){
+            throw new DeserializationException(e);
+        }
+        SkippingScanFilter filter=new SkippingScanFilter();
+        filter.startKeys=new byte[proto.getStartKeysCount()][];
+        filter.stopKeys=new byte[proto.getStopKeysCount()][];
+        int i=0;
+        for(ByteString key : proto.getStartKeysList()){
+            filter.startKeys[i++]=key.toByteArray();
+        }
+        i=0;
+        for(ByteString key : proto.getStopKeysList()){
+            filter.stopKeys[i++]=key.toByteArray();
+        }
+        return filter;
+    }
+}
@@ -15,9 +15,11 @@
 package com.splicemachine.hbase;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.List;
 
 import com.splicemachine.access.configuration.HBaseConfiguration;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import org.apache.hadoop.hbase.ZooKeeperConnectionException;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.zookeeper.RecoverableZooKeeper;
@@ -156,6 +158,42 @@ public class ZkUtils{
         throw new Exception("Cannot assign snowflake sequence, catastrophic");
     }
 
+    /**
+     * Claims a node id for this JVM's hybrid logical clock as an ephemeral node in zookeeper, so that no two
+     * running JVMs (servers, the olap server, spark executors) stamp the same id on their timestamps. The id is
+     * released when the JVM's session ends.
+     *
+     * Ids are tried round-robin, starting after the last one claimed, so that the id of a JVM which just went
+     * away, and whose clock may have been running ahead of ours, is the last to be reused.
+     *
+     * @return the claimed id
+     * @throws IOException if every id is held by a running JVM
+     */
+    public static int assignHybridLogicalClockNodeId(RecoverableZooKeeper rzk) throws IOException{
+        String path=HConfiguration.getConfiguration().getSpliceRootPath()+HBaseConfiguration.HLC_NODE_ID_PATH;
+        int ids=HLCTimestampSource.MAX_NODE_ID+1;
+        try{
+            recursiveSafeCreate(path,new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT);
+            String claim=rzk.create(path+"/claim-",new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.EPHEMERAL_SEQUENTIAL);
+            rzk.delete(claim,-1);
+            int start=Math.floorMod(Integer.parseInt(claim.substring(claim.lastIndexOf('-')+1)),ids);
+            byte[] owner=Bytes.toBytes(ManagementFactory.getRuntimeMXBean().getName());
+            for(int i=0;i<ids;i++){
+                int id=(start+i)%ids;
+                try{
+                    rzk.create(path+"/"+id,owner,ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.EPHEMERAL);
+                    return id;
+                }catch(KeeperException e){
+                    if(e.code()!=KeeperException.Code.NODEEXISTS)
+                        throw e;
+                }
+            }
+        }catch(KeeperException | InterruptedException e){
+            throw new IOException("Unable to assign a hybrid logical clock node id",e);
+        }
+        throw new IOException("Cannot assign a hybrid logical clock node id, all "+ids+" are held by running JVMs");
+    }
+
     public static String create(String path,byte[] bytes,List<ACL> acls,CreateMode createMode) throws KeeperException, InterruptedException{
         return getRecoverableZooKeeper().create(path,bytes,acls,createMode);
     }
@@ -15,6 +15,7 @@
 package com.splicemachine.si.data.hbase.coprocessor;
 
 import com.splicemachine.primitives.ByteComparator;
+import com.splicemachine.primitives.LexicographicByteComparator;
 import org.apache.hadoop.hbase.util.Bytes;
 
 import java.nio.ByteBuffer;
@@ -35,42 +36,18 @@ public class HBaseComparator implements ByteComparator{
 
     @Override
     public int compare(ByteBuffer buffer,byte[] b2,int b2Offset,int b2Length){
-        byte[] b;
-        int bOff;
-        int bLen;
-        if(buffer.hasArray()){
-            b = buffer.array();
-            bOff = buffer.position();
-            bLen = buffer.remaining();
-        }else{
-            b=new byte[buffer.remaining()];
-            buffer.mark();
-            buffer.get(b);
-            buffer.reset();
-            bOff=0;
-            bLen=b.length;
-        }
-        return compare(b,bOff,bLen,b2,b2Offset,b2Length);
+        if(buffer.hasArray())
+            return compare(buffer.array(),buffer.arrayOffset()+buffer.position(),buffer.remaining(),b2,b2Offset,b2Length);
+        //direct buffers are compared in place, rather than copied out
+        return LexicographicByteComparator.INSTANCE.compare(buffer,b2,b2Offset,b2Length);
     }
 
     @Override
     public int compare(ByteBuffer lBuffer,ByteBuffer rBuffer){
-        byte[] b;
-        int bOff;
-        int bLen;
-        if(rBuffer.hasArray()){
-            b = rBuffer.array();
-            bOff = rBuffer.position();
-            bLen = rBuffer.remaining();
-        }else{
-            b=new byte[rBuffer.remaining()];
-            rBuffer.mark();
-            rBuffer.get(b);
-            rBuffer.reset();
-            bOff=0;
-            bLen=b.length;
-        }
-        return compare(lBuffer,b,bOff,bLen);
+        if(lBuffer.hasArray() && rBuffer.hasArray())
+            return compare(lBuffer.array(),lBuffer.arrayOffset()+lBuffer.position(),lBuffer.remaining(),
+                    rBuffer.array(),rBuffer.arrayOffset()+rBuffer.position(),rBuffer.remaining());
+        return LexicographicByteComparator.INSTANCE.compare(lBuffer,rBuffer);
     }
 
     @Override
@@ -85,42 +62,12 @@ public class HBaseComparator implements ByteComparator{
 
     @Override
     public boolean equals(ByteBuffer buffer,byte[] b2,int b2Offset,int b2Length){
-        byte[] b;
-        int bOff;
-        int bLen;
-        if(buffer.hasArray()){
-            b = buffer.array();
-            bOff = buffer.position();
-            bLen = buffer.remaining();
-        }else{
-            b=new byte[buffer.remaining()];
-            buffer.mark();
-            buffer.get(b);
-            buffer.reset();
-            bOff=0;
-            bLen=b.length;
-        }
-        return equals(b,bOff,bLen,b2,b2Offset,b2Length);
+        return buffer.remaining()==b2Length && compare(buffer,b2,b2Offset,b2Length)==0;
     }
 
     @Override
     public boolean equals(ByteBuffer lBuffer,ByteBuffer rBuffer){
-        byte[] b;
-        int bOff;
-        int bLen;
-        if(rBuffer.hasArray()){
-            b = rBuffer.array();
-            bOff = rBuffer.position();
-            bLen = rBuffer.remaining();
-        }else{
-            b=new byte[rBuffer.remaining()];
-            rBuffer.mark();
-            rBuffer.get(b);
-            rBuffer.reset();
-            bOff=0;
-            bLen=b.length;
-        }
-        return equals(lBuffer,b,bOff,bLen);
+        return lBuffer.remaining()==rBuffer.remaining() && compare(lBuffer,rBuffer)==0;
     }
 
     @Override
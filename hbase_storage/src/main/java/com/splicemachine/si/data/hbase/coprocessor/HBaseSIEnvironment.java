@@ -50,6 +50,8 @@ import com.splicemachine.si.impl.SimpleTxnOperationFactory;
 import com.splicemachine.si.impl.TxnNetworkLayerFactory;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.driver.SIEnvironment;
+import com.splicemachine.si.impl.hlc.HLC;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.readresolve.SynchronousReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.store.CompletedTxnCacheSupplier;
@@ -113,7 +115,8 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.txnSupplier = new CompletedTxnCacheSupplier(txnStore,completedTxnCacheSize,completedTxnConcurrency);
         this.txnStore.setCache(txnSupplier);
         this.opFactory =HOperationFactory.INSTANCE;
-        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory(),opFactory);
+        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory(),opFactory,
+                timeSource instanceof HLCTimestampSource?(HLCTimestampSource)timeSource:null);
         this.clock = clock;
         this.snowflakeFactory = new HSnowflakeFactory();
         this.fileSystem =new HNIOFileSystem(FileSystem.get((Configuration) config.getConfigSource().unwrapDelegate()), exceptionFactory());
@@ -130,7 +133,11 @@ public class HBaseSIEnvironment implements SIEnvironment{
         ByteComparisons.setComparator(HBaseComparator.INSTANCE);
         this.config=HConfiguration.getConfiguration();
 
-        this.timestampSource =new ZkTimestampSource(config,rzk);
+        TimestampSource zkTimestampSource=new ZkTimestampSource(config,rzk);
+        HLCTimestampSource hlc=null;
+        if(config.getHybridLogicalClockEnabled())
+            hlc=new HLCTimestampSource(new HLC(clock),ZkUtils.assignHybridLogicalClockNodeId(rzk),zkTimestampSource);
+        this.timestampSource=hlc!=null?hlc:zkTimestampSource;
         this.partitionCache = PartitionCacheService.loadPartitionCache(config);
         this.partitionFactory =TableFactoryService.loadTableFactory(clock, this.config,partitionCache);
         TxnNetworkLayerFactory txnNetworkLayerFactory= TableFactoryService.loadTxnNetworkLayer(this.config);
@@ -140,7 +147,7 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.txnSupplier = new CompletedTxnCacheSupplier(txnStore,completedTxnCacheSize,completedTxnConcurrency);
         this.txnStore.setCache(txnSupplier);
         this.opFactory =HOperationFactory.INSTANCE;
-        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory(),opFactory);
+        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory(),opFactory,hlc);
         this.clock = clock;
         this.fileSystem =new HNIOFileSystem(FileSystem.get((Configuration) config.getConfigSource().unwrapDelegate()), exceptionFactory());
         this.snowflakeFactory = new HSnowflakeFactory();
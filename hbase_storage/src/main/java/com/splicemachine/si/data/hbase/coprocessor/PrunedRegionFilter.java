@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.data.hbase.coprocessor;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+import java.io.IOException;
+
+/**
+ * Ends a scan before it reads anything, for regions whose zone maps show that none of their rows can match
+ * the scan. Only ever created on the region server.
+ */
+class PrunedRegionFilter extends FilterBase{
+
+    @Override
+    public boolean filterAllRemaining() throws IOException{
+        return true;
+    }
+
+    @Override
+    public ReturnCode filterKeyValue(Cell v) throws IOException{
+        return ReturnCode.NEXT_ROW;
+    }
+
+    @Override
+    public byte[] toByteArray() throws IOException{
+        throw new UnsupportedOperationException("Serialization not supported");
+    }
+}
@@ -71,6 +71,8 @@ import com.splicemachine.storage.HMutationStatus;
 import com.splicemachine.storage.MutationStatus;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.RegionPartition;
+import com.splicemachine.storage.ZoneMap;
+import com.splicemachine.storage.ZonePredicate;
 import com.splicemachine.utils.SpliceLogUtils;
 
 /**
@@ -93,7 +95,7 @@ public class SIObserver extends BaseRegionObserver{
             SIDriver driver = env.getSIDriver();
             operationStatusFactory = driver.getOperationStatusLib();
             //noinspection unchecked
-            txnOperationFactory=new SimpleTxnOperationFactory(driver.getExceptionFactory(),HOperationFactory.INSTANCE);
+            txnOperationFactory=new SimpleTxnOperationFactory(driver.getExceptionFactory(),HOperationFactory.INSTANCE,driver.getHybridLogicalClock());
             //noinspection unchecked
             Partition regionPartition = new RegionPartition((HRegion)rce.getRegion());
             region=new TxnRegion(regionPartition,
@@ -136,6 +138,10 @@ public class SIObserver extends BaseRegionObserver{
 //            txnReadController.preProcessScan(scan);
             assert (scan.getMaxVersions()==Integer.MAX_VALUE);
             addSIFilterToScan(scan);
+            if(isPruned((HRegion)e.getEnvironment().getRegion(),scan)){
+                Filter currentFilter=scan.getFilter();
+                scan.setFilter(currentFilter==null?new PrunedRegionFilter():composeFilters(new Filter[]{new PrunedRegionFilter(),currentFilter}));
+            }
         }
         return super.preScannerOpen(e,scan,s);
     }
@@ -276,6 +282,31 @@ public class SIObserver extends BaseRegionObserver{
         scan.setFilter(newFilter);
     }
 
+    /**
+     * @return true if the zone maps of the store files show that no row of the region can match the qualifiers
+     * of the scan. The zone maps cover all the versions of the rows in their files, so they're combined for the
+     * whole store, rather than used to skip single files; and since the memstore has none, it must be empty.
+     */
+    private boolean isPruned(HRegion hRegion,Scan scan) throws IOException{
+        byte[] zonePredicate=scan.getAttribute(SIConstants.ZONE_PREDICATE_LABEL);
+        if(zonePredicate==null)
+            return false;
+        Store store=hRegion.getStore(SIConstants.DEFAULT_FAMILY_BYTES);
+        if(store==null || store.getFlushableSize()>0)
+            return false;
+        ZoneMap zoneMap=new ZoneMap();
+        for(StoreFile storeFile : store.getStorefiles()){
+            byte[] fileZoneMap=storeFile.getMetadataValue(ZoneMap.FILE_INFO_KEY);
+            if(fileZoneMap==null)
+                return false;
+            zoneMap.merge(ZoneMap.fromBytes(fileZoneMap));
+        }
+        boolean pruned=!ZonePredicate.fromBytes(zonePredicate).mightMatch(zoneMap);
+        if(pruned && LOG.isTraceEnabled())
+            SpliceLogUtils.trace(LOG,"skipping region %s, %s",hRegion,zoneMap);
+        return pruned;
+    }
+
     private EntryPredicateFilter getPredicateFilter(OperationWithAttributes operation) throws IOException{
         final byte[] serializedPredicateFilter=operation.getAttribute(ENTRY_PREDICATE_LABEL);
         return EntryPredicateFilter.fromBytes(serializedPredicateFilter);
@@ -39,6 +39,7 @@ import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.coprocessor.TxnMessage;
 import com.splicemachine.si.impl.data.StripedTxnLifecycleStore;
 import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.region.RegionServerControl;
 import com.splicemachine.si.impl.region.RegionTxnStore;
 import com.splicemachine.si.impl.region.TransactionResolver;
@@ -56,6 +57,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
 
     private TxnLifecycleStore lifecycleStore;
     private volatile boolean isTxnTable=false;
+    private HLCTimestampSource hlc; //null unless the hybrid logical clock is on
 
     public static final CountedReference<TransactionResolver> resolverRef=new CountedReference<>(new Supplier<TransactionResolver>(){
         @Override
@@ -87,6 +89,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
                     txnKeepAliveTimeout,
                     new SystemClock());
             TimestampSource timestampSource=driver.getTimestampSource();
+            hlc=driver.getHybridLogicalClock();
             int txnLockStrips = configuration.getTransactionLockStripes();
             lifecycleStore = new StripedTxnLifecycleStore(txnLockStrips,regionStore,
                     new RegionServerControl(region,rce.getRegionServerServices()),timestampSource);
@@ -111,6 +114,8 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     @Override
     public void beginTransaction(RpcController controller,TxnMessage.TxnInfo request,RpcCallback<TxnMessage.VoidResponse> done){
         try{
+            if(hlc!=null)
+                hlc.receiveTimestamp(request.getBeginTs());
             lifecycleStore.beginTransaction(request);
             done.run(TxnMessage.VoidResponse.getDefaultInstance());
         }catch(IOException ioe){
@@ -141,6 +146,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT",justification = "Intentional")
     public void lifecycleAction(RpcController controller,TxnMessage.TxnLifecycleMessage request,RpcCallback<TxnMessage.ActionResponse> done){
         try{
+            receive(request.hasHlc(),request.getHlc());
             TxnMessage.ActionResponse response=null;
             switch(request.getAction()){
                 case COMMIT:
@@ -170,6 +176,12 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     @Override
     public void getTransaction(RpcController controller,TxnMessage.TxnRequest request,RpcCallback<TxnMessage.Txn> done){
         try{
+            /*
+             * A reader which asks after a transaction has seen it active as of its own clock, so it must commit
+             * (if it still can) later than anything the reader has begun.
+             */
+            receive(request.hasHlc(),request.getHlc());
+            receive(request.hasReaderBeginTs(),request.getReaderBeginTs());
             long txnId=request.getTxnId();
             boolean isOld = request.hasIsOld() && request.getIsOld();
             TxnMessage.Txn transaction;
@@ -224,6 +236,11 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
 
     }
 
+    private void receive(boolean hasHlc,long timestamp){
+        if(hlc!=null && hasHlc)
+            hlc.receiveTimestamp(timestamp);
+    }
+
     public long commit(long txnId) throws IOException{
         return lifecycleStore.commitTransaction(txnId);
     }
@@ -31,6 +31,7 @@ import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.coprocessor.TxnMessage;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.txn.InheritingTxnView;
 import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.ByteSlice;
@@ -57,6 +58,7 @@ public class CoprocessorTxnStore implements TxnStore {
     
     @ThreadSafe
     private final TimestampSource timestampSource;
+    private final HLCTimestampSource hlc; //null unless the hybrid logical clock is on
 
     /*monitoring fields*/
     private final AtomicLong lookups=new AtomicLong(0l);
@@ -71,6 +73,7 @@ public class CoprocessorTxnStore implements TxnStore {
         this.tableFactory=tableFactory;
         this.cache = txnCache==null?this:txnCache; // Not Used...
         this.timestampSource=timestampSource;
+        this.hlc=timestampSource instanceof HLCTimestampSource?(HLCTimestampSource)timestampSource:null;
     }
 
     @Override
@@ -113,8 +116,7 @@ public class CoprocessorTxnStore implements TxnStore {
     @Override
     public void rollback(long txnId) throws IOException{
         byte[] rowKey=getTransactionRowKey(txnId);
-        TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
-                .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.ROLLBACk).build();
+        TxnMessage.TxnLifecycleMessage lifecycle=lifecycleMessage(txnId,TxnMessage.LifecycleAction.ROLLBACk).build();
         try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
             table.lifecycleAction(rowKey,lifecycle);
             rollbacks.incrementAndGet();
@@ -124,9 +126,8 @@ public class CoprocessorTxnStore implements TxnStore {
     @Override
     public void rollbackSubtransactions(long txnId, LongOpenHashSet subtransactions) throws IOException {
         byte[] rowKey=getTransactionRowKey(txnId);
-        TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
-                .setTxnId(txnId).addAllRolledbackSubTxns(Longs.asList(subtransactions.toArray()))
-                .setAction(TxnMessage.LifecycleAction.ROLLBACK_SUBTRANSACTIONS).build();
+        TxnMessage.TxnLifecycleMessage lifecycle=lifecycleMessage(txnId,TxnMessage.LifecycleAction.ROLLBACK_SUBTRANSACTIONS)
+                .addAllRolledbackSubTxns(Longs.asList(subtransactions.toArray())).build();
         try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
             table.lifecycleAction(rowKey,lifecycle);
             rollbacks.incrementAndGet();
@@ -136,12 +137,13 @@ public class CoprocessorTxnStore implements TxnStore {
     @Override
     public long commit(long txnId) throws IOException{
         byte[] rowKey=getTransactionRowKey(txnId);
-        TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
-                .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.COMMIT).build();
+        TxnMessage.TxnLifecycleMessage lifecycle=lifecycleMessage(txnId,TxnMessage.LifecycleAction.COMMIT).build();
 
         try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
             TxnMessage.ActionResponse response = table.lifecycleAction(rowKey,lifecycle);
             commits.incrementAndGet();
+            if(hlc!=null)
+                hlc.receiveTimestamp(response.getCommitTs());
             return response.getCommitTs();
         }
     }
@@ -150,8 +152,7 @@ public class CoprocessorTxnStore implements TxnStore {
     public boolean keepAlive(long txnId) throws IOException{
         byte[] rowKey=getTransactionRowKey(txnId);
 
-        TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
-                .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.KEEPALIVE).build();
+        TxnMessage.TxnLifecycleMessage lifecycle=lifecycleMessage(txnId,TxnMessage.LifecycleAction.KEEPALIVE).build();
         try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
             TxnMessage.ActionResponse actionResponse=table.lifecycleAction(rowKey,lifecycle);
             return actionResponse.getContinue();
@@ -243,9 +244,23 @@ public class CoprocessorTxnStore implements TxnStore {
         if (txnId < oldTransactions) {
             return getOldTransaction(txnId, getDestinationTables);
         }
+        return getTransaction(txnId,txnRequest(txnId).build());
+    }
+
+    @Override
+    public TxnView getTransactionForReader(long txnId,long readerBeginTimestamp) throws IOException{
+        lookups.incrementAndGet();
+        if (txnId < oldTransactions) {
+            return getOldTransaction(txnId, false);
+        }
+        TxnMessage.TxnRequest.Builder request=txnRequest(txnId);
+        if(hlc!=null)
+            request.setReaderBeginTs(readerBeginTimestamp);
+        return getTransaction(txnId,request.build());
+    }
 
+    private TxnView getTransaction(long txnId,TxnMessage.TxnRequest request) throws IOException{
         byte[] rowKey=getTransactionRowKey(txnId );
-        TxnMessage.TxnRequest request=TxnMessage.TxnRequest.newBuilder().setTxnId(txnId).build();
 
         try (TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
 
@@ -258,7 +273,7 @@ public class CoprocessorTxnStore implements TxnStore {
 
     public TxnView getOldTransaction(long txnId, boolean getDestinationTables) throws IOException {
         byte[] rowKey = getOldTransactionRowKey(txnId);
-        TxnMessage.TxnRequest request = TxnMessage.TxnRequest.newBuilder().setTxnId(txnId).setIsOld(true).build();
+        TxnMessage.TxnRequest request = txnRequest(txnId).setIsOld(true).build();
 
         try (TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
             TxnMessage.Txn messageTxn=table.getTxn(rowKey,request);
@@ -268,6 +283,27 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    /*
+     * With the hybrid logical clock on, every request carries our clock, so that any commit the txn table
+     * hands out after seeing it is later than any transaction we've begun. A lookup on behalf of a reader also
+     * carries the reader's begin timestamp, since the reader may have begun on a server whose clock is ahead
+     * of ours.
+     */
+    private TxnMessage.TxnRequest.Builder txnRequest(long txnId){
+        TxnMessage.TxnRequest.Builder request=TxnMessage.TxnRequest.newBuilder().setTxnId(txnId);
+        if(hlc!=null)
+            request.setHlc(hlc.currentTimestamp());
+        return request;
+    }
+
+    private TxnMessage.TxnLifecycleMessage.Builder lifecycleMessage(long txnId,TxnMessage.LifecycleAction action){
+        TxnMessage.TxnLifecycleMessage.Builder lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
+                .setTxnId(txnId).setAction(action);
+        if(hlc!=null)
+            lifecycle.setHlc(hlc.currentTimestamp());
+        return lifecycle;
+    }
+
     private static byte[] getOldTransactionRowKey(long txnId){
         return TxnUtils.getOldRowKey(txnId);
     }
@@ -25,6 +25,7 @@ import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.ZoneMap;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
@@ -48,6 +49,7 @@ public class SICompactionState {
     private SortedSet<Cell> dataToReturn;
     private final RollForward rollForward;
     private ByteSlice rowSlice = new ByteSlice();
+    private ZoneMap zoneMap;
 
     public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize) {
         this.rollForward = rollForward;
@@ -55,6 +57,14 @@ public class SICompactionState {
         this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
     }
 
+    /**
+     * Accounts for the user data written by the compaction in {@code zoneMap}, so it can be stored with the
+     * compacted file.
+     */
+    public void setZoneMap(ZoneMap zoneMap) {
+        this.zoneMap = zoneMap;
+    }
+
     /**
      * Given a list of key-values, populate the results list with possibly mutated values.
      *
@@ -73,9 +83,26 @@ public class SICompactionState {
         if (purgeDeletedRows && maxTombstone > 0) {
             removeTombStone(maxTombstone);
         }
+        if (zoneMap != null) {
+            updateZoneMap();
+        }
         results.addAll(dataToReturn);
     }
 
+    private void updateZoneMap() {
+        try {
+            for (Cell cell : dataToReturn) {
+                if (getKeyValueType(cell) == CellType.USER_DATA)
+                    zoneMap.update(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+            }
+        } catch (Exception e) {
+            // the zone map is an optimization, it mustn't fail the compaction
+            LOG.warn("Unable to compute the zone map of the compacted file", e);
+            zoneMap.invalidate();
+            zoneMap = null;
+        }
+    }
+
     private void removeTombStone(long maxTombstone) {
         SortedSet<Cell> cp = (SortedSet<Cell>)((TreeSet<Cell>)dataToReturn).clone();
         for (Cell element : cp) {
@@ -15,9 +15,12 @@
 package com.splicemachine.storage;
 
 import com.splicemachine.derby.hbase.AllocatedFilter;
+import com.splicemachine.derby.hbase.SkippingScanFilter;
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 
+import java.util.List;
+
 /**
  * @author Scott Fines
  *         Date: 12/18/15
@@ -38,4 +41,9 @@ public class HFilterFactory implements DataFilterFactory{
     public DataFilter allocatedFilter(byte[] localAddress){
         return new HFilterWrapper(new AllocatedFilter(localAddress));
     }
+
+    @Override
+    public DataFilter skippingScanFilter(List<byte[]> startKeys,List<byte[]> stopKeys){
+        return new HFilterWrapper(new SkippingScanFilter(startKeys,stopKeys));
+    }
 }
@@ -159,6 +159,16 @@ public class HScan implements DataScan{
         return this;
     }
 
+    @Override
+    public DataScan copy(){
+        try{
+            return new HScan(new Scan(scan));
+        }catch(IOException e){
+            //never happen, the copy constructor only re-validates the time range
+            throw new RuntimeException(e);
+        }
+    }
+
     public Scan unwrapDelegate(){
         return scan;
     }
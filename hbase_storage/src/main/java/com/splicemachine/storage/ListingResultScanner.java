@@ -64,6 +64,8 @@ public class ListingResultScanner implements DataScanner{
     @Override public long getBytesOutput(){ return resultScanner.getBytesOutput(); }
     @Override public long getRowsFiltered(){ return resultScanner.getRowsFiltered(); }
     @Override public long getRowsVisited(){ return resultScanner.getRowsVisited(); }
+    public long getPrefetchHits(){ return resultScanner.getPrefetchHits(); }
+    public long getPrefetchStalls(){ return resultScanner.getPrefetchStalls(); }
 
     private static class ListView extends AbstractList<DataCell>{
         private List<Cell> cells;
@@ -55,4 +55,6 @@ public class ResultDataScanner implements DataResultScanner{
     @Override public long getBytesOutput(){ return resultScanner.getBytesOutput(); }
     @Override public long getRowsFiltered(){ return resultScanner.getRowsFiltered(); }
     @Override public long getRowsVisited(){ return resultScanner.getRowsVisited(); }
+    public long getPrefetchHits(){ return resultScanner.getPrefetchHits(); }
+    public long getPrefetchStalls(){ return resultScanner.getPrefetchStalls(); }
 }
@@ -14,10 +14,12 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.access.HConfiguration;
 import com.splicemachine.metrics.MetricFactory;
 import com.splicemachine.metrics.Metrics;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.storage.util.MeasuredResultScanner;
+import com.splicemachine.storage.util.PrefetchingResultScanner;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.client.*;
 
@@ -32,6 +34,7 @@ import java.util.concurrent.locks.Lock;
  *         Date: 12/22/15
  */
 public abstract class SkeletonHBaseClientPartition implements Partition{
+    private static final int DEFAULT_PREFETCH_BATCH_SIZE=100;
 
     @Override
     public String getName(){
@@ -109,17 +112,29 @@ public abstract class SkeletonHBaseClientPartition implements Partition{
 
     @Override
     public DataScanner openScanner(DataScan scan,MetricFactory metricFactory) throws IOException{
-        MeasuredResultScanner scanner=new MeasuredResultScanner(getScanner(((HScan)scan).unwrapDelegate()),metricFactory);
+        MeasuredResultScanner scanner=new MeasuredResultScanner(getPrefetchingScanner(((HScan)scan).unwrapDelegate()),metricFactory);
         return new ListingResultScanner(this,scanner);
     }
 
 
     @Override
     public DataResultScanner openResultScanner(DataScan scan,MetricFactory metricFactory) throws IOException{
-        MeasuredResultScanner scanner=new MeasuredResultScanner(getScanner(((HScan)scan).unwrapDelegate()),metricFactory);
+        MeasuredResultScanner scanner=new MeasuredResultScanner(getPrefetchingScanner(((HScan)scan).unwrapDelegate()),metricFactory);
         return new ResultDataScanner(scanner);
     }
 
+    /**
+     * Opens a scanner which fetches its next batch of rows while the current one is consumed, unless prefetching
+     * has been turned off. The first batch is as big as the scan's caching asks for.
+     */
+    private ResultScanner getPrefetchingScanner(Scan scan) throws IOException{
+        ResultScanner scanner=getScanner(scan);
+        long prefetchMemory=HConfiguration.getConfiguration().getScanPrefetchMemory();
+        if(prefetchMemory<=0) return scanner;
+        int caching=scan.getCaching();
+        return new PrefetchingResultScanner(scanner,caching>0?caching:DEFAULT_PREFETCH_BATCH_SIZE,prefetchMemory);
+    }
+
 
     /*Data Mutation methods*/
     @Override
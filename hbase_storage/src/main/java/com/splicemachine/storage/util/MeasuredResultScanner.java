@@ -33,11 +33,15 @@ public class MeasuredResultScanner implements ResultScanner{
     private final ResultScanner resultScanner;
     private final Timer timer;
     private final Counter outputBytesCounter;
+    private final Counter prefetchHitCounter;
+    private final Counter prefetchStallCounter;
 
     public MeasuredResultScanner(ResultScanner resultScanner,MetricFactory metricFactory){
         this.resultScanner=resultScanner;
         this.timer = metricFactory.newTimer();
         this.outputBytesCounter = metricFactory.newCounter();
+        this.prefetchHitCounter = metricFactory.newCounter();
+        this.prefetchStallCounter = metricFactory.newCounter();
     }
 
     @Override
@@ -47,6 +51,7 @@ public class MeasuredResultScanner implements ResultScanner{
         timer.tick(r==null?0l:1l);
         if(outputBytesCounter.isActive())
             countOutputBytes(r);
+        countPrefetches();
         return r;
     }
 
@@ -61,6 +66,7 @@ public class MeasuredResultScanner implements ResultScanner{
                 countOutputBytes(next[i]);
             }
         }
+        countPrefetches();
         return next;
     }
 
@@ -90,7 +96,28 @@ public class MeasuredResultScanner implements ResultScanner{
         return timer.getNumEvents();
     }
 
+    /**
+     * @return the number of batches of rows which were fetched ahead and ready by the time they were read
+     */
+    public long getPrefetchHits(){
+        return prefetchHitCounter.getTotal();
+    }
+
+    /**
+     * @return the number of batches of rows which had to be waited on, when the rows are fetched ahead
+     */
+    public long getPrefetchStalls(){
+        return prefetchStallCounter.getTotal();
+    }
+
     /* ****************************************************************************************************************/
+    private void countPrefetches(){
+        if(!prefetchHitCounter.isActive() || !(resultScanner instanceof PrefetchingResultScanner)) return;
+        PrefetchingResultScanner prefetching=(PrefetchingResultScanner)resultScanner;
+        prefetchHitCounter.add(prefetching.getPrefetchHits()-prefetchHitCounter.getTotal());
+        prefetchStallCounter.add(prefetching.getPrefetchStalls()-prefetchStallCounter.getTotal());
+    }
+
     private void countOutputBytes(Result r){
         if(r==null || r.size()<=0) return;
         //TODO -sf- count the cell bytes
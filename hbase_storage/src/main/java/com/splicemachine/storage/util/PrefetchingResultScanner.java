@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage.util;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A ResultScanner which fetches the next batch of rows in the background while the caller works through the
+ * current one, so that the round trips to the region servers overlap with the work done on the rows.
+ *
+ * The size of the batches adapts as the scan goes on. Whenever the caller has to wait for a batch, it consumes rows
+ * faster than they're fetched, and the batches double so that more rows are in flight at once; whenever a batch
+ * sat ready for longer than it took to fetch, they shrink by a quarter. Either way, a batch is never allowed to
+ * hold more than half the memory bound (by the average size of the rows seen so far), as the batch being consumed
+ * and the one being fetched are held at the same time.
+ *
+ * Nothing is fetched ahead until the caller asks for a second batch, as scans which are closed early (those
+ * under a LIMIT, EXISTS probes, nested loop join lookups) mostly never get past their first one. A fetch in flight
+ * stops at the next row once the scanner is closed, so closing waits on a single round trip at most rather than
+ * on a whole batch.
+ *
+ * Prefetches run on a pool shared by all the scanners of the JVM, with a thread per core at most. When every thread
+ * is busy, the next batch is not fetched ahead but while the caller waits for it, as if prefetching were off.
+ *
+ * The time the caller spends waiting on this scanner is its stall time, and is what a {@link MeasuredResultScanner}
+ * over it reports as its read time. The batches which were ready when asked for are counted as prefetch hits, and
+ * those which had to be waited on as prefetch stalls; a {@link MeasuredResultScanner} reports both as well.
+ */
+@NotThreadSafe
+public class PrefetchingResultScanner implements ResultScanner{
+    private static final Logger LOG=Logger.getLogger(PrefetchingResultScanner.class);
+    private static final ExecutorService PREFETCH_POOL=newPrefetchPool(Runtime.getRuntime().availableProcessors());
+    /*
+     * the rough size of a cell beyond its row, family, qualifier and value: the timestamp, type, lengths
+     * and object headers
+     */
+    private static final int CELL_OVERHEAD=48;
+    private static final int MAX_BATCH_SIZE=1<<16;
+
+    private final ResultScanner resultScanner;
+    private final long memoryBound;
+
+    private int batchSize;
+    private long averageRowSize;
+    private Future<Batch> pending;
+    private boolean prefetchRejected;
+    private boolean exhausted;
+    private int batchesFetched;
+    private volatile boolean closed;
+
+    private Result[] current;
+    private int position;
+
+    private long prefetchHits;
+    private long prefetchStalls;
+
+    /**
+     * @param resultScanner the scanner to fetch rows from
+     * @param initialBatchSize the number of rows to fetch in the first batch
+     * @param memoryBound the number of bytes of rows to hold at most, between the batch being consumed and
+     *                    the one being fetched
+     */
+    public PrefetchingResultScanner(ResultScanner resultScanner,int initialBatchSize,long memoryBound){
+        this.resultScanner=resultScanner;
+        this.memoryBound=memoryBound;
+        this.batchSize=Math.max(1,Math.min(initialBatchSize,MAX_BATCH_SIZE));
+    }
+
+    @Override
+    public Result next() throws IOException{
+        if(current==null || position>=current.length){
+            if(!advance()) return null;
+        }
+        Result r=current[position];
+        current[position++]=null; //let the row go once it's been handed out
+        return r;
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException{
+        Result[] rows=new Result[nbRows];
+        int n=0;
+        Result r;
+        while(n<nbRows && (r=next())!=null){
+            rows[n++]=r;
+        }
+        return n==nbRows?rows:Arrays.copyOf(rows,n);
+    }
+
+    @Override
+    public void close(){
+        closed=true;
+        if(pending!=null){
+            /*
+             * The underlying scanner can't be closed while a fetch is using it, so wait for the fetch to notice
+             * the scanner is closed and stop; its rows are thrown away.
+             */
+            boolean interrupted=false;
+            while(true){
+                try{
+                    pending.get();
+                    break;
+                }catch(InterruptedException e){
+                    interrupted=true;
+                }catch(ExecutionException e){
+                    break;
+                }
+            }
+            pending=null;
+            if(interrupted)
+                Thread.currentThread().interrupt();
+        }
+        current=null;
+        if(LOG.isTraceEnabled())
+            LOG.trace("Closing scanner after "+prefetchHits+" prefetch hits and "+prefetchStalls+" stalls, "
+                    +"with a final batch size of "+batchSize+" rows");
+        resultScanner.close();
+    }
+
+    @Override
+    public Iterator<Result> iterator(){
+        return new PeekIterator();
+    }
+
+    /**
+     * @return the number of batches which were ready by the time they were asked for
+     */
+    public long getPrefetchHits(){
+        return prefetchHits;
+    }
+
+    /**
+     * @return the number of batches which had to be waited on
+     */
+    public long getPrefetchStalls(){
+        return prefetchStalls;
+    }
+
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean advance() throws IOException{
+        current=null;
+        position=0;
+        Batch batch;
+        boolean prefetched=pending!=null;
+        boolean stalled=false;
+        long idleTime=0L;
+        if(prefetched){
+            stalled=!pending.isDone();
+            batch=await(pending);
+            pending=null;
+            if(stalled) prefetchStalls++;
+            else{
+                prefetchHits++;
+                idleTime=System.nanoTime()-batch.fetchedAt;
+            }
+        }else if(exhausted)
+            return false;
+        else{
+            if(prefetchRejected) prefetchStalls++;
+            batch=fetchRows(batchSize);
+        }
+        batchesFetched++;
+        adapt(batch,prefetched,stalled,idleTime);
+
+        if(batch.rows.length<batch.requested)
+            exhausted=true;
+        else if(batchesFetched>1)
+            pending=fetch(batchSize);
+        if(batch.rows.length<=0) return false;
+        current=batch.rows;
+        return true;
+    }
+
+    private void adapt(Batch batch,boolean prefetched,boolean stalled,long idleTime){
+        Result[] rows=batch.rows;
+        if(rows.length>0){
+            long bytes=0L;
+            for(Result row : rows){
+                bytes+=sizeOf(row);
+            }
+            long rowSize=Math.max(1L,bytes/rows.length);
+            averageRowSize=averageRowSize<=0?rowSize:(3*averageRowSize+rowSize)/4;
+        }
+        /*
+         * A batch fetched while the caller waited tells us nothing about how fast the rows are consumed, only
+         * about how big they are
+         */
+        if(prefetched){
+            if(stalled)
+                batchSize=batchSize>=MAX_BATCH_SIZE/2?MAX_BATCH_SIZE:2*batchSize;
+            else if(idleTime>batch.fetchTime)
+                batchSize-=batchSize/4;
+        }
+        if(averageRowSize>0){
+            long maxRows=Math.max(1L,memoryBound/2/averageRowSize);
+            if(batchSize>maxRows)
+                batchSize=(int)maxRows;
+        }
+        if(batchSize<1)
+            batchSize=1;
+    }
+
+    /**
+     * @return the batch being fetched in the background, or null if no prefetch thread is free
+     */
+    private Future<Batch> fetch(final int rows){
+        try{
+            Future<Batch> future=PREFETCH_POOL.submit(new Callable<Batch>(){
+                @Override
+                public Batch call() throws Exception{
+                    return fetchRows(rows);
+                }
+            });
+            prefetchRejected=false;
+            return future;
+        }catch(RejectedExecutionException ree){
+            prefetchRejected=true;
+            return null;
+        }
+    }
+
+    private static ExecutorService newPrefetchPool(int maxThreads){
+        ThreadPoolExecutor pool=new ThreadPoolExecutor(maxThreads,maxThreads,60L,TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("scanPrefetch-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Fetches up to {@code rows} rows a row at a time, so that the fetch can stop as soon as the scanner is closed.
+     * The underlying scanner still fetches its rows from the region servers as many as the scan's caching at once.
+     */
+    private Batch fetchRows(int rows) throws IOException{
+        long start=System.nanoTime();
+        Result[] next=new Result[rows];
+        int n=0;
+        Result r;
+        while(n<rows && !closed && (r=resultScanner.next())!=null){
+            next[n++]=r;
+        }
+        long end=System.nanoTime();
+        return new Batch(n==rows?next:Arrays.copyOf(next,n),rows,end-start,end);
+    }
+
+    private static Batch await(Future<Batch> future) throws IOException{
+        try{
+            return future.get();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the next batch of rows");
+        }catch(ExecutionException e){
+            Throwable t=e.getCause();
+            if(t instanceof IOException) throw (IOException)t;
+            if(t instanceof RuntimeException) throw (RuntimeException)t;
+            throw new IOException(t);
+        }
+    }
+
+    private static long sizeOf(Result row){
+        if(row==null || row.isEmpty()) return 0L;
+        long size=0L;
+        for(Cell c : row.rawCells()){
+            size+=CELL_OVERHEAD+c.getRowLength()+c.getFamilyLength()+c.getQualifierLength()+c.getValueLength();
+        }
+        return size;
+    }
+
+    private static class Batch{
+        private final Result[] rows;
+        private final int requested;
+        private final long fetchTime;
+        private final long fetchedAt;
+
+        Batch(Result[] rows,int requested,long fetchTime,long fetchedAt){
+            this.rows=rows;
+            this.requested=requested;
+            this.fetchTime=fetchTime;
+            this.fetchedAt=fetchedAt;
+        }
+    }
+
+    private class PeekIterator implements Iterator<Result>{
+        private Result currResult;
+        @Override
+        public boolean hasNext(){
+            if(currResult!=null) return true;
+            try{
+                currResult=PrefetchingResultScanner.this.next();
+            }catch(IOException e){
+                throw new RuntimeException(e);
+            }
+            return currResult!=null;
+        }
+
+        @Override
+        public Result next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            Result r=currResult;
+            currResult=null;
+            return r;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException("Remove not supported!");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.hbase;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SkippingScanFilterTest {
+
+    private SkippingScanFilter newFilter() {
+        return new SkippingScanFilter(
+                Arrays.asList(Bytes.toBytes("b"), Bytes.toBytes("e")),
+                Arrays.asList(Bytes.toBytes("c"), Bytes.toBytes("g")));
+    }
+
+    @Test
+    public void testSeeksBetweenRanges() throws Exception {
+        SkippingScanFilter filter = newFilter();
+
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filter.filterKeyValue(cell("a")));
+        assertArrayEquals(Bytes.toBytes("b"), CellUtil.cloneRow(filter.getNextCellHint(cell("a"))));
+        assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("b")));
+        assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("bb")));
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filter.filterKeyValue(cell("c")));
+        assertArrayEquals(Bytes.toBytes("e"), CellUtil.cloneRow(filter.getNextCellHint(cell("c"))));
+        assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("f")));
+        assertFalse(filter.filterAllRemaining());
+        assertEquals(Filter.ReturnCode.NEXT_ROW, filter.filterKeyValue(cell("g")));
+        assertTrue(filter.filterAllRemaining());
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        SkippingScanFilter filter = SkippingScanFilter.parseFrom(newFilter().toByteArray());
+
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filter.filterKeyValue(cell("d")));
+        assertArrayEquals(Bytes.toBytes("e"), CellUtil.cloneRow(filter.getNextCellHint(cell("d"))));
+        assertEquals(Filter.ReturnCode.INCLUDE, filter.filterKeyValue(cell("e")));
+    }
+
+    private Cell cell(String row) {
+        return new KeyValue(Bytes.toBytes(row), Bytes.toBytes("V"), Bytes.toBytes("7"), 10, Bytes.toBytes("value"));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage.util;
+
+import com.splicemachine.metrics.Metrics;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Tests for the PrefetchingResultScanner
+ */
+public class PrefetchingResultScannerTest{
+    private static final byte[] FAMILY=Bytes.toBytes("V");
+    private static final byte[] QUALIFIER=Bytes.toBytes("7");
+
+    @Test
+    public void returnsEveryRowInOrder() throws Exception{
+        SlowScanner rows=new SlowScanner(1000,8,1,0L);
+        try(PrefetchingResultScanner scanner=new PrefetchingResultScanner(rows,7,Long.MAX_VALUE)){
+            int i=0;
+            Result[] first=scanner.next(10);
+            Assert.assertEquals("Incorrect batch size!",10,first.length);
+            for(Result r : first){
+                Assert.assertEquals("Incorrect row!",i++,Bytes.toInt(r.getRow()));
+            }
+            Result r;
+            while((r=scanner.next())!=null){
+                Assert.assertEquals("Incorrect row!",i++,Bytes.toInt(r.getRow()));
+            }
+            Assert.assertEquals("Incorrect number of rows!",1000,i);
+            Assert.assertNull("Rows returned after the scan was exhausted!",scanner.next());
+            Assert.assertEquals("Rows returned after the scan was exhausted!",0,scanner.next(10).length);
+        }
+        Assert.assertTrue("Underlying scanner not closed!",rows.closed);
+    }
+
+    @Test
+    public void growsBatchesWhenTheCallerStalls() throws Exception{
+        SlowScanner rows=new SlowScanner(2000,8,4,5L);
+        try(PrefetchingResultScanner scanner=new PrefetchingResultScanner(rows,4,Long.MAX_VALUE)){
+            int count=0;
+            int largestBatch=0;
+            while(scanner.next()!=null){
+                count++;
+                largestBatch=Math.max(largestBatch,scanner.getBatchSize());
+            }
+            Assert.assertEquals("Incorrect number of rows!",2000,count);
+            Assert.assertTrue("Caller never stalled!",scanner.getPrefetchStalls()>0);
+            Assert.assertTrue("Batches did not grow!",largestBatch>4);
+        }
+    }
+
+    @Test
+    public void measuredScannerReportsPrefetches() throws Exception{
+        SlowScanner rows=new SlowScanner(2000,8,4,5L);
+        PrefetchingResultScanner prefetching=new PrefetchingResultScanner(rows,4,Long.MAX_VALUE);
+        try(MeasuredResultScanner scanner=new MeasuredResultScanner(prefetching,Metrics.basicMetricFactory())){
+            int count=0;
+            while(scanner.next()!=null){
+                count++;
+            }
+            Assert.assertEquals("Incorrect number of rows!",2000,count);
+            Assert.assertEquals("Incorrect prefetch hits!",prefetching.getPrefetchHits(),scanner.getPrefetchHits());
+            Assert.assertEquals("Incorrect prefetch stalls!",prefetching.getPrefetchStalls(),scanner.getPrefetchStalls());
+            Assert.assertTrue("Prefetch stalls not reported!",scanner.getPrefetchStalls()>0);
+        }
+    }
+
+    @Test
+    public void doesNotFetchAheadOfTheFirstBatch() throws Exception{
+        SlowScanner rows=new SlowScanner(1000,8,1,0L);
+        try(PrefetchingResultScanner scanner=new PrefetchingResultScanner(rows,10,Long.MAX_VALUE)){
+            for(int i=0;i<10;i++){
+                Assert.assertNotNull(scanner.next());
+            }
+            Thread.sleep(50L);
+            Assert.assertEquals("Rows fetched ahead of the first batch!",10,rows.position);
+            Assert.assertEquals("Prefetch counted for the first batch!",0,scanner.getPrefetchHits()+scanner.getPrefetchStalls());
+        }
+    }
+
+    @Test
+    public void closeStopsAFetchInFlight() throws Exception{
+        SlowScanner rows=new SlowScanner(1000,8,1,20L);
+        PrefetchingResultScanner scanner=new PrefetchingResultScanner(rows,50,Long.MAX_VALUE);
+        //the second batch is fetched while the caller waits, and the third is fetched ahead of it
+        for(int i=0;i<51;i++){
+            Assert.assertNotNull(scanner.next());
+        }
+        long start=System.currentTimeMillis();
+        scanner.close();
+        long closeTime=System.currentTimeMillis()-start;
+        Assert.assertTrue("Underlying scanner not closed!",rows.closed);
+        Assert.assertTrue("Close waited for the whole batch!",closeTime<500L);
+        Assert.assertTrue("Fetch did not stop on close!",rows.position<150);
+    }
+
+    @Test
+    public void batchesStayWithinTheMemoryBound() throws Exception{
+        SlowScanner rows=new SlowScanner(500,1000,1,0L);
+        try(PrefetchingResultScanner scanner=new PrefetchingResultScanner(rows,100,20*1024)){
+            Assert.assertNotNull(scanner.next());
+            //each row is over 1 KB, so no more than 10 can be held in half of the bound
+            Assert.assertTrue("Batch size exceeds the memory bound!",scanner.getBatchSize()<=10);
+            while(scanner.next()!=null){
+                Assert.assertTrue("Batch size exceeds the memory bound!",scanner.getBatchSize()<=10);
+            }
+        }
+    }
+
+    @Test
+    public void fetchFailuresAreRethrown() throws Exception{
+        SlowScanner rows=new SlowScanner(100,8,1,0L);
+        rows.failAfter=20;
+        try(PrefetchingResultScanner scanner=new PrefetchingResultScanner(rows,10,Long.MAX_VALUE)){
+            for(int i=0;i<20;i++){
+                Assert.assertNotNull(scanner.next());
+            }
+            try{
+                scanner.next();
+                Assert.fail("Did not rethrow the fetch failure");
+            }catch(IOException expected){
+                Assert.assertEquals("Incorrect exception!","failed",expected.getMessage());
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    /**
+     * Hands out rows the way the HBase client does: rows are fetched {@code caching} at a time, and each fetch
+     * takes {@code delay} ms.
+     */
+    private static class SlowScanner implements ResultScanner{
+        private final int numRows;
+        private final int valueSize;
+        private final int caching;
+        private final long delay;
+        private volatile int position;
+        private int failAfter=-1;
+        private volatile boolean closed;
+
+        SlowScanner(int numRows,int valueSize,int caching,long delay){
+            this.numRows=numRows;
+            this.valueSize=valueSize;
+            this.caching=caching;
+            this.delay=delay;
+        }
+
+        @Override
+        public Result next() throws IOException{
+            if(closed) throw new IOException("closed");
+            if(failAfter>=0 && position>=failAfter) throw new IOException("failed");
+            if(position>=numRows) return null;
+            if(delay>0 && position%caching==0){
+                try{
+                    Thread.sleep(delay);
+                }catch(InterruptedException e){
+                    throw new IOException(e);
+                }
+            }
+            byte[] row=Bytes.toBytes(position++);
+            return Result.create(new Cell[]{new KeyValue(row,FAMILY,QUALIFIER,1L,new byte[valueSize])});
+        }
+
+        @Override
+        public Result[] next(int nbRows) throws IOException{
+            Result[] rows=new Result[nbRows];
+            int n=0;
+            Result r;
+            while(n<nbRows && (r=next())!=null){
+                rows[n++]=r;
+            }
+            return Arrays.copyOf(rows,n);
+        }
+
+        @Override
+        public void close(){
+            closed=true;
+        }
+
+        @Override
+        public Iterator<Result> iterator(){
+            return Arrays.asList(new Result[]{}).iterator();
+        }
+    }
+}
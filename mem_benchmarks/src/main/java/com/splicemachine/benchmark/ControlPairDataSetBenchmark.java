@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.stream.control.ControlPairDataSet;
+import com.splicemachine.derby.stream.function.RowComparator;
+import com.splicemachine.derby.stream.iapi.PairDataSet;
+import org.openjdk.jmh.annotations.*;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Joins, groups and sorts rows keyed by an integer column through {@link ControlPairDataSet}, the way the control
+ * (non-Spark) side of the engine executes hash joins, grouped aggregates and sorts.
+ *
+ * Each side has {@code numRows} rows over {@code numRows/rowsPerKey} distinct keys, in random order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ControlPairDataSetBenchmark{
+
+    @Param({"100000"})
+    public int numRows;
+
+    @Param({"1","16"})
+    public int rowsPerKey;
+
+    private List<Tuple2<ExecRow,ExecRow>> left;
+    private List<Tuple2<ExecRow,ExecRow>> right;
+    private RowComparator keyComparator;
+
+    @Setup
+    public void setup() throws Exception{
+        Random random=new Random(0);
+        left=rows(random);
+        right=rows(random);
+        keyComparator=new RowComparator(new boolean[]{false});
+    }
+
+    @Benchmark
+    public int hashJoin(){
+        PairDataSet<ExecRow,ExecRow> rightSide=new ControlPairDataSet<>(right.iterator());
+        return drain(new ControlPairDataSet<>(left.iterator()).hashJoin(rightSide,null));
+    }
+
+    @Benchmark
+    public int groupByKey(){
+        return drain(new ControlPairDataSet<>(left.iterator()).groupByKey(null));
+    }
+
+    @Benchmark
+    public int sortByKey(){
+        return drain(new ControlPairDataSet<>(left.iterator()).sortByKey(keyComparator,null));
+    }
+
+    private List<Tuple2<ExecRow,ExecRow>> rows(Random random) throws Exception{
+        int numKeys=Math.max(1,numRows/rowsPerKey);
+        List<Tuple2<ExecRow,ExecRow>> rows=new ArrayList<>(numRows);
+        for(int i=0;i<numRows;i++){
+            int k=i%numKeys;
+            ExecRow key=new ValueRow(1);
+            key.setColumn(1,new SQLInteger(k));
+            ExecRow value=new ValueRow(3);
+            value.setColumn(1,new SQLInteger(k));
+            value.setColumn(2,new SQLInteger(random.nextInt()));
+            value.setColumn(3,new SQLVarchar("row "+i));
+            rows.add(new Tuple2<>(key,value));
+        }
+        Collections.shuffle(rows,random);
+        return rows;
+    }
+
+    private static int drain(PairDataSet<?,?> dataSet){
+        Iterator<?> rows=((ControlPairDataSet<?,?>)dataSet).source;
+        int count=0;
+        while(rows.hasNext()){
+            rows.next();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a four column row (an int, a bigint, a varchar and a double), both as a bare
+ * {@link MultiFieldEncoder} key and as an {@link EntryEncoder} value with its index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncodingBenchmark{
+    private static final int NUM_COLS=4;
+
+    private MultiFieldEncoder keyEncoder;
+    private MultiFieldDecoder keyDecoder;
+    private byte[] encodedKey;
+
+    private EntryEncoder entryEncoder;
+    private EntryDecoder entryDecoder;
+    private byte[] encodedEntry;
+
+    @Setup
+    public void setup() throws IOException{
+        keyEncoder=MultiFieldEncoder.create(NUM_COLS);
+        keyDecoder=MultiFieldDecoder.create();
+        encodedKey=encodeKey();
+
+        BitSet setCols=new BitSet(NUM_COLS);
+        setCols.set(0,NUM_COLS);
+        BitSet scalarFields=new BitSet(NUM_COLS);
+        scalarFields.set(0,2);
+        BitSet doubleFields=new BitSet(NUM_COLS);
+        doubleFields.set(3);
+        entryEncoder=EntryEncoder.create(new KryoPool(100),NUM_COLS,setCols,scalarFields,new BitSet(),doubleFields);
+        entryDecoder=new EntryDecoder();
+        encodedEntry=encodeEntry();
+    }
+
+    @TearDown
+    public void tearDown(){
+        entryEncoder.close();
+        entryDecoder.close();
+    }
+
+    @Benchmark
+    public byte[] encodeKey(){
+        keyEncoder.reset();
+        return keyEncoder.encodeNext(42)
+                .encodeNext(1234567890123L)
+                .encodeNext("a moderately sized string value")
+                .encodeNext(3.14159d)
+                .build();
+    }
+
+    @Benchmark
+    public void decodeKey(Blackhole bh){
+        keyDecoder.set(encodedKey);
+        bh.consume(keyDecoder.decodeNextInt());
+        bh.consume(keyDecoder.decodeNextLong());
+        bh.consume(keyDecoder.decodeNextString());
+        bh.consume(keyDecoder.decodeNextDouble());
+    }
+
+    @Benchmark
+    public byte[] encodeEntry() throws IOException{
+        MultiFieldEncoder fields=entryEncoder.getEntryEncoder();
+        fields.reset();
+        fields.encodeNext(42)
+                .encodeNext(1234567890123L)
+                .encodeNext("a moderately sized string value")
+                .encodeNext(3.14159d);
+        return entryEncoder.encode();
+    }
+
+    @Benchmark
+    public void decodeEntry(Blackhole bh) throws IOException{
+        entryDecoder.set(encodedEntry);
+        MultiFieldDecoder fields=entryDecoder.getEntryDecoder();
+        bh.consume(fields.decodeNextInt());
+        bh.consume(fields.decodeNextLong());
+        bh.consume(fields.decodeNextString());
+        bh.consume(fields.decodeNextDouble());
+    }
+
+    @Benchmark
+    public byte[] decodeEntryColumn() throws IOException{
+        entryDecoder.set(encodedEntry);
+        return entryDecoder.getData(2);
+    }
+}
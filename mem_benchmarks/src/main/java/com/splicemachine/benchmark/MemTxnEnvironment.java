@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.MOperationFactory;
+import com.splicemachine.si.impl.MemTimestampSource;
+import com.splicemachine.si.impl.MemTxnStore;
+import com.splicemachine.si.impl.ManualKeepAliveScheduler;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.si.impl.store.CompletedTxnCacheSupplier;
+import com.splicemachine.timestamp.api.TimestampSource;
+
+/**
+ * The transactional machinery of the in memory platform, wired together the way the mem SI tests do it, but
+ * without a region server or an SIDriver behind it.
+ */
+class MemTxnEnvironment{
+    final ExceptionFactory exceptionFactory=MExceptionFactory.INSTANCE;
+    final Clock clock=new IncrementingClock();
+    final TimestampSource timestampSource=new MemTimestampSource();
+    final TxnStore txnStore=new MemTxnStore(clock,timestampSource,exceptionFactory,Long.MAX_VALUE);
+    final TxnSupplier txnSupplier=new CompletedTxnCacheSupplier(txnStore,1024,16);
+    final MOperationFactory baseOperationFactory=new MOperationFactory(clock);
+    final TxnOperationFactory operationFactory=new SimpleTxnOperationFactory(exceptionFactory,baseOperationFactory);
+    final TxnLifecycleManager lifecycleManager;
+
+    MemTxnEnvironment(){
+        ClientTxnLifecycleManager lfManager=new ClientTxnLifecycleManager(timestampSource,exceptionFactory);
+        lfManager.setTxnStore(txnStore);
+        lfManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(txnStore));
+        this.lifecycleManager=lfManager;
+    }
+}
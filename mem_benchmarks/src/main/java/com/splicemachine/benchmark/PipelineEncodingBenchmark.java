@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.PipelineEncoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.impl.MOperationFactory;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a {@link BulkWrites} of several regions' worth of inserts, as the write pipeline does on
+ * either side of each write RPC.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PipelineEncodingBenchmark{
+    private static final int NUM_REGIONS=8;
+
+    @Param({"16","1024"})
+    public int rowsPerRegion;
+
+    private TxnOperationFactory operationFactory;
+    private BulkWrites bulkWrites;
+    private byte[] encoded;
+
+    @Setup
+    public void setup(){
+        operationFactory=new SimpleTxnOperationFactory(MExceptionFactory.INSTANCE,new MOperationFactory(new IncrementingClock()));
+        Random random=new Random(0);
+        List<BulkWrite> writes=new ArrayList<>(NUM_REGIONS);
+        for(int r=0;r<NUM_REGIONS;r++){
+            Collection<KVPair> mutations=new ArrayList<>(rowsPerRegion);
+            for(int i=0;i<rowsPerRegion;i++){
+                byte[] value=new byte[64];
+                random.nextBytes(value);
+                mutations.add(new KVPair(Bytes.toBytes(r*rowsPerRegion+i),value,KVPair.Type.INSERT));
+            }
+            writes.add(new BulkWrite(mutations,"region-"+r));
+        }
+        bulkWrites=new BulkWrites(writes,new ActiveWriteTxn(0x100L,0x100L,Txn.ROOT_TRANSACTION,true,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        encoded=PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        return PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public int decode(){
+        int rows=0;
+        for(BulkWrite write : PipelineEncoding.decode(operationFactory,encoded).getBulkWrites())
+            rows+=write.getSize();
+        return rows;
+    }
+}
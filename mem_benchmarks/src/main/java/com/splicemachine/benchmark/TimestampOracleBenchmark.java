@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import com.splicemachine.timestamp.impl.TimestampOracle;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out timestamps from the {@link TimestampOracle}, by itself and under contention, with blocks reserved
+ * from memory rather than ZooKeeper, so that only the oracle's own cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TimestampOracleBenchmark{
+    // the same as the default splice.timestamp_server.blocksize
+    private static final int BLOCK_SIZE=32768;
+
+    private TimestampOracle oracle;
+
+    @Setup
+    public void setup() throws IOException{
+        oracle=TimestampOracle.getInstance(new MemBlockManager(),BLOCK_SIZE);
+    }
+
+    @Benchmark
+    public long getNextTimestamp() throws IOException{
+        return oracle.getNextTimestamp();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long getNextTimestampContended() throws IOException{
+        return oracle.getNextTimestamp();
+    }
+
+    private static class MemBlockManager implements TimestampBlockManager{
+        private volatile long maxReserved;
+
+        @Override
+        public void reserveNextBlock(long currentMaxReserved){
+            maxReserved=currentMaxReserved;
+        }
+
+        @Override
+        public long initialize(){
+            return maxReserved;
+        }
+    }
+}
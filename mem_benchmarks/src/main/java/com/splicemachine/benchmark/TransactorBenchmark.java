@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.access.api.PartitionAdmin;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.server.ConstraintChecker;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.MOpStatusFactory;
+import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.si.impl.server.SITransactor;
+import com.splicemachine.storage.MPartitionFactory;
+import com.splicemachine.storage.MutationStatus;
+import com.splicemachine.storage.Partition;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes batches through {@link SITransactor#processKvBatch} into an in memory partition, each batch in a
+ * transaction of its own, as a region does with each {@code BulkWrite} it receives.
+ *
+ * Inserts write keys no one has written before; updates rewrite rows which were loaded (and committed) before the
+ * iteration began, so each of them is checked for write conflicts against the rows' committed versions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactorBenchmark{
+    private static final String TABLE_NAME="1184";
+    private static final int PRELOADED_ROWS=1<<14;
+
+    @Param({"16","1024"})
+    public int batchSize;
+
+    private MemTxnEnvironment env;
+    private MPartitionFactory partitionFactory;
+    private SITransactor transactor;
+    private ConstraintChecker constraintChecker;
+    private Partition partition;
+    private byte[] value;
+    private int nextInsertKey;
+    private int nextUpdateKey;
+
+    @Setup(Level.Trial)
+    public void setupTrial(){
+        env=new MemTxnEnvironment();
+        partitionFactory=new MPartitionFactory();
+        transactor=new SITransactor(env.txnSupplier,
+                env.operationFactory,
+                env.baseOperationFactory,
+                MOpStatusFactory.INSTANCE,
+                env.exceptionFactory);
+        constraintChecker=MOpStatusFactory.INSTANCE.getNoOpConstraintChecker();
+        value=new byte[64];
+        new Random(0).nextBytes(value);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException{
+        // start each iteration with a fresh partition, so it doesn't slow down as it fills up
+        try(PartitionAdmin admin=partitionFactory.getAdmin()){
+            admin.deleteTable(TABLE_NAME);
+            admin.newPartition().withName(TABLE_NAME).create();
+        }
+        partition=partitionFactory.getTable(TABLE_NAME);
+        nextInsertKey=PRELOADED_ROWS;
+        nextUpdateKey=0;
+        for(int i=0;i<PRELOADED_ROWS;i+=batchSize)
+            write(batch(i,KVPair.Type.INSERT));
+    }
+
+    @Benchmark
+    public MutationStatus[] insertBatch() throws IOException{
+        List<KVPair> batch=batch(nextInsertKey,KVPair.Type.INSERT);
+        nextInsertKey+=batchSize;
+        return write(batch);
+    }
+
+    @Benchmark
+    public MutationStatus[] updateBatch() throws IOException{
+        if(nextUpdateKey+batchSize>PRELOADED_ROWS)
+            nextUpdateKey=0;
+        List<KVPair> batch=batch(nextUpdateKey,KVPair.Type.UPDATE);
+        nextUpdateKey+=batchSize;
+        return write(batch);
+    }
+
+    private List<KVPair> batch(int firstKey,KVPair.Type type){
+        List<KVPair> batch=new ArrayList<>(batchSize);
+        for(int i=0;i<batchSize;i++)
+            batch.add(new KVPair(Bytes.toBytes(firstKey+i),value,type));
+        return batch;
+    }
+
+    private MutationStatus[] write(List<KVPair> batch) throws IOException{
+        Txn txn=env.lifecycleManager.beginTransaction(Bytes.toBytes(TABLE_NAME));
+        MutationStatus[] statuses=transactor.processKvBatch(partition,
+                NoopRollForward.INSTANCE,
+                SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.PACKED_COLUMN_BYTES,
+                batch,
+                txn,
+                constraintChecker,
+                false,
+                false);
+        txn.commit();
+        return statuses;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.SimpleTxnFilter;
+import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataFilter;
+import com.splicemachine.storage.DataPut;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link SimpleTxnFilter} over a scan's worth of single cell rows, as the SI read path does for every row
+ * it returns.
+ *
+ * The rows are written by {@code writers} different transactions, of which most committed, some rolled back and
+ * some are still active; half the committed rows have been rolled forward, so carry a commit timestamp cell. The
+ * fewer the writers, the more often the filter finds a transaction in its caches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TxnFilterBenchmark{
+    private static final int NUM_ROWS=4096;
+    private static final byte[] DESTINATION_TABLE=Bytes.toBytes("1184");
+
+    @Param({"16","4096"})
+    public int writers;
+
+    private MemTxnEnvironment env;
+    private TxnView readTxn;
+    private List<DataCell[]> rows;
+
+    @Setup
+    public void setup() throws IOException{
+        env=new MemTxnEnvironment();
+        Random random=new Random(0);
+        Txn[] writeTxns=new Txn[writers];
+        for(int i=0;i<writers;i++)
+            writeTxns[i]=env.lifecycleManager.beginTransaction(DESTINATION_TABLE);
+
+        rows=new ArrayList<>(NUM_ROWS);
+        for(int i=0;i<NUM_ROWS;i++){
+            Txn writer=writeTxns[random.nextInt(writers)];
+            DataPut put=env.operationFactory.newDataPut(writer,Encoding.encode(i));
+            put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,writer.getBeginTimestamp(),Encoding.encode("value "+i));
+            rows.add(new DataCell[]{put.cells().iterator().next()});
+        }
+
+        for(int i=0;i<writers;i++){
+            int outcome=random.nextInt(10);
+            if(outcome==0)
+                writeTxns[i].rollback();
+            else if(outcome!=1)
+                writeTxns[i].commit();
+        }
+
+        // roll forward half of the committed rows
+        for(int i=0;i<NUM_ROWS;i+=2){
+            DataCell data=rows.get(i)[0];
+            TxnView writer=env.txnSupplier.getTransaction(data.version());
+            if(writer.getEffectiveState()!=Txn.State.COMMITTED) continue;
+            DataPut put=env.operationFactory.newDataPut(writer,data.key());
+            put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,
+                    data.version(),Bytes.toBytes(writer.getEffectiveCommitTimestamp()));
+            rows.set(i,new DataCell[]{put.cells().iterator().next(),data});
+        }
+        readTxn=env.lifecycleManager.beginTransaction();
+    }
+
+    @Benchmark
+    public int filterScan() throws IOException{
+        SimpleTxnFilter filter=new SimpleTxnFilter(null,readTxn,NoOpReadResolver.INSTANCE,env.txnSupplier);
+        int visible=0;
+        for(DataCell[] row : rows){
+            for(DataCell cell : row){
+                if(filter.filterCell(cell)==DataFilter.ReturnCode.INCLUDE)
+                    visible++;
+            }
+            filter.nextRow();
+        }
+        return visible;
+    }
+}
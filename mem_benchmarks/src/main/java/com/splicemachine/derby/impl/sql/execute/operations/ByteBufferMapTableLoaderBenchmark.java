@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the in memory table of a broadcast join's inner rows with {@link ByteBufferMapTableLoader}, and probes it
+ * with outer rows, half of which have no match.
+ *
+ * Lives in the loader's package, as the loader isn't public.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ByteBufferMapTableLoaderBenchmark{
+    private static final int[] HASH_KEYS={0};
+
+    @Param({"10000","100000"})
+    public int numRows;
+
+    @Param({"0","0.01"})
+    public double keyFilterFpp;
+
+    private List<ExecRow> innerRows;
+    private List<ExecRow> outerRows;
+    private Callable<Stream<ExecRow>> innerLoader;
+    private JoinTable.Factory table;
+
+    @Setup
+    public void setup() throws Exception{
+        Random random=new Random(0);
+        innerRows=new ArrayList<>(numRows);
+        outerRows=new ArrayList<>(numRows);
+        for(int i=0;i<numRows;i++){
+            innerRows.add(row(i,"inner "+i));
+            outerRows.add(row(random.nextInt(2*numRows),"outer "+i));
+        }
+        innerLoader=new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call(){
+                return Streams.wrap(innerRows);
+            }
+        };
+        table=load();
+    }
+
+    @Benchmark
+    public JoinTable.Factory load() throws Exception{
+        return ByteBufferMapTableLoader.INSTANCE.load(1L,innerLoader,HASH_KEYS,HASH_KEYS,outerRows.get(0),-1L,-1L,keyFilterFpp);
+    }
+
+    @Benchmark
+    public int probe() throws Exception{
+        int matches=0;
+        try(JoinTable joinTable=table.newTable()){
+            for(ExecRow outer : outerRows){
+                Iterator<ExecRow> inner=joinTable.fetchInner(outer);
+                while(inner.hasNext()){
+                    inner.next();
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static ExecRow row(int key,String value){
+        ExecRow row=new ValueRow(2);
+        row.setColumn(1,new SQLInteger(key));
+        row.setColumn(2,new SQLVarchar(value));
+        return row;
+    }
+}
@@ -98,6 +98,11 @@ public class LocalOlapClient implements OlapClient{
             return true;
         }
 
+        @Override
+        public boolean markQueued(){
+            return true;
+        }
+
         @Override
         public void markCompleted(OlapResult result){
             this.result = result;
@@ -23,6 +23,7 @@ import com.splicemachine.access.configuration.ConfigurationBuilder;
 import com.splicemachine.access.configuration.ConfigurationDefault;
 import com.splicemachine.access.configuration.ConfigurationSource;
 import com.splicemachine.access.configuration.HConfigurationDefaultsList;
+import com.splicemachine.access.configuration.StorageConfiguration;
 import com.splicemachine.access.util.ReflectingConfigurationSource;
 import com.splicemachine.client.SpliceClient;
 import com.splicemachine.concurrent.ConcurrentTicker;
@@ -41,11 +42,12 @@ public class MemDatabase{
     public static void main(String...args) throws Exception{
         //load SI
         SpliceClient.isRegionServer = true;
-        MPipelinePartitionFactory tableFactory=new MPipelinePartitionFactory(new MTxnPartitionFactory(new MPartitionFactory()));
-        MemSIEnvironment env=new MemSIEnvironment(tableFactory,new ConcurrentTicker(0L));
-        MemSIEnvironment.INSTANCE = env;
+        final MPartitionFactory baseFactory=new MPartitionFactory();
+        MPipelinePartitionFactory tableFactory=new MPipelinePartitionFactory(new MTxnPartitionFactory(baseFactory));
         SConfiguration config = new ConfigurationBuilder().build(new HConfigurationDefaultsList().addConfig(new MemDatabaseTestConfig()),
                                                                  new ReflectingConfigurationSource());
+        MemSIEnvironment env=new MemSIEnvironment(tableFactory,new ConcurrentTicker(0L),config);
+        MemSIEnvironment.INSTANCE = env;
 
         SIDriver.loadDriver(env);
         final SIDriver driver = env.getSIDriver();
@@ -69,7 +71,7 @@ public class MemDatabase{
 
             @Override
             public boolean connectAsFirstTime(){
-                return true;
+                return !baseFactory.isRecovered();
             }
         },config,false);
         DatabaseLifecycleManager manager=DatabaseLifecycleManager.manager();
@@ -101,6 +103,8 @@ public class MemDatabase{
             builder.ipcThreads = 100;
             builder.partitionserverPort = 16020;
             builder.storageFactoryHome = System.getProperty("user.dir");
+            // set to keep the data across restarts
+            builder.memDurableDirectory = System.getProperty(StorageConfiguration.MEM_DURABLE_DIRECTORY);
         }
     }
 }
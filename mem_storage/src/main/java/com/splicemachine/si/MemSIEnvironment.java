@@ -17,6 +17,8 @@ package com.splicemachine.si;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import com.splicemachine.access.api.DistributedFileSystem;
 import com.splicemachine.access.api.PartitionFactory;
 import com.splicemachine.access.api.SConfiguration;
@@ -39,6 +41,8 @@ import com.splicemachine.si.impl.*;
 import com.splicemachine.si.impl.data.MExceptionFactory;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.driver.SIEnvironment;
+import com.splicemachine.si.impl.hlc.HLC;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.storage.*;
 import com.splicemachine.timestamp.api.TimestampSource;
@@ -49,12 +53,16 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  *         Date: 1/11/16
  */
 public class MemSIEnvironment implements SIEnvironment{
+    /** Sub-directory of the durable directory in which the transaction table is kept */
+    public static final String TXN_DIRECTORY="transactions";
+
     @SuppressFBWarnings(value = "UUF_UNUSED_PUBLIC_OR_PROTECTED_FIELD",justification = "Referenced outside of the module")
     public static volatile MemSIEnvironment INSTANCE;
     private final ExceptionFactory exceptionFactory = MExceptionFactory.INSTANCE;
     private final Clock clock;
-    private final TimestampSource tsSource = new MemTimestampSource();
-    private final TxnStore txnStore;
+    private final MemTimestampSource tsSource = new MemTimestampSource();
+    private final TimestampSource timestampSource;
+    private final MemTxnStore txnStore;
     private final PartitionFactory tableFactory;
     private final DataFilterFactory filterFactory = MFilterFactory.INSTANCE;
     private final SnowflakeFactory snowflakeFactory = MSnowflakeFactory.INSTANCE;
@@ -75,14 +83,40 @@ public class MemSIEnvironment implements SIEnvironment{
 
     public MemSIEnvironment(PartitionFactory tableFactory,Clock clock){
         this.tableFactory = tableFactory;
-        this.txnStore = new MemTxnStore(clock,tsSource,exceptionFactory,1000);
         this.config=new ConfigurationBuilder().build(new HConfigurationDefaultsList(), new ReflectingConfigurationSource());
+        this.timestampSource = timestampSource(tsSource,config);
+        this.txnStore = new MemTxnStore(clock,timestampSource,exceptionFactory,1000);
         this.opFactory = new MOperationFactory(clock);
-        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory,opFactory);
+        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory,opFactory,hybridLogicalClock());
         this.kaScheduler = new ManualKeepAliveScheduler(txnStore);
             this.clock = clock;
     }
 
+    /**
+     * Create an environment with the given configuration. If {@link SConfiguration#getMemDurableDirectory()}
+     * is set, the transaction table and the partitions are recovered from (and logged to) that directory.
+     */
+    public MemSIEnvironment(PartitionFactory tableFactory,Clock clock,SConfiguration config) throws IOException{
+        this.tableFactory = tableFactory;
+        this.config=config;
+        this.timestampSource = timestampSource(tsSource,config);
+        this.txnStore = new MemTxnStore(clock,timestampSource,exceptionFactory,1000);
+        this.opFactory = new MOperationFactory(clock);
+        this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory,opFactory,hybridLogicalClock());
+        this.kaScheduler = new ManualKeepAliveScheduler(txnStore);
+        this.clock = clock;
+
+        String durableDirectory=config.getMemDurableDirectory();
+        if(durableDirectory!=null){
+            Path txnDirectory=Paths.get(durableDirectory).resolve(TXN_DIRECTORY);
+            long lastTimestamp=txnStore.openDurableLog(txnDirectory,config.getMemSnapshotInterval());
+            tsSource.advance(lastTimestamp);
+            if(timestampSource instanceof HLCTimestampSource)
+                ((HLCTimestampSource)timestampSource).receiveTimestamp(lastTimestamp);
+            tableFactory.initialize(clock,config,partitionCache);
+        }
+    }
+
     @Override
     public PartitionFactory tableFactory(){
         return tableFactory;
@@ -108,9 +142,23 @@ public class MemSIEnvironment implements SIEnvironment{
         return operationStatusFactory;
     }
 
+    /**
+     * @return timestamps from a hybrid logical clock if {@link SConfiguration#getHybridLogicalClockEnabled()},
+     * otherwise from {@code tsSource}. The in-memory store lives in a single JVM, which is the only node.
+     */
+    private static TimestampSource timestampSource(MemTimestampSource tsSource,SConfiguration config){
+        if(!config.getHybridLogicalClockEnabled())
+            return tsSource;
+        return new HLCTimestampSource(new HLC(),0,tsSource);
+    }
+
+    private HLCTimestampSource hybridLogicalClock(){
+        return timestampSource instanceof HLCTimestampSource?(HLCTimestampSource)timestampSource:null;
+    }
+
     @Override
     public TimestampSource timestampSource(){
-        return tsSource;
+        return timestampSource;
     }
 
     @Override
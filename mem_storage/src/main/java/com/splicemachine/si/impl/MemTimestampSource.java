@@ -30,6 +30,18 @@ public class MemTimestampSource implements TimestampSource {
         return id.addAndGet(SIConstants.TRASANCTION_INCREMENT);
     }
 
+    /**
+     * Make sure that no timestamp up to (and including) {@code timestamp} is handed out again, e.g. because
+     * it was used before a restart.
+     */
+    public void advance(long timestamp) {
+        long current;
+        do {
+            current = id.get();
+            if (current >= timestamp) return;
+        } while (!id.compareAndSet(current, timestamp));
+    }
+
     @Override
     public void rememberTimestamp(long timestamp) {
         memory = timestamp;
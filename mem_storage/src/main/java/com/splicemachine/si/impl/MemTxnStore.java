@@ -23,11 +23,17 @@ import com.splicemachine.concurrent.Clock;
 import com.splicemachine.concurrent.LongStripedSynchronizer;
 import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.si.api.txn.*;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
+import com.splicemachine.si.impl.txn.LazyTxnView;
 import com.splicemachine.si.impl.txn.WritableTxn;
+import com.splicemachine.storage.MDurableLog;
+import com.splicemachine.storage.MWriteAheadLog;
 import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.ByteSlice;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -44,6 +50,12 @@ import java.util.concurrent.locks.ReadWriteLock;
  *         Date: 6/23/14
  */
 public class MemTxnStore implements TxnStore{
+    private static final byte BEGIN_RECORD=0;
+    private static final byte ELEVATE_RECORD=1;
+    private static final byte COMMIT_RECORD=2;
+    private static final byte ROLLBACK_RECORD=3;
+    private static final byte ROLLBACK_SUBTXNS_RECORD=4;
+
     private LongStripedSynchronizer<ReadWriteLock> lockStriper;
     private final ConcurrentMap<Long, TxnHolder> txnMap;
     private final TimestampSource commitTsGenerator;
@@ -51,6 +63,7 @@ public class MemTxnStore implements TxnStore{
     private TxnLifecycleManager tc;
     private final long txnTimeOutIntervalMs;
     private final ExceptionFactory exceptionFactory;
+    private volatile MDurableLog durableLog;
 
 
     public MemTxnStore(Clock clock,TimestampSource commitTsGenerator,ExceptionFactory exceptionFactory,long txnTimeOutIntervalMs){
@@ -62,6 +75,48 @@ public class MemTxnStore implements TxnStore{
         this.clock = clock;
     }
 
+    /**
+     * Make the transaction table durable: recover the transactions kept in {@code directory}, and log every
+     * subsequent change of transaction state there. Transactions which were still active when the log was last
+     * written are rolled back.
+     *
+     * @param snapshotInterval interval(in milliseconds) between snapshots of the transaction table
+     * @return the highest timestamp used by a recovered transaction, so that the timestamp source can be
+     * moved past it.
+     */
+    public long openDurableLog(Path directory,long snapshotInterval) throws IOException{
+        assert durableLog==null:"Transaction store is already durable";
+        durableLog=MDurableLog.open(directory,new MWriteAheadLog.RecordHandler(){
+            @Override
+            public void handle(ByteBuffer record) throws IOException{
+                replay(record);
+            }
+        },new MDurableLog.SnapshotSource(){
+            @Override
+            public void writeSnapshot(MWriteAheadLog snapshot) throws IOException{
+                writeTxnSnapshot(snapshot);
+            }
+        },snapshotInterval);
+
+        long maxTimestamp=0L;
+        for(TxnHolder holder : txnMap.values()){
+            Txn txn=holder.txn;
+            if(txn.getState()==Txn.State.ACTIVE)
+                holder.txn=getRolledbackTxn(txn.getTxnId(),txn);
+            maxTimestamp=Math.max(maxTimestamp,Math.max(txn.getTxnId(),txn.getCommitTimestamp()));
+        }
+        return maxTimestamp;
+    }
+
+    /**
+     * Take a snapshot of the transaction table now, rather than waiting for the snapshot interval.
+     */
+    void snapshot() throws IOException{
+        MDurableLog log=durableLog;
+        if(log!=null)
+            log.snapshot();
+    }
+
     @Override
     public Txn getTransaction(long txnId) throws IOException{
         long subId = txnId & SIConstants.SUBTRANSANCTION_ID_MASK;
@@ -98,6 +153,13 @@ public class MemTxnStore implements TxnStore{
         return getTransaction(txnId);
     }
 
+    @Override
+    public Txn getTransactionForReader(long txnId,long readerBeginTimestamp) throws IOException{
+        if(commitTsGenerator instanceof HLCTimestampSource)
+            ((HLCTimestampSource)commitTsGenerator).receiveTimestamp(readerBeginTimestamp);
+        return getTransaction(txnId);
+    }
+
 
     @Override
     public boolean transactionCached(long txnId){
@@ -126,7 +188,12 @@ public class MemTxnStore implements TxnStore{
         try{
             TxnHolder txn1=txnMap.get(txn.getTxnId());
             assert txn1==null:" Transaction "+txn.getTxnId()+" already existed!";
-            txnMap.put(txn.getTxnId(),new TxnHolder(txn,clock.currentTimeMillis()));
+            Lock mutationLock=logMutation(BEGIN_RECORD,txn);
+            try{
+                txnMap.put(txn.getTxnId(),new TxnHolder(txn,clock.currentTimeMillis()));
+            }finally{
+                unlock(mutationLock);
+            }
         }finally{
             wl.unlock();
         }
@@ -145,7 +212,12 @@ public class MemTxnStore implements TxnStore{
 
             Txn.State state=txn.getState();
             if(state!=Txn.State.ACTIVE) return; //nothing to do if we aren't active
-            txnHolder.txn=getRolledbackTxn(txnId,txn);
+            Lock mutationLock=logMutation(ROLLBACK_RECORD,txn);
+            try{
+                txnHolder.txn=getRolledbackTxn(txnId,txn);
+            }finally{
+                unlock(mutationLock);
+            }
         }finally{
             wl.unlock();
         }
@@ -166,7 +238,13 @@ public class MemTxnStore implements TxnStore{
 
             Txn.State state=txn.getState();
             if(state!=Txn.State.ACTIVE) return; //nothing to do if we aren't active
-            txnHolder.txn=getRolledbackSubtxns(beginTS,txn,subtransactions);
+            Txn rolledBack=getRolledbackSubtxns(beginTS,txn,subtransactions);
+            Lock mutationLock=logMutation(ROLLBACK_SUBTXNS_RECORD,rolledBack);
+            try{
+                txnHolder.txn=rolledBack;
+            }finally{
+                unlock(mutationLock);
+            }
         }finally{
             wl.unlock();
         }
@@ -238,42 +316,52 @@ public class MemTxnStore implements TxnStore{
                 }else
                     globalCommitTs=-1l;
             }
-            txnHolder.txn=new ForwardingTxnView(txn){
-                @Override
-                public void commit() throws IOException{
-                } //do nothing
-
-                @Override
-                public void rollback() throws IOException{
-                    throw new UnsupportedOperationException("Cannot rollback a committed transaction");
-                }
-
-                @Override
-                public Txn elevateToWritable(byte[] writeTable) throws IOException{
-                    throw new UnsupportedOperationException("Txn is committed");
-                }
-
-                @Override
-                public long getCommitTimestamp(){
-                    return commitTs;
-                }
-
-                @Override
-                public long getGlobalCommitTimestamp(){
-                    return globalCommitTs;
-                }
-
-                @Override
-                public Txn.State getState(){
-                    return Txn.State.COMMITTED;
-                }
-            };
+            Txn committed=getCommittedTxn(txn,commitTs,globalCommitTs);
+            Lock mutationLock=logMutation(COMMIT_RECORD,committed);
+            try{
+                txnHolder.txn=committed;
+            }finally{
+                unlock(mutationLock);
+            }
             return commitTs;
         }finally{
             wl.unlock();
         }
     }
 
+    private Txn getCommittedTxn(Txn txn,final long commitTs,final long globalCommitTs){
+        return new ForwardingTxnView(txn){
+            @Override
+            public void commit() throws IOException{
+            } //do nothing
+
+            @Override
+            public void rollback() throws IOException{
+                throw new UnsupportedOperationException("Cannot rollback a committed transaction");
+            }
+
+            @Override
+            public Txn elevateToWritable(byte[] writeTable) throws IOException{
+                throw new UnsupportedOperationException("Txn is committed");
+            }
+
+            @Override
+            public long getCommitTimestamp(){
+                return commitTs;
+            }
+
+            @Override
+            public long getGlobalCommitTimestamp(){
+                return globalCommitTs;
+            }
+
+            @Override
+            public Txn.State getState(){
+                return Txn.State.COMMITTED;
+            }
+        };
+    }
+
     @Override
     public boolean keepAlive(long txnId) throws IOException{
         Lock writeLock=lockStriper.get(txnId).writeLock();
@@ -309,11 +397,16 @@ public class MemTxnStore implements TxnStore{
         try{
             Txn writableTxnCopy=new WritableTxn(txn,tc,newDestinationTable,exceptionFactory);
             TxnHolder oldTxn=txnMap.get(txnId);
-            if(oldTxn==null){
-                txnMap.put(txnId,new TxnHolder(writableTxnCopy,clock.currentTimeMillis()));
-            }else{
-                assert oldTxn.txn.getEffectiveState()==Txn.State.ACTIVE:"Cannot elevate transaction "+txnId+" because it is not active";
-                oldTxn.txn=writableTxnCopy;
+            assert oldTxn==null || oldTxn.txn.getEffectiveState()==Txn.State.ACTIVE:"Cannot elevate transaction "+txnId+" because it is not active";
+            Lock mutationLock=logMutation(oldTxn==null?BEGIN_RECORD:ELEVATE_RECORD,writableTxnCopy);
+            try{
+                if(oldTxn==null){
+                    txnMap.put(txnId,new TxnHolder(writableTxnCopy,clock.currentTimeMillis()));
+                }else{
+                    oldTxn.txn=writableTxnCopy;
+                }
+            }finally{
+                unlock(mutationLock);
             }
         }finally{
             wl.unlock();
@@ -450,6 +543,183 @@ public class MemTxnStore implements TxnStore{
         return activeTxns.toArray();
     }
 
+    /*
+     * Log a change of transaction state before it is applied. The returned lock (if any) must be held until
+     * the change has been applied to the txnMap.
+     */
+    private Lock logMutation(byte type,Txn txn) throws IOException{
+        MDurableLog log=durableLog;
+        if(log==null) return null;
+        byte[] record=encode(type,txn);
+        Lock mutationLock=log.mutationLock();
+        mutationLock.lock();
+        try{
+            log.append(record);
+        }catch(IOException|RuntimeException e){
+            mutationLock.unlock();
+            throw e;
+        }
+        return mutationLock;
+    }
+
+    private static void unlock(Lock mutationLock){
+        if(mutationLock!=null)
+            mutationLock.unlock();
+    }
+
+    /*
+     * Records are [type][txnId] followed by
+     *  BEGIN: [beginTimestamp][parentTxnId][isolationLevel][additive][destination table]
+     *  ELEVATE: [destination table]
+     *  COMMIT: [commitTimestamp][globalCommitTimestamp]
+     *  ROLLBACK_SUBTXNS: [count][subtransaction ids]
+     */
+    private static byte[] encode(byte type,Txn txn){
+        byte[] table=null;
+        if(type==BEGIN_RECORD || type==ELEVATE_RECORD){
+            Iterator<ByteSlice> destinationTables=txn.getDestinationTables();
+            if(destinationTables.hasNext())
+                table=destinationTables.next().getByteCopy();
+        }
+        long[] subtransactions=type==ROLLBACK_SUBTXNS_RECORD?txn.getRolledback().toArray():null;
+
+        int size=1+8;
+        switch(type){
+            case BEGIN_RECORD:
+                size+=8+8+1+1+4+(table==null?0:table.length);
+                break;
+            case ELEVATE_RECORD:
+                size+=4+(table==null?0:table.length);
+                break;
+            case COMMIT_RECORD:
+                size+=8+8;
+                break;
+            case ROLLBACK_SUBTXNS_RECORD:
+                size+=4+8*subtransactions.length;
+                break;
+            default:
+        }
+        ByteBuffer record=ByteBuffer.allocate(size);
+        record.put(type).putLong(txn.getTxnId());
+        switch(type){
+            case BEGIN_RECORD:
+                TxnView parent=txn.getParentTxnView();
+                record.putLong(txn.getBeginTimestamp())
+                        .putLong(parent==null?-1L:parent.getTxnId())
+                        .put(txn.getIsolationLevel().encode())
+                        .put((byte)(txn.isAdditive()?1:0));
+                putTable(record,table);
+                break;
+            case ELEVATE_RECORD:
+                putTable(record,table);
+                break;
+            case COMMIT_RECORD:
+                record.putLong(txn.getCommitTimestamp()).putLong(txn.getGlobalCommitTimestamp());
+                break;
+            case ROLLBACK_SUBTXNS_RECORD:
+                record.putInt(subtransactions.length);
+                for(long subId : subtransactions){
+                    record.putLong(subId);
+                }
+                break;
+            default:
+        }
+        return record.array();
+    }
+
+    private static void putTable(ByteBuffer record,byte[] table){
+        if(table==null)
+            record.putInt(-1);
+        else
+            record.putInt(table.length).put(table);
+    }
+
+    private static byte[] getTable(ByteBuffer record){
+        int length=record.getInt();
+        if(length<0) return null;
+        byte[] table=new byte[length];
+        record.get(table);
+        return table;
+    }
+
+    /*
+     * Replays a record during recovery (which is single threaded). Replaying is idempotent, because
+     * a snapshot may already reflect some of the records in the log which follows it.
+     */
+    private void replay(ByteBuffer record){
+        byte type=record.get();
+        long txnId=record.getLong();
+        TxnHolder holder=txnMap.get(txnId);
+        if(type==BEGIN_RECORD){
+            if(holder!=null) return;
+            long beginTimestamp=record.getLong();
+            long parentTxnId=record.getLong();
+            Txn.IsolationLevel isolationLevel=Txn.IsolationLevel.fromByte(record.get());
+            boolean additive=record.get()!=0;
+            byte[] table=getTable(record);
+            //parents are resolved lazily, so that children see their final state
+            TxnView parent=parentTxnId<0 || !txnMap.containsKey(parentTxnId)
+                    ?Txn.ROOT_TRANSACTION
+                    :new LazyTxnView(parentTxnId,this,exceptionFactory);
+            Txn txn=new WritableTxn(txnId,beginTimestamp,null,isolationLevel,parent,tc,additive,table,exceptionFactory);
+            txnMap.put(txnId,new TxnHolder(txn,clock.currentTimeMillis()));
+            return;
+        }
+        if(holder==null || holder.txn.getState()!=Txn.State.ACTIVE) return;
+        switch(type){
+            case ELEVATE_RECORD:
+                holder.txn=new WritableTxn(holder.txn,tc,getTable(record),exceptionFactory);
+                break;
+            case COMMIT_RECORD:
+                long commitTs=record.getLong();
+                long globalCommitTs=record.getLong();
+                holder.txn=getCommittedTxn(holder.txn,commitTs,globalCommitTs);
+                break;
+            case ROLLBACK_RECORD:
+                holder.txn=getRolledbackTxn(txnId,holder.txn);
+                break;
+            case ROLLBACK_SUBTXNS_RECORD:
+                LongOpenHashSet subtransactions=new LongOpenHashSet();
+                int count=record.getInt();
+                for(int i=0;i<count;i++){
+                    subtransactions.add(record.getLong());
+                }
+                holder.txn=getRolledbackSubtxns(txnId,holder.txn,subtransactions);
+                break;
+            default:
+                throw new IllegalStateException("Unknown transaction record type "+type);
+        }
+    }
+
+    private void writeTxnSnapshot(MWriteAheadLog snapshot) throws IOException{
+        //parents begin before their children, so they are written (and recovered) first
+        List<Txn> txns=new ArrayList<>(txnMap.size());
+        for(TxnHolder holder : txnMap.values()){
+            txns.add(holder.txn);
+        }
+        Collections.sort(txns,new Comparator<Txn>(){
+            @Override
+            public int compare(Txn o1,Txn o2){
+                return Longs.compare(o1.getTxnId(),o2.getTxnId());
+            }
+        });
+        for(Txn txn : txns){
+            snapshot.write(encode(BEGIN_RECORD,txn));
+            //rolled back sub-transactions stay invisible after their parent commits, so they are written first
+            if(!txn.getRolledback().isEmpty())
+                snapshot.write(encode(ROLLBACK_SUBTXNS_RECORD,txn));
+            switch(txn.getState()){
+                case COMMITTED:
+                    snapshot.write(encode(COMMIT_RECORD,txn));
+                    break;
+                case ROLLEDBACK:
+                    snapshot.write(encode(ROLLBACK_RECORD,txn));
+                    break;
+                default:
+            }
+        }
+    }
+
     public void setLifecycleManager(TxnLifecycleManager lifecycleManager){
         this.tc=lifecycleManager;
     }
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import org.apache.log4j.Logger;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Durable state for an in-memory structure, kept in a directory as a snapshot plus the write-ahead logs
+ * written since.
+ *
+ * Files are numbered by generation. Taking a snapshot rolls the write-ahead log over to a new generation
+ * {@code G} under a brief barrier, writes the state of the structure to {@code snapshot.G} (through a temporary
+ * file, renamed into place once it is complete), and then removes every file of an older generation.
+ * Mutations keep running while the snapshot is written, so {@code snapshot.G} may already contain some of
+ * the records in {@code wal.G}: replaying a record must therefore be idempotent.
+ *
+ * On recovery, the latest complete snapshot is loaded and the write-ahead logs from its generation onwards
+ * are replayed on top of it, in order.
+ */
+@ThreadSafe
+public class MDurableLog implements Closeable{
+    private static final Logger LOG=Logger.getLogger(MDurableLog.class);
+    private static final String WAL_PREFIX="wal.";
+    private static final String SNAPSHOT_PREFIX="snapshot.";
+    private static final String TMP_SUFFIX=".tmp";
+
+    private static final ScheduledExecutorService snapshotExecutor=Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("mem-snapshot-%d").setDaemon(true).build());
+
+    public interface SnapshotSource{
+        /**
+         * Write the current state of the structure to {@code snapshot}, as records which rebuild it when
+         * replayed.
+         */
+        void writeSnapshot(MWriteAheadLog snapshot) throws IOException;
+    }
+
+    private final Path directory;
+    private final SnapshotSource snapshotSource;
+    private final ReadWriteLock barrier=new ReentrantReadWriteLock();
+    private final Lock snapshotLock=new ReentrantLock();
+    private volatile MWriteAheadLog wal;
+    private long generation;
+    private ScheduledFuture<?> snapshotTask;
+    private boolean closed;
+
+    private MDurableLog(Path directory,SnapshotSource snapshotSource){
+        this.directory=directory;
+        this.snapshotSource=snapshotSource;
+    }
+
+    /**
+     * Recover the state kept in {@code directory} (which is created if it does not exist yet), and open it
+     * for writing.
+     *
+     * @param handler replays the records of the snapshot and the write-ahead logs, in order
+     * @param snapshotSource writes the snapshots
+     * @param snapshotInterval interval(in milliseconds) between snapshots, or a non-positive number to only
+     *                         take snapshots on demand
+     */
+    public static MDurableLog open(Path directory,
+                                   MWriteAheadLog.RecordHandler handler,
+                                   SnapshotSource snapshotSource,
+                                   long snapshotInterval) throws IOException{
+        Files.createDirectories(directory);
+        final MDurableLog log=new MDurableLog(directory,snapshotSource);
+        log.recover(handler);
+        if(snapshotInterval>0){
+            log.snapshotTask=snapshotExecutor.scheduleWithFixedDelay(new Runnable(){
+                @Override
+                public void run(){
+                    try{
+                        log.snapshot();
+                    }catch(Exception e){
+                        LOG.error("Unable to take a snapshot of "+log.directory,e);
+                    }
+                }
+            },snapshotInterval,snapshotInterval,TimeUnit.MILLISECONDS);
+        }
+        return log;
+    }
+
+    /**
+     * Callers must hold this lock (which is shared) from the moment they log a mutation until they have
+     * applied it to the in-memory structure. Otherwise a concurrent snapshot could miss the mutation
+     * and remove the only log which has it.
+     */
+    public Lock mutationLock(){
+        return barrier.readLock();
+    }
+
+    /**
+     * Log a record durably. Must be called while holding the {@link #mutationLock()}.
+     */
+    public void append(byte[] record) throws IOException{
+        wal.append(record);
+    }
+
+    /**
+     * Take a snapshot, unless nothing was logged since the last one.
+     */
+    public void snapshot() throws IOException{
+        snapshotLock.lock();
+        try{
+            if(closed || wal.size()<=0) return;
+
+            long snapshotGeneration;
+            MWriteAheadLog oldWal;
+            Lock writeBarrier=barrier.writeLock();
+            writeBarrier.lock();
+            try{
+                snapshotGeneration=generation+1;
+                oldWal=wal;
+                wal=new MWriteAheadLog(walPath(snapshotGeneration));
+                generation=snapshotGeneration;
+            }finally{
+                writeBarrier.unlock();
+            }
+            oldWal.close();
+
+            Path tmp=directory.resolve(SNAPSHOT_PREFIX+snapshotGeneration+TMP_SUFFIX);
+            Files.deleteIfExists(tmp);
+            try(MWriteAheadLog snapshot=new MWriteAheadLog(tmp)){
+                snapshotSource.writeSnapshot(snapshot);
+                snapshot.sync();
+            }
+            Files.move(tmp,directory.resolve(SNAPSHOT_PREFIX+snapshotGeneration),StandardCopyOption.ATOMIC_MOVE);
+            removeOlderThan(snapshotGeneration);
+        }finally{
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        if(snapshotTask!=null)
+            snapshotTask.cancel(false);
+        snapshotLock.lock();
+        try{
+            closed=true;
+            wal.close();
+        }finally{
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Close the log and remove all of its files.
+     */
+    public void destroy() throws IOException{
+        close();
+        try(DirectoryStream<Path> files=Files.newDirectoryStream(directory)){
+            for(Path file : files){
+                Files.delete(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void recover(MWriteAheadLog.RecordHandler handler) throws IOException{
+        long snapshotGeneration=-1L;
+        long maxGeneration=0L;
+        List<Long> walGenerations=new ArrayList<>();
+        try(DirectoryStream<Path> files=Files.newDirectoryStream(directory)){
+            for(Path file : files){
+                String name=file.getFileName().toString();
+                if(name.endsWith(TMP_SUFFIX)){
+                    //an incomplete snapshot
+                    Files.delete(file);
+                }else if(name.startsWith(SNAPSHOT_PREFIX)){
+                    long gen=parseGeneration(name,SNAPSHOT_PREFIX);
+                    snapshotGeneration=Math.max(snapshotGeneration,gen);
+                    maxGeneration=Math.max(maxGeneration,gen);
+                }else if(name.startsWith(WAL_PREFIX)){
+                    long gen=parseGeneration(name,WAL_PREFIX);
+                    walGenerations.add(gen);
+                    maxGeneration=Math.max(maxGeneration,gen);
+                }
+            }
+        }
+        Collections.sort(walGenerations);
+
+        long records=0L;
+        if(snapshotGeneration>=0)
+            records+=MWriteAheadLog.read(directory.resolve(SNAPSHOT_PREFIX+snapshotGeneration),handler);
+        for(Long gen : walGenerations){
+            if(gen>=snapshotGeneration)
+                records+=MWriteAheadLog.read(walPath(gen),handler);
+        }
+        if(snapshotGeneration>=0)
+            removeOlderThan(snapshotGeneration);
+
+        /*
+         * Never append to a recovered log: its tail may be torn, and anything written after the tear
+         * would be ignored on the next recovery.
+         */
+        generation=maxGeneration+1;
+        wal=new MWriteAheadLog(walPath(generation));
+        if(LOG.isInfoEnabled())
+            LOG.info("Recovered "+records+" records from "+directory);
+    }
+
+    private void removeOlderThan(long minGeneration) throws IOException{
+        try(DirectoryStream<Path> files=Files.newDirectoryStream(directory)){
+            for(Path file : files){
+                String name=file.getFileName().toString();
+                if(name.endsWith(TMP_SUFFIX)) continue;
+                long gen;
+                if(name.startsWith(SNAPSHOT_PREFIX))
+                    gen=parseGeneration(name,SNAPSHOT_PREFIX);
+                else if(name.startsWith(WAL_PREFIX))
+                    gen=parseGeneration(name,WAL_PREFIX);
+                else continue;
+                if(gen<minGeneration)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    private Path walPath(long gen){
+        return directory.resolve(WAL_PREFIX+gen);
+    }
+
+    private long parseGeneration(String name,String prefix) throws IOException{
+        try{
+            return Long.parseLong(name.substring(prefix.length()));
+        }catch(NumberFormatException nfe){
+            throw new IOException("Unexpected file "+name+" in "+directory,nfe);
+        }
+    }
+}
@@ -14,7 +14,10 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.primitives.Bytes;
+
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @author Scott Fines
@@ -50,4 +53,40 @@ public class MFilterFactory implements DataFilterFactory{
             }
         };
     }
+
+    @Override
+    public DataFilter skippingScanFilter(final List<byte[]> startKeys,final List<byte[]> stopKeys){
+        return new DataFilter(){
+            private int range = 0;
+
+            @Override
+            public ReturnCode filterCell(DataCell keyValue) throws IOException{
+                byte[] key = keyValue.keyArray();
+                int offset = keyValue.keyOffset();
+                int length = keyValue.keyLength();
+                while(range<stopKeys.size()){
+                    byte[] stop = stopKeys.get(range);
+                    if(stop.length==0 || Bytes.BASE_COMPARATOR.compare(key,offset,length,stop,0,stop.length)<0)
+                        break;
+                    range++;
+                }
+                if(range>=startKeys.size())
+                    return ReturnCode.NEXT_ROW;
+                byte[] start = startKeys.get(range);
+                if(Bytes.BASE_COMPARATOR.compare(key,offset,length,start,0,start.length)<0)
+                    return ReturnCode.NEXT_ROW;
+                return ReturnCode.INCLUDE;
+            }
+
+            @Override
+            public boolean filterRow() throws IOException{
+                return false;
+            }
+
+            @Override
+            public void reset() throws IOException{
+
+            }
+        };
+    }
 }
@@ -15,10 +15,9 @@
 package com.splicemachine.storage;
 
 import com.splicemachine.access.util.ByteComparisons;
-import org.spark_project.guava.base.Predicate;
-import org.spark_project.guava.collect.BiMap;
-import org.spark_project.guava.collect.HashBiMap;
-import org.spark_project.guava.collect.Sets;
+import com.splicemachine.concurrent.LongStripedSynchronizer;
+import org.spark_project.guava.base.Function;
+import org.spark_project.guava.collect.Iterators;
 import com.splicemachine.collections.EmptyNavigableSet;
 import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.metrics.MetricFactory;
@@ -27,33 +26,53 @@ import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.storage.util.MappedDataResultScanner;
 import com.splicemachine.utils.Pair;
-import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * A partition which keeps its data in memory.
+ *
+ * The memstore is a concurrent skip list of {@link MSlabCell}s, which point into off-heap slabs holding the
+ * actual cell bytes. Cells are materialized back onto the heap as {@link MCell}s whenever they are handed out.
+ * Once most of the bytes in the slabs belong to cells which were overwritten or deleted, the live cells are moved
+ * out of the sparse slabs, so that those can be freed.
+ *
  * @author Scott Fines
  *         Date: 12/16/15
  */
 @ThreadSafe
 public class MPartition implements Partition{
+    private static final byte PUT_RECORD=0;
+    private static final byte DELETE_RECORD=1;
+    private static final int ROW_LOCK_STRIPES=1024;
+    private static final Function<DataCell,DataCell> MATERIALIZE=new Function<DataCell, DataCell>(){
+        @Override
+        public DataCell apply(DataCell dataCell){
+            return ((MSlabCell)dataCell).materialize();
+        }
+    };
+
     private final String partitionName;
     private final String tableName;
     private final PartitionServer owner;
 
-    private final ConcurrentSkipListSet<DataCell> memstore=new ConcurrentSkipListSet<>();
-    private final BiMap<ByteBuffer, Lock> lockMap=HashBiMap.create();
+    /*the value of each entry is its key; the map is only used because it can replace keys*/
+    private final ConcurrentSkipListMap<DataCell, MSlabCell> cells=new ConcurrentSkipListMap<>(MSlabCell.COMPARATOR);
+    private final NavigableSet<DataCell> memstore=cells.keySet();
+    private final MSlabAllocator allocator=new MSlabAllocator();
+    private final LongStripedSynchronizer<Lock> rowLocks=LongStripedSynchronizer.stripedLock(ROW_LOCK_STRIPES);
     private AtomicLong writes=new AtomicLong(0l);
     private AtomicLong reads=new AtomicLong(0l);
     private AtomicLong sequenceGen = new AtomicLong(0l);
+    private final AtomicBoolean compacting=new AtomicBoolean(false);
+    private volatile MDurableLog durableLog;
 
     public MPartition(String tableName,String partitionName){
         this.partitionName=partitionName;
@@ -61,6 +80,48 @@ public class MPartition implements Partition{
         this.owner=new MPartitionServer();
     }
 
+    /**
+     * Make this partition durable: recover the data kept in {@code directory}, and log every subsequent
+     * mutation there before applying it.
+     *
+     * @param snapshotInterval interval(in milliseconds) between snapshots of the memstore
+     */
+    void openDurableLog(Path directory,long snapshotInterval) throws IOException{
+        assert durableLog==null:"Partition "+partitionName+" is already durable";
+        durableLog=MDurableLog.open(directory,new MWriteAheadLog.RecordHandler(){
+            @Override
+            public void handle(ByteBuffer record) throws IOException{
+                replay(record);
+            }
+        },new MDurableLog.SnapshotSource(){
+            @Override
+            public void writeSnapshot(MWriteAheadLog snapshot) throws IOException{
+                //the memstore is sorted, so the snapshot is too
+                for(MSlabCell dc : cells.values()){
+                    snapshot.write(encodeMutation(PUT_RECORD,dc.getSequence(),Collections.<DataCell>singleton(dc.materialize())));
+                }
+            }
+        },snapshotInterval);
+    }
+
+    /**
+     * Take a snapshot of this partition's durable data now, rather than waiting for the snapshot interval.
+     */
+    void snapshot() throws IOException{
+        MDurableLog log=durableLog;
+        if(log!=null)
+            log.snapshot();
+    }
+
+    /**
+     * Drop this partition's durable data, if it has any.
+     */
+    void destroy() throws IOException{
+        MDurableLog log=durableLog;
+        if(log!=null)
+            log.destroy();
+    }
+
     @Override
     public String getTableName(){
         return tableName;
@@ -87,15 +148,9 @@ public class MPartition implements Partition{
     public DataResult get(final DataGet get,DataResult previous) throws IOException{
         DataCell start=new MCell(get.key(),new byte[]{},new byte[]{},get.highTimestamp(),new byte[]{},CellType.USER_DATA);
 
-        Set<DataCell> data=Sets.filter(memstore.tailSet(start,true),new Predicate<DataCell>(){
-            @Override
-            public boolean apply(DataCell dataCell){
-                byte[] key=get.key();
-                return Bytes.equals(dataCell.keyArray(),dataCell.keyOffset(),dataCell.keyLength(),key,0,key.length);
-            }
-        });
+        Set<DataCell> data=memstore.subSet(start,true,rowEnd(get.key()),false);
         long curSeq = sequenceGen.get();
-        try(SetScanner ss=new SetScanner(curSeq,data.iterator(),get.lowTimestamp(),get.highTimestamp(),get.filter(),this,Metrics.noOpMetricFactory())){
+        try(SetScanner ss=new SetScanner(curSeq,materialize(data.iterator()),get.lowTimestamp(),get.highTimestamp(),get.filter(),this,Metrics.noOpMetricFactory())){
             List<DataCell> toReturn=ss.next(-1);
             if(toReturn.size()<=0) return null;
 
@@ -113,7 +168,30 @@ public class MPartition implements Partition{
 
     @Override
     public Iterator<DataResult> batchGet(Attributable attributes,List<byte[]> rowKeys) throws IOException{
-        throw new UnsupportedOperationException("IMPLEMENT");
+        MGet get=new MGet();
+        if(attributes instanceof DataGet){
+            //use the time range, filter and columns of the template get
+            DataGet template=(DataGet)attributes;
+            get.setTimeRange(template.lowTimestamp(),template.highTimestamp());
+            get.setFilter(template.filter());
+            for(Map.Entry<byte[], ? extends Set<byte[]>> familyQuals : template.familyQualifierMap().entrySet()){
+                for(byte[] qualifier : familyQuals.getValue()){
+                    get.addColumn(familyQuals.getKey(),qualifier);
+                }
+            }
+        }else
+            get.returnAllVersions();
+        if(attributes!=null)
+            get.setAllAttributes(attributes.allAttributes());
+
+        List<DataResult> results=new ArrayList<>(rowKeys.size());
+        for(byte[] rowKey : rowKeys){
+            get.setKey(rowKey);
+            DataResult result=get(get,null);
+            //like HBase, return an empty result for rows which don't exist
+            results.add(result==null?new MResult(Collections.<DataCell>emptyList()):result);
+        }
+        return results.iterator();
     }
 
     @Override
@@ -122,13 +200,13 @@ public class MPartition implements Partition{
         DataCell end=new MCell(rowKey,family,SIConstants.SNAPSHOT_ISOLATION_FK_COUNTER_COLUMN_BYTES,0l,new byte[]{},CellType.USER_DATA);
 
         Set<DataCell> data=memstore.subSet(start,true,end,true);
-        List<DataCell> toReturn=new ArrayList<>(data.size());
+        List<DataCell> toReturn=new ArrayList<>();
         DataCell last=null;
         for(DataCell d : data){
             if(last==null){
-                toReturn.add(d);
+                toReturn.add(((MSlabCell)d).materialize());
             }else if(d.dataType()!=last.dataType()){
-                toReturn.add(d);
+                toReturn.add(((MSlabCell)d).materialize());
             }
             last=d;
         }
@@ -149,7 +227,7 @@ public class MPartition implements Partition{
     @Override
     public DataScanner openScanner(DataScan scan,MetricFactory metricFactory) throws IOException{
         NavigableSet<DataCell> dataCells=getAscendingScanSet(scan);
-        Iterator<DataCell> iter = scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator();
+        Iterator<DataCell> iter = materialize(scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator());
 
         long curSeq = sequenceGen.get();
         return new SetScanner(curSeq,iter,scan.lowVersion(),scan.highVersion(),scan.getFilter(),this,metricFactory);
@@ -249,15 +327,12 @@ public class MPartition implements Partition{
         DataCell e=new MCell(key,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_FK_COUNTER_COLUMN_BYTES,0l,new byte[]{},CellType.FOREIGN_KEY_COUNTER);
 
         NavigableSet<DataCell> dataCells=memstore.subSet(s,true,e,true);
-        List<DataCell> results=new ArrayList<>(dataCells.size());
+        List<DataCell> results=new ArrayList<>();
         DataCell lastResult=null;
         for(DataCell dc : dataCells){
-            if(lastResult==null){
-                results.add(dc);
-                lastResult=dc;
-            }else if(!dc.matchesQualifier(lastResult.family(),lastResult.qualifier())){
-                results.add(dc);
-                lastResult=dc;
+            if(lastResult==null || !dc.matchesQualifier(lastResult.family(),lastResult.qualifier())){
+                lastResult=((MSlabCell)dc).materialize();
+                results.add(lastResult);
             }
         }
 //        if(results.size()<=0)
@@ -271,15 +346,12 @@ public class MPartition implements Partition{
         DataCell e=new MCell(key,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_FK_COUNTER_COLUMN_BYTES,0l,new byte[]{},CellType.USER_DATA);
 
         NavigableSet<DataCell> dataCells=memstore.subSet(s,true,e,true);
-        List<DataCell> results=new ArrayList<>(dataCells.size());
+        List<DataCell> results=new ArrayList<>();
         DataCell lastResult=null;
         for(DataCell dc : dataCells){
-            if(lastResult==null){
-                results.add(dc);
-                lastResult=dc;
-            }else if(!dc.matchesQualifier(lastResult.family(),lastResult.qualifier())){
-                results.add(dc);
-                lastResult=dc;
+            if(lastResult==null || !dc.matchesQualifier(lastResult.family(),lastResult.qualifier())){
+                lastResult=((MSlabCell)dc).materialize();
+                results.add(lastResult);
             }
         }
         return new MResult(results);
@@ -287,16 +359,11 @@ public class MPartition implements Partition{
 
     @Override
     public Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException{
-        final ByteBuffer wrap=ByteBuffer.wrap(key,keyOff,keyLen);
-        Lock lock;
-        synchronized(lockMap){
-            lock=lockMap.get(wrap);
-            if(lock==null){
-                lock=new MemLock(wrap);
-                lockMap.put(wrap,lock);
-            }
+        int hash=1;
+        for(int i=keyOff;i<keyOff+keyLen;i++){
+            hash=31*hash+key[i];
         }
-        return lock;
+        return rowLocks.get(hash);
     }
 
     @Override
@@ -406,98 +473,178 @@ public class MPartition implements Partition{
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
-    private class MemLock implements Lock{
-        private ByteBuffer key;
-        private final Lock lock;
-        private int lockCount=0;
-
-        public MemLock(ByteBuffer key){
-            this.key=key;
-            this.lock=new ReentrantLock();
-        }
-
-        @Override
-        public void lock(){
-            lock.lock();
-            lockCount++;
-        }
-
-        @Override
-        public void lockInterruptibly() throws InterruptedException{
-            lock.lockInterruptibly();
-            lockCount++;
-        }
-
-        @Override
-        public boolean tryLock(){
-            if(lock.tryLock()){
-                lockCount++;
-                return true;
-            }else return false;
-        }
-
-        @Override
-        public boolean tryLock(long time,@Nonnull TimeUnit unit) throws InterruptedException{
-            if(lock.tryLock(time,unit)){
-                lockCount++;
-                return true;
-            }else return false;
-        }
-
-        @Override
-        public void unlock(){
-            lockCount--;
-            if(lockCount==0){
-                synchronized(lockMap){
-                    lockMap.remove(key);
-                }
-            }
-            lock.unlock();
-        }
-
-        @Override
-        @Nonnull
-        public Condition newCondition(){
-            return lock.newCondition();
-        }
-    }
-
     private void put(MPut mPut) throws IOException{
         long seq = sequenceGen.incrementAndGet();
         Lock lock=getRowLock(mPut.key(),0,mPut.key().length);
         lock.lock();
         try{
-            Iterable<DataCell> cells=mPut.cells();
-            for(DataCell dc : cells){
-                if(memstore.contains(dc)){
-                    memstore.remove(dc);
+            MDurableLog log=durableLog;
+            if(log==null){
+                applyPut(mPut.cells(),seq);
+            }else{
+                Lock mutationLock=log.mutationLock();
+                mutationLock.lock();
+                try{
+                    log.append(encodeMutation(PUT_RECORD,seq,mPut.cells()));
+                    applyPut(mPut.cells(),seq);
+                }finally{
+                    mutationLock.unlock();
                 }
-                DataCell clone=dc.getClone();
-                ((MCell)clone).sequence(seq);
-                memstore.add(clone);
             }
         }finally{
             lock.unlock();
         }
+        compactSlabs();
+    }
+
+    private void applyPut(Iterable<DataCell> cells,long seq){
+        for(DataCell dc : cells){
+            //remove first: putting alone would keep the existing key, and with it the old value
+            MSlabCell old=this.cells.remove(dc);
+            if(old!=null)
+                allocator.free(old);
+            MSlabCell copy=allocator.copy(dc,seq);
+            this.cells.put(copy,copy);
+        }
     }
 
     private void delete(MDelete mDelete,Lock rowLock) throws IOException{
         //remove elements from the row
         rowLock.lock();
         try{
-            Iterable<DataCell> exactCellsToDelete=mDelete.cells();
-            for(DataCell dc : exactCellsToDelete){
-                memstore.remove(dc);
+            MDurableLog log=durableLog;
+            if(log==null){
+                applyDelete(mDelete.cells());
+            }else{
+                Lock mutationLock=log.mutationLock();
+                mutationLock.lock();
+                try{
+                    log.append(encodeMutation(DELETE_RECORD,0L,mDelete.cells()));
+                    applyDelete(mDelete.cells());
+                }finally{
+                    mutationLock.unlock();
+                }
             }
-            //TODO -sf- make this also remove entire families and columns
         }finally{
             rowLock.unlock();
         }
+        compactSlabs();
+    }
+
+    private void applyDelete(Iterable<DataCell> exactCellsToDelete){
+        for(DataCell dc : exactCellsToDelete){
+            MSlabCell old=cells.remove(dc);
+            if(old!=null)
+                allocator.free(old);
+        }
+        //TODO -sf- make this also remove entire families and columns
+    }
+
+    /*
+     * Move the live cells out of the slabs which are mostly garbage, and release those. Each cell is moved under
+     * its row lock, so it can't be overwritten or deleted meanwhile; readers see the same bytes in either slab.
+     */
+    private void compactSlabs() throws IOException{
+        if(!allocator.needsCompaction() || !compacting.compareAndSet(false,true))
+            return;
+        try{
+            Set<MSlabAllocator.Slab> sparse=allocator.sparseSlabs();
+            if(sparse.isEmpty())
+                return;
+            for(MSlabCell cell : cells.values()){
+                if(!sparse.contains(cell.slab()))
+                    continue;
+                byte[] key=cell.key();
+                Lock lock=getRowLock(key,0,key.length);
+                lock.lock();
+                try{
+                    if(cells.get(cell)==cell)
+                        allocator.move(cell);
+                }finally{
+                    lock.unlock();
+                }
+            }
+            allocator.release(sparse);
+        }finally{
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * @return the allocator of the slabs holding the memstore
+     */
+    MSlabAllocator allocator(){
+        return allocator;
+    }
+
+    /*
+     * Write-ahead log records are [type][sequence][cell count] followed by the cells, each of which is
+     * [key][family][qualifier][value] (as length-prefixed byte arrays), [version][cell type]. Replaying
+     * a record is idempotent, as required by MDurableLog.
+     */
+    private static byte[] encodeMutation(byte type,long seq,Iterable<DataCell> cells){
+        int size=1+8+4;
+        int count=0;
+        for(DataCell dc : cells){
+            size+=4*4+dc.keyLength()+dc.family().length+dc.qualifier().length+dc.valueLength()+8+1;
+            count++;
+        }
+        ByteBuffer record=ByteBuffer.allocate(size);
+        record.put(type).putLong(seq).putInt(count);
+        for(DataCell dc : cells){
+            record.putInt(dc.keyLength()).put(dc.keyArray(),dc.keyOffset(),dc.keyLength());
+            byte[] family=dc.family();
+            record.putInt(family.length).put(family);
+            byte[] qualifier=dc.qualifier();
+            record.putInt(qualifier.length).put(qualifier);
+            record.putInt(dc.valueLength()).put(dc.valueArray(),dc.valueOffset(),dc.valueLength());
+            record.putLong(dc.version()).put((byte)dc.dataType().ordinal());
+        }
+        return record.array();
+    }
+
+    private void replay(ByteBuffer record){
+        byte type=record.get();
+        long seq=record.getLong();
+        int count=record.getInt();
+        List<DataCell> cells=new ArrayList<>(count);
+        for(int i=0;i<count;i++){
+            byte[] key=readBytes(record);
+            byte[] family=readBytes(record);
+            byte[] qualifier=readBytes(record);
+            byte[] value=readBytes(record);
+            long version=record.getLong();
+            CellType cellType=CellType.values()[record.get()];
+            cells.add(new MCell(key,family,qualifier,version,value,cellType));
+        }
+        if(type==PUT_RECORD){
+            applyPut(cells,seq);
+            if(sequenceGen.get()<seq)
+                sequenceGen.set(seq);
+        }else
+            applyDelete(cells);
+    }
+
+    private static byte[] readBytes(ByteBuffer record){
+        byte[] bytes=new byte[record.getInt()];
+        record.get(bytes);
+        return bytes;
+    }
+
+    private static Iterator<DataCell> materialize(Iterator<DataCell> slabCells){
+        return Iterators.transform(slabCells,MATERIALIZE);
+    }
+
+    /*
+     * the smallest cell which sorts after every cell of the row
+     */
+    private static DataCell rowEnd(byte[] key){
+        return new MCell(Arrays.copyOf(key,key.length+1),new byte[]{},new byte[]{},Long.MAX_VALUE,new byte[]{},CellType.USER_DATA);
     }
 
     private NavigableSet<DataCell> getAscendingScanSet(DataScan scan){
         NavigableSet<DataCell> dataCells;
-        if(memstore.size()<=0)
+        if(memstore.isEmpty())
             dataCells = EmptyNavigableSet.instance();
         else{
             byte[] startKey=scan.getStartKey();
@@ -21,6 +21,12 @@ import com.splicemachine.concurrent.Clock;
 import com.splicemachine.primitives.Bytes;
 
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -32,11 +38,44 @@ import java.util.concurrent.ConcurrentHashMap;
  *         Date: 12/23/15
  */
 public class MPartitionFactory implements PartitionFactory<Object>{
-    private final Map<String, Partition> partitionMap=new ConcurrentHashMap<>();
+    /** Sub-directory of the durable directory in which the partitions are kept */
+    public static final String PARTITION_DIRECTORY="partitions";
 
+    private final Map<String, Partition> partitionMap=new ConcurrentHashMap<>();
+    private volatile Path durableDirectory;
+    private long snapshotInterval;
+    private boolean recovered;
+
+    /**
+     * When {@link SConfiguration#getMemDurableDirectory()} is set, recover the partitions kept there and make
+     * all partitions durable. Each partition keeps its write-ahead logs and snapshots in a directory named
+     * after it, under {@link #PARTITION_DIRECTORY}.
+     */
     @Override
     public void initialize(Clock clock,SConfiguration configuration,PartitionInfoCache partitionInfoCache) throws IOException{
-        //no-op
+        String directory=configuration.getMemDurableDirectory();
+        if(directory==null) return;
+        Path root=Paths.get(directory).resolve(PARTITION_DIRECTORY);
+        Files.createDirectories(root);
+        snapshotInterval=configuration.getMemSnapshotInterval();
+        try(DirectoryStream<Path> partitionDirs=Files.newDirectoryStream(root)){
+            for(Path partitionDir : partitionDirs){
+                if(!Files.isDirectory(partitionDir)) continue;
+                String name=URLDecoder.decode(partitionDir.getFileName().toString(),"UTF-8");
+                MPartition p=new MPartition(name,name);
+                p.openDurableLog(partitionDir,snapshotInterval);
+                partitionMap.put(name,p);
+                recovered=true;
+            }
+        }
+        durableDirectory=root;
+    }
+
+    /**
+     * @return true if existing partitions were recovered from disk when this factory was initialized.
+     */
+    public boolean isRecovered(){
+        return recovered;
     }
 
     @Override
@@ -91,9 +130,20 @@ public class MPartitionFactory implements PartitionFactory<Object>{
         @Override
         public Partition create() throws IOException{
             assert name!=null:"No name specified!";
-            final MPartition p=new MPartition(name,name);
-            partitionMap.put(name,p);
-            return p;
+            Path root=durableDirectory;
+            if(root==null){
+                final MPartition p=new MPartition(name,name);
+                partitionMap.put(name,p);
+                return p;
+            }
+            synchronized(partitionMap){
+                Partition existing=partitionMap.get(name);
+                if(existing!=null) return existing; //recovered from disk
+                MPartition p=new MPartition(name,name);
+                p.openDurableLog(root.resolve(URLEncoder.encode(name,"UTF-8")),snapshotInterval);
+                partitionMap.put(name,p);
+                return p;
+            }
         }
     }
 
@@ -105,7 +155,9 @@ public class MPartitionFactory implements PartitionFactory<Object>{
 
         @Override
         public void deleteTable(String tableName) throws IOException{
-            partitionMap.remove(tableName);
+            Partition p=partitionMap.remove(tableName);
+            if(p instanceof MPartition)
+                ((MPartition)p).destroy();
         }
 
         @Override
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies cells into off-heap slabs.
+ *
+ * Slabs are direct buffers which are filled front to back and never written again once full. To keep
+ * concurrent writers from contending on a single bump pointer, allocation is sharded: each thread writes
+ * into the slab of one of several shards. A shard allocates no slab until it is first written to, and its
+ * slabs start small and double in size up to a maximum, so that small partitions take little memory.
+ *
+ * The allocator counts the bytes of the cells which are still live (see {@link #free(MSlabCell)}). Once most of
+ * the bytes written are garbage, the owner of the cells should move the live cells out of the
+ * {@link #sparseSlabs() sparse slabs} and {@link #release(Collection) release} them.
+ */
+@ThreadSafe
+class MSlabAllocator{
+    static final int DEFAULT_MIN_SLAB_SIZE=4*1024;
+    static final int DEFAULT_MAX_SLAB_SIZE=2*1024*1024;
+
+    private final int minSlabSize;
+    private final int maxSlabSize;
+    private final Shard[] shards;
+    private final Set<Slab> slabs=Collections.newSetFromMap(new ConcurrentHashMap<Slab, Boolean>());
+    private final AtomicLong usedBytes=new AtomicLong(0L);
+    private final AtomicLong liveBytes=new AtomicLong(0L);
+    /*the amount of garbage at which to compact next*/
+    private volatile long compactionThreshold;
+
+    MSlabAllocator(){
+        this(DEFAULT_MIN_SLAB_SIZE,DEFAULT_MAX_SLAB_SIZE,Runtime.getRuntime().availableProcessors());
+    }
+
+    MSlabAllocator(int minSlabSize,int maxSlabSize,int numShards){
+        assert minSlabSize>0 && minSlabSize<=maxSlabSize:"Invalid slab sizes";
+        this.minSlabSize=minSlabSize;
+        this.maxSlabSize=maxSlabSize;
+        this.compactionThreshold=maxSlabSize;
+        this.shards=new Shard[Math.max(1,numShards)];
+        for(int i=0;i<shards.length;i++){
+            shards[i]=new Shard();
+        }
+    }
+
+    /**
+     * Copy {@code cell} into a slab.
+     *
+     * @return the off-heap copy, stamped with {@code sequence}.
+     */
+    MSlabCell copy(DataCell cell,long sequence){
+        byte[] family=cell.family();
+        byte[] qualifier=cell.qualifier();
+        int size=MSlabCell.encodedSize(cell.keyLength(),family.length,qualifier.length,cell.valueLength());
+        MSlabCell.Location location=allocate(size);
+        MSlabCell.write(location.writer(),cell,family,qualifier);
+        return new MSlabCell(location,sequence);
+    }
+
+    /**
+     * Copy {@code cell} into the current slab of this thread's shard, and point it there. The caller must make
+     * sure that the cell isn't freed concurrently.
+     */
+    void move(MSlabCell cell){
+        int size=cell.size();
+        MSlabCell.Location location=allocate(size);
+        MSlabCell.Location old=cell.moveTo(location);
+        old.slab.liveBytes.addAndGet(-size);
+        liveBytes.addAndGet(-size);
+    }
+
+    /**
+     * Mark the bytes of {@code cell} as garbage, once it is no longer part of the memstore.
+     */
+    void free(MSlabCell cell){
+        int size=cell.size();
+        cell.slab().liveBytes.addAndGet(-size);
+        liveBytes.addAndGet(-size);
+    }
+
+    /**
+     * @return true if enough of the bytes written are garbage that the sparse slabs should be compacted
+     */
+    boolean needsCompaction(){
+        long used=usedBytes.get();
+        long garbage=used-liveBytes.get();
+        return garbage>=compactionThreshold && 2*garbage>used;
+    }
+
+    /**
+     * @return the slabs which are no longer written to, and of which less than half the bytes are live
+     */
+    Set<Slab> sparseSlabs(){
+        Set<Slab> current=new HashSet<>(shards.length);
+        for(Shard shard : shards){
+            synchronized(shard){
+                if(shard.current!=null)
+                    current.add(shard.current);
+            }
+        }
+        Set<Slab> sparse=new HashSet<>();
+        for(Slab slab : slabs){
+            if(!current.contains(slab) && 2L*slab.liveBytes.get()<slab.used)
+                sparse.add(slab);
+        }
+        return sparse;
+    }
+
+    /**
+     * Forget about those of {@code toRelease} which no live cell is left in. Their memory is freed once the last
+     * reader which still holds one of their cells drops it.
+     */
+    void release(Collection<Slab> toRelease){
+        for(Slab slab : toRelease){
+            //a cell copied just before its slab filled up may not be in the memstore yet, so it wasn't moved
+            if(slab.liveBytes.get()==0 && slabs.remove(slab))
+                usedBytes.addAndGet(-slab.used);
+        }
+        compactionThreshold=usedBytes.get()-liveBytes.get()+maxSlabSize;
+    }
+
+    /**
+     * @return the number of bytes written into the slabs which haven't been released
+     */
+    long getUsedBytes(){
+        return usedBytes.get();
+    }
+
+    /**
+     * @return the number of bytes of the cells which are still live
+     */
+    long getLiveBytes(){
+        return liveBytes.get();
+    }
+
+    /**
+     * @return the total size of the slabs which haven't been released
+     */
+    long getCapacity(){
+        long capacity=0L;
+        for(Slab slab : slabs){
+            capacity+=slab.buffer.capacity();
+        }
+        return capacity;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private MSlabCell.Location allocate(int size){
+        Slab slab;
+        int offset;
+        if(size>maxSlabSize/4){
+            //large cells get a slab of their own, rather than wasting the rest of the current one
+            slab=newSlab(size);
+            offset=0;
+            slab.used=size;
+        }else{
+            Shard shard=shards[(int)(Thread.currentThread().getId()%shards.length)];
+            synchronized(shard){
+                slab=shard.slabFor(size);
+                offset=slab.used;
+                slab.used=offset+size;
+            }
+        }
+        slab.liveBytes.addAndGet(size);
+        usedBytes.addAndGet(size);
+        liveBytes.addAndGet(size);
+        return new MSlabCell.Location(slab,offset);
+    }
+
+    private Slab newSlab(int capacity){
+        Slab slab=new Slab(ByteBuffer.allocateDirect(capacity));
+        slabs.add(slab);
+        return slab;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    /**
+     * A direct buffer that cells are written into.
+     */
+    static final class Slab{
+        final ByteBuffer buffer;
+        /*the number of bytes of the cells which are still live*/
+        private final AtomicLong liveBytes=new AtomicLong(0L);
+        /*the number of bytes written so far; only changed while the slab is current, or before it's shared*/
+        private volatile int used;
+
+        private Slab(ByteBuffer buffer){
+            this.buffer=buffer;
+        }
+    }
+
+    private class Shard{
+        /*the slab that cells are written into*/
+        private Slab current;
+        private int nextSlabSize=minSlabSize;
+
+        Slab slabFor(int size){
+            if(current==null || current.buffer.capacity()-current.used<size){
+                int capacity=nextSlabSize;
+                while(capacity<size)
+                    capacity*=2;
+                current=newSlab(capacity);
+                nextSlabSize=Math.min(maxSlabSize,capacity*2);
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * A cell whose bytes live in an off-heap slab (see {@link MSlabAllocator}). This is what the memstore of an
+ * {@link MPartition} holds: the object itself is only a pointer into the slab, so the per-cell heap overhead is a
+ * fraction of that of an {@link MCell}.
+ *
+ * The slab layout of a cell is {@code [key length][family length][qualifier length][value length][version]
+ * [cell type][key][family][qualifier][value]}.
+ *
+ * A cell may be moved to another slab when its slab is compacted. Its bytes are the same in both places, so every
+ * accessor reads the location once and works on that copy.
+ *
+ * The accessors which return arrays copy them out of the slab on every call. Cells which are handed out of the
+ * memstore should therefore be {@link #materialize() materialized} first.
+ */
+final class MSlabCell implements DataCell{
+    private static final int KEY_LENGTH=0;
+    private static final int FAMILY_LENGTH=4;
+    private static final int QUALIFIER_LENGTH=8;
+    private static final int VALUE_LENGTH=12;
+    private static final int VERSION=16;
+    private static final int CELL_TYPE=24;
+    private static final int HEADER_SIZE=25;
+    private static final CellType[] CELL_TYPES=CellType.values();
+
+    /**
+     * Orders cells the same way as {@link MCell#compareTo(DataCell)}, but compares slab cells in place.
+     */
+    static final Comparator<DataCell> COMPARATOR=new Comparator<DataCell>(){
+        @Override
+        public int compare(DataCell o1,DataCell o2){
+            if(o1 instanceof MSlabCell)
+                return ((MSlabCell)o1).compareTo(o2);
+            else if(o2 instanceof MSlabCell)
+                return -((MSlabCell)o2).compareTo(o1);
+            else
+                return o1.compareTo(o2);
+        }
+    };
+
+    private volatile Location location;
+    private final long sequence;
+
+    MSlabCell(Location location,long sequence){
+        this.location=location;
+        this.sequence=sequence;
+    }
+
+    static int encodedSize(int keyLength,int familyLength,int qualifierLength,int valueLength){
+        return HEADER_SIZE+keyLength+familyLength+qualifierLength+valueLength;
+    }
+
+    /**
+     * Write {@code cell} at the position of {@code writer}, and advance it.
+     */
+    static void write(ByteBuffer writer,DataCell cell,byte[] family,byte[] qualifier){
+        writer.putInt(cell.keyLength())
+                .putInt(family.length)
+                .putInt(qualifier.length)
+                .putInt(cell.valueLength())
+                .putLong(cell.version())
+                .put((byte)cell.dataType().ordinal());
+        writer.put(cell.keyArray(),cell.keyOffset(),cell.keyLength());
+        writer.put(family);
+        writer.put(qualifier);
+        writer.put(cell.valueArray(),cell.valueOffset(),cell.valueLength());
+    }
+
+    long getSequence(){
+        return sequence;
+    }
+
+    MSlabAllocator.Slab slab(){
+        return location.slab;
+    }
+
+    /**
+     * @return the number of bytes this cell takes in its slab
+     */
+    int size(){
+        Location l=location;
+        return encodedSize(l.keyLength(),l.familyLength(),l.qualifierLength(),l.valueLength());
+    }
+
+    /**
+     * Copy this cell's bytes to {@code newLocation}, and read them from there from now on.
+     *
+     * @return the previous location
+     */
+    Location moveTo(Location newLocation){
+        Location old=location;
+        ByteBuffer reader=old.slab.buffer.duplicate();
+        reader.position(old.offset);
+        reader.limit(old.offset+size());
+        newLocation.writer().put(reader);
+        location=newLocation;
+        return old;
+    }
+
+    /**
+     * @return an on-heap copy of this cell, carrying the same sequence number.
+     */
+    MCell materialize(){
+        Location l=location;
+        MCell cell=new MCell(l.key(),l.family(),l.qualifier(),l.version(),l.value(),l.dataType());
+        cell.sequence(sequence);
+        return cell;
+    }
+
+    @Override
+    public byte[] valueArray(){
+        return value();
+    }
+
+    @Override
+    public int valueOffset(){
+        return 0;
+    }
+
+    @Override
+    public int valueLength(){
+        return location.valueLength();
+    }
+
+    @Override
+    public byte[] keyArray(){
+        return key();
+    }
+
+    @Override
+    public int keyOffset(){
+        return 0;
+    }
+
+    @Override
+    public int keyLength(){
+        return location.keyLength();
+    }
+
+    @Override
+    public CellType dataType(){
+        return location.dataType();
+    }
+
+    @Override
+    public DataCell getClone(){
+        return materialize();
+    }
+
+    @Override
+    public boolean matchesFamily(byte[] family){
+        Location l=location;
+        return l.compare(l.familyStart(),l.familyLength(),family,0,family.length)==0;
+    }
+
+    @Override
+    public boolean matchesQualifier(byte[] family,byte[] dataQualifierBytes){
+        Location l=location;
+        return l.compare(l.familyStart(),l.familyLength(),family,0,family.length)==0
+                && l.compare(l.qualifierStart(),l.qualifierLength(),dataQualifierBytes,0,dataQualifierBytes.length)==0;
+    }
+
+    @Override
+    public long version(){
+        return location.version();
+    }
+
+    @Override
+    public long valueAsLong(){
+        return Bytes.bytesToLong(value(),0);
+    }
+
+    @Override
+    public DataCell copyValue(byte[] newValue,CellType newCellType){
+        Location l=location;
+        return new MCell(l.key(),l.family(),l.qualifier(),l.version(),newValue,newCellType);
+    }
+
+    @Override
+    public int encodedLength(){
+        Location l=location;
+        return l.keyLength()+l.familyLength()+l.qualifierLength()+l.valueLength();
+    }
+
+    @Override
+    public byte[] value(){
+        return location.value();
+    }
+
+    @Override
+    public byte[] family(){
+        return location.family();
+    }
+
+    @Override
+    public byte[] qualifier(){
+        return location.qualifier();
+    }
+
+    @Override
+    public byte[] key(){
+        return location.key();
+    }
+
+    @Override
+    public byte[] qualifierArray(){
+        return qualifier();
+    }
+
+    @Override
+    public int qualifierOffset(){
+        return 0;
+    }
+
+    @Override
+    public long familyLength(){
+        return location.familyLength();
+    }
+
+    @Override
+    public int compareTo(DataCell o){
+        if(o==this) return 0;
+        Location l=location;
+        int compare;
+        if(o instanceof MSlabCell){
+            Location other=((MSlabCell)o).location;
+            compare=l.compare(l.keyStart(),l.keyLength(),other,other.keyStart(),other.keyLength());
+            if(compare!=0) return compare;
+            compare=l.compare(l.familyStart(),l.familyLength(),other,other.familyStart(),other.familyLength());
+            if(compare!=0) return compare;
+            compare=l.compare(l.qualifierStart(),l.qualifierLength(),other,other.qualifierStart(),other.qualifierLength());
+        }else{
+            compare=l.compare(l.keyStart(),l.keyLength(),o.keyArray(),o.keyOffset(),o.keyLength());
+            if(compare!=0) return compare;
+            byte[] family=o.family();
+            compare=l.compare(l.familyStart(),l.familyLength(),family,0,family.length);
+            if(compare!=0) return compare;
+            byte[] qualifier=o.qualifier();
+            compare=l.compare(l.qualifierStart(),l.qualifierLength(),qualifier,0,qualifier.length);
+        }
+        if(compare!=0) return compare;
+        long version=l.version();
+        long otherVersion=o.version();
+        return version<otherVersion?1:version==otherVersion?0:-1;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(o==this) return true;
+        if(!(o instanceof DataCell)) return false;
+        return compareTo((DataCell)o)==0;
+    }
+
+    @Override
+    public int hashCode(){
+        return materialize().hashCode();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    /**
+     * Where the bytes of a cell are.
+     */
+    static final class Location{
+        final MSlabAllocator.Slab slab;
+        final int offset;
+
+        Location(MSlabAllocator.Slab slab,int offset){
+            this.slab=slab;
+            this.offset=offset;
+        }
+
+        /**
+         * @return a view of the slab, positioned at this location
+         */
+        ByteBuffer writer(){
+            ByteBuffer writer=slab.buffer.duplicate();
+            writer.position(offset);
+            return writer;
+        }
+
+        int keyLength(){
+            return slab.buffer.getInt(offset+KEY_LENGTH);
+        }
+
+        int familyLength(){
+            return slab.buffer.getInt(offset+FAMILY_LENGTH);
+        }
+
+        int qualifierLength(){
+            return slab.buffer.getInt(offset+QUALIFIER_LENGTH);
+        }
+
+        int valueLength(){
+            return slab.buffer.getInt(offset+VALUE_LENGTH);
+        }
+
+        long version(){
+            return slab.buffer.getLong(offset+VERSION);
+        }
+
+        CellType dataType(){
+            return CELL_TYPES[slab.buffer.get(offset+CELL_TYPE)];
+        }
+
+        int keyStart(){
+            return offset+HEADER_SIZE;
+        }
+
+        int familyStart(){
+            return keyStart()+keyLength();
+        }
+
+        int qualifierStart(){
+            return familyStart()+familyLength();
+        }
+
+        int valueStart(){
+            return qualifierStart()+qualifierLength();
+        }
+
+        byte[] key(){
+            return copy(keyStart(),keyLength());
+        }
+
+        byte[] family(){
+            return copy(familyStart(),familyLength());
+        }
+
+        byte[] qualifier(){
+            return copy(qualifierStart(),qualifierLength());
+        }
+
+        byte[] value(){
+            return copy(valueStart(),valueLength());
+        }
+
+        private byte[] copy(int position,int length){
+            byte[] data=new byte[length];
+            ByteBuffer reader=slab.buffer.duplicate();
+            reader.position(position);
+            reader.get(data);
+            return data;
+        }
+
+        int compare(int position,int length,byte[] other,int otherOffset,int otherLength){
+            ByteBuffer buffer=slab.buffer;
+            int min=Math.min(length,otherLength);
+            for(int i=0;i<min;i++){
+                int c=(buffer.get(position+i)&0xff)-(other[otherOffset+i]&0xff);
+                if(c!=0) return c;
+            }
+            return length-otherLength;
+        }
+
+        int compare(int position,int length,Location other,int otherPosition,int otherLength){
+            ByteBuffer buffer=slab.buffer;
+            ByteBuffer otherBuffer=other.slab.buffer;
+            int min=Math.min(length,otherLength);
+            for(int i=0;i<min;i++){
+                int c=(buffer.get(position+i)&0xff)-(otherBuffer.get(otherPosition+i)&0xff);
+                if(c!=0) return c;
+            }
+            return length-otherLength;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of records, made durable with group commit.
+ *
+ * Appending threads copy their record into a shared buffer. The first of them to find no sync in progress
+ * becomes the leader: it writes out everything buffered so far and forces it to disk with a single
+ * {@code fsync}, while the others wait for a sync which covers their record. Under concurrency many
+ * records therefore share a single {@code fsync}.
+ *
+ * Each record is framed as {@code [length][crc32][payload]}, so that a record torn by a crash can be
+ * recognized (and everything after it ignored) when the log is read back.
+ */
+@ThreadSafe
+public class MWriteAheadLog implements Closeable{
+    private static final int HEADER_SIZE=2*Integer.SIZE/Byte.SIZE;
+    private static final int INITIAL_BUFFER_SIZE=64*1024;
+    private static final int FLUSH_SIZE=1024*1024;
+
+    public interface RecordHandler{
+        void handle(ByteBuffer record) throws IOException;
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Lock lock=new ReentrantLock();
+    private final Condition synced=lock.newCondition();
+    private final CRC32 crc=new CRC32();
+
+    private ByteBuffer pending=ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer flushing=ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appendedCount;
+    private long syncedCount;
+    private long size;
+    private boolean syncing;
+    private boolean closed;
+    private IOException failure;
+
+    public MWriteAheadLog(Path path) throws IOException{
+        this.path=path;
+        this.channel=FileChannel.open(path,StandardOpenOption.CREATE,StandardOpenOption.WRITE,StandardOpenOption.APPEND);
+        this.size=channel.size();
+    }
+
+    public Path getPath(){
+        return path;
+    }
+
+    /**
+     * @return the number of bytes appended to this log, whether or not they have been synced yet.
+     */
+    public long size(){
+        lock.lock();
+        try{
+            return size+pending.position();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a record to the log, and wait until it has been synced to disk.
+     *
+     * @param record the payload to log
+     * @throws IOException if the log could not be written, or has already failed. Once a write has failed,
+     * the log refuses all further appends.
+     */
+    public void append(byte[] record) throws IOException{
+        lock.lock();
+        try{
+            checkUsable();
+            frame(record);
+            awaitSync(++appendedCount);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a record to the log without waiting for it to be synced. This is meant for bulk writes (such as
+     * snapshots), which call {@link #sync()} once they are done.
+     */
+    public void write(byte[] record) throws IOException{
+        lock.lock();
+        try{
+            checkUsable();
+            frame(record);
+            appendedCount++;
+            if(!syncing && pending.position()>=FLUSH_SIZE)
+                flush(false);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until everything appended to the log so far has been synced to disk.
+     */
+    public void sync() throws IOException{
+        lock.lock();
+        try{
+            awaitSync(appendedCount);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        lock.lock();
+        try{
+            while(syncing)
+                synced.awaitUninterruptibly();
+            if(closed) return;
+            closed=true;
+            synced.signalAll();
+        }finally{
+            lock.unlock();
+        }
+        channel.close();
+    }
+
+    /**
+     * Read back all the records in a log (or snapshot) file, in the order they were written. The file is
+     * memory mapped rather than read through the heap.
+     *
+     * Reading stops at the first record which is incomplete or fails its checksum, as that is what a
+     * write interrupted by a crash leaves behind.
+     *
+     * @return the number of records read.
+     */
+    public static long read(Path path,RecordHandler handler) throws IOException{
+        try(FileChannel fc=FileChannel.open(path,StandardOpenOption.READ)){
+            long fileSize=fc.size();
+            if(fileSize==0) return 0;
+            MappedByteBuffer buffer=fc.map(FileChannel.MapMode.READ_ONLY,0,fileSize);
+            CRC32 checksum=new CRC32();
+            long count=0;
+            while(buffer.remaining()>=HEADER_SIZE){
+                int length=buffer.getInt();
+                int expectedCrc=buffer.getInt();
+                if(length<0 || length>buffer.remaining()) break;
+                ByteBuffer record=buffer.slice();
+                record.limit(length);
+                checksum.reset();
+                checksum.update(record.duplicate());
+                if((int)checksum.getValue()!=expectedCrc) break;
+                handler.handle(record);
+                buffer.position(buffer.position()+length);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void awaitSync(long count) throws IOException{
+        while(syncedCount<count){
+            checkUsable();
+            if(syncing)
+                synced.awaitUninterruptibly();
+            else
+                flush(true);
+        }
+    }
+
+    private void checkUsable() throws IOException{
+        if(failure!=null) throw new IOException("Write-ahead log "+path+" failed earlier",failure);
+        if(closed) throw new IOException("Write-ahead log "+path+" is closed");
+    }
+
+    private void frame(byte[] record){
+        int required=HEADER_SIZE+record.length;
+        if(pending.remaining()<required){
+            ByteBuffer grown=ByteBuffer.allocate(Math.max(pending.capacity()*2,pending.position()+required));
+            pending.flip();
+            grown.put(pending);
+            pending=grown;
+        }
+        crc.reset();
+        crc.update(record,0,record.length);
+        pending.putInt(record.length);
+        pending.putInt((int)crc.getValue());
+        pending.put(record);
+    }
+
+    /*
+     * Called with the lock held, by the leader of a group commit when forcing. The lock is released while
+     * writing, so that other threads can keep filling the (swapped) pending buffer for the next sync.
+     */
+    private void flush(boolean force) throws IOException{
+        syncing=true;
+        ByteBuffer toWrite=pending;
+        pending=flushing;
+        long upTo=appendedCount;
+        lock.unlock();
+        IOException error=null;
+        try{
+            toWrite.flip();
+            while(toWrite.hasRemaining())
+                channel.write(toWrite);
+            if(force)
+                channel.force(false);
+        }catch(IOException e){
+            error=e;
+        }finally{
+            lock.lock();
+        }
+        size+=toWrite.limit();
+        toWrite.clear();
+        flushing=toWrite;
+        syncing=false;
+        if(error!=null)
+            failure=error;
+        else if(force)
+            syncedCount=upTo;
+        synced.signalAll();
+        if(error!=null) throw error;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.si.impl;
+
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.splicemachine.concurrent.SystemClock;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.utils.ByteSlice;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spark_project.guava.primitives.Longs;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+public class MemTxnStoreRecoveryTest{
+    private static final byte[] TABLE=new byte[]{1,2,3};
+
+    @Rule public TemporaryFolder tempFolder=new TemporaryFolder();
+
+    @Test
+    public void transactionStatesSurviveACrash() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        Store store=new Store(dir);
+        Txn committed=store.lifecycleManager.beginTransaction(TABLE);
+        committed.commit();
+        Txn rolledBack=store.lifecycleManager.beginTransaction(TABLE);
+        rolledBack.rollback();
+        Txn active=store.lifecycleManager.beginTransaction(TABLE);
+        Txn parent=store.lifecycleManager.beginTransaction(TABLE);
+        Txn child=store.lifecycleManager.beginChildTransaction(parent,TABLE);
+        child.commit();
+        parent.commit();
+
+        //crash, and start over
+        Store recovered=new Store(dir);
+        assertCommitted(committed,recovered.store.getTransaction(committed.getTxnId()));
+        Assert.assertEquals(Txn.State.ROLLEDBACK,recovered.store.getTransaction(rolledBack.getTxnId()).getState());
+        Assert.assertEquals("Active transactions are rolled back on recovery",
+                Txn.State.ROLLEDBACK,recovered.store.getTransaction(active.getTxnId()).getState());
+        assertCommitted(parent,recovered.store.getTransaction(parent.getTxnId()));
+        Txn recoveredChild=recovered.store.getTransaction(child.getTxnId());
+        assertCommitted(child,recoveredChild);
+        Assert.assertEquals(parent.getTxnId(),recoveredChild.getParentTxnView().getTxnId());
+        Assert.assertEquals(Txn.State.COMMITTED,recoveredChild.getEffectiveState());
+
+        Iterator<ByteSlice> tables=recovered.store.getTransaction(active.getTxnId()).getDestinationTables();
+        Assert.assertArrayEquals(TABLE,tables.next().getByteCopy());
+
+        Assert.assertTrue(recovered.maxTimestamp>=parent.getCommitTimestamp());
+        Txn next=recovered.lifecycleManager.beginTransaction(TABLE);
+        Assert.assertTrue("Timestamps went backwards after recovery",next.getBeginTimestamp()>parent.getCommitTimestamp());
+    }
+
+    @Test
+    public void tornCommitIsRolledBack() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        Store store=new Store(dir);
+        Txn first=store.lifecycleManager.beginTransaction(TABLE);
+        first.commit();
+        Txn second=store.lifecycleManager.beginTransaction(TABLE);
+        second.commit();
+        //the commit record of the second transaction was torn by the crash
+        Path wal=dir.resolve("wal.1");
+        try(FileChannel channel=FileChannel.open(wal,StandardOpenOption.WRITE)){
+            channel.truncate(Files.size(wal)-5);
+        }
+
+        Store recovered=new Store(dir);
+        assertCommitted(first,recovered.store.getTransaction(first.getTxnId()));
+        Assert.assertEquals(Txn.State.ROLLEDBACK,recovered.store.getTransaction(second.getTxnId()).getState());
+    }
+
+    @Test
+    public void transactionsAreRecoveredFromTheSnapshotAndAnOverlappingLog() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        Store store=new Store(dir);
+        Txn committed=store.lifecycleManager.beginTransaction(TABLE);
+        committed.commit();
+        Txn rolledBack=store.lifecycleManager.beginTransaction(TABLE);
+        rolledBack.rollback();
+        Txn commitsAfterSnapshot=store.lifecycleManager.beginTransaction(TABLE);
+        Txn withRolledbackSubtxns=store.lifecycleManager.beginTransaction(TABLE);
+        LongOpenHashSet subtransactions=new LongOpenHashSet();
+        subtransactions.add(withRolledbackSubtxns.getTxnId()+1);
+        store.store.rollbackSubtransactions(withRolledbackSubtxns.getTxnId(),subtransactions);
+        withRolledbackSubtxns.commit();
+        Txn active=store.lifecycleManager.beginTransaction(TABLE);
+
+        byte[] loggedBeforeSnapshot=Files.readAllBytes(dir.resolve("wal.1"));
+        store.store.snapshot();
+        Assert.assertFalse(Files.exists(dir.resolve("wal.1")));
+        commitsAfterSnapshot.commit();
+        Txn afterSnapshot=store.lifecycleManager.beginTransaction(TABLE);
+        afterSnapshot.rollback();
+
+        /*
+         * Every record of the older log is already reflected in the snapshot: replaying them again ahead of the
+         * newer log must not change the recovered state.
+         */
+        Path wal=dir.resolve("wal.2");
+        byte[] loggedAfterSnapshot=Files.readAllBytes(wal);
+        Files.write(wal,loggedBeforeSnapshot);
+        Files.write(wal,loggedAfterSnapshot,StandardOpenOption.APPEND);
+
+        Store recovered=new Store(dir);
+        assertCommitted(committed,recovered.store.getTransaction(committed.getTxnId()));
+        Assert.assertEquals(Txn.State.ROLLEDBACK,recovered.store.getTransaction(rolledBack.getTxnId()).getState());
+        assertCommitted(commitsAfterSnapshot,recovered.store.getTransaction(commitsAfterSnapshot.getTxnId()));
+        Txn recoveredSubtxns=recovered.store.getTransaction(withRolledbackSubtxns.getTxnId());
+        assertCommitted(withRolledbackSubtxns,recoveredSubtxns);
+        Assert.assertArrayEquals(subtransactions.toArray(),recoveredSubtxns.getRolledback().toArray());
+        Assert.assertEquals(Txn.State.ROLLEDBACK,recovered.store.getTransaction(active.getTxnId()).getState());
+        Assert.assertEquals(Txn.State.ROLLEDBACK,recovered.store.getTransaction(afterSnapshot.getTxnId()).getState());
+        Assert.assertTrue(recovered.maxTimestamp>=Longs.max(commitsAfterSnapshot.getCommitTimestamp(),afterSnapshot.getTxnId()));
+
+        //and once more, from a snapshot of the recovered store alone
+        recovered.lifecycleManager.beginTransaction(TABLE).commit();
+        recovered.store.snapshot();
+        Assert.assertTrue(Files.exists(dir.resolve("snapshot.4")));
+        Assert.assertFalse(Files.exists(dir.resolve("wal.2")));
+        Store again=new Store(dir);
+        Txn fromSnapshot=again.store.getTransaction(withRolledbackSubtxns.getTxnId());
+        assertCommitted(withRolledbackSubtxns,fromSnapshot);
+        Assert.assertArrayEquals(subtransactions.toArray(),fromSnapshot.getRolledback().toArray());
+        assertCommitted(commitsAfterSnapshot,again.store.getTransaction(commitsAfterSnapshot.getTxnId()));
+        Assert.assertEquals(Txn.State.ROLLEDBACK,again.store.getTransaction(active.getTxnId()).getState());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static void assertCommitted(Txn expected,Txn actual){
+        Assert.assertEquals(Txn.State.COMMITTED,actual.getState());
+        Assert.assertEquals(expected.getBeginTimestamp(),actual.getBeginTimestamp());
+        Assert.assertEquals(expected.getCommitTimestamp(),actual.getCommitTimestamp());
+    }
+
+    /**
+     * A durable transaction store, wired the way the in-memory SI environment wires it.
+     */
+    private static class Store{
+        final MemTimestampSource timestampSource=new MemTimestampSource();
+        final MemTxnStore store;
+        final ClientTxnLifecycleManager lifecycleManager;
+        final long maxTimestamp;
+
+        Store(Path dir) throws IOException{
+            store=new MemTxnStore(SystemClock.INSTANCE,timestampSource,MExceptionFactory.INSTANCE,Long.MAX_VALUE);
+            maxTimestamp=store.openDurableLog(dir,0L);
+            timestampSource.advance(maxTimestamp);
+            lifecycleManager=new ClientTxnLifecycleManager(timestampSource,MExceptionFactory.INSTANCE);
+            lifecycleManager.setTxnStore(store);
+            lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(store));
+            store.setLifecycleManager(lifecycleManager);
+        }
+    }
+}
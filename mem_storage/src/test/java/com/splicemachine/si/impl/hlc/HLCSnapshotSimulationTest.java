@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.hlc;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.MOperationFactory;
+import com.splicemachine.si.impl.ManualKeepAliveScheduler;
+import com.splicemachine.si.impl.MemTimestampSource;
+import com.splicemachine.si.impl.MemTxnStore;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a cluster of servers whose wall clocks disagree, each beginning transactions from its own hybrid
+ * logical clock, and sharing a transaction table on a server of its own. RPCs are simulated by handing the
+ * sender's clock to the receiver, the way the pipeline, transaction table and olap messages piggyback it, and
+ * transactions travel between servers encoded, the way scans and operation contexts carry them.
+ */
+public class HLCSnapshotSimulationTest {
+    private static final byte[] TABLE = new byte[]{1};
+    private static final long[] SKEWS = new long[]{-2000, 0, 300, 2000};
+
+    private long now;
+    private Node txnServer;
+    private MemTxnStore txnStore;
+    private List<Node> nodes;
+
+    @Before
+    public void setUp() {
+        now = System.currentTimeMillis();
+        txnServer = new Node(SKEWS.length, 0);
+        txnStore = new MemTxnStore(txnServer.clock, txnServer.timestampSource, MExceptionFactory.INSTANCE, Long.MAX_VALUE);
+        nodes = new ArrayList<>();
+        for (int i = 0; i < SKEWS.length; i++)
+            nodes.add(new Node(i, SKEWS[i]));
+    }
+
+    @Test
+    public void beginTimestampsAreUniqueAndIncreasing() throws IOException {
+        Random random = new Random(0);
+        Set<Long> seen = new HashSet<>();
+        Map<Node, Long> last = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            long begin = node.lifecycleManager.beginTransaction().getBeginTimestamp();
+            Assert.assertTrue("Duplicate begin timestamp " + begin, seen.add(begin));
+            Assert.assertEquals("Sub-transaction byte is not free", 0, begin & SIConstants.SUBTRANSANCTION_ID_MASK);
+            Long previous = last.put(node, begin);
+            Assert.assertTrue("Went backwards", previous == null || previous < begin);
+            if (random.nextInt(100) == 0)
+                now++;
+        }
+    }
+
+    @Test
+    public void commitIsVisibleToTransactionsBegunAfterItIsReceived() throws IOException {
+        Node fast = nodes.get(3);
+        Node slow = nodes.get(0);
+        Txn writer = fast.lifecycleManager.beginTransaction(TABLE);
+        long commitTs = commit(fast, writer);
+
+        // the writer's node tells the slow node about its write, e.g. by forwarding it through the pipeline
+        send(fast, slow);
+        Txn reader = slow.lifecycleManager.beginTransaction();
+
+        Assert.assertTrue("Reader began before the commit", commitTs < reader.getBeginTimestamp());
+        Assert.assertTrue("Reader can't see a commit which causally precedes it", reader.canSee(lookup(slow, reader, writer)));
+    }
+
+    @Test
+    public void writerSeenActiveCommitsAfterTheReader() throws IOException {
+        Node fast = nodes.get(3);
+        Node slow = nodes.get(0);
+        Txn reader = fast.lifecycleManager.beginTransaction();
+        Txn writer = slow.lifecycleManager.beginTransaction(TABLE);
+
+        TxnView seen = lookup(fast, reader, writer);
+        Assert.assertEquals(Txn.State.ACTIVE, seen.getState());
+        Assert.assertFalse(reader.canSee(seen));
+
+        long commitTs = commit(slow, writer);
+        Assert.assertTrue("Committed before a reader which saw it active", commitTs > reader.getBeginTimestamp());
+        Assert.assertFalse("Reader's snapshot changed", reader.canSee(lookup(fast, reader, writer)));
+    }
+
+    @Test
+    public void writerSeenActiveByAnotherServerCommitsAfterTheReader() throws IOException {
+        Node fast = nodes.get(3);
+        Node slow = nodes.get(0);
+        Node regionServer = nodes.get(1);
+        Txn reader = fast.lifecycleManager.beginTransaction();
+        Txn writer = slow.lifecycleManager.beginTransaction(TABLE);
+
+        // the reader's scan reaches a region server whose clock is behind the reader's, which resolves the write
+        TxnView seen = lookup(regionServer, reader, writer);
+        Assert.assertEquals(Txn.State.ACTIVE, seen.getState());
+        Assert.assertFalse(reader.canSee(seen));
+
+        long commitTs = commit(slow, writer);
+        Assert.assertTrue("Committed before a reader which saw it active", commitTs > reader.getBeginTimestamp());
+        Assert.assertFalse("Reader's snapshot changed", reader.canSee(lookup(regionServer, reader, writer)));
+    }
+
+    @Test
+    public void childBegunOnAnotherServerBeginsAfterItsParent() throws IOException {
+        Node fast = nodes.get(3);
+        Node executor = nodes.get(0);
+        Txn parent = fast.lifecycleManager.beginTransaction(TABLE);
+
+        TxnView received = deliver(executor, parent);
+        Txn child = executor.lifecycleManager.beginChildTransaction(received, TABLE);
+
+        Assert.assertTrue("Child began before its parent", child.getBeginTimestamp() > parent.getBeginTimestamp());
+    }
+
+    @Test
+    public void snapshotsAreStableUnderRandomInterleavings() throws IOException {
+        Random random = new Random(17);
+        List<Txn> activeWriters = new ArrayList<>();
+        List<Txn> writers = new ArrayList<>();
+        List<Reader> readers = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                    Txn writer = node.lifecycleManager.beginTransaction(TABLE);
+                    node.writers.put(writer.getTxnId(), writer);
+                    activeWriters.add(writer);
+                    writers.add(writer);
+                    break;
+                case 1:
+                    readers.add(new Reader(node, node.lifecycleManager.beginTransaction(), new HashSet<>(node.knownCommits)));
+                    break;
+                case 2:
+                    if (activeWriters.isEmpty()) break;
+                    Txn committing = activeWriters.remove(random.nextInt(activeWriters.size()));
+                    commit(ownerOf(committing), committing);
+                    break;
+                case 3:
+                    if (readers.isEmpty() || writers.isEmpty()) break;
+                    Reader reader = readers.get(random.nextInt(readers.size()));
+                    Txn other = writers.get(random.nextInt(writers.size()));
+                    Node server = nodes.get(random.nextInt(nodes.size()));
+                    boolean visible = reader.txn.canSee(lookup(server, reader.txn, other));
+                    Boolean before = reader.visibility.put(other.getTxnId(), visible);
+                    Assert.assertTrue("Snapshot of " + reader.txn + " changed for " + other, before == null || before == visible);
+                    if (reader.knownCommits.contains(other.getTxnId()))
+                        Assert.assertTrue(reader.txn + " can't see causally preceding " + other, visible);
+                    break;
+                case 4:
+                    send(node, nodes.get(random.nextInt(nodes.size())));
+                    break;
+                default:
+                    now += random.nextInt(4);
+            }
+        }
+    }
+
+    private Node ownerOf(Txn txn) {
+        for (Node node : nodes) {
+            if (node.writers.containsKey(txn.getTxnId()))
+                return node;
+        }
+        throw new AssertionError("No node began " + txn);
+    }
+
+    /**
+     * The commit RPC carries the client's clock to the transaction table, and the commit timestamp back.
+     */
+    private long commit(Node client, Txn txn) throws IOException {
+        txnServer.timestampSource.receiveTimestamp(client.timestampSource.currentTimestamp());
+        txn.commit();
+        long commitTs = txn.getCommitTimestamp();
+        client.timestampSource.receiveTimestamp(commitTs);
+        client.knownCommits.add(txn.getTxnId());
+        return commitTs;
+    }
+
+    /**
+     * The reader's scan carries its transaction to a server, which may not be the one the reader began on. That
+     * server looks the transaction up, carrying its own clock and the reader's begin timestamp to the transaction
+     * table.
+     */
+    private TxnView lookup(Node server, TxnView reader, Txn txn) throws IOException {
+        TxnView received = deliver(server, reader);
+        txnServer.timestampSource.receiveTimestamp(server.timestampSource.currentTimestamp());
+        return txnStore.getTransactionForReader(txn.getTxnId(), received.getBeginTimestamp());
+    }
+
+    /**
+     * Hands a transaction to a server, which decodes it.
+     */
+    private static TxnView deliver(Node to, TxnView txn) throws IOException {
+        byte[] encoded = to.txnOpFactory.encode(txn);
+        return to.txnOpFactory.fromReads(encoded, 0, encoded.length);
+    }
+
+    private static void send(Node from, Node to) {
+        to.timestampSource.receiveTimestamp(from.timestampSource.currentTimestamp());
+        to.knownCommits.addAll(from.knownCommits);
+    }
+
+    private class Node {
+        final Clock clock;
+        final HLCTimestampSource timestampSource;
+        final ClientTxnLifecycleManager lifecycleManager;
+        final TxnOperationFactory txnOpFactory;
+        final Map<Long, Txn> writers = new HashMap<>();
+        final Set<Long> knownCommits = new HashSet<>();
+
+        Node(int nodeId, final long skew) {
+            this.clock = new Clock() {
+                @Override
+                public long currentTimeMillis() {
+                    return now + skew;
+                }
+
+                @Override
+                public long nanoTime() {
+                    return TimeUnit.MILLISECONDS.toNanos(currentTimeMillis());
+                }
+
+                @Override
+                public void sleep(long time, TimeUnit unit) {
+                    now += unit.toMillis(time);
+                }
+            };
+            this.timestampSource = new HLCTimestampSource(new HLC(clock), nodeId, new MemTimestampSource());
+            this.lifecycleManager = new ClientTxnLifecycleManager(timestampSource, MExceptionFactory.INSTANCE);
+            this.txnOpFactory = new SimpleTxnOperationFactory(MExceptionFactory.INSTANCE, new MOperationFactory(clock), timestampSource);
+            if (txnStore != null) {
+                lifecycleManager.setTxnStore(txnStore);
+                lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(txnStore));
+            }
+        }
+    }
+
+    private static class Reader {
+        final Node node;
+        final Txn txn;
+        final Set<Long> knownCommits;
+        final Map<Long, Boolean> visibility = new HashMap<>();
+
+        Reader(Node node, Txn txn, Set<Long> knownCommits) {
+            this.node = node;
+            this.txn = txn;
+            this.knownCommits = knownCommits;
+        }
+    }
+}
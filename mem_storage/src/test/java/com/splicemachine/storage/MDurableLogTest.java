@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.storage;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class MDurableLogTest{
+    @Rule public TemporaryFolder tempFolder=new TemporaryFolder();
+
+    @Test
+    public void recordsAreRecoveredAfterACrash() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        KeyValueState state=new KeyValueState();
+        MDurableLog log=state.open(dir);
+        for(int i=0;i<10;i++){
+            state.put(log,i,i);
+        }
+        log.close();
+        //the crash tore the last record
+        Path wal=dir.resolve("wal.1");
+        MWriteAheadLogTest.truncate(wal,Files.size(wal)-3);
+
+        KeyValueState recovered=new KeyValueState();
+        log=recovered.open(dir);
+        Assert.assertEquals(9,recovered.values.size());
+        for(int i=0;i<9;i++){
+            Assert.assertEquals(i,recovered.values.get(i).intValue());
+        }
+        //the torn log is never appended to, so what is logged now survives the next recovery
+        state=recovered;
+        state.put(log,100,100);
+        log.close();
+        Assert.assertTrue(Files.exists(dir.resolve("wal.2")));
+
+        recovered=new KeyValueState();
+        recovered.open(dir).close();
+        Assert.assertEquals(10,recovered.values.size());
+        Assert.assertEquals(100,recovered.values.get(100).intValue());
+    }
+
+    @Test
+    public void logIsReplayedOnTopOfTheSnapshot() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        KeyValueState state=new KeyValueState();
+        MDurableLog log=state.open(dir);
+        for(int i=0;i<10;i++){
+            state.put(log,i,i);
+        }
+        log.snapshot();
+        Assert.assertTrue(Files.exists(dir.resolve("snapshot.2")));
+        Assert.assertFalse("Older logs should be removed",Files.exists(dir.resolve("wal.1")));
+        //overwrite some of the snapshot's values
+        for(int i=5;i<15;i++){
+            state.put(log,i,-i);
+        }
+        log.close();
+
+        KeyValueState recovered=new KeyValueState();
+        recovered.open(dir).close();
+        Assert.assertEquals(15,recovered.values.size());
+        for(int i=0;i<15;i++){
+            Assert.assertEquals(i<5?i:-i,recovered.values.get(i).intValue());
+        }
+        Assert.assertEquals(10+10,recovered.replayed);
+    }
+
+    @Test
+    public void recordsInBothTheSnapshotAndTheLogAreReplayedIdempotently() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        final KeyValueState state=new KeyValueState();
+        MDurableLog log=state.open(dir);
+        for(int i=0;i<10;i++){
+            state.put(log,i,i);
+        }
+        //a mutation which runs while the snapshot is written ends up in both the snapshot and the new log
+        state.duringSnapshot=new int[]{3,-3};
+        log.snapshot();
+        state.duringSnapshot=null;
+        state.put(log,3,33);
+        log.close();
+        Assert.assertEquals(33,state.values.get(3).intValue());
+
+        KeyValueState recovered=new KeyValueState();
+        recovered.open(dir).close();
+        Assert.assertEquals(state.values,recovered.values);
+        Assert.assertEquals("Snapshot, then the overlapping record, then the last put",10+1+1,recovered.replayed);
+
+        //crash before the last put made it to disk
+        MWriteAheadLogTest.truncate(dir.resolve("wal.2"),8+8);
+        recovered=new KeyValueState();
+        recovered.open(dir).close();
+        Assert.assertEquals(-3,recovered.values.get(3).intValue());
+        Assert.assertEquals(10,recovered.values.size());
+    }
+
+    @Test
+    public void incompleteSnapshotIsIgnored() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        KeyValueState state=new KeyValueState();
+        MDurableLog log=state.open(dir);
+        for(int i=0;i<10;i++){
+            state.put(log,i,i);
+        }
+        log.close();
+        //a crash while writing the next snapshot
+        Path tmp=dir.resolve("snapshot.2.tmp");
+        Files.write(tmp,new byte[]{0,0,0,8,1,2,3});
+
+        KeyValueState recovered=new KeyValueState();
+        recovered.open(dir).close();
+        Assert.assertEquals(state.values,recovered.values);
+        Assert.assertFalse(Files.exists(tmp));
+    }
+
+    @Test
+    public void snapshotIsSkippedWhenNothingWasLogged() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        KeyValueState state=new KeyValueState();
+        MDurableLog log=state.open(dir);
+        log.snapshot();
+        Assert.assertFalse(Files.exists(dir.resolve("snapshot.2")));
+        log.close();
+    }
+
+    @Test
+    public void destroyRemovesAllFiles() throws Exception{
+        Path dir=tempFolder.newFolder().toPath().resolve("partition");
+        KeyValueState state=new KeyValueState();
+        MDurableLog log=state.open(dir);
+        state.put(log,1,1);
+        log.snapshot();
+        state.put(log,2,2);
+        log.destroy();
+        Assert.assertFalse(Files.exists(dir));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * A map of ints, logged as {@code [key][value]} records.
+     */
+    private static class KeyValueState implements MWriteAheadLog.RecordHandler,MDurableLog.SnapshotSource{
+        final Map<Integer, Integer> values=new TreeMap<>();
+        int replayed;
+        int[] duringSnapshot;
+        MDurableLog log;
+
+        MDurableLog open(Path dir) throws IOException{
+            log=MDurableLog.open(dir,this,this,0L);
+            return log;
+        }
+
+        void put(MDurableLog log,int key,int value) throws IOException{
+            log.mutationLock().lock();
+            try{
+                log.append(record(key,value));
+                values.put(key,value);
+            }finally{
+                log.mutationLock().unlock();
+            }
+        }
+
+        @Override
+        public void handle(ByteBuffer record) throws IOException{
+            values.put(record.getInt(),record.getInt());
+            replayed++;
+        }
+
+        @Override
+        public void writeSnapshot(MWriteAheadLog snapshot) throws IOException{
+            if(duringSnapshot!=null)
+                put(log,duringSnapshot[0],duringSnapshot[1]);
+            for(Map.Entry<Integer, Integer> entry : values.entrySet()){
+                snapshot.write(record(entry.getKey(),entry.getValue()));
+            }
+        }
+
+        private static byte[] record(int key,int value){
+            return ByteBuffer.allocate(8).putInt(key).putInt(value).array();
+        }
+    }
+}
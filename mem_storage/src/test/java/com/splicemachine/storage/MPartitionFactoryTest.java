@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.storage;
+
+import com.splicemachine.access.api.PartitionAdmin;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MPartitionFactoryTest{
+    private static final byte[] FAMILY=SIConstants.DEFAULT_FAMILY_BYTES;
+    private static final byte[] DATA=SIConstants.PACKED_COLUMN_BYTES;
+
+    @Rule public TemporaryFolder tempFolder=new TemporaryFolder();
+
+    @Test
+    public void partitionsAreRecoveredFromTheSnapshotAndTheLog() throws Exception{
+        SConfiguration config=config(tempFolder.newFolder().toPath());
+        MPartitionFactory factory=new MPartitionFactory();
+        factory.initialize(null,config,null);
+        Assert.assertFalse(factory.isRecovered());
+
+        MPartition partition=create(factory,"t1");
+        for(int i=0;i<10;i++){
+            put(partition,i,"a"+i);
+        }
+        delete(partition,2);
+        partition.snapshot();
+        put(partition,5,"b5");
+        delete(partition,7);
+        for(int i=10;i<15;i++){
+            put(partition,i,"a"+i);
+        }
+        MPartition other=create(factory,"SPLICE/other table");
+        put(other,1,"other");
+
+        Map<Integer, String> expected=scan(partition);
+        Assert.assertEquals(13,expected.size());
+        Assert.assertEquals("b5",expected.get(5));
+
+        //crash, and start over
+        MPartitionFactory recovered=new MPartitionFactory();
+        recovered.initialize(null,config,null);
+        Assert.assertTrue(recovered.isRecovered());
+        Assert.assertEquals(expected,scan((MPartition)recovered.getTable("t1")));
+        Assert.assertEquals("other",scan((MPartition)recovered.getTable("SPLICE/other table")).get(1));
+    }
+
+    @Test
+    public void tornMutationIsNotRecovered() throws Exception{
+        Path dir=tempFolder.newFolder().toPath();
+        SConfiguration config=config(dir);
+        MPartitionFactory factory=new MPartitionFactory();
+        factory.initialize(null,config,null);
+        MPartition partition=create(factory,"t1");
+        for(int i=0;i<5;i++){
+            put(partition,i,"a"+i);
+        }
+        Path wal=dir.resolve(MPartitionFactory.PARTITION_DIRECTORY).resolve("t1").resolve("wal.1");
+        MWriteAheadLogTest.truncate(wal,Files.size(wal)-1);
+
+        MPartitionFactory recovered=new MPartitionFactory();
+        recovered.initialize(null,config,null);
+        Map<Integer, String> rows=scan((MPartition)recovered.getTable("t1"));
+        Assert.assertEquals(4,rows.size());
+        Assert.assertNull(rows.get(4));
+
+        //the recovered partition keeps logging
+        MPartition partition2=create(recovered,"t1");
+        Assert.assertSame(recovered.getTable("t1"),partition2);
+        put(partition2,4,"again");
+        MPartitionFactory recoveredAgain=new MPartitionFactory();
+        recoveredAgain.initialize(null,config,null);
+        Assert.assertEquals("again",scan((MPartition)recoveredAgain.getTable("t1")).get(4));
+    }
+
+    @Test
+    public void droppedPartitionsAreNotRecovered() throws Exception{
+        SConfiguration config=config(tempFolder.newFolder().toPath());
+        MPartitionFactory factory=new MPartitionFactory();
+        factory.initialize(null,config,null);
+        put(create(factory,"t1"),1,"a");
+        put(create(factory,"t2"),1,"b");
+        try(PartitionAdmin admin=factory.getAdmin()){
+            admin.deleteTable("t1");
+        }
+
+        MPartitionFactory recovered=new MPartitionFactory();
+        recovered.initialize(null,config,null);
+        Assert.assertEquals("b",scan((MPartition)recovered.getTable("t2")).get(1));
+        try{
+            recovered.getTable("t1");
+            Assert.fail("Dropped partition was recovered");
+        }catch(IOException expected){
+            //expected
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static SConfiguration config(Path dir){
+        SConfiguration config=mock(SConfiguration.class);
+        when(config.getMemDurableDirectory()).thenReturn(dir.toString());
+        when(config.getMemSnapshotInterval()).thenReturn(0L);
+        return config;
+    }
+
+    private static MPartition create(MPartitionFactory factory,String name) throws IOException{
+        try(PartitionAdmin admin=factory.getAdmin()){
+            return (MPartition)admin.newPartition().withName(name).create();
+        }
+    }
+
+    private static void put(MPartition partition,int row,String value) throws IOException{
+        MPut put=new MPut(Bytes.toBytes(row));
+        put.addCell(FAMILY,DATA,1L,Bytes.toBytes(value));
+        partition.put(put);
+    }
+
+    private static void delete(MPartition partition,int row) throws IOException{
+        MDelete delete=new MDelete(Bytes.toBytes(row));
+        delete.deleteColumn(FAMILY,DATA,1L);
+        partition.delete(delete);
+    }
+
+    private static Map<Integer, String> scan(MPartition partition) throws IOException{
+        Map<Integer, String> rows=new TreeMap<>();
+        try(DataScanner scanner=partition.openScanner(new MScan())){
+            List<DataCell> row;
+            while((row=scanner.next(-1)).size()>0){
+                Assert.assertEquals(1,row.size());
+                rows.put(Bytes.toInt(row.get(0).key()),Bytes.toString(row.get(0).value()));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class MPartitionTest{
+    private static final byte[] FAMILY=SIConstants.DEFAULT_FAMILY_BYTES;
+    private static final byte[] DATA=SIConstants.PACKED_COLUMN_BYTES;
+    private static final byte[] COMMIT=SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES;
+    private static final long SLAB=MSlabAllocator.DEFAULT_MAX_SLAB_SIZE;
+
+    @Test
+    public void batchGetReturnsEachRowInOrder() throws Exception{
+        MPartition partition=new MPartition("test","test");
+        for(int i=0;i<10;i++){
+            MPut put=new MPut(Bytes.toBytes(i));
+            put.addCell(FAMILY,DATA,1L,Bytes.toBytes("row"+i));
+            put.addCell(FAMILY,COMMIT,1L,Bytes.toBytes(2L));
+            partition.put(put);
+        }
+
+        List<byte[]> keys=Arrays.asList(Bytes.toBytes(7),Bytes.toBytes(42),Bytes.toBytes(3));
+        List<DataResult> results=drain(partition.batchGet(null,keys));
+        Assert.assertEquals(3,results.size());
+        Assert.assertEquals(2,results.get(0).size());
+        Assert.assertArrayEquals(Bytes.toBytes("row7"),results.get(0).latestCell(FAMILY,DATA).value());
+        Assert.assertEquals("Missing rows should have empty results",0,results.get(1).size());
+        Assert.assertArrayEquals(Bytes.toBytes("row3"),results.get(2).latestCell(FAMILY,DATA).value());
+    }
+
+    @Test
+    public void batchGetUsesTheColumnsOfTheTemplate() throws Exception{
+        MPartition partition=new MPartition("test","test");
+        for(int i=0;i<3;i++){
+            MPut put=new MPut(Bytes.toBytes(i));
+            put.addCell(FAMILY,DATA,1L,Bytes.toBytes("row"+i));
+            put.addCell(FAMILY,COMMIT,1L,Bytes.toBytes(2L));
+            partition.put(put);
+        }
+        MGet template=new MGet();
+        template.returnAllVersions();
+        template.addColumn(FAMILY,COMMIT);
+
+        List<DataResult> results=drain(partition.batchGet(template,Arrays.asList(Bytes.toBytes(0),Bytes.toBytes(2))));
+        Assert.assertEquals(2,results.size());
+        for(DataResult result : results){
+            Assert.assertEquals(1,result.size());
+            Assert.assertNull(result.latestCell(FAMILY,DATA));
+            Assert.assertEquals(2L,result.latestCell(FAMILY,COMMIT).valueAsLong());
+        }
+    }
+
+    @Test
+    public void overwritesDoNotLeakSlabs() throws Exception{
+        MPartition partition=new MPartition("test","test");
+        byte[] key=Bytes.toBytes(1);
+        byte[] value=new byte[200];
+        for(int i=0;i<50000;i++){
+            Bytes.toBytes(i,value,0);
+            MPut put=new MPut(key);
+            put.addCell(FAMILY,DATA,1L,value);
+            partition.put(put);
+        }
+        //about 12MB were written, but only one cell is live
+        Assert.assertTrue(partition.allocator().getCapacity()<4*SLAB);
+
+        MGet get=new MGet(key);
+        get.returnAllVersions();
+        DataResult result=partition.get(get,null);
+        Assert.assertEquals(1,result.size());
+        Assert.assertArrayEquals(value,result.latestCell(FAMILY,DATA).value());
+    }
+
+    @Test
+    public void deletesDoNotLeakSlabs() throws Exception{
+        MPartition partition=new MPartition("test","test");
+        byte[] value=new byte[200];
+        int numRows=60000;
+        for(int i=0;i<numRows;i++){
+            MPut put=new MPut(Bytes.toBytes(i));
+            put.addCell(FAMILY,DATA,1L,value);
+            partition.put(put);
+        }
+        //delete all but every hundredth row
+        for(int i=0;i<numRows;i++){
+            if(i%100==0)
+                continue;
+            MDelete delete=new MDelete(Bytes.toBytes(i));
+            delete.deleteColumn(FAMILY,DATA,1L);
+            partition.delete(delete);
+        }
+        Assert.assertTrue(partition.allocator().getCapacity()<4*SLAB);
+
+        List<Integer> rows=new ArrayList<>();
+        try(DataScanner scanner=partition.openScanner(new MScan())){
+            List<DataCell> row;
+            while((row=scanner.next(-1)).size()>0){
+                rows.add(Bytes.toInt(row.get(0).key()));
+                Assert.assertArrayEquals(value,row.get(0).value());
+            }
+        }
+        Assert.assertEquals(numRows/100,rows.size());
+        for(int i=0;i<rows.size();i++){
+            Assert.assertEquals(100*i,rows.get(i).intValue());
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static List<DataResult> drain(Iterator<DataResult> results){
+        List<DataResult> list=new ArrayList<>();
+        while(results.hasNext()){
+            list.add(results.next());
+        }
+        return list;
+    }
+}
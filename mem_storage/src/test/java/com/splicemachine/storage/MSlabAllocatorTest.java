@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class MSlabAllocatorTest{
+    private static final byte[] FAMILY={'V'};
+    private static final byte[] QUALIFIER={'a'};
+    /*the size of the cells written by these tests, in the slab*/
+    private static final int CELL_SIZE=MSlabCell.encodedSize(4,1,1,10);
+
+    @Test
+    public void allocatesNothingUntilWritten() throws Exception{
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,4);
+        Assert.assertEquals(0L,allocator.getCapacity());
+        Assert.assertEquals(0L,allocator.getUsedBytes());
+    }
+
+    @Test
+    public void slabsGrowUpToTheMaximum() throws Exception{
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,1);
+        allocator.copy(cell(0),0L);
+        Assert.assertEquals(64L,allocator.getCapacity());
+
+        //64 bytes fit one cell, the next slab of 128 bytes three
+        for(int i=1;i<=3;i++){
+            allocator.copy(cell(i),i);
+        }
+        Assert.assertEquals(64L+128L,allocator.getCapacity());
+
+        for(int i=4;i<200;i++){
+            allocator.copy(cell(i),i);
+        }
+        Assert.assertEquals(200L*CELL_SIZE,allocator.getUsedBytes());
+        Assert.assertEquals(allocator.getUsedBytes(),allocator.getLiveBytes());
+        //never more than one partly filled slab of the maximum size
+        Assert.assertTrue(allocator.getCapacity()<allocator.getUsedBytes()+1024);
+    }
+
+    @Test
+    public void largeCellsGetASlabOfTheirOwn() throws Exception{
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,1);
+        byte[] value=new byte[512];
+        MSlabCell large=allocator.copy(new MCell(Bytes.toBytes(1),FAMILY,QUALIFIER,1L,value,CellType.USER_DATA),1L);
+        Assert.assertEquals(large.size(),allocator.getCapacity());
+        Assert.assertArrayEquals(value,large.value());
+    }
+
+    @Test
+    public void reclaimsSparseSlabs() throws Exception{
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,1);
+        List<MSlabCell> cells=new ArrayList<>();
+        for(int i=0;i<500;i++){
+            cells.add(allocator.copy(cell(i),i));
+        }
+        Assert.assertFalse(allocator.needsCompaction());
+
+        //keep every tenth cell
+        List<MSlabCell> live=new ArrayList<>();
+        for(int i=0;i<cells.size();i++){
+            if(i%10==0)
+                live.add(cells.get(i));
+            else
+                allocator.free(cells.get(i));
+        }
+        Assert.assertEquals(50L*CELL_SIZE,allocator.getLiveBytes());
+        Assert.assertTrue(allocator.needsCompaction());
+
+        long capacity=allocator.getCapacity();
+        Set<MSlabAllocator.Slab> sparse=allocator.sparseSlabs();
+        Assert.assertFalse(sparse.isEmpty());
+        for(MSlabCell cell : live){
+            if(sparse.contains(cell.slab()))
+                allocator.move(cell);
+        }
+        allocator.release(sparse);
+
+        Assert.assertFalse(allocator.needsCompaction());
+        Assert.assertEquals(50L*CELL_SIZE,allocator.getLiveBytes());
+        Assert.assertTrue("Slabs were not released",allocator.getCapacity()<capacity/4);
+        for(int i=0;i<live.size();i++){
+            Assert.assertEquals(0,MSlabCell.COMPARATOR.compare(cell(10*i),live.get(i)));
+            Assert.assertArrayEquals(cell(10*i).value(),live.get(i).value());
+        }
+    }
+
+    @Test
+    public void keepsSlabsWithLiveCellsLeft() throws Exception{
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,1);
+        List<MSlabCell> cells=new ArrayList<>();
+        for(int i=0;i<100;i++){
+            cells.add(allocator.copy(cell(i),i));
+        }
+        MSlabCell kept=cells.get(50);
+        for(MSlabCell cell : cells){
+            if(cell!=kept)
+                allocator.free(cell);
+        }
+        Set<MSlabAllocator.Slab> sparse=allocator.sparseSlabs();
+        Assert.assertTrue(sparse.contains(kept.slab()));
+
+        //release without moving the live cell out of its slab
+        allocator.release(sparse);
+        Assert.assertEquals(CELL_SIZE,allocator.getLiveBytes());
+        Assert.assertTrue("Released a slab with a live cell",allocator.sparseSlabs().contains(kept.slab()));
+        Assert.assertArrayEquals(cell(50).value(),kept.value());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static MCell cell(int row){
+        byte[] value=new byte[10];
+        Bytes.toBytes(row,value,0);
+        return new MCell(Bytes.toBytes(row),FAMILY,QUALIFIER,1L,value,CellType.USER_DATA);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class MSlabCellTest{
+    private static final byte[][] FAMILIES={{},{'P'},{'V'}};
+    private static final byte[][] QUALIFIERS={{},{'a'},{'a','b'},{'c'}};
+    private static final CellType[] TYPES={CellType.USER_DATA,CellType.TOMBSTONE,CellType.COMMIT_TIMESTAMP};
+
+    @Test
+    public void ordersLikeHeapCells() throws Exception{
+        Random random=new Random(0L);
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,2);
+        List<MCell> heapCells=new ArrayList<>();
+        List<DataCell> slabCells=new ArrayList<>();
+        for(int i=0;i<500;i++){
+            MCell cell=randomCell(random);
+            heapCells.add(cell);
+            //mix slab cells with heap cells, which the memstore compares them to when looking rows up
+            slabCells.add(i%3==0?cell:allocator.copy(cell,i));
+        }
+        Collections.sort(heapCells);
+        Collections.sort(slabCells,MSlabCell.COMPARATOR);
+        for(int i=0;i<heapCells.size();i++){
+            assertSameCell(heapCells.get(i),slabCells.get(i));
+        }
+    }
+
+    @Test
+    public void comparesEqualToTheCellItCopies() throws Exception{
+        Random random=new Random(1L);
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,1);
+        for(int i=0;i<100;i++){
+            MCell cell=randomCell(random);
+            MSlabCell copy=allocator.copy(cell,i);
+            Assert.assertEquals(0,MSlabCell.COMPARATOR.compare(copy,cell));
+            Assert.assertEquals(0,MSlabCell.COMPARATOR.compare(cell,copy));
+            Assert.assertEquals(copy,cell);
+            Assert.assertEquals(cell.hashCode(),copy.hashCode());
+        }
+    }
+
+    @Test
+    public void materializesWithItsSequence() throws Exception{
+        MCell cell=new MCell(Bytes.toBytes("row"),FAMILIES[2],QUALIFIERS[2],12L,Bytes.toBytes(42L),CellType.USER_DATA);
+        MSlabCell copy=new MSlabAllocator(64,1024,1).copy(cell,7L);
+        Assert.assertEquals(7L,copy.getSequence());
+        Assert.assertEquals(42L,copy.valueAsLong());
+        Assert.assertTrue(copy.matchesFamily(FAMILIES[2]));
+        Assert.assertFalse(copy.matchesFamily(FAMILIES[1]));
+        Assert.assertTrue(copy.matchesQualifier(FAMILIES[2],QUALIFIERS[2]));
+        Assert.assertFalse(copy.matchesQualifier(FAMILIES[2],QUALIFIERS[1]));
+
+        MCell materialized=copy.materialize();
+        assertSameCell(cell,materialized);
+        Assert.assertEquals(7L,materialized.getSequence());
+    }
+
+    @Test
+    public void keepsItsBytesWhenMoved() throws Exception{
+        Random random=new Random(2L);
+        MSlabAllocator allocator=new MSlabAllocator(64,1024,1);
+        List<MCell> heapCells=new ArrayList<>();
+        List<MSlabCell> slabCells=new ArrayList<>();
+        for(int i=0;i<50;i++){
+            MCell cell=randomCell(random);
+            heapCells.add(cell);
+            slabCells.add(allocator.copy(cell,i));
+        }
+        long live=allocator.getLiveBytes();
+        long used=allocator.getUsedBytes();
+        for(MSlabCell cell : slabCells){
+            allocator.move(cell);
+        }
+        Assert.assertEquals(live,allocator.getLiveBytes());
+        Assert.assertEquals(used+live,allocator.getUsedBytes());
+        for(int i=0;i<heapCells.size();i++){
+            assertSameCell(heapCells.get(i),slabCells.get(i));
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static MCell randomCell(Random random){
+        byte[] key=new byte[random.nextInt(4)];
+        for(int i=0;i<key.length;i++){
+            //include bytes above 0x7f, which sort after the others
+            key[i]=(byte)(random.nextInt(3)*0x70);
+        }
+        byte[] value=new byte[random.nextInt(16)];
+        random.nextBytes(value);
+        return new MCell(key,
+                FAMILIES[random.nextInt(FAMILIES.length)],
+                QUALIFIERS[random.nextInt(QUALIFIERS.length)],
+                random.nextInt(4),
+                value,
+                TYPES[random.nextInt(TYPES.length)]);
+    }
+
+    private static void assertSameCell(DataCell expected,DataCell actual){
+        Assert.assertArrayEquals(expected.key(),actual.key());
+        Assert.assertArrayEquals(expected.family(),actual.family());
+        Assert.assertArrayEquals(expected.qualifier(),actual.qualifier());
+        Assert.assertArrayEquals(expected.value(),actual.value());
+        Assert.assertEquals(expected.version(),actual.version());
+        Assert.assertEquals(expected.dataType(),actual.dataType());
+    }
+}
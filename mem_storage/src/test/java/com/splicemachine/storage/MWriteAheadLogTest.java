@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.storage;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MWriteAheadLogTest{
+    @Rule public TemporaryFolder tempFolder=new TemporaryFolder();
+
+    @Test
+    public void recordsAreReadBackInOrder() throws Exception{
+        Path path=tempFolder.newFolder().toPath().resolve("wal.1");
+        try(MWriteAheadLog log=new MWriteAheadLog(path)){
+            for(int i=0;i<100;i++){
+                log.append(record(i));
+            }
+        }
+        List<Integer> read=new ArrayList<>();
+        Assert.assertEquals(100,MWriteAheadLog.read(path,collect(read)));
+        for(int i=0;i<100;i++){
+            Assert.assertEquals(i,read.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void unsyncedWritesAreReadBackOnceSynced() throws Exception{
+        Path path=tempFolder.newFolder().toPath().resolve("snapshot.1");
+        try(MWriteAheadLog log=new MWriteAheadLog(path)){
+            for(int i=0;i<10;i++){
+                log.write(record(i));
+            }
+            log.sync();
+            Assert.assertEquals(10*(8+4),log.size());
+        }
+        Assert.assertEquals(10,MWriteAheadLog.read(path,collect(new ArrayList<Integer>())));
+    }
+
+    @Test
+    public void reopenedLogIsAppendedTo() throws Exception{
+        Path path=tempFolder.newFolder().toPath().resolve("wal.1");
+        try(MWriteAheadLog log=new MWriteAheadLog(path)){
+            log.append(record(0));
+        }
+        try(MWriteAheadLog log=new MWriteAheadLog(path)){
+            Assert.assertEquals(8+4,log.size());
+            log.append(record(1));
+        }
+        List<Integer> read=new ArrayList<>();
+        Assert.assertEquals(2,MWriteAheadLog.read(path,collect(read)));
+        Assert.assertEquals(1,read.get(1).intValue());
+    }
+
+    @Test
+    public void readStopsAtATornRecord() throws Exception{
+        Path path=tempFolder.newFolder().toPath().resolve("wal.1");
+        try(MWriteAheadLog log=new MWriteAheadLog(path)){
+            for(int i=0;i<3;i++){
+                log.append(record(i));
+            }
+        }
+        //a crash in the middle of writing the last record's payload
+        truncate(path,3*(8+4)-2);
+        List<Integer> read=new ArrayList<>();
+        Assert.assertEquals(2,MWriteAheadLog.read(path,collect(read)));
+        Assert.assertEquals(1,read.get(1).intValue());
+
+        //and in the middle of its header
+        truncate(path,2*(8+4)+3);
+        Assert.assertEquals(2,MWriteAheadLog.read(path,collect(new ArrayList<Integer>())));
+    }
+
+    @Test
+    public void readStopsAtACorruptRecord() throws Exception{
+        Path path=tempFolder.newFolder().toPath().resolve("wal.1");
+        try(MWriteAheadLog log=new MWriteAheadLog(path)){
+            for(int i=0;i<3;i++){
+                log.append(record(i));
+            }
+        }
+        //flip a byte of the second record's payload, leaving its length intact
+        try(RandomAccessFile file=new RandomAccessFile(path.toFile(),"rw")){
+            file.seek((8+4)+8+3);
+            file.write(0x7F);
+        }
+        List<Integer> read=new ArrayList<>();
+        Assert.assertEquals(1,MWriteAheadLog.read(path,collect(read)));
+        Assert.assertEquals(0,read.get(0).intValue());
+    }
+
+    @Test
+    public void emptyLogHasNoRecords() throws Exception{
+        Path path=tempFolder.newFolder().toPath().resolve("wal.1");
+        new MWriteAheadLog(path).close();
+        Assert.assertEquals(0,MWriteAheadLog.read(path,collect(new ArrayList<Integer>())));
+    }
+
+    @Test(expected=IOException.class)
+    public void closedLogRefusesAppends() throws Exception{
+        MWriteAheadLog log=new MWriteAheadLog(tempFolder.newFolder().toPath().resolve("wal.1"));
+        log.close();
+        log.append(record(0));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    static byte[] record(int value){
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    static MWriteAheadLog.RecordHandler collect(final List<Integer> values){
+        return new MWriteAheadLog.RecordHandler(){
+            @Override
+            public void handle(ByteBuffer record) throws IOException{
+                values.add(record.getInt());
+            }
+        };
+    }
+
+    static void truncate(Path path,long size) throws IOException{
+        try(FileChannel channel=FileChannel.open(path,StandardOpenOption.WRITE)){
+            channel.truncate(size);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.storage;
+
+import com.splicemachine.metrics.Metrics;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import org.spark_project.guava.base.Predicate;
+import org.spark_project.guava.collect.BiMap;
+import org.spark_project.guava.collect.HashBiMap;
+import org.spark_project.guava.collect.Sets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the insert, point get and full scan throughput of the slab-backed memstore of {@link MPartition}
+ * with that of the on-heap memstore it replaced: a {@code ConcurrentSkipListSet<MCell>} written under row locks
+ * handed out from a synchronized map, and read through a filtered tail set.
+ *
+ * Inserts and gets are spread over several threads, each of which works on every {@code threads}-th row, so that
+ * concurrent writers contend on the same region of the memstore. Scans run on a single thread.
+ *
+ * Run from the command line, optionally passing the number of rows and the number of threads.
+ */
+public class MemstoreMicroBenchmark{
+    private static final int WARMUP_ITERATIONS=3;
+    private static final int ITERATIONS=5;
+    private static final byte[] FAMILY=SIConstants.DEFAULT_FAMILY_BYTES;
+    private static final byte[] QUALIFIER=SIConstants.PACKED_COLUMN_BYTES;
+    private static final byte[] VALUE=new byte[64];
+
+    public static void main(String...args) throws Exception{
+        int numRows=args.length>0?Integer.parseInt(args[0]):200000;
+        int numThreads=args.length>1?Integer.parseInt(args[1]):Runtime.getRuntime().availableProcessors();
+        ExecutorService threads=Executors.newFixedThreadPool(numThreads);
+        try{
+            for(int i=0;i<WARMUP_ITERATIONS;i++){
+                benchmark(new SlabMemstore(),numRows,threads,numThreads,false);
+                benchmark(new OnHeapMemstore(),numRows,threads,numThreads,false);
+            }
+            for(int i=0;i<ITERATIONS;i++){
+                System.out.printf("-----iteration %d (%d threads)%n",i,numThreads);
+                benchmark(new SlabMemstore(),numRows,threads,numThreads,true);
+                benchmark(new OnHeapMemstore(),numRows,threads,numThreads,true);
+            }
+        }finally{
+            threads.shutdownNow();
+        }
+    }
+
+    private static void benchmark(final Memstore memstore,final int numRows,ExecutorService threads,int numThreads,boolean print) throws Exception{
+        long start=System.nanoTime();
+        runConcurrently(threads,numThreads,numRows,new RowTask(){
+            @Override
+            public boolean run(int row) throws IOException{
+                memstore.put(row);
+                return true;
+            }
+        });
+        long insertTime=System.nanoTime()-start;
+
+        start=System.nanoTime();
+        long found=runConcurrently(threads,numThreads,numRows,new RowTask(){
+            @Override
+            public boolean run(int row) throws IOException{
+                return memstore.get(row);
+            }
+        });
+        long getTime=System.nanoTime()-start;
+
+        start=System.nanoTime();
+        long scanned=memstore.scan();
+        long scanTime=System.nanoTime()-start;
+        if(print)
+            report(memstore.name(),numRows,insertTime,getTime,scanTime,found,scanned);
+    }
+
+    /**
+     * Runs {@code task} over all the rows, with each of {@code numThreads} threads taking every
+     * {@code numThreads}-th row.
+     *
+     * @return the number of rows the task returned true for
+     */
+    private static long runConcurrently(ExecutorService threads,final int numThreads,final int numRows,final RowTask task) throws Exception{
+        List<Future<Long>> futures=new ArrayList<>(numThreads);
+        for(int t=0;t<numThreads;t++){
+            final int first=t;
+            futures.add(threads.submit(new Callable<Long>(){
+                @Override
+                public Long call() throws Exception{
+                    long count=0;
+                    for(int row=first;row<numRows;row+=numThreads){
+                        if(task.run(row)) count++;
+                    }
+                    return count;
+                }
+            }));
+        }
+        long count=0;
+        for(Future<Long> future : futures){
+            count+=future.get();
+        }
+        return count;
+    }
+
+    private static void report(String name,int numRows,long insertNanos,long getNanos,long scanNanos,long found,long scanned){
+        //print the counts so that the loops don't get optimized away
+        System.out.printf("%s: found=%d, scanned=%d%n",name,found,scanned);
+        System.out.printf("  insert: %.0f ops/s%n",throughput(numRows,insertNanos));
+        System.out.printf("  get:    %.0f ops/s%n",throughput(numRows,getNanos));
+        System.out.printf("  scan:   %.0f rows/s%n",throughput(scanned,scanNanos));
+    }
+
+    private static double throughput(long ops,long nanos){
+        return ops/(nanos/1e9d);
+    }
+
+    private interface RowTask{
+        boolean run(int row) throws IOException;
+    }
+
+    private interface Memstore{
+        String name();
+
+        void put(int row) throws IOException;
+
+        boolean get(int row) throws IOException;
+
+        long scan() throws IOException;
+    }
+
+    private static class SlabMemstore implements Memstore{
+        private final MPartition partition=new MPartition("benchmark","benchmark");
+
+        @Override
+        public String name(){
+            return "MPartition";
+        }
+
+        @Override
+        public void put(int row) throws IOException{
+            MPut put=new MPut(Bytes.toBytes(row));
+            put.addCell(FAMILY,QUALIFIER,1L,VALUE);
+            partition.put(put);
+        }
+
+        @Override
+        public boolean get(int row) throws IOException{
+            MGet get=new MGet();
+            get.returnAllVersions();
+            get.setKey(Bytes.toBytes(row));
+            return partition.get(get,null)!=null;
+        }
+
+        @Override
+        public long scan() throws IOException{
+            long scanned=0;
+            try(DataScanner scanner=partition.openScanner(new MScan())){
+                List<DataCell> row;
+                while((row=scanner.next(-1)).size()>0)
+                    scanned+=row.size();
+            }
+            return scanned;
+        }
+    }
+
+    /**
+     * The write and read paths of the previous, on-heap, memstore of {@link MPartition}.
+     */
+    private static class OnHeapMemstore implements Memstore{
+        private final ConcurrentSkipListSet<DataCell> memstore=new ConcurrentSkipListSet<>();
+        private final BiMap<ByteBuffer, Lock> lockMap=HashBiMap.create();
+        private final AtomicLong sequenceGen=new AtomicLong(0L);
+
+        @Override
+        public String name(){
+            return "on-heap MPartition";
+        }
+
+        @Override
+        public void put(int row) throws IOException{
+            MPut put=new MPut(Bytes.toBytes(row));
+            put.addCell(FAMILY,QUALIFIER,1L,VALUE);
+            long seq=sequenceGen.incrementAndGet();
+            byte[] key=put.key();
+            Lock lock=getRowLock(key);
+            lock.lock();
+            try{
+                for(DataCell dc : put.cells()){
+                    if(memstore.contains(dc)){
+                        memstore.remove(dc);
+                    }
+                    DataCell clone=dc.getClone();
+                    ((MCell)clone).sequence(seq);
+                    memstore.add(clone);
+                }
+            }finally{
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean get(int row) throws IOException{
+            final byte[] key=Bytes.toBytes(row);
+            DataCell start=new MCell(key,new byte[]{},new byte[]{},Long.MAX_VALUE,new byte[]{},CellType.USER_DATA);
+            Set<DataCell> data=Sets.filter(memstore.tailSet(start,true),new Predicate<DataCell>(){
+                @Override
+                public boolean apply(DataCell dataCell){
+                    return Bytes.equals(dataCell.keyArray(),dataCell.keyOffset(),dataCell.keyLength(),key,0,key.length);
+                }
+            });
+            try(SetScanner ss=new SetScanner(sequenceGen.get(),data.iterator(),0L,Long.MAX_VALUE,null,null,Metrics.noOpMetricFactory())){
+                return ss.next(-1).size()>0;
+            }
+        }
+
+        @Override
+        public long scan() throws IOException{
+            long scanned=0;
+            try(SetScanner ss=new SetScanner(sequenceGen.get(),memstore.iterator(),0L,Long.MAX_VALUE,null,null,Metrics.noOpMetricFactory())){
+                List<DataCell> row;
+                while((row=ss.next(-1)).size()>0)
+                    scanned+=row.size();
+            }
+            return scanned;
+        }
+
+        private Lock getRowLock(byte[] key){
+            final ByteBuffer wrap=ByteBuffer.wrap(key);
+            Lock lock;
+            synchronized(lockMap){
+                lock=lockMap.get(wrap);
+                if(lock==null){
+                    lock=new MemLock(wrap);
+                    lockMap.put(wrap,lock);
+                }
+            }
+            return lock;
+        }
+
+        private class MemLock extends ReentrantLock{
+            private final ByteBuffer key;
+            private int lockCount=0;
+
+            MemLock(ByteBuffer key){
+                this.key=key;
+            }
+
+            @Override
+            public void lock(){
+                super.lock();
+                lockCount++;
+            }
+
+            @Override
+            public void unlock(){
+                lockCount--;
+                if(lockCount==0){
+                    synchronized(lockMap){
+                        lockMap.remove(key);
+                    }
+                }
+                super.unlock();
+            }
+        }
+    }
+}
@@ -72,7 +72,8 @@ public abstract class PipelineLoadService<TableNameInfo> implements DatabaseLife
                 basePartition,
                 factory,
                 txnRegion,
-                pipelineDriver.meter(),pipelineDriver.exceptionFactory());
+                pipelineDriver.meter(),pipelineDriver.exceptionFactory(),
+                pipelineDriver.writeTracker(),conglomId);
         pipelineDriver.registerPipeline(basePartition.getName(),writePipeline);
     }
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the writes applied by the write pipeline of this server, by conglomerate.
+ *
+ * Every write to a conglomerate bumps its write version and remembers the transaction which wrote. Once those
+ * transactions are over, they are folded into the latest commit timestamp of the conglomerate. Two readers which
+ * see the same write version, no writer still in flight, and both started after that commit timestamp, see exactly
+ * the same data in the conglomerate.
+ *
+ * @see WriteState
+ */
+public class ConglomerateWriteTracker{
+    /*
+     * The number of writers of a conglomerate beyond which the write pipeline resolves them itself, rather
+     * than waiting for a reader to do it
+     */
+    private static final int MAX_UNRESOLVED_WRITERS=1024;
+
+    private final TxnSupplier txnSupplier;
+    private final boolean enabled;
+    private final ConcurrentMap<Long,Writes> writes=new ConcurrentHashMap<>();
+
+    public ConglomerateWriteTracker(TxnSupplier txnSupplier,boolean enabled){
+        this.txnSupplier=txnSupplier;
+        this.enabled=enabled;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Records a write applied to {@code conglomerateId}. Must be called before the writing transaction
+     * can commit, i.e. before the write is acknowledged.
+     */
+    public void recordWrite(long conglomerateId,TxnView txn) throws IOException{
+        if(!enabled)
+            return;
+        Writes w=writes.get(conglomerateId);
+        if(w==null){
+            Writes newWrites=new Writes();
+            w=writes.putIfAbsent(conglomerateId,newWrites);
+            if(w==null)
+                w=newWrites;
+        }
+        synchronized(w){
+            w.version++;
+            w.writers.add(txn.getTxnId());
+            if(w.writers.size()>MAX_UNRESOLVED_WRITERS)
+                w.resolve(txnSupplier);
+        }
+    }
+
+    /**
+     * @return the writes applied to {@code conglomerateId} so far, with the transactions which are over
+     * resolved, or null if the writes aren't tracked
+     */
+    public WriteState getState(long conglomerateId) throws IOException{
+        if(!enabled)
+            return null;
+        Writes w=writes.get(conglomerateId);
+        if(w==null)
+            return WriteState.NO_WRITES;
+        synchronized(w){
+            w.resolve(txnSupplier);
+            return new WriteState(w.version,w.lastCommitTimestamp,!w.writers.isEmpty());
+        }
+    }
+
+    /**
+     * A consistent view of the writes to a conglomerate.
+     */
+    public static class WriteState{
+        static final WriteState NO_WRITES=new WriteState(0L,0L,false);
+
+        private final long version;
+        private final long lastCommitTimestamp;
+        private final boolean inFlight;
+
+        WriteState(long version,long lastCommitTimestamp,boolean inFlight){
+            this.version=version;
+            this.lastCommitTimestamp=lastCommitTimestamp;
+            this.inFlight=inFlight;
+        }
+
+        /**
+         * @return the number of writes applied to the conglomerate
+         */
+        public long getVersion(){
+            return version;
+        }
+
+        /**
+         * @return the latest commit timestamp of the transactions which wrote to the conglomerate, not counting
+         * the ones still in flight
+         */
+        public long getLastCommitTimestamp(){
+            return lastCommitTimestamp;
+        }
+
+        /**
+         * @return true if some transaction which wrote to the conglomerate has neither committed nor rolled back yet
+         */
+        public boolean isInFlight(){
+            return inFlight;
+        }
+    }
+
+    private static class Writes{
+        private long version;
+        private long lastCommitTimestamp;
+        private final LongOpenHashSet writers=new LongOpenHashSet();
+
+        void resolve(TxnSupplier txnSupplier) throws IOException{
+            if(writers.isEmpty())
+                return;
+            LongOpenHashSet done=new LongOpenHashSet();
+            for(LongCursor writer : writers){
+                TxnView txn=txnSupplier.getTransaction(writer.value);
+                Txn.State state=txn.getEffectiveState();
+                if(state==Txn.State.COMMITTED){
+                    lastCommitTimestamp=Math.max(lastCommitTimestamp,txn.getEffectiveCommitTimestamp());
+                    done.add(writer.value);
+                }else if(state==Txn.State.ROLLEDBACK){
+                    done.add(writer.value);
+                }
+            }
+            writers.removeAll(done);
+        }
+    }
+}
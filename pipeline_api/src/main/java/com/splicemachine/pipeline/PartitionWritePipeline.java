@@ -55,6 +55,8 @@ public class PartitionWritePipeline{
     private final PipelineMeter pipelineMeters;
     private final ServerControl rce;
     private final PipelineExceptionFactory exceptionFactory;
+    private final ConglomerateWriteTracker writeTracker;
+    private final long conglomerateId;
 
     public PartitionWritePipeline(ServerControl rce,
                                   Partition region,
@@ -62,12 +64,25 @@ public class PartitionWritePipeline{
                                   TransactionalRegion txnRegion,
                                   PipelineMeter pipelineMeters,
                                   PipelineExceptionFactory exceptionFactory){
+        this(rce,region,ctxFactory,txnRegion,pipelineMeters,exceptionFactory,null,-1L);
+    }
+
+    public PartitionWritePipeline(ServerControl rce,
+                                  Partition region,
+                                  WriteContextFactory<TransactionalRegion> ctxFactory,
+                                  TransactionalRegion txnRegion,
+                                  PipelineMeter pipelineMeters,
+                                  PipelineExceptionFactory exceptionFactory,
+                                  ConglomerateWriteTracker writeTracker,
+                                  long conglomerateId){
         this.rce=rce;
         this.region=region;
         this.ctxFactory=ctxFactory;
         this.txnRegion=txnRegion;
         this.pipelineMeters=pipelineMeters;
         this.exceptionFactory=exceptionFactory;
+        this.writeTracker=writeTracker;
+        this.conglomerateId=conglomerateId;
     }
 
     public ServerControl getRegionCoprocessorEnvironment(){
@@ -106,6 +121,13 @@ public class PartitionWritePipeline{
         }catch(IndexNotSetUpException e){
             return INDEX_NOT_SETUP;
         }
+        if(writeTracker!=null){
+            /*
+             * Recorded ahead of the writes, so that the writing transaction shows up as in flight
+             * to any reader which could otherwise observe them
+             */
+            writeTracker.recordWrite(conglomerateId,txn);
+        }
         Collection<KVPair> kvPairs=toWrite.getMutations();
         for(KVPair kvPair : kvPairs){
             context.sendUpstream(kvPair);
@@ -55,6 +55,7 @@ public class PipelineDriver{
     private final WriteCoordinator writeCoordinator;
     private final PipelineExceptionFactory pef;
     private final ContextFactoryDriver ctxFactoryDriver;
+    private final ConglomerateWriteTracker writeTracker;
     private final AtomicBoolean jmxRegistered = new AtomicBoolean(false);
 
     public static void loadDriver(PipelineEnvironment env){
@@ -67,7 +68,9 @@ public class PipelineDriver{
         PipelineMeter meter = env.pipelineMeter();
         WritePipelineFactory pipelineFactory = env.pipelineFactory();
 
-        INSTANCE = new PipelineDriver(config,ctxFactoryDriver,pef,partitionFactory,compressor,writerFactory,pipelineFactory,meter,env.systemClock());
+        ConglomerateWriteTracker writeTracker = new ConglomerateWriteTracker(env.txnSupplier(),config.getResultCacheMaxRows()>0);
+
+        INSTANCE = new PipelineDriver(config,ctxFactoryDriver,pef,partitionFactory,compressor,writerFactory,pipelineFactory,meter,writeTracker,env.systemClock());
         writerFactory.setWriter(INSTANCE.pipelineWriter);
     }
 
@@ -81,8 +84,10 @@ public class PipelineDriver{
                            BulkWriterFactory channelFactory,
                            WritePipelineFactory writePipelineFactory,
                            PipelineMeter meter,
+                           ConglomerateWriteTracker writeTracker,
                            Clock clock){
         this.ctxFactoryDriver = ctxFactoryDriver;
+        this.writeTracker = writeTracker;
         this.pef = pef;
         this.compressor = compressor;
         this.pipelineMeter= meter;
@@ -124,6 +129,10 @@ public class PipelineDriver{
         return pef;
     }
 
+    public ConglomerateWriteTracker writeTracker(){
+        return writeTracker;
+    }
+
     public ContextFactoryLoader getContextFactoryLoader(long conglomId){
         return ctxFactoryDriver.getLoader(conglomId);
     }
@@ -21,6 +21,7 @@ import com.splicemachine.pipeline.api.WritePipelineFactory;
 import com.splicemachine.pipeline.client.*;
 import com.splicemachine.pipeline.exception.IndexNotSetUpException;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
+import com.splicemachine.pipeline.traffic.WriteStatus;
 import com.splicemachine.pipeline.writehandler.SharedCallBufferFactory;
 import com.splicemachine.utils.Pair;
 import org.apache.log4j.Logger;
@@ -57,7 +58,17 @@ public class PipelineWriter{
     }
 
 
+    /**
+     * Writes {@code bulkWrites}, and tells the client how many more rows this server has room for, so that it
+     * can pace its writes before they have to be rejected.
+     */
     public BulkWritesResult bulkWrite(@Nonnull BulkWrites bulkWrites) throws IOException{
+        BulkWritesResult result = doBulkWrite(bulkWrites);
+        result.setWriteCredits(availableWriteCredits());
+        return result;
+    }
+
+    private BulkWritesResult doBulkWrite(@Nonnull BulkWrites bulkWrites) throws IOException{
         Collection<BulkWrite> bws = bulkWrites.getBulkWrites();
         int numBulkWrites = bulkWrites.getBulkWrites().size();
         List<BulkWriteResult> result = new ArrayList<>(numBulkWrites);
@@ -212,6 +223,17 @@ public class PipelineWriter{
     }
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    /**
+     * @return the number of rows which could be written right now without being rejected. Independent writes may
+     * take the room left for dependent ones, so both count.
+     */
+    private int availableWriteCredits(){
+        WriteStatus status = writeControl.getWriteStatus();
+        int dependent = Math.max(0, writeControl.maxDependentWriteCount() - status.getDependentWriteCount());
+        int independent = Math.max(0, writeControl.maxIndependentWriteCount() - status.getIndependentWriteCount());
+        return dependent + independent;
+    }
+
     private void rejectAll(Collection<BulkWrite> writes, Collection<BulkWriteResult> result, Code status,String msg) {
         for(BulkWrite write:writes){
             pipelineMeter.mark(0,write.getSize());
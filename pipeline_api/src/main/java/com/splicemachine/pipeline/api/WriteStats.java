@@ -86,6 +86,16 @@ public interface WriteStats {
 			public long getRegionTooBusy() {
 				return 0;
 			}
+
+			@Override
+			public long getPacingDelay() {
+				return 0;
+			}
+
+			@Override
+			public long getCreditExhausted() {
+				return 0;
+			}
 		};
 
 	long getWrittenCounter();
@@ -101,4 +111,14 @@ public interface WriteStats {
 	long getCatchThrownRows();
 	long getCatchRetriedRows();
 	long getRegionTooBusy();
+
+	/**
+	 * @return the number of milliseconds writes were held back waiting for the server to have credits for them
+	 */
+	long getPacingDelay();
+
+	/**
+	 * @return the number of writes after which the server had fewer credits left than the write used
+	 */
+	long getCreditExhausted();
 }
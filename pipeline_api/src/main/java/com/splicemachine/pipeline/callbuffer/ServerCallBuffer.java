@@ -160,7 +160,7 @@ class ServerCallBuffer implements CallBuffer<Pair<byte[], PartitionBuffer>> {
         }
         if(bws.isEmpty()) return null;
         else
-            return new BulkWrites(bws, this.txn, this.buffers.lastKey());
+            return new BulkWrites(bws, this.txn, this.buffers.lastKey(), server == null ? null : server.getHostAndPort());
     }
 
     public int getHeapSize() {
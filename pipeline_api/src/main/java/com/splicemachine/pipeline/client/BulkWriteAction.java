@@ -27,6 +27,7 @@ import com.splicemachine.pipeline.api.*;
 import com.splicemachine.pipeline.callbuffer.PipingCallBuffer;
 import com.splicemachine.pipeline.utils.PipelineUtils;
 import com.splicemachine.pipeline.config.WriteConfiguration;
+import com.splicemachine.pipeline.traffic.WriteCreditController;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.api.txn.WriteConflict;
@@ -75,7 +76,10 @@ public class BulkWriteAction implements Callable<WriteStats>{
     private final Counter rejectedCounter;
     private final Counter partialFailureCounter;
     private final Counter regionTooBusy;
+    private final Counter pacingDelay;
+    private final Counter creditExhausted;
     private final PartitionFactory partitionFactory;
+    private final WriteCreditController creditController; //null if writes aren't paced
     private PipingCallBuffer retryPipingCallBuffer=null; // retryCallBuffer
 
 
@@ -88,6 +92,19 @@ public class BulkWriteAction implements Callable<WriteStats>{
                            PipelineExceptionFactory pipelineExceptionFactory,
                            PartitionFactory partitionFactory,
                            Clock clock){
+        this(tableName,writes,writeConfiguration,statusReporter,writerFactory,pipelineExceptionFactory,partitionFactory,clock,null);
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public BulkWriteAction(byte[] tableName,
+                           BulkWrites writes,
+                           WriteConfiguration writeConfiguration,
+                           ActionStatusReporter statusReporter,
+                           BulkWriterFactory writerFactory,
+                           PipelineExceptionFactory pipelineExceptionFactory,
+                           PartitionFactory partitionFactory,
+                           Clock clock,
+                           WriteCreditController creditController){
         assert writes!=null:"writes passed into BWA are null";
         this.tableName=tableName;
         this.bulkWrites=writes;
@@ -105,6 +122,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
         this.writeTimer=metricFactory.newTimer();
         this.pipelineExceptionFactory = pipelineExceptionFactory;
         this.partitionFactory = partitionFactory;
+        this.creditController = creditController;
         thrownErrorsRows=metricFactory.newCounter();
         retriedRows=metricFactory.newCounter();
         partialRows=metricFactory.newCounter();
@@ -116,6 +134,8 @@ public class BulkWriteAction implements Callable<WriteStats>{
         catchThrownRows=metricFactory.newCounter();
         catchRetriedRows=metricFactory.newCounter();
         regionTooBusy=metricFactory.newCounter();
+        pacingDelay=metricFactory.newCounter();
+        creditExhausted=metricFactory.newCounter();
     }
 
     @Override
@@ -143,7 +163,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
             ignoredRows.getTotal(),
             catchThrownRows.getTotal(),
             catchRetriedRows.getTotal(),
-            regionTooBusy.getTotal()
+            regionTooBusy.getTotal(),
+            pacingDelay.getTotal(),
+            creditExhausted.getTotal()
                         );
             else
                 return WriteStats.NOOP_WRITE_STATS;
@@ -248,6 +270,17 @@ public class BulkWriteAction implements Callable<WriteStats>{
         if(LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"Getting next BulkWrites in loop: id=%d, nextBulkWrites=%s",id,nextWrite);
 
+        /*
+         * Wait until the server is likely to have room for the write, rather than have it turn the write away.
+         * How long we wait depends on the credits it advertised in answer to our earlier writes.
+         */
+        String server=nextWrite.getServer();
+        int rows=nextWrite.numEntries();
+        if(creditController!=null)
+            pacingDelay.add(creditController.acquire(server,rows));
+        int writeCredits=-1;
+        boolean tooBusy=false;
+
         //used to indicate that the exception was thrown inside the try{} block explicitly, and should just be re-thrown
         boolean thrown = false;
         try{
@@ -255,6 +288,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
             writeTimer.startTiming();
             BulkWritesResult bulkWritesResult=writer.write(nextWrite,ctx.refreshCache);
             writeTimer.stopTiming();
+            writeCredits=bulkWritesResult.getWriteCredits();
+            if(writeCredits>=0 && writeCredits<rows)
+                creditExhausted.increment();
             Iterator<BulkWrite> bws=nextWrite.getBulkWrites().iterator();
             Collection<BulkWriteResult> results=bulkWritesResult.getBulkWriteResults();
             for(BulkWriteResult bulkWriteResult : results){
@@ -275,6 +311,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
 		    			 * or because the region moved/split/something else.
 						 */
                         ctx.rejected();
+                        tooBusy=tooBusy || bulkWriteResult.getGlobalResult().getCode()==Code.PIPELINE_TOO_BUSY;
 
                         if(RETRY_LOG.isDebugEnabled())
                             SpliceLogUtils.debug(RETRY_LOG,
@@ -363,6 +400,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
                     SpliceLogUtils.debug(RETRY_LOG,"Retrying write after receiving RegionTooBusyException: id=%d",id);
 
                 regionTooBusy.increment();
+                tooBusy=true;
                 ctx.sleep = true;
                 ctx.directRetry();
                 return;
@@ -397,6 +435,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
                     LOG.warn(String.format("Ignoring error after receiving unknown global error %s response: id=%d ",writeResponse,id),e);
                     throw new IllegalStateException("Programmer error: Unknown global response: "+writeResponse);
             }
+        }finally{
+            if(creditController!=null)
+                creditController.release(server,rows,writeCredits,tooBusy);
         }
     }
 
@@ -34,6 +34,10 @@ public class BulkWrites{
      * any region which is present on the destination region server
      */
     private transient byte[] regionKey;
+    /*
+     * the server the writes are sent to, which the client paces its writes by
+     */
+    private transient String server;
 
     public BulkWrites(){
         bulkWrites=new ArrayList<>(0);
@@ -45,9 +49,15 @@ public class BulkWrites{
 
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
     public BulkWrites(Collection<BulkWrite> bulkWrites,TxnView txn,byte[] regionKey){
+        this(bulkWrites,txn,regionKey,null);
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public BulkWrites(Collection<BulkWrite> bulkWrites,TxnView txn,byte[] regionKey,String server){
         this.bulkWrites=bulkWrites;
         this.txn=txn;
         this.regionKey=regionKey;
+        this.server=server;
     }
 
     @SuppressFBWarnings(value="EI_EXPOSE_REP", justification="Intentional")
@@ -55,6 +65,13 @@ public class BulkWrites{
         return regionKey;
     }
 
+    /**
+     * @return the host and port of the server the writes are sent to, or {@code null} if not known
+     */
+    public String getServer(){
+        return server;
+    }
+
     public Collection<BulkWrite> getBulkWrites(){
         return bulkWrites;
     }
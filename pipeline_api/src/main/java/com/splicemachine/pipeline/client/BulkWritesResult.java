@@ -22,6 +22,7 @@ import java.util.Collection;
  */
 public class BulkWritesResult {
 		private Collection<BulkWriteResult> bulkWriteResults;
+		private int writeCredits = -1;
 
 		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults){
 				this.bulkWriteResults = bulkWriteResults;
@@ -31,6 +32,17 @@ public class BulkWritesResult {
 				return bulkWriteResults;
 		}
 
+		/**
+		 * @return the number of rows the server could have accepted when it answered, or -1 if it didn't say
+		 */
+		public int getWriteCredits() {
+				return writeCredits;
+		}
+
+		public void setWriteCredits(int writeCredits) {
+				this.writeCredits = writeCredits;
+		}
+
 		@Override
 		public String toString() {
 				StringBuilder sb = new StringBuilder("BulkWritesResult{");
@@ -35,6 +35,8 @@ public class MergingWriteStats implements WriteStats {
     private final Counter catchThrownRows;
     private final Counter catchRetriedRows;
     private final Counter regionTooBusy;
+    private final Counter pacingDelay;
+    private final Counter creditExhausted;
 
     public MergingWriteStats(MetricFactory metricFactory) {
         this.writtenCounter = metricFactory.newCounter();
@@ -50,6 +52,8 @@ public class MergingWriteStats implements WriteStats {
         this.catchThrownRows = metricFactory.newCounter();
         this.catchRetriedRows = metricFactory.newCounter();
         this.regionTooBusy = metricFactory.newCounter();
+        this.pacingDelay = metricFactory.newCounter();
+        this.creditExhausted = metricFactory.newCounter();
     }
 
     public void merge(WriteStats newStats) {
@@ -66,6 +70,8 @@ public class MergingWriteStats implements WriteStats {
         catchThrownRows.add(newStats.getCatchThrownRows());
         catchRetriedRows.add(newStats.getCatchRetriedRows());
         regionTooBusy.add(newStats.getRegionTooBusy());
+        pacingDelay.add(newStats.getPacingDelay());
+        creditExhausted.add(newStats.getCreditExhausted());
     }
 
     @Override
@@ -132,4 +138,14 @@ public class MergingWriteStats implements WriteStats {
     public long getRegionTooBusy() {
         return regionTooBusy.getTotal();
     }
+
+    @Override
+    public long getPacingDelay() {
+        return pacingDelay.getTotal();
+    }
+
+    @Override
+    public long getCreditExhausted() {
+        return creditExhausted.getTotal();
+    }
 }
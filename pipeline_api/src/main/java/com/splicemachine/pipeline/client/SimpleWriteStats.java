@@ -34,8 +34,10 @@ public class SimpleWriteStats implements WriteStats {
     private final long catchThrownRows;
     private final long catchRetriedRows;
     private final long regionTooBusy;
+    private final long pacingDelay;
+    private final long creditExhausted;
 
-    public SimpleWriteStats(long writtenCounter, long retryCounter, long thrownErrorsRows, long retriedRows, long partialRows, long partialThrownErrorRows, long partialRetriedRows, long partialIgnoredRows, long partialWrite, long ignoredRows, long catchThrownRows, long catchRetriedRows, long regionTooBusy) {
+    public SimpleWriteStats(long writtenCounter, long retryCounter, long thrownErrorsRows, long retriedRows, long partialRows, long partialThrownErrorRows, long partialRetriedRows, long partialIgnoredRows, long partialWrite, long ignoredRows, long catchThrownRows, long catchRetriedRows, long regionTooBusy, long pacingDelay, long creditExhausted) {
         this.writtenCounter = writtenCounter;
         this.retryCounter = retryCounter;
         this.thrownErrorsRows = thrownErrorsRows;
@@ -49,6 +51,8 @@ public class SimpleWriteStats implements WriteStats {
         this.catchThrownRows = catchThrownRows;
         this.catchRetriedRows = catchRetriedRows;
         this.regionTooBusy = regionTooBusy;
+        this.pacingDelay = pacingDelay;
+        this.creditExhausted = creditExhausted;
     }
 
     @Override
@@ -116,4 +120,14 @@ public class SimpleWriteStats implements WriteStats {
         return regionTooBusy;
     }
 
+    @Override
+    public long getPacingDelay() {
+        return pacingDelay;
+    }
+
+    @Override
+    public long getCreditExhausted() {
+        return creditExhausted;
+    }
+
 }
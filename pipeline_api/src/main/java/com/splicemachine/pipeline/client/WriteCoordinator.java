@@ -40,6 +40,7 @@ import com.splicemachine.pipeline.config.DefaultWriteConfiguration;
 import com.splicemachine.pipeline.config.ForwardingWriteConfiguration;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.threadpool.MonitoredThreadPool;
+import com.splicemachine.pipeline.traffic.WriteCreditController;
 import com.splicemachine.pipeline.utils.PipelineUtils;
 import com.splicemachine.pipeline.writer.AsyncBucketingWriter;
 import com.splicemachine.pipeline.writer.SynchronousBucketingWriter;
@@ -70,10 +71,12 @@ public class WriteCoordinator {
         assert config != null;
         MonitoredThreadPool writerPool = MonitoredThreadPool.create(config);
         int maxEntries = config.getMaxBufferEntries();//SpliceConstants.maxBufferEntries;
+        int minCreditWindow = config.getMinCreditWindow();
+        WriteCreditController creditController = minCreditWindow > 0 ? new WriteCreditController(minCreditWindow, clock) : null;
         Writer writer = new AsyncBucketingWriter(writerPool,
                 writerFactory,
                 exceptionFactory,
-                partitionFactory,clock);
+                partitionFactory,clock,creditController);
         Writer syncWriter = new SynchronousBucketingWriter(writerFactory,exceptionFactory,partitionFactory,clock);
         long maxBufferHeapSize = config.getMaxBufferHeapSize();
         int numRetries = config.getMaxRetries();
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import com.splicemachine.annotations.ThreadSafe;
+import com.splicemachine.concurrent.Clock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Paces the writes a client sends to each server by the write credits that server advertises, so that the server
+ * rarely has to reject a write outright.
+ *
+ * Each server gets a window of rows which may be in flight to it at once. The window grows additively, by
+ * {@code minWindow} rows, after every write the server still had credits to spare for, and halves whenever the
+ * server runs short of credits or rejects a write; it never grows past what the server says it has room for.
+ * A write which doesn't fit in the window waits for earlier writes to the same server to return. A write is always
+ * let through when nothing else is in flight to its server, however large it is.
+ */
+@ThreadSafe
+public class WriteCreditController{
+    private final int minWindow;
+    private final Clock clock;
+    private final ConcurrentMap<String,Window> windows=new ConcurrentHashMap<>();
+
+    public WriteCreditController(int minWindow,Clock clock){
+        assert minWindow>0:"window must be positive";
+        this.minWindow=minWindow;
+        this.clock=clock;
+    }
+
+    /**
+     * Waits until {@code rows} more rows may be sent to {@code server}.
+     *
+     * @return the number of milliseconds spent waiting
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long acquire(String server,int rows) throws InterruptedException{
+        if(server==null) return 0L;
+        return window(server).acquire(rows);
+    }
+
+    /**
+     * Called once a write of {@code rows} rows to {@code server} has returned.
+     *
+     * @param advertisedCredits the number of rows the server said it had room for, or a negative number if it
+     *                          didn't say
+     * @param rejected          true if the server turned the write away for being too busy
+     */
+    public void release(String server,int rows,int advertisedCredits,boolean rejected){
+        if(server==null) return;
+        window(server).release(rows,advertisedCredits,rejected);
+    }
+
+    /**
+     * @return the number of rows which may currently be in flight to {@code server}
+     */
+    public long getWindow(String server){
+        Window w=windows.get(server);
+        return w==null?Long.MAX_VALUE:w.limit();
+    }
+
+    private Window window(String server){
+        Window w=windows.get(server);
+        if(w==null){
+            w=new Window();
+            Window old=windows.putIfAbsent(server,w);
+            if(old!=null) w=old;
+        }
+        return w;
+    }
+
+    private class Window{
+        private long limit=Long.MAX_VALUE; //unbounded until the server first advertises its credits
+        private long inFlight;
+
+        synchronized long acquire(int rows) throws InterruptedException{
+            if(inFlight==0 || inFlight+rows<=limit){
+                inFlight+=rows;
+                return 0L;
+            }
+            long start=clock.currentTimeMillis();
+            while(inFlight>0 && inFlight+rows>limit)
+                wait();
+            inFlight+=rows;
+            return clock.currentTimeMillis()-start;
+        }
+
+        synchronized void release(int rows,int advertisedCredits,boolean rejected){
+            inFlight-=rows;
+            if(rejected || (advertisedCredits>=0 && advertisedCredits<rows)){
+                //the server is (nearly) out of room: back off multiplicatively
+                long current=limit==Long.MAX_VALUE?inFlight+rows:limit;
+                limit=Math.max(minWindow,current/2);
+            }else if(advertisedCredits>=0){
+                //the server had room to spare: probe for more, but no more than it has
+                long headroom=Math.max(minWindow,inFlight+advertisedCredits);
+                limit=limit==Long.MAX_VALUE?headroom:Math.min(limit+minWindow,headroom);
+            }
+            notifyAll();
+        }
+
+        synchronized long limit(){
+            return limit;
+        }
+    }
+}
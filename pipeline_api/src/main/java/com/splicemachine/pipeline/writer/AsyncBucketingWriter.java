@@ -36,6 +36,7 @@ import com.splicemachine.pipeline.client.BulkWrites;
 import com.splicemachine.pipeline.config.CountingWriteConfiguration;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.threadpool.MonitoredThreadPool;
+import com.splicemachine.pipeline.traffic.WriteCreditController;
 import com.splicemachine.pipeline.writerstatus.ActionStatusMonitor;
 
 /**
@@ -51,12 +52,14 @@ public class AsyncBucketingWriter implements Writer {
     private final BulkWriterFactory writerFactory;
     private final PartitionFactory partitionFactory;
     private final Clock clock;
+    private final WriteCreditController creditController; //null if writes aren't paced
 
     public AsyncBucketingWriter(MonitoredThreadPool writerPool,
                                 BulkWriterFactory writerFactory,
                                 PipelineExceptionFactory exceptionFactory,
                                 PartitionFactory partitionFactory,
-                                Clock clock) {
+                                Clock clock,
+                                WriteCreditController creditController) {
         this.writerPool = writerPool;
         this.statusMonitor = new ActionStatusReporter();
         this.monitor = new ActionStatusMonitor(statusMonitor);
@@ -64,6 +67,7 @@ public class AsyncBucketingWriter implements Writer {
         this.writerFactory = writerFactory;
         this.partitionFactory = partitionFactory;
         this.clock = clock;
+        this.creditController = creditController;
     }
 
     @Override
@@ -77,7 +81,8 @@ public class AsyncBucketingWriter implements Writer {
                 writerFactory,
                 exceptionFactory,
                 partitionFactory,
-                clock);
+                clock,
+                creditController);
         statusMonitor.totalFlushesSubmitted.incrementAndGet();
         return writerPool.submit(action);
     }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class ConglomerateWriteTrackerTest {
+
+    @Test
+    public void writersAreResolvedOnceOver() throws Exception {
+        TxnSupplier supplier = mock(TxnSupplier.class);
+        TxnView committed = txn(supplier, 100L, Txn.State.COMMITTED, 110L);
+        TxnView rolledBack = txn(supplier, 200L, Txn.State.ROLLEDBACK, -1L);
+        TxnView active = txn(supplier, 300L, Txn.State.ACTIVE, -1L);
+        ConglomerateWriteTracker tracker = new ConglomerateWriteTracker(supplier, true);
+
+        tracker.recordWrite(1L, committed);
+        tracker.recordWrite(1L, rolledBack);
+        ConglomerateWriteTracker.WriteState state = tracker.getState(1L);
+        assertEquals(2L, state.getVersion());
+        assertEquals(110L, state.getLastCommitTimestamp());
+        assertFalse(state.isInFlight());
+
+        tracker.recordWrite(1L, active);
+        state = tracker.getState(1L);
+        assertEquals(3L, state.getVersion());
+        assertEquals(110L, state.getLastCommitTimestamp());
+        assertTrue(state.isInFlight());
+
+        when(active.getEffectiveState()).thenReturn(Txn.State.COMMITTED);
+        when(active.getEffectiveCommitTimestamp()).thenReturn(310L);
+        state = tracker.getState(1L);
+        assertEquals(3L, state.getVersion());
+        assertEquals(310L, state.getLastCommitTimestamp());
+        assertFalse(state.isInFlight());
+
+        state = tracker.getState(2L);
+        assertEquals(0L, state.getVersion());
+        assertFalse(state.isInFlight());
+    }
+
+    @Test
+    public void disabledTrackerTracksNothing() throws Exception {
+        TxnSupplier supplier = mock(TxnSupplier.class);
+        ConglomerateWriteTracker tracker = new ConglomerateWriteTracker(supplier, false);
+        tracker.recordWrite(1L, txn(supplier, 100L, Txn.State.ACTIVE, -1L));
+        assertNull(tracker.getState(1L));
+    }
+
+    private static TxnView txn(TxnSupplier supplier, long txnId, Txn.State state, long commitTimestamp) throws Exception {
+        TxnView txn = mock(TxnView.class);
+        when(txn.getTxnId()).thenReturn(txnId);
+        when(txn.getEffectiveState()).thenReturn(state);
+        when(txn.getEffectiveCommitTimestamp()).thenReturn(commitTimestamp);
+        when(supplier.getTransaction(txnId)).thenReturn(txn);
+        return txn;
+    }
+}
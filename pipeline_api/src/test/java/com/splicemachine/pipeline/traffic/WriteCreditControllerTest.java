@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Category(ArchitectureIndependent.class)
+public class WriteCreditControllerTest {
+    private static final String SERVER = "server1:16020";
+
+    @Test
+    public void windowFollowsAdvertisedCredits() throws Exception {
+        WriteCreditController controller = new WriteCreditController(100, new IncrementingClock());
+        assertEquals(Long.MAX_VALUE, controller.getWindow(SERVER));
+
+        controller.acquire(SERVER, 500);
+        controller.release(SERVER, 500, 1000, false);
+        assertEquals(1000, controller.getWindow(SERVER));
+
+        // grows additively while the server has room to spare, but never past that room
+        controller.acquire(SERVER, 500);
+        controller.release(SERVER, 500, 5000, false);
+        assertEquals(1100, controller.getWindow(SERVER));
+        controller.acquire(SERVER, 500);
+        controller.release(SERVER, 500, 600, false);
+        assertEquals(600, controller.getWindow(SERVER));
+    }
+
+    @Test
+    public void windowHalvesWhenServerRunsShort() throws Exception {
+        WriteCreditController controller = new WriteCreditController(100, new IncrementingClock());
+        controller.acquire(SERVER, 500);
+        controller.release(SERVER, 500, 4000, false);
+        assertEquals(4000, controller.getWindow(SERVER));
+
+        controller.acquire(SERVER, 500);
+        controller.release(SERVER, 500, 200, false);
+        assertEquals(2000, controller.getWindow(SERVER));
+
+        controller.acquire(SERVER, 500);
+        controller.release(SERVER, 500, -1, true);
+        assertEquals(1000, controller.getWindow(SERVER));
+
+        for (int i = 0; i < 10; i++) {
+            controller.acquire(SERVER, 500);
+            controller.release(SERVER, 500, -1, true);
+        }
+        assertEquals("Window fell below its minimum", 100, controller.getWindow(SERVER));
+    }
+
+    @Test
+    public void writesBeyondTheWindowWait() throws Exception {
+        final WriteCreditController controller = new WriteCreditController(100, new IncrementingClock());
+        controller.acquire(SERVER, 100);
+        controller.release(SERVER, 100, 200, false);
+        assertEquals(200, controller.getWindow(SERVER));
+
+        controller.acquire(SERVER, 150);
+        assertEquals("Another server was held back", 0L, controller.acquire("server2:16020", 1000));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> blocked = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return controller.acquire(SERVER, 150);
+                }
+            });
+            try {
+                blocked.get(100, TimeUnit.MILLISECONDS);
+                fail("Write went past the window");
+            } catch (TimeoutException expected) {
+                assertFalse(blocked.isDone());
+            }
+            controller.release(SERVER, 150, 1000, false);
+            assertTrue(blocked.get(10, TimeUnit.SECONDS) >= 0L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void oversizedWriteStillGoesThroughAlone() throws Exception {
+        WriteCreditController controller = new WriteCreditController(100, new IncrementingClock());
+        controller.acquire(SERVER, 100);
+        controller.release(SERVER, 100, 0, false);
+        assertEquals(100, controller.getWindow(SERVER));
+        assertEquals(0L, controller.acquire(SERVER, 10000));
+    }
+}
@@ -72,6 +72,8 @@ public interface SConfiguration {
 
     long getDdlDrainingMaximumWait();
 
+    String getBulkIndexDirectory();
+
     long getDdlRefreshInterval();
 
     long getMaxDdlWait();
@@ -113,6 +115,8 @@ public interface SConfiguration {
 
     int getMaxIndependentWrites();
 
+    int getMinCreditWindow();
+
     int getMaxRetries();
 
     int getMaxWriterThreads();
@@ -148,6 +152,10 @@ public interface SConfiguration {
 
     int getCompletedTxnConcurrency();
 
+    boolean getHybridLogicalClockEnabled();
+
+    long getReadOnlySnapshotStaleness();
+
     int getReadResolverQueueSize();
 
     int getReadResolverThreads();
@@ -160,6 +168,8 @@ public interface SConfiguration {
 
     int getOlapServerThreads();
 
+    int getOlapServerMaxConcurrentJobs();
+
     int getOlapClientRetries();
 
     int getTimestampClientWaitTime();
@@ -209,10 +219,28 @@ public interface SConfiguration {
 
     long getBroadcastDatasetCostThreshold();
 
+    long getBroadcastFallbackRowThreshold();
+
+    long getBroadcastFallbackMBThreshold();
+
+    double getBroadcastRuntimeFilterFpp();
+
     long getOptimizerPlanMaximumTimeout();
 
     long getOptimizerPlanMinimumTimeout();
 
+    int getOptimizerJoinEnumerationDPThreshold();
+
+    int getOptimizerJoinEnumerationGreedyThreshold();
+
+    int getControlScanParallelism();
+
+    int getControlScanQueueSize();
+
+    int getVectorizedBatchSize();
+
+    int getJdbcVtiFetchParallelism();
+
     String getNetworkBindAddress();
 
     String getUpgradeForcedFrom();
@@ -221,6 +249,12 @@ public interface SConfiguration {
 
     int getNestedLoopJoinBatchSize();
 
+    boolean getNestedLoopJoinBatchedKeyLookups();
+
+    long getResultCacheMaxRows();
+
+    int getResultCacheMaxEntryRows();
+
     // StatsConfiguration
     double getFallbackNullFraction();
 
@@ -253,6 +287,12 @@ public interface SConfiguration {
 
     long getTableSplitSleepInterval();
 
+    String getMemDurableDirectory();
+
+    long getMemSnapshotInterval();
+
+    long getScanPrefetchMemory();
+
     /**
      * Dump splice configuration, including hadoop config, to the log.
      */
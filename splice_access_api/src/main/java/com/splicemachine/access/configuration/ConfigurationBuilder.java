@@ -28,6 +28,8 @@ public class ConfigurationBuilder {
     public int activeTransactionCacheSize;
     public int completedTxnCacheSize;
     public int completedTxnConcurrency;
+    public boolean hybridLogicalClockEnabled;
+    public long readOnlySnapshotStaleness;
     public int readResolverQueueSize;
     public int readResolverThreads;
     public int timestampClientWaitTime;
@@ -44,6 +46,7 @@ public class ConfigurationBuilder {
     // DDLConfiguration
     public long ddlDrainingInitialWait;
     public long ddlDrainingMaximumWait;
+    public String bulkIndexDirectory;
     public long ddlRefreshInterval;
     public long maxDdlWait;
 
@@ -76,6 +79,9 @@ public class ConfigurationBuilder {
     public int splitBlockSize;
     public long regionMaxFileSize;
     public long tableSplitSleepInterval;
+    public String memDurableDirectory;
+    public long memSnapshotInterval;
+    public long scanPrefetchMemory;
 
     // HConfiguration
     public int regionServerHandlerCount;
@@ -106,18 +112,31 @@ public class ConfigurationBuilder {
     public int olapClientTickTime;
     public int olapServerBindPort;
     public int olapServerThreads;
+    public int olapServerMaxConcurrentJobs;
     public int olapServerTickLimit;
     public int partitionserverJmxPort;
     public int partitionserverPort;
     public long broadcastRegionMbThreshold;
     public long broadcastRegionRowThreshold;
     public long broadcastDatasetCostThreshold;
+    public long broadcastFallbackRowThreshold;
+    public long broadcastFallbackMBThreshold;
+    public double broadcastRuntimeFilterFpp;
     public long optimizerPlanMaximumTimeout;
     public long optimizerPlanMinimumTimeout;
+    public int optimizerJoinEnumerationDPThreshold;
+    public int optimizerJoinEnumerationGreedyThreshold;
+    public int controlScanParallelism;
+    public int controlScanQueueSize;
+    public int vectorizedBatchSize;
+    public int jdbcVtiFetchParallelism;
     public String networkBindAddress;
     public String upgradeForcedFrom;
     public String storageFactoryHome;
     public int nestedLoopJoinBatchSize;
+    public boolean nestedLoopJoinBatchedKeyLookups;
+    public long resultCacheMaxRows;
+    public int resultCacheMaxEntryRows;
 
     // PipelineConfiguration
     public int coreWriterThreads;
@@ -125,6 +144,7 @@ public class ConfigurationBuilder {
     public int maxBufferEntries;
     public int maxDependentWrites;
     public int maxIndependentWrites;
+    public int minCreditWindow;
     public int maxRetries;
     public int maxWriterThreads;
     public int pipelineKryoPoolSize;
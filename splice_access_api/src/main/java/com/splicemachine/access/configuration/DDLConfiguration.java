@@ -51,12 +51,24 @@ public class DDLConfiguration implements ConfigurationDefault {
     public static final String DDL_DRAINING_MAXIMUM_WAIT = "splice.ddl.drainingWait.maximum";
     private static final long DEFAULT_DDL_DRAINING_MAXIMUM_WAIT = 100000;
 
+    /**
+     * Directory (on the cluster file system) in which CREATE INDEX stages the HFiles it bulk loads into a new index.
+     * The files are removed once they are loaded.
+     *
+     * When unset, indexes are populated through the regular write pipeline instead.
+     *
+     * Defaults to null
+     */
+    public static final String BULK_INDEX_DIRECTORY = "splice.ddl.bulkIndexDirectory";
+    private static final String DEFAULT_BULK_INDEX_DIRECTORY = null;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.maxDdlWait = configurationSource.getLong(MAX_DDL_WAIT, DEFAULT_MAX_DDL_WAIT);
         builder.ddlRefreshInterval = configurationSource.getLong(DDL_REFRESH_INTERVAL, DEFAULT_DDL_REFRESH_INTERVAL);
         builder.ddlDrainingInitialWait = configurationSource.getLong(DDL_DRAINING_INITIAL_WAIT, DEFAULT_DDL_DRAINING_INITIAL_WAIT);
         builder.ddlDrainingMaximumWait = configurationSource.getLong(DDL_DRAINING_MAXIMUM_WAIT, DEFAULT_DDL_DRAINING_MAXIMUM_WAIT);
+        builder.bulkIndexDirectory = configurationSource.getString(BULK_INDEX_DIRECTORY, DEFAULT_BULK_INDEX_DIRECTORY);
     }
 
 }
@@ -52,6 +52,12 @@ public class HBaseConfiguration implements ConfigurationDefault {
      */
     public static final String SNOWFLAKE_PATH = "/splice_snowflake";
 
+    /**
+     * Path in Zookeeper for claiming the node ids of hybrid logical clocks, when splice.txn.hlc.enabled.
+     * Created on first use, so that the clock may be switched on for an existing database.
+     */
+    public static final String HLC_NODE_ID_PATH = "/hlc_node_ids";
+
     /**
      * Path in Zookeeper for coordinating booking tasks in Spark
      */
@@ -150,6 +150,17 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String MAX_DEPENDENT_WRITES = "splice.client.write.maxDependentWrites";
     public static final int DEFAULT_MAX_DEPENDENT_WRITES = 40000;
 
+    /**
+     * The smallest number of rows a client keeps in flight to any one server when pacing its writes by the credits
+     * that server advertises. A client's window grows by this much after each write the server had room for,
+     * and halves whenever the server runs short of credits. 0 turns pacing off, so writes are only held back by
+     * the server rejecting them.
+     *
+     * Defaults to 1000
+     */
+    public static final String MIN_CREDIT_WINDOW = "splice.client.write.minCreditWindow";
+    public static final int DEFAULT_MIN_CREDIT_WINDOW = 1000;
+
     public static final String IPC_THREADS="hbase.regionserver.handler.count";
     public static final int DEFAULT_IPC_THREADS = 200;
 
@@ -171,6 +182,7 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.ipcThreads = configurationSource.getInt(IPC_THREADS, DEFAULT_IPC_THREADS);
         builder.maxIndependentWrites = configurationSource.getInt(MAX_INDEPENDENT_WRITES, DEFAULT_MAX_INDEPENDENT_WRITES);
         builder.maxDependentWrites = configurationSource.getInt(MAX_DEPENDENT_WRITES, DEFAULT_MAX_DEPENDENT_WRITES);
+        builder.minCreditWindow = configurationSource.getInt(MIN_CREDIT_WINDOW, DEFAULT_MIN_CREDIT_WINDOW);
         builder.coreWriterThreads = configurationSource.getInt(CORE_WRITER_THREADS, DEFAULT_WRITE_THREADS_CORE);
         builder.maxWriterThreads = configurationSource.getInt(MAX_WRITER_THREADS, DEFAULT_MAX_WRITER_THREADS);
         builder.writeMaxFlushesPerRegion = configurationSource.getInt(WRITE_MAX_FLUSHES_PER_REGION, WRITE_DEFAULT_MAX_FLUSHES_PER_REGION);
@@ -60,6 +60,7 @@ public final class SConfigurationImpl implements SConfiguration {
     // DDLConfiguration
     private final  long ddlDrainingInitialWait;
     private final  long ddlDrainingMaximumWait;
+    private final String bulkIndexDirectory;
     private final  long ddlRefreshInterval;
     private final  long maxDdlWait;
 
@@ -85,6 +86,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int maxBufferEntries;
     private final  int maxDependentWrites;
     private final  int maxIndependentWrites;
+    private final  int minCreditWindow;
     private final  int maxRetries;
     private final  int maxWriterThreads;
     private final  int pipelineKryoPoolSize;
@@ -108,6 +110,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final int olapClientTickTime;
     private final int olapServerBindPort;
     private final int olapServerThreads;
+    private final int olapServerMaxConcurrentJobs;
     private final int olapServerTickLimit;
     private final int olapClientRetries;
 
@@ -115,6 +118,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int activeTransactionCacheSize;
     private final  int completedTxnCacheSize;
     private final  int completedTxnConcurrency;
+    private final  boolean hybridLogicalClockEnabled;
+    private final  long readOnlySnapshotStaleness;
     private final  int readResolverQueueSize;
     private final  int readResolverThreads;
     private final  int timestampClientWaitTime;
@@ -142,12 +147,24 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long broadcastRegionMbThreshold;
     private final  long broadcastRegionRowThreshold;
     private final  long broadcastDatasetCostThreshold;
+    private final  long broadcastFallbackRowThreshold;
+    private final  long broadcastFallbackMBThreshold;
+    private final  double broadcastRuntimeFilterFpp;
     private final  long optimizerPlanMaximumTimeout;
     private final  long optimizerPlanMinimumTimeout;
+    private final int optimizerJoinEnumerationDPThreshold;
+    private final int optimizerJoinEnumerationGreedyThreshold;
+    private final int controlScanParallelism;
+    private final int controlScanQueueSize;
+    private final int vectorizedBatchSize;
+    private final int jdbcVtiFetchParallelism;
     private final  String networkBindAddress;
     private final  String upgradeForcedFrom;
     private final String storageFactoryHome;
     private final int nestedLoopJoinBatchSize;
+    private final boolean nestedLoopJoinBatchedKeyLookups;
+    private final long resultCacheMaxRows;
+    private final int resultCacheMaxEntryRows;
     private final long controlExecutionRowLimit;
 
     // StatsConfiguration
@@ -168,6 +185,9 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int splitBlockSize;
     private final  long regionMaxFileSize;
     private final  long tableSplitSleepInterval;
+    private final String memDurableDirectory;
+    private final long memSnapshotInterval;
+    private final long scanPrefetchMemory;
 
     // Gateway to hadoop config
     private final ConfigurationSource configSource;
@@ -236,6 +256,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return ddlDrainingMaximumWait;
     }
     @Override
+    public String getBulkIndexDirectory() {
+        return bulkIndexDirectory;
+    }
+    @Override
     public long getDdlRefreshInterval() {
         return ddlRefreshInterval;
     }
@@ -319,6 +343,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return maxIndependentWrites;
     }
     @Override
+    public int getMinCreditWindow() {
+        return minCreditWindow;
+    }
+    @Override
     public int getMaxRetries() {
         return maxRetries;
     }
@@ -394,6 +422,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return completedTxnConcurrency;
     }
     @Override
+    public boolean getHybridLogicalClockEnabled() {
+        return hybridLogicalClockEnabled;
+    }
+    @Override
+    public long getReadOnlySnapshotStaleness() {
+        return readOnlySnapshotStaleness;
+    }
+    @Override
     public int getReadResolverQueueSize() {
         return readResolverQueueSize;
     }
@@ -418,6 +454,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return olapServerThreads;
     }
     @Override
+    public int getOlapServerMaxConcurrentJobs() {
+        return olapServerMaxConcurrentJobs;
+    }
+    @Override
     public int getOlapClientRetries() {
         return olapClientRetries;
     }
@@ -516,6 +556,18 @@ public final class SConfigurationImpl implements SConfiguration {
         return broadcastDatasetCostThreshold;
     }
     @Override
+    public long getBroadcastFallbackRowThreshold() {
+        return broadcastFallbackRowThreshold;
+    }
+    @Override
+    public long getBroadcastFallbackMBThreshold() {
+        return broadcastFallbackMBThreshold;
+    }
+    @Override
+    public double getBroadcastRuntimeFilterFpp() {
+        return broadcastRuntimeFilterFpp;
+    }
+    @Override
     public long getOptimizerPlanMaximumTimeout() {
         return optimizerPlanMaximumTimeout;
     }
@@ -524,6 +576,30 @@ public final class SConfigurationImpl implements SConfiguration {
         return optimizerPlanMinimumTimeout;
     }
     @Override
+    public int getOptimizerJoinEnumerationDPThreshold() {
+        return optimizerJoinEnumerationDPThreshold;
+    }
+    @Override
+    public int getOptimizerJoinEnumerationGreedyThreshold() {
+        return optimizerJoinEnumerationGreedyThreshold;
+    }
+    @Override
+    public int getControlScanParallelism() {
+        return controlScanParallelism;
+    }
+    @Override
+    public int getControlScanQueueSize() {
+        return controlScanQueueSize;
+    }
+    @Override
+    public int getVectorizedBatchSize() {
+        return vectorizedBatchSize;
+    }
+    @Override
+    public int getJdbcVtiFetchParallelism() {
+        return jdbcVtiFetchParallelism;
+    }
+    @Override
     public String getNetworkBindAddress() {
         return networkBindAddress;
     }
@@ -535,6 +611,18 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getNestedLoopJoinBatchSize() {
         return nestedLoopJoinBatchSize;
     }
+    @Override
+    public boolean getNestedLoopJoinBatchedKeyLookups() {
+        return nestedLoopJoinBatchedKeyLookups;
+    }
+    @Override
+    public long getResultCacheMaxRows() {
+        return resultCacheMaxRows;
+    }
+    @Override
+    public int getResultCacheMaxEntryRows() {
+        return resultCacheMaxEntryRows;
+    }
 
     // StatsConfiguration
     @Override
@@ -601,6 +689,18 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTableSplitSleepInterval() {
         return tableSplitSleepInterval;
     }
+    @Override
+    public String getMemDurableDirectory() {
+        return memDurableDirectory;
+    }
+    @Override
+    public long getMemSnapshotInterval() {
+        return memSnapshotInterval;
+    }
+    @Override
+    public long getScanPrefetchMemory() {
+        return scanPrefetchMemory;
+    }
 
     // ===========
 
@@ -621,6 +721,8 @@ public final class SConfigurationImpl implements SConfiguration {
         activeTransactionCacheSize = builder.activeTransactionCacheSize;
         completedTxnCacheSize = builder.completedTxnCacheSize;
         completedTxnConcurrency = builder.completedTxnConcurrency;
+        hybridLogicalClockEnabled = builder.hybridLogicalClockEnabled;
+        readOnlySnapshotStaleness = builder.readOnlySnapshotStaleness;
         readResolverQueueSize = builder.readResolverQueueSize;
         readResolverThreads = builder.readResolverThreads;
         timestampClientWaitTime = builder.timestampClientWaitTime;
@@ -633,6 +735,7 @@ public final class SConfigurationImpl implements SConfiguration {
         threadPoolMaxSize = builder.threadPoolMaxSize;
         ddlDrainingInitialWait = builder.ddlDrainingInitialWait;
         ddlDrainingMaximumWait = builder.ddlDrainingMaximumWait;
+        bulkIndexDirectory = builder.bulkIndexDirectory;
         ddlRefreshInterval = builder.ddlRefreshInterval;
         maxDdlWait = builder.maxDdlWait;
         authenticationNativeCreateCredentialsDatabase = builder.authenticationNativeCreateCredentialsDatabase;
@@ -658,6 +761,9 @@ public final class SConfigurationImpl implements SConfiguration {
         splitBlockSize = builder.splitBlockSize;
         regionMaxFileSize = builder.regionMaxFileSize;
         tableSplitSleepInterval = builder.tableSplitSleepInterval;
+        memDurableDirectory = builder.memDurableDirectory;
+        memSnapshotInterval = builder.memSnapshotInterval;
+        scanPrefetchMemory = builder.scanPrefetchMemory;
         regionServerHandlerCount = builder.regionServerHandlerCount;
         timestampBlockSize = builder.timestampBlockSize;
         regionLoadUpdateInterval = builder.regionLoadUpdateInterval;
@@ -684,8 +790,17 @@ public final class SConfigurationImpl implements SConfiguration {
         broadcastRegionMbThreshold = builder.broadcastRegionMbThreshold;
         broadcastRegionRowThreshold = builder.broadcastRegionRowThreshold;
         broadcastDatasetCostThreshold = builder.broadcastDatasetCostThreshold;
+        broadcastFallbackRowThreshold = builder.broadcastFallbackRowThreshold;
+        broadcastFallbackMBThreshold = builder.broadcastFallbackMBThreshold;
+        broadcastRuntimeFilterFpp = builder.broadcastRuntimeFilterFpp;
         optimizerPlanMaximumTimeout = builder.optimizerPlanMaximumTimeout;
         optimizerPlanMinimumTimeout = builder.optimizerPlanMinimumTimeout;
+        optimizerJoinEnumerationDPThreshold = builder.optimizerJoinEnumerationDPThreshold;
+        optimizerJoinEnumerationGreedyThreshold = builder.optimizerJoinEnumerationGreedyThreshold;
+        controlScanParallelism = builder.controlScanParallelism;
+        controlScanQueueSize = builder.controlScanQueueSize;
+        vectorizedBatchSize = builder.vectorizedBatchSize;
+        jdbcVtiFetchParallelism = builder.jdbcVtiFetchParallelism;
         networkBindAddress = builder.networkBindAddress;
         upgradeForcedFrom = builder.upgradeForcedFrom;
         coreWriterThreads = builder.coreWriterThreads;
@@ -693,6 +808,7 @@ public final class SConfigurationImpl implements SConfiguration {
         maxBufferEntries = builder.maxBufferEntries;
         maxDependentWrites = builder.maxDependentWrites;
         maxIndependentWrites = builder.maxIndependentWrites;
+        minCreditWindow = builder.minCreditWindow;
         maxRetries = builder.maxRetries;
         maxWriterThreads = builder.maxWriterThreads;
         pipelineKryoPoolSize = builder.pipelineKryoPoolSize;
@@ -708,6 +824,7 @@ public final class SConfigurationImpl implements SConfiguration {
         olapClientTickTime = builder.olapClientTickTime;
         olapServerBindPort = builder.olapServerBindPort;
         olapServerThreads = builder.olapServerThreads;
+        olapServerMaxConcurrentJobs = builder.olapServerMaxConcurrentJobs;
         olapServerTickLimit = builder.olapServerTickLimit;
         olapClientRetries = builder.olapClientRetries;
         sparkResultStreamingBatches = builder.sparkResultStreamingBatches;
@@ -717,6 +834,9 @@ public final class SConfigurationImpl implements SConfiguration {
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
         nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
+        nestedLoopJoinBatchedKeyLookups = builder.nestedLoopJoinBatchedKeyLookups;
+        resultCacheMaxRows = builder.resultCacheMaxRows;
+        resultCacheMaxEntryRows = builder.resultCacheMaxEntryRows;
         controlExecutionRowLimit = builder.controlExecutionRowLimit;
         bulkImportSampleFraction = builder.bulkImportSampleFraction;
         bulkImportTasksPerRegion = builder.bulkImportTasksPerRegion;
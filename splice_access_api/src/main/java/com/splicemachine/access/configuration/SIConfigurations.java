@@ -142,6 +142,33 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String OLAP_SERVER_THREADS = "splice.olap_server.threads";
     private static final int DEFAULT_OLAP_SERVER_THREADS = 16;
 
+    /**
+     * Prefix of the properties defining the resource groups Olap jobs are admitted in. Each group is
+     * configured with properties named splice.olap_server.resourceGroup.[group].[property], where the
+     * property is one of
+     *
+     * members: comma separated users and roles whose jobs run in the group
+     * maxConcurrentJobs: number of jobs of the group which may run at the same time
+     * memoryBudget: memory (in MB) the running jobs of the group may use at the same time
+     * jobMemory: memory (in MB) each job of the group is expected to use
+     * priority: jobs of groups with a higher priority are admitted first
+     * queueTimeout: milliseconds a job may wait to be admitted before failing, 0 to wait forever
+     *
+     * Jobs of users who aren't a member of any group run in the group named "default", which is
+     * unbounded unless configured otherwise. System jobs, such as compactions, run on behalf of no user
+     * and are never queued.
+     */
+    public static final String OLAP_SERVER_RESOURCE_GROUP_PREFIX = "splice.olap_server.resourceGroup.";
+
+    /**
+     * Number of user jobs which may run on the Olap server at the same time, whatever their resource group.
+     * Jobs beyond it are queued until a running job finishes. System jobs don't count against it.
+     *
+     * Defaults to 0 (unlimited).
+     */
+    public static final String OLAP_SERVER_MAX_CONCURRENT_JOBS = "splice.olap_server.maxConcurrentJobs";
+    private static final int DEFAULT_OLAP_SERVER_MAX_CONCURRENT_JOBS = 0;
+
     public static final String OLAP_SERVER_TICK_LIMIT = "splice.olap_server.tickLimit";
     private static final int DEFAULT_OLAP_SERVER_TICK_LIMIT = 120;
 
@@ -151,6 +178,35 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
+    /**
+     * Whether each server generates transaction timestamps from its own hybrid logical clock, rather than
+     * fetching them from the timestamp server. Clock values are exchanged on write, transaction and OLAP
+     * requests, so a transaction begun after a server has heard of a commit sees that commit; two servers which
+     * haven't communicated are only ordered up to the skew between their clocks.
+     *
+     * Clock timestamps are always greater than those the timestamp server hands out, so an existing database may
+     * be switched to clock timestamps, but not back again.
+     *
+     * Every JVM which begins transactions (region servers, the master, the olap server and spark executors) claims
+     * its own node id (0-255) from ZooKeeper at startup, and refuses to start if all are taken, so at most 256 of
+     * them may run at once.
+     *
+     * Defaults to false
+     */
+    public static final String HYBRID_LOGICAL_CLOCK_ENABLED = "splice.txn.hlc.enabled";
+    private static final boolean DEFAULT_HYBRID_LOGICAL_CLOCK_ENABLED = false;
+
+    /**
+     * How old (in milliseconds) a timestamp may be and still be reused as the begin timestamp of a new read-only
+     * transaction, instead of fetching a fresh one from the timestamp server. A read-only transaction may then miss
+     * commits made on other servers up to this long ago, but never one made on its own server. 0 turns the reuse
+     * off, so every read-only transaction fetches its own timestamp.
+     *
+     * Defaults to 0
+     */
+    public static final String READ_ONLY_SNAPSHOT_STALENESS = "splice.txn.readOnly.snapshotStaleness";
+    private static final long DEFAULT_READ_ONLY_SNAPSHOT_STALENESS = 0L;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -162,10 +218,13 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.timestampClientWaitTime  = configurationSource.getInt(TIMESTAMP_CLIENT_WAIT_TIME, DEFAULT_TIMESTAMP_CLIENT_WAIT_TIME);
         builder.timestampServerBindPort  = configurationSource.getInt(TIMESTAMP_SERVER_BIND_PORT, DEFAULT_TIMESTAMP_SERVER_BIND_PORT);
         builder.activeTransactionCacheSize  = configurationSource.getInt(ACTIVE_TRANSACTION_CACHE_SIZE, DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE);
+        builder.hybridLogicalClockEnabled  = configurationSource.getBoolean(HYBRID_LOGICAL_CLOCK_ENABLED, DEFAULT_HYBRID_LOGICAL_CLOCK_ENABLED);
+        builder.readOnlySnapshotStaleness  = configurationSource.getLong(READ_ONLY_SNAPSHOT_STALENESS, DEFAULT_READ_ONLY_SNAPSHOT_STALENESS);
         builder.olapServerBindPort  = configurationSource.getInt(OLAP_SERVER_BIND_PORT, DEFAULT_OLAP_SERVER_BIND_PORT);
         builder.olapClientWaitTime  = configurationSource.getInt(OLAP_CLIENT_WAIT_TIME, DEFAULT_OLAP_CLIENT_WAIT_TIME);
         builder.olapClientTickTime  = configurationSource.getInt(OLAP_CLIENT_TICK_TIME, DEFAULT_OLAP_CLIENT_TICK_TIME);
         builder.olapServerThreads = configurationSource.getInt(OLAP_SERVER_THREADS, DEFAULT_OLAP_SERVER_THREADS);
+        builder.olapServerMaxConcurrentJobs = configurationSource.getInt(OLAP_SERVER_MAX_CONCURRENT_JOBS, DEFAULT_OLAP_SERVER_MAX_CONCURRENT_JOBS);
         builder.olapServerTickLimit = configurationSource.getInt(OLAP_SERVER_TICK_LIMIT,DEFAULT_OLAP_SERVER_TICK_LIMIT);
         builder.olapClientRetries = configurationSource.getInt(OLAP_CLIENT_RETRIES,DEFAULT_OLAP_CLIENT_RETRIES);
 
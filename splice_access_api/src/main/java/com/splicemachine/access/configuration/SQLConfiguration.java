@@ -210,9 +210,123 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String NESTEDLOOPJOIN_BATCH_SIZE = "splice.nestedLoopJoin.batchSize";
     private static final int DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE = 10;
 
+    /**
+     * Whether a nested loop join whose inner side is a keyed table or index scan reads the inner rows for a
+     * whole batch of outer rows with one scan, which seeks from one key range to the next, rather than with
+     * one scan per outer row.
+     *
+     * Defaults to true
+     */
+    public static final String NESTEDLOOPJOIN_BATCHED_KEY_LOOKUPS = "splice.nestedLoopJoin.batchedKeyLookups";
+    private static final boolean DEFAULT_NESTEDLOOPJOIN_BATCHED_KEY_LOOKUPS = true;
+
+    /**
+     * Maximum number of rows kept, over all entries, by the cache of query results. Queries whose results only
+     * depend on the tables they read and on their parameters serve identical executions from the cache until
+     * one of those tables is written to.
+     *
+     * The writes are tracked by the write pipeline of each server, so the cache turns itself off once the
+     * cluster has more than one server. Writes which bypass the write pipeline, like bulk imports from HFiles,
+     * aren't seen at all, so only enable the cache when the cached tables are written through the write pipeline.
+     *
+     * Defaults to 0, which disables the cache
+     */
+    public static final String RESULT_CACHE_MAX_ROWS = "splice.execution.resultCache.maxRows";
+    private static final long DEFAULT_RESULT_CACHE_MAX_ROWS = 0;
+
+    /**
+     * Maximum number of rows returned by a query for its results to be cached.
+     *
+     * Defaults to 10000
+     */
+    public static final String RESULT_CACHE_MAX_ENTRY_ROWS = "splice.execution.resultCache.maxEntryRows";
+    private static final int DEFAULT_RESULT_CACHE_MAX_ENTRY_ROWS = 10000;
+
     public static final String CONTROL_EXECUTION_ROWS_LIMIT = "splice.controlExecution.rowsLimit";
     private static final int DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT = 1000000;
 
+    /**
+     * Minimum number of tables in a FROM list for which the optimizer picks the join order
+     * with dynamic programming over connected subsets of the join graph, instead of walking
+     * the join order permutations until it times out. Sessions can override it with the
+     * joinOrderEnumeration connection attribute (auto, permutation, dp or greedy).
+     *
+     * Defaults to 12
+     */
+    public static final String OPTIMIZER_JOIN_ENUMERATION_DP_THRESHOLD = "splice.optimizer.joinEnumeration.dpThreshold";
+    private static final int DEFAULT_OPTIMIZER_JOIN_ENUMERATION_DP_THRESHOLD = 12;
+
+    /**
+     * Number of tables in a FROM list above which dynamic programming gets too expensive and
+     * the optimizer picks the join order greedily instead.
+     *
+     * Defaults to 18
+     */
+    public static final String OPTIMIZER_JOIN_ENUMERATION_GREEDY_THRESHOLD = "splice.optimizer.joinEnumeration.greedyThreshold";
+    private static final int DEFAULT_OPTIMIZER_JOIN_ENUMERATION_GREEDY_THRESHOLD = 18;
+
+    /**
+     * Number of rows loaded into the in-memory table of a broadcast join beyond which the join gives up
+     * and is executed as a merge sort join instead.  Default is 5 Million Rows, 0 disables it. Sessions can
+     * override it with the broadcastFallbackRowThreshold connection attribute.
+     *
+     */
+    public static final String BROADCAST_FALLBACK_ROW_THRESHOLD = "splice.optimizer.broadcastFallbackRowThreshold";
+    private static final long DEFAULT_BROADCAST_FALLBACK_ROW_THRESHOLD = 5000000;
+
+    /**
+     * Size in MB of the in-memory table of a broadcast join beyond which the join gives up and is executed
+     * as a merge sort join instead.  Default is 1024 MB, 0 disables it
+     *
+     */
+    public static final String BROADCAST_FALLBACK_MB_THRESHOLD = "splice.optimizer.broadcastFallbackMBThreshold";
+    private static final long DEFAULT_BROADCAST_FALLBACK_MB_THRESHOLD = 1024;
+
+    /**
+     * False positive rate of the bloom filter built over the join keys of the in-memory table of a broadcast
+     * inner join, which the table scan feeding the other side of the join uses to drop the rows which can't
+     * find a match before they're passed on.  Default is 0.01, 0 disables the filter
+     *
+     */
+    public static final String BROADCAST_RUNTIME_FILTER_FPP = "splice.execution.broadcastRuntimeFilterFpp";
+    private static final double DEFAULT_BROADCAST_RUNTIME_FILTER_FPP = 0.01d;
+
+    /**
+     * Number of regions a table scan running in control mode reads concurrently. Sessions can override it with
+     * the controlScanParallelism connection attribute.
+     *
+     * Defaults to 1, which scans the regions one after the other
+     */
+    public static final String CONTROL_SCAN_PARALLELISM = "splice.controlExecution.scanParallelism";
+    private static final int DEFAULT_CONTROL_SCAN_PARALLELISM = 1;
+
+    /**
+     * Number of rows each concurrent region scan of a control mode table scan may read ahead of the
+     * consumer before it blocks.
+     *
+     * Defaults to 1024
+     */
+    public static final String CONTROL_SCAN_QUEUE_SIZE = "splice.controlExecution.scanQueueSize";
+    private static final int DEFAULT_CONTROL_SCAN_QUEUE_SIZE = 1024;
+
+    /**
+     * Maximum number of connections a partitioned JDBC table function opens to the remote database at once.
+     * Partitions beyond it are fetched as earlier ones complete.
+     *
+     * Defaults to 8
+     */
+    public static final String JDBC_VTI_FETCH_PARALLELISM = "splice.vti.jdbc.fetchParallelism";
+    private static final int DEFAULT_JDBC_VTI_FETCH_PARALLELISM = 8;
+
+    /**
+     * Number of rows scalar and grouped aggregates load into primitive column vectors before running their
+     * SUM/COUNT/MIN/MAX/AVG kernels over them, when all their aggregates support it.
+     *
+     * Defaults to 1024, 0 aggregates row by row
+     */
+    public static final String VECTORIZED_BATCH_SIZE = "splice.execution.vectorizedBatchSize";
+    private static final int DEFAULT_VECTORIZED_BATCH_SIZE = 1024;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -226,7 +340,10 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.partitionserverJmxPort = configurationSource.getInt(PARTITIONSERVER_JMX_PORT, DEFAULT_PARTITIONSERVER_JMX_PORT);
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
         builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
+        builder.nestedLoopJoinBatchedKeyLookups = configurationSource.getBoolean(NESTEDLOOPJOIN_BATCHED_KEY_LOOKUPS, DEFAULT_NESTEDLOOPJOIN_BATCHED_KEY_LOOKUPS);
         builder.controlExecutionRowLimit = configurationSource.getLong(CONTROL_EXECUTION_ROWS_LIMIT, DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT);
+        builder.resultCacheMaxRows = configurationSource.getLong(RESULT_CACHE_MAX_ROWS, DEFAULT_RESULT_CACHE_MAX_ROWS);
+        builder.resultCacheMaxEntryRows = configurationSource.getInt(RESULT_CACHE_MAX_ENTRY_ROWS, DEFAULT_RESULT_CACHE_MAX_ENTRY_ROWS);
 
         // Where to place jar files...
         String defaultStorageFactoryHome;
@@ -237,9 +354,18 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.storageFactoryHome = configurationSource.getString(STORAGE_FACTORY_HOME,defaultStorageFactoryHome);
         builder.optimizerPlanMaximumTimeout = configurationSource.getLong(OPTIMIZER_PLAN_MAXIMUM_TIMEOUT, DEFAULT_OPTIMIZER_PLAN_MAXIMUM_TIMEOUT);
         builder.optimizerPlanMinimumTimeout = configurationSource.getLong(OPTIMIZER_PLAN_MINIMUM_TIMEOUT, DEFAULT_OPTIMIZER_PLAN_MINIMUM_TIMEOUT);
+        builder.optimizerJoinEnumerationDPThreshold = configurationSource.getInt(OPTIMIZER_JOIN_ENUMERATION_DP_THRESHOLD, DEFAULT_OPTIMIZER_JOIN_ENUMERATION_DP_THRESHOLD);
+        builder.optimizerJoinEnumerationGreedyThreshold = configurationSource.getInt(OPTIMIZER_JOIN_ENUMERATION_GREEDY_THRESHOLD, DEFAULT_OPTIMIZER_JOIN_ENUMERATION_GREEDY_THRESHOLD);
+        builder.controlScanParallelism = configurationSource.getInt(CONTROL_SCAN_PARALLELISM, DEFAULT_CONTROL_SCAN_PARALLELISM);
+        builder.controlScanQueueSize = configurationSource.getInt(CONTROL_SCAN_QUEUE_SIZE, DEFAULT_CONTROL_SCAN_QUEUE_SIZE);
+        builder.vectorizedBatchSize = configurationSource.getInt(VECTORIZED_BATCH_SIZE, DEFAULT_VECTORIZED_BATCH_SIZE);
+        builder.jdbcVtiFetchParallelism = configurationSource.getInt(JDBC_VTI_FETCH_PARALLELISM, DEFAULT_JDBC_VTI_FETCH_PARALLELISM);
         builder.broadcastRegionMbThreshold = configurationSource.getLong(BROADCAST_REGION_MB_THRESHOLD, DEFAULT_BROADCAST_REGION_MB_THRESHOLD);
         builder.broadcastRegionRowThreshold = configurationSource.getLong(BROADCAST_REGION_ROW_THRESHOLD, DEFAULT_BROADCAST_REGION_ROW_THRESHOLD);
         builder.broadcastDatasetCostThreshold = configurationSource.getLong(BROADCAST_DATASET_COST_THRESHOLD, DEFAULT_BROADCAST_DATASET_COST_THRESHOLD);
+        builder.broadcastFallbackRowThreshold = configurationSource.getLong(BROADCAST_FALLBACK_ROW_THRESHOLD, DEFAULT_BROADCAST_FALLBACK_ROW_THRESHOLD);
+        builder.broadcastFallbackMBThreshold = configurationSource.getLong(BROADCAST_FALLBACK_MB_THRESHOLD, DEFAULT_BROADCAST_FALLBACK_MB_THRESHOLD);
+        builder.broadcastRuntimeFilterFpp = configurationSource.getDouble(BROADCAST_RUNTIME_FILTER_FPP, DEFAULT_BROADCAST_RUNTIME_FILTER_FPP);
 
         //always disable debug statements by default
         builder.debugLogStatementContext = configurationSource.getBoolean(DEBUG_LOG_STATEMENT_CONTEXT, DEFAULT_LOG_STATEMENT_CONTEXT);
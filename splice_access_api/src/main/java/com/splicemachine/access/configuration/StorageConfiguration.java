@@ -36,10 +36,42 @@ public class StorageConfiguration implements ConfigurationDefault {
     public static final String SPLIT_BLOCK_SIZE = "splice.splitBlockSize";
     public static final int DEFAULT_SPLIT_BLOCK_SIZE=32*1024*1024;
 
+    /**
+     * Directory in which the in-memory storage engine keeps its write-ahead logs and snapshots. When not set,
+     * the in-memory storage engine is not durable and loses all data on restart.
+     *
+     * Defaults to null (not durable).
+     */
+    public static final String MEM_DURABLE_DIRECTORY = "splice.mem.durableDirectory";
+    public static final String DEFAULT_MEM_DURABLE_DIRECTORY = null;
+
+    /**
+     * Interval(in milliseconds) between snapshots of a durable in-memory partition. A snapshot bounds the
+     * amount of write-ahead log which has to be replayed on restart, and allows older logs to be removed.
+     *
+     * Defaults to 60000 ms.
+     */
+    public static final String MEM_SNAPSHOT_INTERVAL = "splice.mem.snapshotInterval";
+    public static final long DEFAULT_MEM_SNAPSHOT_INTERVAL = 60000L;
+
+    /**
+     * Amount of memory(in bytes) a client side scanner may hold in rows fetched ahead of the caller. While the
+     * caller works through one batch of rows, the next is fetched in the background, and the size of the batches
+     * adapts to the size of the rows and to how fast the caller consumes them, within this bound. Set to 0 to
+     * fetch rows only when the caller asks for them.
+     *
+     * Defaults to 2 MB.
+     */
+    public static final String SCAN_PREFETCH_MEMORY = "splice.client.scan.prefetchMemory";
+    public static final long DEFAULT_SCAN_PREFETCH_MEMORY = 2*1024*1024L;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.splitBlockSize = configurationSource.getInt(SPLIT_BLOCK_SIZE, DEFAULT_SPLIT_BLOCK_SIZE);
 
         builder.tableSplitSleepInterval = configurationSource.getLong(TABLE_SPLIT_SLEEP_INTERVAL, DEFAULT_SPLIT_WAIT_INTERVAL);
+        builder.memDurableDirectory = configurationSource.getString(MEM_DURABLE_DIRECTORY, DEFAULT_MEM_DURABLE_DIRECTORY);
+        builder.memSnapshotInterval = configurationSource.getLong(MEM_SNAPSHOT_INTERVAL, DEFAULT_MEM_SNAPSHOT_INTERVAL);
+        builder.scanPrefetchMemory = configurationSource.getLong(SCAN_PREFETCH_MEMORY, DEFAULT_SCAN_PREFETCH_MEMORY);
     }
 }
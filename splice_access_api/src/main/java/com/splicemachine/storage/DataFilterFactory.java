@@ -14,6 +14,8 @@
 
 package com.splicemachine.storage;
 
+import java.util.List;
+
 /**
  * Factory for creating different DataFilters. Each architecture is expected to provide an architecture
  * specific version of this.
@@ -34,4 +36,14 @@ public interface DataFilterFactory{
     DataFilter singleColumnEqualsValueFilter(byte[] family,byte[] qualifier,byte[] value);
 
     DataFilter allocatedFilter(byte[] localAddress);
+
+    /**
+     * Filter rows based on whether or not their key falls within one of the specified ranges. The ranges
+     * must be sorted and must not overlap, and each range includes its start key but not its stop key.
+     *
+     * @param startKeys the start keys of the ranges, in ascending order
+     * @param stopKeys the stop keys of the ranges, in the same order as the start keys
+     * @return a DataFilter which skips the rows between the ranges.
+     */
+    DataFilter skippingScanFilter(List<byte[]> startKeys,List<byte[]> stopKeys);
 }
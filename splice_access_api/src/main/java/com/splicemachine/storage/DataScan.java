@@ -53,5 +53,11 @@ public interface DataScan extends Attributable{
 
     void returnAllVersions();
 
+    /**
+     * @return a scan with the same keys, filter, time range and attributes as this one, which can be
+     * modified without affecting this scan.
+     */
+    DataScan copy();
+
 
 }
@@ -78,12 +78,23 @@ public class ByteEntryAccumulator extends BaseEntryAccumulator<ByteEntryAccumula
     }
 
     public int getCurrentLength(int position){
-        if(position<0 || position>=fields.length) return 0;
+        if(fields==null || position<0 || position>=fields.length) return 0;
         ByteSlice slice = fields[position];
         if(slice==null) return 0;
         return slice.length();
     }
 
+    /**
+     * @return the bytes accumulated for {@code position} in the current row, or null if there are none. Unlike
+     * {@link #getCurrentLength(int)}, this isn't affected by how subclasses track what they decoded
+     */
+    public ByteSlice getAccumulatedField(int position){
+        if(fields==null || position<0 || position>=fields.length) return null;
+        ByteSlice slice = fields[position];
+        if(slice==null || slice.length()<=0) return null;
+        return slice;
+    }
+
     public ByteSlice getFieldSlice(int myField) {
         ByteSlice field = fields[myField];
         if(field.length()<=0) return null;
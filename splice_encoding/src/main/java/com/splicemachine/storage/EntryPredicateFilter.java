@@ -29,6 +29,7 @@ public class EntryPredicateFilter {
     public static final EntryPredicateFilter EMPTY_PREDICATE = new EntryPredicateFilter(new BitSet());
     private BitSet fieldsToReturn;
     private boolean returnIndex;
+    private ZonePredicate rowPredicate;
     public static EntryPredicateFilter emptyPredicate(){ return EMPTY_PREDICATE; }
 
     public EntryPredicateFilter(BitSet fieldsToReturn){
@@ -36,8 +37,17 @@ public class EntryPredicateFilter {
     }
 
     public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex){
+        this(fieldsToReturn, returnIndex, null);
+    }
+
+    /**
+     * @param rowPredicate the comparisons the accumulated fields of a row must pass for the row to be returned,
+     *                     or null to return every row. The columns it compares must be part of {@code fieldsToReturn}
+     */
+    public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex, ZonePredicate rowPredicate){
         this.fieldsToReturn = fieldsToReturn;
         this.returnIndex=returnIndex;
+        this.rowPredicate=rowPredicate==null||rowPredicate.isEmpty()?null:rowPredicate;
     }
 
 		public boolean match(Indexed index,
@@ -100,24 +110,55 @@ public class EntryPredicateFilter {
 
     }
 
+    /**
+     * @return false if the row {@code accumulator} holds the fields of fails the row predicate, and so can
+     * be dropped without being decoded
+     */
+    public boolean qualifies(EntryAccumulator accumulator){
+        if(rowPredicate==null || !(accumulator instanceof ByteEntryAccumulator))
+            return true;
+        return rowPredicate.mightMatch((ByteEntryAccumulator)accumulator);
+    }
+
+    public ZonePredicate getRowPredicate(){
+        return rowPredicate;
+    }
+
+    /**
+     * @return a filter returning the same fields as this one, for every row
+     */
+    public EntryPredicateFilter withoutRowPredicate(){
+        if(rowPredicate==null)
+            return this;
+        return new EntryPredicateFilter(fieldsToReturn,returnIndex);
+    }
+
     public EntryAccumulator newAccumulator() {
         return new ByteEntryAccumulator(this,returnIndex,fieldsToReturn);
     }
 
     public byte[] toBytes() {
         //if we dont have any distinguishing information, just send over an empty byte array
-        if(fieldsToReturn.isEmpty() && !returnIndex)
+        if(fieldsToReturn.isEmpty() && !returnIndex && rowPredicate==null)
             return new byte[]{};
 
         /*
          * Format is as follows:
          * BitSet bytes
          * 1-byte returnIndex
+         * row predicate bytes, if there is one
          */
         byte[] bitSetBytes = Bytes.toByteArray(fieldsToReturn);
-        byte[] finalData = new byte[bitSetBytes.length+1];
+        byte[] predicateBytes;
+        try{
+            predicateBytes = rowPredicate==null? new byte[]{}: rowPredicate.toBytes();
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+        byte[] finalData = new byte[bitSetBytes.length+1+predicateBytes.length];
         System.arraycopy(bitSetBytes,0,finalData,0,bitSetBytes.length);
         finalData[bitSetBytes.length] = returnIndex? (byte)0x01: 0x00;
+        System.arraycopy(predicateBytes,0,finalData,bitSetBytes.length+1,predicateBytes.length);
         return finalData;
     }
 
@@ -125,8 +166,10 @@ public class EntryPredicateFilter {
         if(data==null||data.length==0) return EMPTY_PREDICATE;
 
         Pair<BitSet,Integer> fieldsToReturn = Bytes.fromByteArray(data, 0);
-        boolean returnIndex = data[fieldsToReturn.getSecond()] > 0;
-        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex);
+        int returnIndexPos = fieldsToReturn.getSecond();
+        boolean returnIndex = data[returnIndexPos] > 0;
+        ZonePredicate rowPredicate = ZonePredicate.fromBytes(data,returnIndexPos+1,data.length-returnIndexPos-1);
+        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex,rowPredicate);
     }
 
     private void skipField(MultiFieldDecoder decoder, int position, Indexed index) {
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.index.BitIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The smallest and largest value of each scalar column (integers, dates, times and timestamps) among a set of
+ * packed rows, typically the rows of a store file, along with the number of rows which have no value for it.
+ *
+ * Scalar fields are encoded in an order-preserving way, so the bounds are kept as encoded bytes and compared
+ * without knowing the actual column types. Every cell counts as a row, including the cells of partial updates,
+ * so the bounds cover every version of every row and the null counts are upper bounds.
+ *
+ * @see ZonePredicate
+ */
+public class ZoneMap{
+    /** The store file metadata key of the zone map of a file */
+    public static final byte[] FILE_INFO_KEY=Bytes.toBytes("SPLICE_ZONE_MAP");
+
+    private static final byte VERSION=1;
+
+    private long rows;
+    private boolean valid=true;
+    private final IntObjectOpenHashMap<ColumnRange> columns;
+    private EntryDecoder entryDecoder;
+
+    public ZoneMap(){
+        this(new IntObjectOpenHashMap<ColumnRange>());
+    }
+
+    private ZoneMap(IntObjectOpenHashMap<ColumnRange> columns){
+        this.columns=columns;
+    }
+
+    /**
+     * Accounts for the packed row {@code value[offset,offset+length)}.
+     */
+    public void update(byte[] value,int offset,int length) throws IOException{
+        rows++;
+        if(length<=0)
+            return;
+        if(entryDecoder==null)
+            entryDecoder=new EntryDecoder();
+        entryDecoder.set(value,offset,length);
+        BitIndex index=entryDecoder.getCurrentIndex();
+        MultiFieldDecoder decoder=entryDecoder.getEntryDecoder();
+        int end=offset+length;
+        for(int position=index.nextSetBit(0);position>=0 && decoder.available();position=index.nextSetBit(position+1)){
+            int fieldOffset=decoder.offset();
+            entryDecoder.seekForward(decoder,position);
+            if(!index.isScalarType(position))
+                continue;
+            int fieldLength=Math.min(decoder.offset()-1,end)-fieldOffset;
+            if(fieldLength<=0)
+                continue;
+            ColumnRange range=columns.get(position);
+            if(range==null){
+                range=new ColumnRange();
+                columns.put(position,range);
+            }
+            range.update(value,fieldOffset,fieldLength);
+        }
+    }
+
+    /**
+     * Accounts for the rows of {@code other}, as if they had been added to this zone map.
+     */
+    public void merge(ZoneMap other){
+        rows+=other.rows;
+        for(IntObjectCursor<ColumnRange> c : other.columns){
+            ColumnRange range=columns.get(c.key);
+            if(range==null){
+                range=new ColumnRange();
+                columns.put(c.key,range);
+            }
+            range.merge(c.value);
+        }
+    }
+
+    public long getRows(){
+        return rows;
+    }
+
+    /**
+     * Marks the zone map as missing some rows, so it can't be relied upon.
+     */
+    public void invalidate(){
+        valid=false;
+    }
+
+    public boolean isValid(){
+        return valid;
+    }
+
+    /**
+     * @return the range of the values of the column, or null if no row has a value for it
+     */
+    public ColumnRange getColumn(int column){
+        return columns.get(column);
+    }
+
+    public byte[] toBytes() throws IOException{
+        ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+        DataOutputStream out=new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeLong(rows);
+        out.writeInt(columns.size());
+        for(IntObjectCursor<ColumnRange> c : columns){
+            out.writeInt(c.key);
+            out.writeLong(c.value.values);
+            writeBytes(out,c.value.min);
+            writeBytes(out,c.value.max);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static ZoneMap fromBytes(byte[] data) throws IOException{
+        DataInputStream in=new DataInputStream(new ByteArrayInputStream(data));
+        byte version=in.readByte();
+        if(version!=VERSION)
+            throw new IOException("Unknown zone map version "+version);
+        long rows=in.readLong();
+        int size=in.readInt();
+        IntObjectOpenHashMap<ColumnRange> columns=new IntObjectOpenHashMap<>(size);
+        for(int i=0;i<size;i++){
+            int column=in.readInt();
+            ColumnRange range=new ColumnRange();
+            range.values=in.readLong();
+            range.min=readBytes(in);
+            range.max=readBytes(in);
+            columns.put(column,range);
+        }
+        ZoneMap zoneMap=new ZoneMap(columns);
+        zoneMap.rows=rows;
+        return zoneMap;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb=new StringBuilder("ZoneMap{rows=").append(rows);
+        for(IntObjectCursor<ColumnRange> c : columns){
+            sb.append(", ").append(c.key).append("=").append(c.value);
+        }
+        return sb.append("}").toString();
+    }
+
+    /**
+     * The encoded bounds of the values of a column.
+     */
+    public static class ColumnRange{
+        private byte[] min;
+        private byte[] max;
+        private long values;
+
+        public byte[] getMin(){
+            return min;
+        }
+
+        public byte[] getMax(){
+            return max;
+        }
+
+        /**
+         * @return the number of rows which have a value for the column
+         */
+        public long getValues(){
+            return values;
+        }
+
+        void update(byte[] value,int offset,int length){
+            values++;
+            if(min==null || Bytes.basicByteComparator().compare(value,offset,length,min,0,min.length)<0)
+                min=Arrays.copyOfRange(value,offset,offset+length);
+            if(max==null || Bytes.basicByteComparator().compare(value,offset,length,max,0,max.length)>0)
+                max=Arrays.copyOfRange(value,offset,offset+length);
+        }
+
+        void merge(ColumnRange other){
+            values+=other.values;
+            if(min==null || Bytes.basicByteComparator().compare(other.min,min)<0)
+                min=other.min;
+            if(max==null || Bytes.basicByteComparator().compare(other.max,max)>0)
+                max=other.max;
+        }
+
+        @Override
+        public String toString(){
+            return "["+Bytes.toHex(min)+","+Bytes.toHex(max)+"]x"+values;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static void writeBytes(DataOutputStream out,byte[] bytes) throws IOException{
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException{
+        byte[] bytes=new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.ByteSlice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The part of the qualifiers of a scan which can be checked against a {@link ZoneMap}, or against the encoded
+ * fields of a single row, as a conjunction of disjunctions of comparisons between a scalar column and an encoded
+ * constant.
+ *
+ * The predicate is a necessary condition only: qualifiers which can't be expressed are left out, so a zone map
+ * or a row which doesn't match the predicate has no row matching the scan, but the reverse doesn't hold.
+ */
+public class ZonePredicate{
+    public static final byte LESS_THAN=1;
+    public static final byte LESS_OR_EQUALS=2;
+    public static final byte EQUALS=3;
+    public static final byte NOT_EQUALS=4;
+    public static final byte GREATER_OR_EQUALS=5;
+    public static final byte GREATER_THAN=6;
+
+    private final List<ColumnPredicate[]> clauses=new ArrayList<>();
+
+    /**
+     * Adds a clause, which holds when any of {@code predicates} holds.
+     */
+    public void addClause(ColumnPredicate... predicates){
+        clauses.add(predicates);
+    }
+
+    public List<ColumnPredicate[]> getClauses(){
+        return clauses;
+    }
+
+    public boolean isEmpty(){
+        return clauses.isEmpty();
+    }
+
+    /**
+     * @return false if no row accounted for by {@code zoneMap} can match the predicate
+     */
+    public boolean mightMatch(ZoneMap zoneMap){
+        for(ColumnPredicate[] clause : clauses){
+            boolean clauseMatches=false;
+            for(ColumnPredicate predicate : clause){
+                if(predicate.mightMatch(zoneMap)){
+                    clauseMatches=true;
+                    break;
+                }
+            }
+            if(!clauseMatches)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the row whose fields {@code row} accumulated can't match the predicate. A field the row has
+     * no value for can't be told apart from a column which isn't part of the packed row, so it matches anything
+     */
+    public boolean mightMatch(ByteEntryAccumulator row){
+        for(ColumnPredicate[] clause : clauses){
+            boolean clauseMatches=false;
+            for(ColumnPredicate predicate : clause){
+                if(predicate.mightMatch(row)){
+                    clauseMatches=true;
+                    break;
+                }
+            }
+            if(!clauseMatches)
+                return false;
+        }
+        return true;
+    }
+
+    public byte[] toBytes() throws IOException{
+        ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+        DataOutputStream out=new DataOutputStream(bytes);
+        out.writeInt(clauses.size());
+        for(ColumnPredicate[] clause : clauses){
+            out.writeInt(clause.length);
+            for(ColumnPredicate predicate : clause){
+                out.writeInt(predicate.column);
+                out.writeByte(predicate.operator);
+                out.writeBoolean(predicate.nullsMatch);
+                out.writeInt(predicate.value.length);
+                out.write(predicate.value);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static ZonePredicate fromBytes(byte[] data) throws IOException{
+        if(data==null)
+            return new ZonePredicate();
+        return fromBytes(data,0,data.length);
+    }
+
+    public static ZonePredicate fromBytes(byte[] data,int offset,int length) throws IOException{
+        ZonePredicate zonePredicate=new ZonePredicate();
+        if(length<=0)
+            return zonePredicate;
+        DataInputStream in=new DataInputStream(new ByteArrayInputStream(data,offset,length));
+        int numClauses=in.readInt();
+        for(int i=0;i<numClauses;i++){
+            ColumnPredicate[] clause=new ColumnPredicate[in.readInt()];
+            for(int j=0;j<clause.length;j++){
+                int column=in.readInt();
+                byte operator=in.readByte();
+                boolean nullsMatch=in.readBoolean();
+                byte[] value=new byte[in.readInt()];
+                in.readFully(value);
+                clause[j]=new ColumnPredicate(column,operator,value,nullsMatch);
+            }
+            zonePredicate.addClause(clause);
+        }
+        return zonePredicate;
+    }
+
+    /**
+     * A comparison between a scalar column and an encoded constant, {@code column operator value}.
+     */
+    public static class ColumnPredicate{
+        private final int column;
+        private final byte operator;
+        private final byte[] value;
+        private final boolean nullsMatch;
+
+        /**
+         * @param column the storage position of the column
+         * @param operator one of the comparison operators of {@link ZonePredicate}
+         * @param value the encoded constant
+         * @param nullsMatch whether a row with no value for the column matches
+         */
+        public ColumnPredicate(int column,byte operator,byte[] value,boolean nullsMatch){
+            assert operator>=LESS_THAN && operator<=GREATER_THAN: "Unknown operator "+operator;
+            this.column=column;
+            this.operator=operator;
+            this.value=value;
+            this.nullsMatch=nullsMatch;
+        }
+
+        public int getColumn(){
+            return column;
+        }
+
+        boolean mightMatch(ByteEntryAccumulator row){
+            ByteSlice field=row.getAccumulatedField(column);
+            if(field==null)
+                return true;
+            int compare=field.compareTo(value,0,value.length);
+            switch(operator){
+                case LESS_THAN:
+                    return compare<0;
+                case LESS_OR_EQUALS:
+                    return compare<=0;
+                case EQUALS:
+                    return compare==0;
+                case NOT_EQUALS:
+                    return compare!=0;
+                case GREATER_OR_EQUALS:
+                    return compare>=0;
+                default:
+                    return compare>0;
+            }
+        }
+
+        boolean mightMatch(ZoneMap zoneMap){
+            ZoneMap.ColumnRange range=zoneMap.getColumn(column);
+            if(range==null){
+                /*
+                 * Either no row has a value for the column, or the column isn't part of the packed row at
+                 * all, like the columns of the primary key, so nothing can be said
+                 */
+                return true;
+            }
+            if(nullsMatch && zoneMap.getRows()>range.getValues())
+                return true;
+            int minCompare=Bytes.basicByteComparator().compare(range.getMin(),value);
+            int maxCompare=Bytes.basicByteComparator().compare(range.getMax(),value);
+            switch(operator){
+                case LESS_THAN:
+                    return minCompare<0;
+                case LESS_OR_EQUALS:
+                    return minCompare<=0;
+                case EQUALS:
+                    return minCompare<=0 && maxCompare>=0;
+                case NOT_EQUALS:
+                    return minCompare!=0 || maxCompare!=0;
+                case GREATER_OR_EQUALS:
+                    return maxCompare>=0;
+                default:
+                    return maxCompare>0;
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@
 package com.splicemachine.storage;
 
 import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.storage.index.BitIndex;
 import com.splicemachine.storage.index.BitIndexing;
@@ -139,4 +140,42 @@ public class EntryPredicateFilterTest {
         Assert.assertEquals("Incorrect string returned!",testType1,decodedField);
         Assert.assertTrue("more than one field available in field decoder!",fieldDecoder.nextIsNull());
     }
+
+    @Test
+    public void testRowPredicateIsSerializedAndEvaluatedOnEncodedFields() throws Exception {
+        BitSet fieldsToReturn = new BitSet(2);
+        fieldsToReturn.set(0);
+        fieldsToReturn.set(1);
+        ZonePredicate rowPredicate = new ZonePredicate();
+        rowPredicate.addClause(new ZonePredicate.ColumnPredicate(0, ZonePredicate.EQUALS, Encoding.encode(5L), false),
+                new ZonePredicate.ColumnPredicate(0, ZonePredicate.GREATER_THAN, Encoding.encode(100L), false));
+
+        EntryPredicateFilter predicateFilter = EntryPredicateFilter.fromBytes(
+                new EntryPredicateFilter(fieldsToReturn, true, rowPredicate).toBytes());
+        Assert.assertNotNull("row predicate not serialized", predicateFilter.getRowPredicate());
+        Assert.assertNull("row predicate still serialized",
+                EntryPredicateFilter.fromBytes(predicateFilter.withoutRowPredicate().toBytes()).getRowPredicate());
+
+        Assert.assertTrue(qualifies(predicateFilter, 5L));
+        Assert.assertTrue(qualifies(predicateFilter, 101L));
+        Assert.assertFalse(qualifies(predicateFilter, 6L));
+        Assert.assertFalse(qualifies(predicateFilter, -5L));
+    }
+
+    private static boolean qualifies(EntryPredicateFilter predicateFilter, long scalar) throws Exception {
+        BitSet setCols = new BitSet(2);
+        setCols.set(0);
+        setCols.set(1);
+        BitSet scalarFields = new BitSet(2);
+        scalarFields.set(0);
+        BitIndex index = BitIndexing.getBestIndex(setCols, scalarFields, new BitSet(2), new BitSet(2));
+        EntryEncoder encoder = EntryEncoder.create(defaultPool, index);
+        encoder.getEntryEncoder().encodeNext(scalar).encodeNext("test");
+
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(encoder.encode());
+        EntryAccumulator accumulator = predicateFilter.newAccumulator();
+        Assert.assertTrue("did not match!", predicateFilter.match(decoder, accumulator));
+        return predicateFilter.qualifies(accumulator);
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.storage.index.BitIndexing;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZoneMapTest {
+    private static KryoPool defaultPool = new KryoPool(100);
+
+    @Test
+    public void testTracksScalarBoundsAndSkipsUntypedFields() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        update(zoneMap, row(10, "a"));
+        update(zoneMap, row(-5, "b"));
+        update(zoneMap, row(42, "c"));
+
+        Assert.assertEquals(3, zoneMap.getRows());
+        ZoneMap.ColumnRange range = zoneMap.getColumn(0);
+        Assert.assertNotNull("scalar column not tracked", range);
+        Assert.assertArrayEquals(Encoding.encode(-5L), range.getMin());
+        Assert.assertArrayEquals(Encoding.encode(42L), range.getMax());
+        Assert.assertEquals(3, range.getValues());
+        Assert.assertNull("untyped column tracked", zoneMap.getColumn(1));
+    }
+
+    @Test
+    public void testSerializationAndMerge() throws Exception {
+        ZoneMap first = new ZoneMap();
+        update(first, row(1, "a"));
+        ZoneMap second = new ZoneMap();
+        update(second, row(100, "b"));
+
+        ZoneMap merged = ZoneMap.fromBytes(first.toBytes());
+        merged.merge(ZoneMap.fromBytes(second.toBytes()));
+        Assert.assertEquals(2, merged.getRows());
+        Assert.assertArrayEquals(Encoding.encode(1L), merged.getColumn(0).getMin());
+        Assert.assertArrayEquals(Encoding.encode(100L), merged.getColumn(0).getMax());
+    }
+
+    @Test
+    public void testPredicateRulesOutDisjointRange() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        update(zoneMap, row(10, "a"));
+        update(zoneMap, row(20, "b"));
+
+        Assert.assertFalse(predicate(ZonePredicate.EQUALS, 5, false).mightMatch(zoneMap));
+        Assert.assertTrue(predicate(ZonePredicate.EQUALS, 15, false).mightMatch(zoneMap));
+        Assert.assertFalse(predicate(ZonePredicate.GREATER_THAN, 20, false).mightMatch(zoneMap));
+        Assert.assertTrue(predicate(ZonePredicate.GREATER_OR_EQUALS, 20, false).mightMatch(zoneMap));
+        Assert.assertFalse(predicate(ZonePredicate.LESS_THAN, 10, false).mightMatch(zoneMap));
+        Assert.assertTrue(predicate(ZonePredicate.NOT_EQUALS, 10, false).mightMatch(zoneMap));
+    }
+
+    @Test
+    public void testPredicateMatchesNullsAndUnknownColumns() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        update(zoneMap, row(10, "a"));
+        zoneMap.update(new byte[0], 0, 0);
+
+        Assert.assertFalse(predicate(ZonePredicate.EQUALS, 5, false).mightMatch(zoneMap));
+        Assert.assertTrue("row with no value ignored", predicate(ZonePredicate.EQUALS, 5, true).mightMatch(zoneMap));
+
+        ZonePredicate unknown = new ZonePredicate();
+        unknown.addClause(new ZonePredicate.ColumnPredicate(3, ZonePredicate.EQUALS, Encoding.encode(5L), false));
+        Assert.assertTrue("untracked column ruled out", unknown.mightMatch(zoneMap));
+    }
+
+    @Test
+    public void testPredicateClausesAreOrsAndedTogether() throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        update(zoneMap, row(10, "a"));
+
+        ZonePredicate predicate = new ZonePredicate();
+        predicate.addClause(new ZonePredicate.ColumnPredicate(0, ZonePredicate.EQUALS, Encoding.encode(5L), false),
+                new ZonePredicate.ColumnPredicate(0, ZonePredicate.EQUALS, Encoding.encode(10L), false));
+        Assert.assertTrue(ZonePredicate.fromBytes(predicate.toBytes()).mightMatch(zoneMap));
+
+        predicate.addClause(new ZonePredicate.ColumnPredicate(0, ZonePredicate.GREATER_THAN, Encoding.encode(10L), false));
+        Assert.assertFalse(ZonePredicate.fromBytes(predicate.toBytes()).mightMatch(zoneMap));
+        Assert.assertTrue(ZonePredicate.fromBytes(null).mightMatch(zoneMap));
+    }
+
+    private static ZonePredicate predicate(byte operator, long value, boolean nullsMatch) {
+        ZonePredicate predicate = new ZonePredicate();
+        predicate.addClause(new ZonePredicate.ColumnPredicate(0, operator, Encoding.encode(value), nullsMatch));
+        return predicate;
+    }
+
+    private static void update(ZoneMap zoneMap, byte[] row) throws Exception {
+        zoneMap.update(row, 0, row.length);
+    }
+
+    private static byte[] row(long scalar, String untyped) throws Exception {
+        BitSet setCols = new BitSet(2);
+        setCols.set(0);
+        setCols.set(1);
+        BitSet scalarFields = new BitSet(2);
+        scalarFields.set(0);
+        BitIndex index = BitIndexing.getBestIndex(setCols, scalarFields, new BitSet(2), new BitSet(2));
+        EntryEncoder encoder = EntryEncoder.create(defaultPool, index);
+        encoder.getEntryEncoder().encodeNext(scalar).encodeNext(untyped);
+        return encoder.encode();
+    }
+}
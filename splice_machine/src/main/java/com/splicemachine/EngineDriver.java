@@ -25,6 +25,7 @@ import com.splicemachine.derby.iapi.sql.PropertyManager;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.derby.iapi.sql.execute.OperationManager;
 import com.splicemachine.derby.iapi.sql.olap.OlapClient;
+import com.splicemachine.derby.impl.sql.execute.ResultCache;
 import com.splicemachine.derby.impl.sql.execute.sequence.SequenceKey;
 import com.splicemachine.derby.impl.sql.execute.sequence.SpliceSequence;
 import com.splicemachine.hbase.ManagedThreadPool;
@@ -56,6 +57,7 @@ public class EngineDriver{
     private final OperationManager operationManager;
     private final SqlEnvironment environment;
     private final ExecutorService threadPool;
+    private final ResultCache resultCache;
 
     public static void loadDriver(SqlEnvironment environment){
         INSTANCE=new EngineDriver(environment);
@@ -84,6 +86,7 @@ public class EngineDriver{
         this.exceptionFactory = environment.exceptionFactory();
         this.operationManager = environment.getOperationManager();
         this.dbAdmin = environment.databaseAdministrator();
+        this.resultCache = new ResultCache(config.getResultCacheMaxRows(),config.getResultCacheMaxEntryRows());
         this.sequencePool=CachedResourcePool.Builder.<SpliceSequence, SequenceKey>newBuilder()
                 .expireAfterAccess(1,TimeUnit.MINUTES)
                 .generator(new ResourcePool.Generator<SpliceSequence, SequenceKey>(){
@@ -171,4 +174,6 @@ public class EngineDriver{
     }
 
     public OperationManager getOperationManager() { return operationManager; }
+
+    public ResultCache getResultCache() { return resultCache; }
 }
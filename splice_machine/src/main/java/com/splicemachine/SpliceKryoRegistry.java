@@ -831,5 +831,8 @@ public class SpliceKryoRegistry implements KryoPool.KryoRegistry{
         instance.register(DistinctAggregateKeyCreation.class,EXTERNALIZABLE_SERIALIZER, 290);
         instance.register(MergeStatisticsHolder.class,EXTERNALIZABLE_SERIALIZER,291);
         instance.register(ColumnStatisticsMerge.class,EXTERNALIZABLE_SERIALIZER,292);
+        instance.register(ApproxCountDistinctAggregator.class,EXTERNALIZABLE_SERIALIZER,293);
+        instance.register(ApproxPercentileAggregator.class,EXTERNALIZABLE_SERIALIZER,294);
+        instance.register(ApproxTopKAggregator.class,EXTERNALIZABLE_SERIALIZER,295);
     }
 }
@@ -45,6 +45,21 @@ public abstract class DistributedJob implements Serializable{
         return getName() + "-" + uuid.toString();
     }
 
+    /**
+     * @return the user the job runs on behalf of, which determines the resource group it's admitted in,
+     * or null for system jobs
+     */
+    public String getUserId() {
+        return null;
+    }
+
+    /**
+     * @return the current role of the user the job runs on behalf of, or null if there is none
+     */
+    public String getRoleId() {
+        return null;
+    }
+
     public final void markSubmitted() {
         if (submitted) {
             throw new IllegalStateException("Job already submitted: " + toString());
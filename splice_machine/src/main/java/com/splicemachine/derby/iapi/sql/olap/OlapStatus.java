@@ -24,6 +24,7 @@ public interface OlapStatus{
     enum State{
         NOT_SUBMITTED,
         SUBMITTED,
+        QUEUED,
         RUNNING,
         CANCELED{
             @Override public boolean isFinal(){ return true; }
@@ -48,6 +49,13 @@ public interface OlapStatus{
 
     boolean markSubmitted();
 
+    /**
+     * Marks a submitted job as waiting for the server to admit it for execution
+     *
+     * @return false if the job isn't in the submitted state anymore
+     */
+    boolean markQueued();
+
     void markCompleted(OlapResult result);
 
     boolean markRunning();
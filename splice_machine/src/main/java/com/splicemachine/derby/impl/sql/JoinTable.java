@@ -16,6 +16,7 @@ package com.splicemachine.derby.impl.sql;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.hash.BloomFilter;
 
 import java.io.IOException;
 import java.util.Iterator;
@@ -28,6 +29,11 @@ public interface JoinTable extends AutoCloseable{
 
     interface Factory{
         JoinTable newTable();
+
+        /**
+         * @return a bloom filter over the encoded keys of the inner rows, or null if there isn't one
+         */
+        BloomFilter getKeyFilter();
     }
 
     Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException;
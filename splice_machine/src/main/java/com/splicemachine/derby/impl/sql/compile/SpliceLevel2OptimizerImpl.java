@@ -155,6 +155,8 @@ public class SpliceLevel2OptimizerImpl extends Level2OptimizerImpl{
 
     private final long minTimeout;
     private final long maxTimeout;
+    private final int dpJoinEnumerationThreshold;
+    private final int greedyJoinEnumerationThreshold;
     public SpliceLevel2OptimizerImpl(OptimizableList optimizableList,
                                      OptimizablePredicateList predicateList,
                                      DataDictionary dDictionary,
@@ -182,6 +184,8 @@ public class SpliceLevel2OptimizerImpl extends Level2OptimizerImpl{
         SConfiguration configuration=EngineDriver.driver().getConfiguration();
         this.minTimeout=configuration.getOptimizerPlanMinimumTimeout();
         this.maxTimeout=configuration.getOptimizerPlanMaximumTimeout();
+        this.dpJoinEnumerationThreshold=configuration.getOptimizerJoinEnumerationDPThreshold();
+        this.greedyJoinEnumerationThreshold=configuration.getOptimizerJoinEnumerationGreedyThreshold();
         tracer().trace(OptimizerFlag.STARTED,0,0,0.0,null);
     }
 
@@ -238,4 +242,18 @@ public class SpliceLevel2OptimizerImpl extends Level2OptimizerImpl{
     protected long getMaxTimeout() {
         return maxTimeout;
     }
+
+    /**
+     * Overridden to check splice configuration.
+     */
+    protected int getDPJoinEnumerationThreshold() {
+        return dpJoinEnumerationThreshold;
+    }
+
+    /**
+     * Overridden to check splice configuration.
+     */
+    protected int getGreedyJoinEnumerationThreshold() {
+        return greedyJoinEnumerationThreshold;
+    }
 }
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.access.api.PartitionAdmin;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.ParameterValueSet;
+import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.compile.CursorNode;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.ExplainOperation;
+import com.splicemachine.pipeline.ConglomerateWriteTracker;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.pipeline.PipelineDriver;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.driver.SIDriver;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+import org.spark_project.guava.cache.Weigher;
+
+import javax.management.MXBean;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the rows returned by queries, for queries which re-run with the same parameters against tables
+ * which rarely change.
+ *
+ * Results are cached by prepared statement, parameter values and the conglomerates the statement reads, and only
+ * for statements whose results depend on nothing else (see {@link ExecPreparedStatement#getReadConglomerates()}).
+ * Each entry remembers the write versions of those conglomerates, as tracked by the {@link ConglomerateWriteTracker},
+ * and is served again only while they haven't changed.
+ *
+ * An entry is stored only when no transaction which wrote to those conglomerates is still in flight, and when the
+ * transaction computing it saw all the committed ones; it is served only to transactions which see them all as
+ * well. Both transactions then see exactly the same rows.
+ *
+ * Writes are only tracked by the server whose write pipeline applies them, so the cache is only used while the
+ * cluster has a single server. Once a second server is seen, the cache is emptied and stays off.
+ */
+public class ResultCache implements ResultCache.ResultCacheManagement{
+    private static final Logger LOG=Logger.getLogger(ResultCache.class);
+    private static final long SERVER_CHECK_INTERVAL_MS=1000L;
+
+    private final Cache<Key,Entry> entries;
+    private final int maxEntryRows;
+    private final AtomicLong hits=new AtomicLong(0L);
+    private final AtomicLong misses=new AtomicLong(0L);
+    private final AtomicLong invalidations=new AtomicLong(0L);
+    private final AtomicLong stores=new AtomicLong(0L);
+    private volatile boolean multipleServers=false;
+    private volatile long serversCheckedAt=Long.MIN_VALUE;
+
+    public ResultCache(long maxRows,int maxEntryRows){
+        this.maxEntryRows=maxEntryRows;
+        if(maxRows<=0){
+            this.entries=null;
+            return;
+        }
+        this.entries=CacheBuilder.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher(new Weigher<Key,Entry>(){
+                    @Override
+                    public int weigh(Key key,Entry value){
+                        return value.rows.size()+1;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Looks up the results of the statement {@code op} is the top operation of.
+     *
+     * @return the lookup, or null if the results of the operation can't be cached
+     */
+    public Lookup lookup(SpliceOperation op) throws StandardException{
+        if(entries==null)
+            return null;
+        ConglomerateWriteTracker tracker=writeTracker();
+        if(tracker==null || !isSingleServer())
+            return null;
+        Key key=keyFor(op);
+        if(key==null)
+            return null;
+        try{
+            Entry entry=entries.getIfPresent(key);
+            if(entry!=null){
+                if(!isCurrent(entry,key,tracker)){
+                    entries.invalidate(key);
+                    invalidations.incrementAndGet();
+                }else if(snapshotTimestamp(op.getCurrentTransaction())>entry.lastCommitTimestamp){
+                    hits.incrementAndGet();
+                    return new Lookup(key,entry,op,tracker);
+                }
+            }
+            misses.incrementAndGet();
+            return new Lookup(key,null,op,tracker);
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    @Override
+    public long getHits(){
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses(){
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRate(){
+        long h=hits.get();
+        long total=h+misses.get();
+        return total==0?1d:(double)h/total;
+    }
+
+    @Override
+    public long getEvictions(){
+        return entries==null?0L:entries.stats().evictionCount();
+    }
+
+    @Override
+    public long getInvalidations(){
+        return invalidations.get();
+    }
+
+    @Override
+    public long getStores(){
+        return stores.get();
+    }
+
+    @Override
+    public long getEntries(){
+        return entries==null?0L:entries.size();
+    }
+
+    @Override
+    public long getCachedRows(){
+        if(entries==null)
+            return 0L;
+        long rows=0L;
+        for(Entry entry : entries.asMap().values()){
+            rows+=entry.rows.size();
+        }
+        return rows;
+    }
+
+    @Override
+    public void invalidateAll(){
+        if(entries!=null)
+            entries.invalidateAll();
+    }
+
+    /**
+     * The outcome of a lookup: either the cached rows, or a way to cache the rows once they've been computed.
+     */
+    public class Lookup{
+        private final Key key;
+        private final Entry entry;
+        private final SpliceOperation op;
+        private final ConglomerateWriteTracker tracker;
+
+        private Lookup(Key key,Entry entry,SpliceOperation op,ConglomerateWriteTracker tracker){
+            this.key=key;
+            this.entry=entry;
+            this.op=op;
+            this.tracker=tracker;
+        }
+
+        public boolean isHit(){
+            return entry!=null;
+        }
+
+        /**
+         * @return the cached rows, as fresh copies
+         */
+        public Iterator<ExecRow> getRows(){
+            assert entry!=null: "Programmer error: no cached rows";
+            final Iterator<ExecRow> rows=entry.rows.iterator();
+            return new Iterator<ExecRow>(){
+                @Override
+                public boolean hasNext(){
+                    return rows.hasNext();
+                }
+
+                @Override
+                public ExecRow next(){
+                    return rows.next().getClone();
+                }
+
+                @Override
+                public void remove(){
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        /**
+         * @return an iterator over {@code rows} which caches them once they've all been read, unless there
+         * are too many of them
+         */
+        public Iterator<ExecRow> record(final Iterator<ExecRow> rows){
+            return new Iterator<ExecRow>(){
+                private List<ExecRow> recorded=new ArrayList<>();
+
+                @Override
+                public boolean hasNext(){
+                    boolean hasNext=rows.hasNext();
+                    if(!hasNext && recorded!=null){
+                        store(recorded);
+                        recorded=null;
+                    }
+                    return hasNext;
+                }
+
+                @Override
+                public ExecRow next(){
+                    ExecRow row=rows.next();
+                    if(recorded!=null){
+                        if(recorded.size()<maxEntryRows)
+                            recorded.add(row.getClone());
+                        else
+                            recorded=null;
+                    }
+                    return row;
+                }
+
+                @Override
+                public void remove(){
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        private void store(List<ExecRow> rows){
+            try{
+                long[] versions=new long[key.conglomerates.length];
+                long lastCommitTimestamp=0L;
+                for(int i=0;i<key.conglomerates.length;i++){
+                    ConglomerateWriteTracker.WriteState state=tracker.getState(key.conglomerates[i]);
+                    if(state.isInFlight())
+                        return;
+                    versions[i]=state.getVersion();
+                    lastCommitTimestamp=Math.max(lastCommitTimestamp,state.getLastCommitTimestamp());
+                }
+                if(snapshotTimestamp(op.getCurrentTransaction())<=lastCommitTimestamp)
+                    return;
+                entries.put(key,new Entry(versions,lastCommitTimestamp,Collections.unmodifiableList(rows)));
+                stores.incrementAndGet();
+            }catch(Exception e){
+                // caching is best effort, the query has already succeeded
+                LOG.warn("Unable to cache the results of "+op,e);
+            }
+        }
+    }
+
+    @MXBean
+    @SuppressWarnings("UnusedDeclaration")
+    public interface ResultCacheManagement{
+        long getHits();
+
+        long getMisses();
+
+        double getHitRate();
+
+        long getEvictions();
+
+        long getInvalidations();
+
+        long getStores();
+
+        long getEntries();
+
+        long getCachedRows();
+
+        void invalidateAll();
+    }
+
+    /**
+     * @return the writes tracked by this server, or null if this server has no write pipeline
+     */
+    protected ConglomerateWriteTracker writeTracker(){
+        PipelineDriver driver=PipelineDriver.driver();
+        return driver==null?null:driver.writeTracker();
+    }
+
+    /**
+     * @return the number of servers in the cluster
+     */
+    protected int countServers() throws IOException{
+        try(PartitionAdmin admin=SIDriver.driver().getTableFactory().getAdmin()){
+            return admin.allServers().size();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private boolean isSingleServer(){
+        if(multipleServers)
+            return false;
+        long now=System.currentTimeMillis();
+        if(now-serversCheckedAt<SERVER_CHECK_INTERVAL_MS)
+            return true;
+        try{
+            if(countServers()>1){
+                LOG.warn("Disabling the result cache, since writes are only tracked within a single server");
+                multipleServers=true;
+                entries.invalidateAll();
+                return false;
+            }
+        }catch(IOException e){
+            LOG.warn("Unable to count the servers of the cluster, not using the result cache",e);
+            return false;
+        }
+        serversCheckedAt=now;
+        return true;
+    }
+
+    private static Key keyFor(SpliceOperation op) throws StandardException{
+        Activation activation=op.getActivation();
+        if(activation==null || activation.getResultSet()!=op || !op.returnsRows() || op instanceof ExplainOperation)
+            return null;
+        ExecPreparedStatement ps=activation.getPreparedStatement();
+        long[] conglomerates=ps.getReadConglomerates();
+        if(conglomerates==null || conglomerates.length==0 || ps.getUpdateMode()==CursorNode.UPDATE)
+            return null;
+        ParameterValueSet pvs=activation.getParameterValueSet();
+        int numParameters=pvs==null?0:pvs.getParameterCount();
+        String[] parameters=new String[numParameters*2];
+        for(int i=0;i<numParameters;i++){
+            DataValueDescriptor dvd=pvs.getParameter(i);
+            if(dvd.hasStream())
+                return null;
+            parameters[2*i]=dvd.getTypeName();
+            parameters[2*i+1]=dvd.isNull()?null:dvd.getString();
+        }
+        return new Key(ps.getObjectID().toString(),ps.getVersionCounter(),conglomerates,parameters);
+    }
+
+    private static boolean isCurrent(Entry entry,Key key,ConglomerateWriteTracker tracker) throws IOException{
+        for(int i=0;i<key.conglomerates.length;i++){
+            ConglomerateWriteTracker.WriteState state=tracker.getState(key.conglomerates[i]);
+            if(state.getVersion()!=entry.versions[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the begin timestamp of the user transaction, which every transaction of the statement sees at least
+     * as much as
+     */
+    private static long snapshotTimestamp(TxnView txn){
+        while(txn.getParentTxnView()!=null && !txn.getParentTxnView().equals(Txn.ROOT_TRANSACTION))
+            txn=txn.getParentTxnView();
+        return txn.getBeginTimestamp();
+    }
+
+    private static final class Key{
+        private final String statementId;
+        private final long statementVersion;
+        private final long[] conglomerates;
+        private final String[] parameters;
+
+        Key(String statementId,long statementVersion,long[] conglomerates,String[] parameters){
+            this.statementId=statementId;
+            this.statementVersion=statementVersion;
+            this.conglomerates=conglomerates;
+            this.parameters=parameters;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof Key)) return false;
+            Key key=(Key)o;
+            return statementVersion==key.statementVersion
+                    && (statementId==null?key.statementId==null:statementId.equals(key.statementId))
+                    && Arrays.equals(conglomerates,key.conglomerates)
+                    && Arrays.equals(parameters,key.parameters);
+        }
+
+        @Override
+        public int hashCode(){
+            int result=statementId==null?0:statementId.hashCode();
+            result=31*result+(int)(statementVersion^(statementVersion>>>32));
+            result=31*result+Arrays.hashCode(conglomerates);
+            result=31*result+Arrays.hashCode(parameters);
+            return result;
+        }
+    }
+
+    private static final class Entry{
+        private final long[] versions;
+        private final long lastCommitTimestamp;
+        private final List<ExecRow> rows;
+
+        Entry(long[] versions,long lastCommitTimestamp,List<ExecRow> rows){
+            this.versions=versions;
+            this.lastCommitTimestamp=lastCommitTimestamp;
+            this.rows=rows;
+        }
+    }
+}
@@ -1327,6 +1327,7 @@ public class SpliceGenericResultSetFactory implements ResultSetFactory {
                                              String encoding,
                                              String fieldSeparator,
                                              String quoteChar,
+                                             String format,
                                              int srcResultDescriptionSavedObjectNum) throws StandardException {
 
         // If we ask the activation prepared statement for ResultColumnDescriptors we get the two columns that
@@ -1347,7 +1348,8 @@ public class SpliceGenericResultSetFactory implements ResultSetFactory {
                 replicationCount,
                 encoding,
                 fieldSeparator,
-                quoteChar
+                quoteChar,
+                format
         );
         op.markAsTopResultSet();
         return op;
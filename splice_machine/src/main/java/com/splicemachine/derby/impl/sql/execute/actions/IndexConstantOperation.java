@@ -185,10 +185,13 @@ public abstract class IndexConstantOperation extends DDLSingleTableConstantOpera
 			String prefix = StreamUtils.getScopeString(this);
 			String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
 			String jobGroup = userId + " <" +indexTransaction.getTxnId() +">";
-			if (distributed)
-				EngineDriver.driver().getOlapClient().execute(new DistributedPopulateIndexJob(childTxn, builder, scope, jobGroup, prefix, tentativeIndex, indexFormatIds));
+			if (distributed) {
+				// Bulk load the index through HFiles when a staging directory is configured
+				String bulkLoadDirectory = SIDriver.driver().getConfiguration().getBulkIndexDirectory();
+				EngineDriver.driver().getOlapClient().execute(new DistributedPopulateIndexJob(childTxn, builder, scope, jobGroup, prefix, tentativeIndex, indexFormatIds, bulkLoadDirectory));
+			}
 			else
-				PopulateIndexJob.populateIndex(tentativeIndex,builder,prefix,indexFormatIds,scope,childTxn);
+				PopulateIndexJob.populateIndex(tentativeIndex,builder,prefix,indexFormatIds,scope,childTxn,null);
             childTxn.commit();
         } catch (IOException e) {
             throw Exceptions.parseException(e);
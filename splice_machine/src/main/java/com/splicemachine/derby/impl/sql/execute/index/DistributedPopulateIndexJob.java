@@ -40,10 +40,12 @@ public class DistributedPopulateIndexJob extends DistributedJob implements Exter
     String prefix;
     DDLMessage.TentativeIndex tentativeIndex;
     int[] indexFormatIds;
+    String bulkLoadDirectory;
 
     public DistributedPopulateIndexJob() {}
     public DistributedPopulateIndexJob(TxnView childTxn, ScanSetBuilder<ExecRow> scanSetBuilder, String scope,
-                                       String jobGroup, String prefix, DDLMessage.TentativeIndex tentativeIndex, int[] indexFormatIds) {
+                                       String jobGroup, String prefix, DDLMessage.TentativeIndex tentativeIndex, int[] indexFormatIds,
+                                       String bulkLoadDirectory) {
         this.childTxn = childTxn;
         this.scanSetBuilder = scanSetBuilder;
         this.scope = scope;
@@ -51,6 +53,7 @@ public class DistributedPopulateIndexJob extends DistributedJob implements Exter
         this.prefix = prefix;
         this.tentativeIndex = tentativeIndex;
         this.indexFormatIds = indexFormatIds;
+        this.bulkLoadDirectory = bulkLoadDirectory;
     }
 
     @Override
@@ -72,6 +75,9 @@ public class DistributedPopulateIndexJob extends DistributedJob implements Exter
         out.writeObject(tentativeIndex.toByteArray());
         ArrayUtil.writeIntArray(out,indexFormatIds);
         SIDriver.driver().getOperationFactory().writeTxn(childTxn,out);
+        out.writeBoolean(bulkLoadDirectory != null);
+        if (bulkLoadDirectory != null)
+            out.writeUTF(bulkLoadDirectory);
     }
 
     @Override
@@ -84,5 +90,7 @@ public class DistributedPopulateIndexJob extends DistributedJob implements Exter
         tentativeIndex = DDLMessage.TentativeIndex.parseFrom(bytes);
         indexFormatIds = ArrayUtil.readIntArray(in);
         childTxn = SIDriver.driver().getOperationFactory().readTxn(in);
+        if (in.readBoolean())
+            bulkLoadDirectory = in.readUTF();
     }
 }
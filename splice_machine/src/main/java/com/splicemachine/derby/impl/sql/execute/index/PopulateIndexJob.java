@@ -49,7 +49,7 @@ public class PopulateIndexJob implements Callable<Void> {
         DistributedDataSetProcessor dsp = EngineDriver.driver().processorFactory().distributedProcessor();
         dsp.setSchedulerPool("admin");
         dsp.setJobGroup(request.jobGroup, "");
-        populateIndex(request.tentativeIndex,request.scanSetBuilder,request.prefix,request.indexFormatIds,request.scope,request.childTxn);
+        populateIndex(request.tentativeIndex,request.scanSetBuilder,request.prefix,request.indexFormatIds,request.scope,request.childTxn,request.bulkLoadDirectory);
         jobStatus.markCompleted(new SuccessfulOlapResult());
         return null;
     }
@@ -59,12 +59,25 @@ public class PopulateIndexJob implements Callable<Void> {
                                                  String prefix,
                                                  int[] indexFormatIds,
                                                  String scope,
-                                                 TxnView childTxn
+                                                 TxnView childTxn,
+                                                 String bulkLoadDirectory
                                                     ) throws StandardException
     {
 
         DataSet<ExecRow> dataSet = scanSetBuilder.buildDataSet(prefix);
         OperationContext operationContext = scanSetBuilder.getOperationContext();
+        DDLMessage.Index index = tentativeIndex.getIndex();
+        if (bulkLoadDirectory != null && !index.getUnique() && !index.getUniqueWithDuplicateNulls()) {
+            // Write the index rows to HFiles under the child transaction and load them, bypassing the write pipeline.
+            // Unique indexes stay on the pipeline, which is what checks existing rows for duplicate keys
+            DataSetWriter writer = dataSet.bulkLoadIndex(tentativeIndex)
+                    .bulkLoadDirectory(bulkLoadDirectory)
+                    .sampling(true)
+                    .operationContext(operationContext)
+                    .txn(childTxn)
+                    .build();
+            return writer.write();
+        }
         PairDataSet dsToWrite = dataSet
                 .map(new IndexTransformFunction(tentativeIndex), null, false, true, scope + ": Prepare Index")
                 .index(new KVPairFunction(), false, true, scope + ": Populate Index");
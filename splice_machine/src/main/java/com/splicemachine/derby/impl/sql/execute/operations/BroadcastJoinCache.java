@@ -20,6 +20,7 @@ import org.spark_project.guava.cache.CacheBuilder;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.hash.BloomFilter;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.stream.Stream;
 
@@ -40,10 +41,21 @@ public class BroadcastJoinCache{
     private final JoinTableLoader tableLoader;
 
     interface JoinTableLoader{
-        JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,
+        /**
+         * @param rowLimit maximum number of rows to load, or 0 for no limit
+         * @param byteLimit maximum (estimated) size in bytes of the loaded table, or 0 for no limit
+         * @param keyFilterFpp false positive rate of the bloom filter to build over the keys of the loaded table,
+         *                     or 0 for no filter
+         * @throws BroadcastJoinMemoryLimitException if either limit is exceeded
+         */
+        JoinTable.Factory load(Long operationId,
+                               Callable<Stream<ExecRow>> streamLoader,
                                int[] innerHashKeys,
                                int[] outerHashKeys,
-                               ExecRow outerTemplateRow) throws Exception;
+                               ExecRow outerTemplateRow,
+                               long rowLimit,
+                               long byteLimit,
+                               double keyFilterFpp) throws Exception;
     }
 
     public BroadcastJoinCache(){
@@ -63,9 +75,12 @@ public class BroadcastJoinCache{
                          Callable<Stream<ExecRow>> loader,
                          int[] rightHashKeys,
                          int[] leftHashKeys,
-                         ExecRow leftTemplateRow) throws IOException, StandardException{
+                         ExecRow leftTemplateRow,
+                         long rowLimit,
+                         long byteLimit,
+                         double keyFilterFpp) throws IOException, StandardException{
         try{
-            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
+            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader,rowLimit,byteLimit,keyFilterFpp);
             ReferenceCountingFactory joinTable=cache.get(operationId,callable);
             joinTable.refCount.incrementAndGet();
             return joinTable;
@@ -81,12 +96,24 @@ public class BroadcastJoinCache{
         }
     }
 
+    /**
+     * @return the bloom filter over the join keys of the table loaded for {@code operationId}, or null if that
+     * table isn't loaded, or was loaded without one
+     */
+    public BloomFilter getKeyFilter(Long operationId){
+        ReferenceCountingFactory joinTable=cache.getIfPresent(operationId);
+        return joinTable==null?null:joinTable.getKeyFilter();
+    }
+
     private class Loader implements Callable<ReferenceCountingFactory>{
         private final JoinTableLoader loader;
         private final int[] innerHashKeys;
         private final int[] outerHashKeys;
         private final ExecRow outerTemplateRow;
         private final Callable<Stream<ExecRow>> streamLoader;
+        private final long rowLimit;
+        private final long byteLimit;
+        private final double keyFilterFpp;
 
         private final Long operationId;
 
@@ -95,18 +122,24 @@ public class BroadcastJoinCache{
                       int[] innerHashKeys,
                       int[] outerHashKeys,
                       ExecRow outerTemplateRow,
-                      Callable<Stream<ExecRow>> streamLoader){
+                      Callable<Stream<ExecRow>> streamLoader,
+                      long rowLimit,
+                      long byteLimit,
+                      double keyFilterFpp){
             this.loader=loader;
             this.operationId=operationId;
             this.innerHashKeys=innerHashKeys;
             this.outerHashKeys=outerHashKeys;
             this.outerTemplateRow=outerTemplateRow;
             this.streamLoader=streamLoader;
+            this.rowLimit=rowLimit;
+            this.byteLimit=byteLimit;
+            this.keyFilterFpp=keyFilterFpp;
         }
 
         @Override
         public ReferenceCountingFactory call() throws Exception {
-            JoinTable.Factory load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
+            JoinTable.Factory load=loader.load(operationId,streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow,rowLimit,byteLimit,keyFilterFpp);
             return new ReferenceCountingFactory(load,operationId);
         }
     }
@@ -152,6 +185,11 @@ public class BroadcastJoinCache{
             return new ReferenceCountedJoinTable(delegate.newTable(),this);
         }
 
+        @Override
+        public BloomFilter getKeyFilter(){
+            return delegate.getKeyFilter();
+        }
+
         public void markClosed(){
             int refC=refCount.decrementAndGet();
             if(refC<=0)
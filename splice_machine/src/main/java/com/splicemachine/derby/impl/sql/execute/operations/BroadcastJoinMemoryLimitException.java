@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.sql.conn.ResubmitDistributedException;
+
+/**
+ * Thrown while loading the right side of a broadcast join once it grows past the configured limits.
+ *
+ * Like any other {@link ResubmitDistributedException} it makes its way up to the top operation, which
+ * re-executes the query with the offending join running as a merge sort join.
+ *
+ * @see BroadcastJoinOperation#fallBackToMergeSortJoin(BroadcastJoinMemoryLimitException)
+ */
+public class BroadcastJoinMemoryLimitException extends ResubmitDistributedException {
+    private final long operationId;
+    private final long rows;
+    private final long bytes;
+
+    public BroadcastJoinMemoryLimitException(long operationId, long rows, long bytes) {
+        super(SQLState.LANG_BROADCAST_JOIN_MEMORY_LIMIT, new Object[]{rows, bytes});
+        this.operationId = operationId;
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return the sequence id of the broadcast join which gave up
+     */
+    public long getOperationId() {
+        return operationId;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+}
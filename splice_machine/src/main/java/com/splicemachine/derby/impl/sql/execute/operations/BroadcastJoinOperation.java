@@ -26,6 +26,7 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
@@ -108,6 +109,9 @@ public class BroadcastJoinOperation extends JoinOperation{
     protected int[] rightHashKeys;
     protected List<ExecRow> rights;
     protected long sequenceId;
+    protected boolean fallBackToMergeSortJoin;
+    protected long sessionFallbackRowThreshold;
+    protected double runtimeFilterFpp;
     protected static final String NAME = BroadcastJoinOperation.class.getSimpleName().replaceAll("Operation","");
 
 	@Override
@@ -140,6 +144,8 @@ public class BroadcastJoinOperation extends JoinOperation{
         this.leftHashKeyItem=leftHashKeyItem;
         this.rightHashKeyItem=rightHashKeyItem;
         this.sequenceId = Bytes.toLong(operationInformation.getUUIDGenerator().nextBytes());
+        // the session's setting has to travel with the operation, executors don't have the session
+        this.sessionFallbackRowThreshold = activation.getLanguageConnectionContext().getBroadcastFallbackRowThreshold();
         init();
     }
 
@@ -150,18 +156,31 @@ public class BroadcastJoinOperation extends JoinOperation{
         leftHashKeyItem=in.readInt();
         rightHashKeyItem=in.readInt();
         sequenceId = in.readLong();
+        fallBackToMergeSortJoin = in.readBoolean();
+        sessionFallbackRowThreshold = in.readLong();
+        runtimeFilterFpp = in.readDouble();
     }
 
     public long getSequenceId() {
         return sequenceId;
     }
 
+    @Override
+    public long getFallbackRowThreshold() {
+        if (sessionFallbackRowThreshold > 0)
+            return sessionFallbackRowThreshold;
+        return super.getFallbackRowThreshold();
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
         super.writeExternal(out);
         out.writeInt(leftHashKeyItem);
         out.writeInt(rightHashKeyItem);
         out.writeLong(sequenceId);
+        out.writeBoolean(fallBackToMergeSortJoin);
+        out.writeLong(sessionFallbackRowThreshold);
+        out.writeDouble(runtimeFilterFpp);
     }
 
     @Override
@@ -176,8 +195,37 @@ public class BroadcastJoinOperation extends JoinOperation{
         return leftResultSet;
     }
 
+    /**
+     * Executes this join as a merge sort join from now on, because its right side didn't fit in the
+     * broadcast limits. The planner most likely chose to broadcast based on stale statistics, so
+     * the misestimate is logged and reported as a warning.
+     */
+    void fallBackToMergeSortJoin(BroadcastJoinMemoryLimitException e) {
+        fallBackToMergeSortJoin = true;
+        double estimatedRows = rightResultSet.getEstimatedRowCount();
+        LOG.warn(String.format("Broadcast join %d loaded %d rows (%d bytes) of its right side while %.0f were estimated, " +
+                "falling back to a merge sort join. The statistics of the tables involved may be stale",
+                resultSetNumber, e.getRows(), e.getBytes(), estimatedRows));
+        activation.addWarning(StandardException.newWarning(SQLState.LANG_BROADCAST_JOIN_FALLBACK,
+                new Object[]{resultSetNumber, e.getRows(), e.getBytes(), (long) estimatedRows}));
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException {
+        SConfiguration configuration= EngineDriver.driver().getConfiguration();
+        if (fallBackToMergeSortJoin) {
+            pushRuntimeFilter(0d);
+            return MergeSortJoinOperation.mergeSortJoin(this, dsp);
+        }
+
+        boolean useDataset = SpliceClient.isClient ||
+                rightResultSet.getEstimatedCost() / 1000 > configuration.getBroadcastDatasetCostThreshold() ||
+                        rightResultSet.accessExternalTable();
+        boolean sparkJoin = useDataset && dsp.getType().equals(DataSetProcessor.Type.SPARK) &&
+                (restriction ==null || (!isOuterJoin && !notExistsRightSide));
+        // only the in-memory right side of an inner join can tell the left side which rows to drop
+        pushRuntimeFilter(sparkJoin || isOuterJoin || notExistsRightSide ? 0d : configuration.getBroadcastRuntimeFilterFpp());
+
         OperationContext operationContext = dsp.createOperationContext(this);
         DataSet<ExecRow> leftDataSet = leftResultSet.getDataSet(dsp);
 
@@ -187,15 +235,8 @@ public class BroadcastJoinOperation extends JoinOperation{
             SpliceLogUtils.debug(LOG, "getDataSet Performing BroadcastJoin type=%s, antiJoin=%s, hasRestriction=%s",
                 isOuterJoin ? "outer" : "inner", notExistsRightSide, restriction != null);
 
-        SConfiguration configuration= EngineDriver.driver().getConfiguration();
-
-        boolean useDataset = SpliceClient.isClient ||
-                rightResultSet.getEstimatedCost() / 1000 > configuration.getBroadcastDatasetCostThreshold() ||
-                        rightResultSet.accessExternalTable();
-
         DataSet<ExecRow> result;
-        if (useDataset && dsp.getType().equals(DataSetProcessor.Type.SPARK) &&
-                (restriction ==null || (!isOuterJoin && !notExistsRightSide))) {
+        if (sparkJoin) {
             DataSet<ExecRow> rightDataSet = rightResultSet.getDataSet(dsp);
             if (isOuterJoin)
                 result = leftDataSet.join(operationContext,rightDataSet, DataSet.JoinType.LEFTOUTER,true);
@@ -252,6 +293,45 @@ public class BroadcastJoinOperation extends JoinOperation{
         return result;
     }
 
+    @Override
+    public double getRuntimeFilterFpp() {
+        return runtimeFilterFpp;
+    }
+
+    /**
+     * Has the table scan the left side of this join reads from drop the rows whose join keys are not in the bloom
+     * filter built over the join keys of the right side, as soon as it reads them. That's only possible when the
+     * join keys of the left side are columns of that scan, passed on unchanged by the projections in between.
+     *
+     * @param fpp the false positive rate of the filter, or 0 not to filter the scan
+     */
+    private void pushRuntimeFilter(double fpp) {
+        runtimeFilterFpp = 0d;
+        int[] keyColumns = leftHashKeys;
+        SpliceOperation op = leftResultSet;
+        while (op instanceof ProjectRestrictOperation) {
+            int[] projectMapping = ((ProjectRestrictOperation) op).projectMapping;
+            if (projectMapping == null || keyColumns == null)
+                return;
+            int[] sourceColumns = new int[keyColumns.length];
+            for (int i = 0; i < keyColumns.length; i++) {
+                if (keyColumns[i] >= projectMapping.length || projectMapping[keyColumns[i]] <= 0)
+                    return;
+                sourceColumns[i] = projectMapping[keyColumns[i]] - 1;
+            }
+            keyColumns = sourceColumns;
+            op = ((ProjectRestrictOperation) op).getSource();
+        }
+        if (!(op instanceof TableScanOperation) || keyColumns == null)
+            return;
+        if (fpp <= 0d || fpp >= 1d) {
+            ((TableScanOperation) op).setJoinKeyFilter(null);
+            return;
+        }
+        ((TableScanOperation) op).setJoinKeyFilter(new JoinKeyFilter(sequenceId, keyColumns));
+        runtimeFilterFpp = fpp;
+    }
+
     public String getPrettyExplainPlan() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.getPrettyExplainPlan());
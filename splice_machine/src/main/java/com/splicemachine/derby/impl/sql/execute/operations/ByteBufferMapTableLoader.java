@@ -22,6 +22,7 @@ import com.splicemachine.derby.utils.marshall.NoOpPostfix;
 import com.splicemachine.derby.utils.marshall.NoOpPrefix;
 import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.hash.BloomFilter;
 import com.splicemachine.stream.Stream;
 import com.splicemachine.stream.StreamException;
 import javax.annotation.concurrent.ThreadSafe;
@@ -44,8 +45,17 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
     private ByteBufferMapTableLoader(){} //singleton class
 
     @Override
-    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys, ExecRow outerTemplateRow) throws Exception {
+    public JoinTable.Factory load(Long operationId,
+                                  Callable<Stream<ExecRow>> streamLoader,
+                                  int[] innerHashKeys,
+                                  int[] outerHashKeys,
+                                  ExecRow outerTemplateRow,
+                                  long rowLimit,
+                                  long byteLimit,
+                                  double keyFilterFpp) throws Exception {
         Map<ByteBuffer, List<ExecRow>> table=new HashMap<>();
+        long rowCount=0L;
+        long byteCount=0L;
 
         DescriptorSerializer[] innerSerializers=null;
         KeyEncoder innerKeyEncoder=null;
@@ -59,19 +69,34 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
                             BareKeyHash.encoder(innerHashKeys,null,innerSerializers),NoOpPostfix.INSTANCE);
                 }
 
-                ByteBuffer key=ByteBuffer.wrap(innerKeyEncoder.getKey(right));
+                byte[] keyBytes=innerKeyEncoder.getKey(right);
+                ByteBuffer key=ByteBuffer.wrap(keyBytes);
                 List<ExecRow> rows=table.get(key);
                 if(rows==null){
                     rows=new ArrayList<>(1);
                     table.put(key,rows);
                 }
                 rows.add(right.getClone());
+
+                // the planner expected a small table; give up as soon as it is clearly not
+                rowCount++;
+                if(byteLimit>0)
+                    byteCount+=keyBytes.length+right.getRowSize();
+                if((rowLimit>0 && rowCount>rowLimit) || (byteLimit>0 && byteCount>byteLimit))
+                    throw new BroadcastJoinMemoryLimitException(operationId,rowCount,byteCount);
             }
         }catch(Exception e){
             throw getException(e);
         }
 
-        return new ByteBufferMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow);
+        BloomFilter keyFilter=null;
+        if(keyFilterFpp>0d){
+            keyFilter=new BloomFilter(table.size(),keyFilterFpp);
+            for(ByteBuffer key : table.keySet()){
+                keyFilter.add(key.array());
+            }
+        }
+        return new ByteBufferMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow,keyFilter);
     }
 
     private Exception getException(Throwable parent) {
@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
@@ -162,7 +163,8 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
         // Have distinct Aggregates?
         boolean hasMultipleDistinct = false;
         int numOfGroupKeys = groupedAggregateContext.getGroupingKeys().length;
-        if (groupedAggregateContext.getNonGroupedUniqueColumns() != null && groupedAggregateContext.getNonGroupedUniqueColumns().length > 0) {
+        boolean hasDistinct = groupedAggregateContext.getNonGroupedUniqueColumns() != null && groupedAggregateContext.getNonGroupedUniqueColumns().length > 0;
+        if (hasDistinct) {
             if (groupedAggregateContext.getNonGroupedUniqueColumns().length > 1) {
                 /**
                  * To handle multiple distinct aggregates, we will be splitting an input row to multiple rows. For example,
@@ -223,6 +225,12 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
             set = set.flatMap(new GroupedAggregateRollupFlatMapFunction(operationContext));
             operationContext.popScope();
         }
+        else if (numOfGroupKeys == 1 && !hasDistinct) {
+            // aggregate each partition a batch at a time before the shuffle
+            int vectorizedBatchSize = EngineDriver.driver().getConfiguration().getVectorizedBatchSize();
+            if (vectorizedBatchSize > 0)
+                set = set.mapPartitions(new VectorizedGroupedAggregateFunction(operationContext, vectorizedBatchSize), false, /*pushScope=*/true, "Partial Aggregation");
+        }
 
         // with more than one distinct aggregates, each row is split into multiple rows
         // where each row starts with the original group keys + the distinct column id
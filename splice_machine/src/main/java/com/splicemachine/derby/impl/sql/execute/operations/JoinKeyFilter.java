@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.ArrayUtil;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.stream.function.broadcast.AbstractBroadcastJoinFlatMapFunction;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.hash.BloomFilter;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Filter a table scan applies to its rows on behalf of the broadcast inner join it feeds, which drops the rows
+ * whose join keys are not in the bloom filter of the right side of the join.
+ *
+ * The keys are encoded the way the join encodes them to probe its in-memory table, so a row is dropped only if
+ * the join would find no match for it. The bloom filter is picked up from the {@link BroadcastJoinCache} once the
+ * right side is loaded in this JVM; until then, every row is kept.
+ */
+@NotThreadSafe
+public class JoinKeyFilter implements Externalizable{
+    private long joinSequenceId;
+    private int[] keyColumns;
+
+    private transient BloomFilter keyFilter;
+    private transient KeyEncoder keyEncoder;
+
+    public JoinKeyFilter(){
+    }
+
+    /**
+     * @param joinSequenceId the sequence id of the broadcast join
+     * @param keyColumns the positions in the scanned rows of the columns the join keys of its left side are, in the
+     *                   order of the keys
+     */
+    public JoinKeyFilter(long joinSequenceId,int[] keyColumns){
+        this.joinSequenceId=joinSequenceId;
+        this.keyColumns=keyColumns;
+    }
+
+    /**
+     * @return false if the join can't find a match for {@code row}
+     */
+    public boolean accept(ExecRow row) throws StandardException, IOException{
+        if(keyFilter==null){
+            keyFilter=AbstractBroadcastJoinFlatMapFunction.getKeyFilter(joinSequenceId);
+            if(keyFilter==null)
+                return true;
+        }
+        if(keyEncoder==null){
+            keyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                    BareKeyHash.encoder(keyColumns,null,VersionedSerializers.latestVersion(false).getSerializers(row)),
+                    NoOpPostfix.INSTANCE);
+        }
+        return keyFilter.mightContain(keyEncoder.getKey(row));
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeLong(joinSequenceId);
+        ArrayUtil.writeIntArray(out,keyColumns);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        joinSequenceId=in.readLong();
+        keyColumns=ArrayUtil.readIntArray(in);
+    }
+
+    @Override
+    public String toString(){
+        return "JoinKeyFilter{join="+joinSequenceId+"}";
+    }
+}
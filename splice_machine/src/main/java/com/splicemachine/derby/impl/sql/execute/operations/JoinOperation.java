@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableIntHolder;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
@@ -359,6 +360,22 @@ public abstract class JoinOperation extends SpliceBaseOperation {
 		throw new UnsupportedOperationException("Not supported");
 	}
 
+	/**
+	 * @return the false positive rate of the bloom filter to build over the join keys of the right side, when it's
+	 * loaded in memory, or 0 if the filter isn't used
+	 */
+	public double getRuntimeFilterFpp() {
+		return 0d;
+	}
+
+	/**
+	 * @return the number of rows the right side may load in memory before this join falls back to a merge sort
+	 * join, or 0 for no limit
+	 */
+	public long getFallbackRowThreshold() {
+		return EngineDriver.driver().getConfiguration().getBroadcastFallbackRowThreshold();
+	}
+
 	@Override
 	public String getVTIFileName() {
 		return getSubOperations().get(0).getVTIFileName();
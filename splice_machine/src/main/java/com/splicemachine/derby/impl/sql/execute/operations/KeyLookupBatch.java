@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.DataSetProcessor;
+import com.splicemachine.derby.utils.Scans;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The rows of the inner table of a nested loop join for a batch of outer rows, read ahead of time.
+ *
+ * When the inner side of a nested loop join comes down to a keyed {@link TableScanOperation}, every outer row
+ * probes it with a narrow key range. Rather than reading each range with a scan of its own, the ranges of a batch
+ * of outer rows are sorted and deduplicated, and read by a single scan which seeks from one range to the next.
+ * The rows are then kept by range, so that when the join replays the probe for each outer row, in the outer order,
+ * the table scan hands back the prefetched rows of its range instead of going to the table.
+ *
+ * The scan reads the rows unqualified, the qualifiers of the table scan are applied on replay, since they may
+ * depend on the outer row.
+ */
+public class KeyLookupBatch{
+    private static final Logger LOG=Logger.getLogger(KeyLookupBatch.class);
+
+    private final byte[][] startKeys;
+    private final byte[][] stopKeys;
+    private final List<List<ExecRow>> rows;
+
+    private KeyLookupBatch(List<byte[][]> ranges){
+        this.startKeys=new byte[ranges.size()][];
+        this.stopKeys=new byte[ranges.size()][];
+        this.rows=new ArrayList<>(ranges.size());
+        for(int i=0;i<ranges.size();i++){
+            startKeys[i]=ranges.get(i)[0];
+            stopKeys[i]=ranges.get(i)[1];
+            rows.add(new ArrayList<ExecRow>());
+        }
+    }
+
+    /**
+     * Finds the table scan the inner side of a nested loop join probes for every outer row, when it can be
+     * read ahead of time: a plain, keyed, forward scan of a native table, underneath nothing but projections,
+     * restrictions and index lookups.
+     *
+     * @param rightOperation the inner side of the join
+     * @return the table scan, or null if the inner side can't be batched
+     */
+    public static TableScanOperation findProbe(SpliceOperation rightOperation) throws StandardException{
+        SpliceOperation op=rightOperation;
+        while(op!=null && op.getClass()!=TableScanOperation.class){
+            if(!(op instanceof ProjectRestrictOperation || op instanceof IndexRowToBaseRowOperation))
+                return null;
+            List<SpliceOperation> children=op.getSubOperations();
+            if(children.size()!=1)
+                return null;
+            op=children.get(0);
+        }
+        if(op==null)
+            return null;
+        TableScanOperation scan=(TableScanOperation)op;
+        if(!scan.getScanInformation().isKeyed() || scan.pin || scan.getStoredAs()!=null)
+            return null;
+        return scan;
+    }
+
+    /**
+     * Reads the inner rows for a batch of outer rows.
+     *
+     * @param join the nested loop join, whose inner side has a probe as found by {@link #findProbe(SpliceOperation)}
+     * @param leftRows the outer rows
+     * @return the rows read, or null if the key ranges probed by the outer rows overlap, or aren't bounded, in which
+     * case each outer row has to read its range on its own
+     */
+    public static KeyLookupBatch fetch(SpliceOperation join,List<ExecRow> leftRows) throws StandardException{
+        TableScanOperation probe=findProbe(join.getRightOperation());
+        if(probe==null || leftRows.isEmpty())
+            return null;
+        DataScan template=null;
+        List<byte[][]> ranges=new ArrayList<>(leftRows.size());
+        for(ExecRow leftRow : leftRows){
+            join.getLeftOperation().setCurrentRow(leftRow);
+            DataScan scan=probe.getNonSIScan();
+            byte[] start=scan.getStartKey();
+            byte[] stop=scan.getStopKey();
+            if(start==null || start.length==0 || stop==null || stop.length==0)
+                return null;
+            ranges.add(new byte[][]{start,stop});
+            if(template==null)
+                template=scan;
+        }
+        Collections.sort(ranges,RANGE_COMPARATOR);
+        List<byte[][]> distinct=new ArrayList<>(ranges.size());
+        for(byte[][] range : ranges){
+            if(!distinct.isEmpty()){
+                byte[][] last=distinct.get(distinct.size()-1);
+                if(RANGE_COMPARATOR.compare(last,range)==0)
+                    continue;
+                if(Bytes.BASE_COMPARATOR.compare(last[1],range[0])>0)
+                    return null;
+            }
+            distinct.add(range);
+        }
+
+        KeyLookupBatch batch=new KeyLookupBatch(distinct);
+        List<byte[]> startKeys=Arrays.asList(batch.startKeys);
+        List<byte[]> stopKeys=Arrays.asList(batch.stopKeys);
+        DataScan scan=template.copy()
+                .startKey(batch.startKeys[0])
+                .stopKey(batch.stopKeys[batch.stopKeys.length-1])
+                .filter(SIDriver.driver().filterFactory().skippingScanFilter(startKeys,stopKeys));
+        // the zone and row predicates of the template hold the qualifier values of the first outer row only
+        scan.addAttribute(SIConstants.ZONE_PREDICATE_LABEL,null);
+        try{
+            EntryPredicateFilter epf=EntryPredicateFilter.fromBytes(scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL));
+            scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL,epf.withoutRowPredicate().toBytes());
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }
+        DataSetProcessor dsp=EngineDriver.driver().processorFactory().localProcessor(join.getActivation(),join);
+        Iterator<ExecRow> it=probe.getTableScannerBuilder(dsp,null,scan,probe.currentTemplate.getClone()).toLocalIterator();
+        int fetched=0;
+        while(it.hasNext()){
+            ExecRow row=it.next();
+            int range=batch.find(row.getKey());
+            if(range>=0){
+                batch.rows.get(range).add(row.getClone());
+                fetched++;
+            }
+        }
+        if(LOG.isTraceEnabled())
+            SpliceLogUtils.trace(LOG,"read %d rows for %d outer rows in %d ranges",fetched,leftRows.size(),distinct.size());
+        return batch;
+    }
+
+    /**
+     * @return the rows of the range {@code op} is about to scan, or null if this batch doesn't cover it
+     */
+    DataSet<ExecRow> getDataSet(TableScanOperation op,DataSetProcessor dsp) throws StandardException{
+        DataScan scan=op.getNonSIScan();
+        int range=find(scan.getStartKey());
+        if(range<0
+                || !Bytes.equals(startKeys[range],scan.getStartKey())
+                || !Bytes.equals(stopKeys[range],scan.getStopKey()))
+            return null;
+        return dsp.createDataSet(new LookupIterator(op,rows.get(range)));
+    }
+
+    /**
+     * @return the position of the range containing {@code key}, or -1 if there is none
+     */
+    private int find(byte[] key){
+        if(key==null)
+            return -1;
+        int low=0;
+        int high=startKeys.length-1;
+        int found=-1;
+        while(low<=high){
+            int mid=(low+high)>>>1;
+            if(Bytes.BASE_COMPARATOR.compare(startKeys[mid],key)<=0){
+                found=mid;
+                low=mid+1;
+            }else
+                high=mid-1;
+        }
+        if(found<0 || Bytes.BASE_COMPARATOR.compare(key,stopKeys[found])>=0)
+            return -1;
+        return found;
+    }
+
+    private static final Comparator<byte[][]> RANGE_COMPARATOR=new Comparator<byte[][]>(){
+        @Override
+        public int compare(byte[][] o1,byte[][] o2){
+            int c=Bytes.BASE_COMPARATOR.compare(o1[0],o2[0]);
+            if(c!=0)
+                return c;
+            return Bytes.BASE_COMPARATOR.compare(o1[1],o2[1]);
+        }
+    };
+
+    /**
+     * Replays the rows of a range for one probe, applying the qualifiers and tracking the current row
+     * the way a table scan does.
+     */
+    private static class LookupIterator implements Iterator<ExecRow>{
+        private final Iterator<ExecRow> rows;
+        private final ScanOperation operation;
+        private final Qualifier[][] qualifiers;
+        private final int[] baseColumnMap;
+        private final boolean rowIdKey;
+        private ExecRow next;
+
+        LookupIterator(ScanOperation operation,List<ExecRow> rows) throws StandardException{
+            this.rows=rows.iterator();
+            this.operation=operation;
+            this.qualifiers=operation.getScanInformation().getScanQualifiers();
+            this.baseColumnMap=operation.getOperationInformation().getBaseColumnMap();
+            this.rowIdKey=operation.getRowIdKey();
+        }
+
+        @Override
+        public boolean hasNext(){
+            try{
+                while(next==null && rows.hasNext()){
+                    ExecRow row=rows.next();
+                    if(qualifiers==null || rowIdKey || Scans.qualifyRecordFromRow(row.getRowArray(),qualifiers,baseColumnMap,null))
+                        next=row.getClone();
+                }
+                return next!=null;
+            }catch(StandardException e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public ExecRow next(){
+            if(!hasNext())
+                throw new NoSuchElementException();
+            ExecRow row=next;
+            next=null;
+            operation.setCurrentRow(row);
+            operation.setCurrentRowLocation(new HBaseRowLocation(row.getKey()));
+            return row;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+    }
+}
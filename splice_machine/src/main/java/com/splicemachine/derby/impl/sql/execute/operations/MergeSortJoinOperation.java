@@ -176,66 +176,76 @@ public class MergeSortJoinOperation extends JoinOperation {
 
     @Override
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException {
-        OperationContext<JoinOperation> operationContext = dsp.<JoinOperation>createOperationContext(this);
+        return mergeSortJoin(this, dsp);
+    }
+
+    /**
+     * Joins the left and right sides of the given join by keying (and so shuffling) both of them on their hash keys.
+     * Besides implementing this operation, this is what a {@link BroadcastJoinOperation} falls back to when its right
+     * side turns out to be too large to be held in memory.
+     */
+    static DataSet<ExecRow> mergeSortJoin(JoinOperation op, DataSetProcessor dsp) throws StandardException {
+        OperationContext<JoinOperation> operationContext = dsp.<JoinOperation>createOperationContext(op);
 
         // Prepare Left
 
-        DataSet<ExecRow> leftDataSet1 = leftResultSet.getDataSet(dsp);
+        DataSet<ExecRow> leftDataSet1 = op.leftResultSet.getDataSet(dsp);
 
        // operationContext.pushScopeForOp("Prepare Left Side");
         DataSet<ExecRow> leftDataSet2 =
             leftDataSet1.map(new CountJoinedLeftFunction(operationContext));
-        if (!isOuterJoin)
-            leftDataSet2 = leftDataSet2.filter(new InnerJoinNullFilterFunction(operationContext,leftHashKeys));
+        if (!op.isOuterJoin)
+            leftDataSet2 = leftDataSet2.filter(new InnerJoinNullFilterFunction(operationContext,op.getLeftHashKeys()));
 
         // Prepare Right
-        DataSet<ExecRow> rightDataSet1 = rightResultSet.getDataSet(dsp);
+        DataSet<ExecRow> rightDataSet1 = op.rightResultSet.getDataSet(dsp);
         DataSet<ExecRow> rightDataSet2 =
             rightDataSet1.map(new CountJoinedRightFunction(operationContext));
 //        if (!isOuterJoin) Remove all nulls from the right side...
-            rightDataSet2 = rightDataSet2.filter(new InnerJoinNullFilterFunction(operationContext,rightHashKeys));
+            rightDataSet2 = rightDataSet2.filter(new InnerJoinNullFilterFunction(operationContext,op.getRightHashKeys()));
 
         if (LOG.isDebugEnabled())
             SpliceLogUtils.debug(LOG, "getDataSet Performing MergeSortJoin type=%s, antiJoin=%s, hasRestriction=%s",
-                    isOuterJoin ? "outer" : "inner", notExistsRightSide, restriction != null);
+                    op.isOuterJoin ? "outer" : "inner", op.notExistsRightSide, op.restriction != null);
                 rightDataSet1.map(new CountJoinedRightFunction(operationContext));
         DataSet<ExecRow> joined;
-        if (dsp.getType().equals(DataSetProcessor.Type.SPARK) && restriction == null) {
-            if (isOuterJoin)
+        if (dsp.getType().equals(DataSetProcessor.Type.SPARK) && op.restriction == null) {
+            if (op.isOuterJoin)
                 joined = leftDataSet2.join(operationContext,rightDataSet2, DataSet.JoinType.LEFTOUTER,false);
-            else if (notExistsRightSide)
+            else if (op.notExistsRightSide)
                 joined = leftDataSet2.join(operationContext,rightDataSet2, DataSet.JoinType.LEFTANTI,false);
             else
                 joined = leftDataSet2.join(operationContext,rightDataSet2, DataSet.JoinType.INNER,false);
         } else{
             PairDataSet<ExecRow, ExecRow> rightDataSet =
-                    rightDataSet2.keyBy(new KeyerFunction(operationContext, rightHashKeys));
+                    rightDataSet2.keyBy(new KeyerFunction(operationContext, op.getRightHashKeys()));
 //            operationContext.popScope();
             PairDataSet<ExecRow,ExecRow> leftDataSet =
-                    leftDataSet2.keyBy(new KeyerFunction<ExecRow,JoinOperation>(operationContext, leftHashKeys));
+                    leftDataSet2.keyBy(new KeyerFunction<ExecRow,JoinOperation>(operationContext, op.getLeftHashKeys()));
 
             if (LOG.isDebugEnabled())
                 SpliceLogUtils.debug(LOG, "getDataSet Performing MergeSortJoin type=%s, antiJoin=%s, hasRestriction=%s",
-                        isOuterJoin ? "outer" : "inner", notExistsRightSide, restriction != null);
-            joined = getJoinedDataset(operationContext, leftDataSet, rightDataSet);
+                        op.isOuterJoin ? "outer" : "inner", op.notExistsRightSide, op.restriction != null);
+            joined = getJoinedDataset(op, operationContext, leftDataSet, rightDataSet);
         }
             return joined.map(new CountProducedFunction(operationContext), true);
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private DataSet<ExecRow> getJoinedDataset(
+    private static DataSet<ExecRow> getJoinedDataset(
+        JoinOperation op,
         OperationContext operationContext,
         PairDataSet<ExecRow, ExecRow> leftDataSet,
         PairDataSet<ExecRow, ExecRow> rightDataSet) {
 
-        if (isOuterJoin) { // Outer Join
+        if (op.isOuterJoin) { // Outer Join
             return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right", operationContext)
                         .flatmap(new CogroupOuterJoinRestrictionFlatMapFunction<SpliceOperation>(operationContext))
                         .map(new SetCurrentLocatedRowFunction<>(operationContext));
         }
         else {
-            if (this.notExistsRightSide) { // antijoin
-                if (restriction !=null) { // with restriction
+            if (op.notExistsRightSide) { // antijoin
+                if (op.restriction !=null) { // with restriction
                     return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right", operationContext).values()
                         .flatMap(new CogroupAntiJoinRestrictionFlatMapFunction(operationContext));
                 } else { // No Restriction
@@ -243,11 +253,11 @@ public class MergeSortJoinOperation extends JoinOperation {
                             .map(new AntiJoinFunction(operationContext));
                 }
             } else { // Inner Join
-                if (isOneRowRightSide()) {
+                if (op.isOneRowRightSide()) {
                     return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right", operationContext).values()
                         .flatMap(new CogroupInnerJoinRestrictionFlatMapFunction(operationContext));
                 }
-                if (restriction !=null) { // with restriction
+                if (op.restriction !=null) { // with restriction
                     return leftDataSet.hashJoin(rightDataSet, operationContext)
                             .map(new InnerJoinFunction<SpliceOperation>(operationContext))
                             .filter(new JoinRestrictionPredicateFunction(operationContext));
@@ -67,6 +67,7 @@ public abstract class ScanOperation extends SpliceBaseOperation{
     protected String location;
     int partitionRefItem;
     protected int[] partitionColumnMap;
+    protected JoinKeyFilter joinKeyFilter;
 
     public ScanOperation(){
         super();
@@ -117,6 +118,19 @@ public abstract class ScanOperation extends SpliceBaseOperation{
         );
     }
 
+    /**
+     * Have this scan drop the rows {@code joinKeyFilter} rejects, before passing them on.
+     *
+     * @param joinKeyFilter the filter of the join this scan feeds, or null
+     */
+    public void setJoinKeyFilter(JoinKeyFilter joinKeyFilter){
+        this.joinKeyFilter=joinKeyFilter;
+    }
+
+    public JoinKeyFilter getJoinKeyFilter(){
+        return joinKeyFilter;
+    }
+
     public int[] getColumnOrdering() throws StandardException{
         if(columnOrdering==null){
             columnOrdering=scanInformation.getColumnOrdering();
@@ -141,6 +155,7 @@ public abstract class ScanOperation extends SpliceBaseOperation{
         storedAs = in.readBoolean()?in.readUTF():null;
         location = in.readBoolean()?in.readUTF():null;
         partitionRefItem = in.readInt();
+        joinKeyFilter = (JoinKeyFilter)in.readObject();
     }
 
     @Override
@@ -169,6 +184,7 @@ public abstract class ScanOperation extends SpliceBaseOperation{
         if (location!=null)
             out.writeUTF(location);
         out.writeInt(partitionRefItem);
+        out.writeObject(joinKeyFilter);
     }
 
     @Override
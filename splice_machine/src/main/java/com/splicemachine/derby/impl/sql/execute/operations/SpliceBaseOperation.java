@@ -41,6 +41,7 @@ import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
+import com.splicemachine.derby.impl.sql.execute.ResultCache;
 import com.splicemachine.derby.impl.sql.execute.operations.iapi.OperationInformation;
 import com.splicemachine.derby.impl.store.access.BaseSpliceTransaction;
 import com.splicemachine.derby.impl.store.access.SpliceTransaction;
@@ -65,7 +66,9 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.sql.SQLWarning;
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -416,12 +419,49 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
     }
 
     protected void resubmitDistributed(ResubmitDistributedException e) throws StandardException {
+        if (e instanceof BroadcastJoinMemoryLimitException) {
+            // The query can stay where it is, it's only the broadcast join that has to go
+            if (!fallBackToMergeSortJoin((BroadcastJoinMemoryLimitException) e))
+                throw e;
+            close();
+            /*
+             * Not through openCore(), which would look up and record the result cache entry a second time;
+             * when this operation is opened by openCore() it records the reopened rows itself.
+             */
+            uuid = EngineDriver.driver().getOperationManager().registerOperation(this, Thread.currentThread());
+            openUncached();
+            return;
+        }
         LOG.warn("The query consumed too many resources running in control mode, resubmitting in Spark");
         close();
         activation.getPreparedStatement().setDatasetProcessorType(CompilerContext.DataSetProcessorType.FORCED_SPARK);
         openDistributed();
     }
 
+    /**
+     * Finds the broadcast join which gave up loading its right side in this operation tree and makes
+     * it run as a merge sort join.
+     *
+     * @return false if the broadcast join isn't part of this operation tree
+     */
+    private boolean fallBackToMergeSortJoin(BroadcastJoinMemoryLimitException e) {
+        Deque<SpliceOperation> operations = new ArrayDeque<>();
+        operations.add(this);
+        while (!operations.isEmpty()) {
+            SpliceOperation op = operations.poll();
+            if (op instanceof BroadcastJoinOperation
+                    && ((BroadcastJoinOperation) op).getSequenceId() == e.getOperationId()) {
+                ((BroadcastJoinOperation) op).fallBackToMergeSortJoin(e);
+                return true;
+            }
+            for (SpliceOperation child : op.getSubOperations()) {
+                if (child != null)
+                    operations.add(child);
+            }
+        }
+        return false;
+    }
+
     // When we kill an operation we close it abruptly and weird exceptions might pop up, mask them with the cancellation message
     private void checkInterruptedException(Exception e) throws StandardException {
         // we might have been killed, check the flag
@@ -447,14 +487,16 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
     public void openCore() throws StandardException{
         try {
             uuid = EngineDriver.driver().getOperationManager().registerOperation(this, Thread.currentThread());
-            DataSetProcessor dsp = EngineDriver.driver().processorFactory().chooseProcessor(activation, this);
-            if (dsp.getType() == DataSetProcessor.Type.SPARK && !isOlapServer() && !SpliceClient.isClient) {
-                remoteQueryClient = EngineDriver.driver().processorFactory().getRemoteQueryClient(this);
-                remoteQueryClient.submit();
-                execRowIterator = remoteQueryClient.getIterator();
-            } else {
-                openCore(dsp);
+            ResultCache.Lookup cached = isTopResultSet ? EngineDriver.driver().getResultCache().lookup(this) : null;
+            if (cached != null && cached.isHit()) {
+                isOpen = true;
+                returnedRows = false;
+                execRowIterator = cached.getRows();
+                return;
             }
+            openUncached();
+            if (cached != null)
+                execRowIterator = cached.record(execRowIterator);
         } catch (Exception e) {
             EngineDriver.driver().getOperationManager().unregisterOperation(uuid);
             checkInterruptedException(e);
@@ -462,6 +504,20 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
         }
     }
 
+    /**
+     * Opens this operation on the processor chosen for it, without going through the result cache.
+     */
+    private void openUncached() throws StandardException {
+        DataSetProcessor dsp = EngineDriver.driver().processorFactory().chooseProcessor(activation, this);
+        if (dsp.getType() == DataSetProcessor.Type.SPARK && !isOlapServer() && !SpliceClient.isClient) {
+            remoteQueryClient = EngineDriver.driver().processorFactory().getRemoteQueryClient(this);
+            remoteQueryClient.submit();
+            execRowIterator = remoteQueryClient.getIterator();
+        } else {
+            openCore(dsp);
+        }
+    }
+
     protected void computeModifiedRows() throws StandardException {
         modifiedRowCount = 0;
         badRecords = 0;
@@ -505,6 +561,8 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
                 if (!returnedRows) {
                     resubmitDistributed(re);
                     return getNextRowCore();
+                } else if (re instanceof BroadcastJoinMemoryLimitException) {
+                    throw re;
                 } else {
                     // we have already returned some rows, return error to user so he can resubmit the query to spark
                     throw StandardException.newException(SQLState.LANG_RESUBMIT_DISTRIBUTED);
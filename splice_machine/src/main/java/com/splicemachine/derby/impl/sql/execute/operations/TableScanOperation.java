@@ -28,6 +28,7 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -53,6 +54,7 @@ public class TableScanOperation extends ScanOperation{
     protected int[] baseColumnMap;
     protected static final String NAME=TableScanOperation.class.getSimpleName().replaceAll("Operation","");
     protected byte[] tableNameBytes;
+    private transient KeyLookupBatch keyLookupBatch;
 
     /**
      *
@@ -300,9 +302,24 @@ public class TableScanOperation extends ScanOperation{
     @Override
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException{
         assert currentTemplate!=null:"Current Template Cannot Be Null";
+        if(keyLookupBatch!=null){
+            DataSet<ExecRow> prefetched=keyLookupBatch.getDataSet(this,dsp);
+            if(prefetched!=null)
+                return prefetched;
+        }
         return getTableScannerBuilder(dsp);
     }
 
+    /**
+     * Have the next scans look up their rows in {@code keyLookupBatch} rather than reading them from the table,
+     * when the batch covers them.
+     *
+     * @param keyLookupBatch the rows prefetched for a batch of nested loop join probes, or null
+     */
+    public void setKeyLookupBatch(KeyLookupBatch keyLookupBatch){
+        this.keyLookupBatch=keyLookupBatch;
+    }
+
     /**
      *
      * Return the string representation for TableScan.
@@ -327,13 +344,29 @@ public class TableScanOperation extends ScanOperation{
      * @throws StandardException
      */
     public DataSet<ExecRow> getTableScannerBuilder(DataSetProcessor dsp) throws StandardException{
+        return getTableScannerBuilder(dsp,this,getNonSIScan(),currentTemplate);
+    }
+
+    /**
+     *
+     * Create the data set reading {@code scan} from this table.
+     *
+     * @param dsp
+     * @param caller the operation the rows are read for, which qualifies them and tracks the current row,
+     *               or null to read them unqualified
+     * @param scan
+     * @param template
+     * @return
+     * @throws StandardException
+     */
+    DataSet<ExecRow> getTableScannerBuilder(DataSetProcessor dsp,TableScanOperation caller,DataScan scan,ExecRow template) throws StandardException{
         TxnView txn=getCurrentTransaction();
-        return dsp.<TableScanOperation,ExecRow>newScanSet(this,tableName)
+        return dsp.<TableScanOperation,ExecRow>newScanSet(caller,tableName)
                 .tableDisplayName(tableDisplayName)
                 .activation(activation)
                 .transaction(txn)
-                .scan(getNonSIScan())
-                .template(currentTemplate)
+                .scan(scan)
+                .template(template)
                 .tableVersion(tableVersion)
                 .indexName(indexName)
                 .reuseRowLocation(false)
@@ -351,6 +384,6 @@ public class TableScanOperation extends ScanOperation{
                 .storedAs(storedAs)
                 .location(location)
                 .partitionByColumns(getPartitionColumnMap())
-                .buildDataSet(this);
+                .buildDataSet(caller);
     }
 }
\ No newline at end of file
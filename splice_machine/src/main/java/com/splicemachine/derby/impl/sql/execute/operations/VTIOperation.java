@@ -24,6 +24,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.services.io.FormatableHashtable;
+import com.splicemachine.db.vti.RestrictedVTI;
 import com.splicemachine.db.vti.Restriction;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
@@ -36,6 +37,7 @@ import com.splicemachine.derby.vti.iapi.DatasetProvider;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
 
@@ -113,6 +115,7 @@ public class VTIOperation extends SpliceBaseOperation {
 	private boolean isDerbyStyleTableFunction;
     private  TypeDescriptor returnType;
     private DataTypeDescriptor[]    returnColumnTypes;
+    private String[] vtiProjection;
     private Restriction vtiRestriction;
 
 	/**
@@ -167,6 +170,10 @@ public class VTIOperation extends SpliceBaseOperation {
             (TypeDescriptor)
             activation.getPreparedStatement().getSavedObject(returnTypeNumber);
 
+        this.vtiProjection = vtiProjectionNumber == -1 ? null :
+            (String[])
+            activation.getPreparedStatement().getSavedObject(vtiProjectionNumber);
+
         this.vtiRestriction = vtiRestrictionNumber == -1 ? null :
             (Restriction)
             activation.getPreparedStatement().getSavedObject(vtiRestrictionNumber);
@@ -203,6 +210,10 @@ public class VTIOperation extends SpliceBaseOperation {
         javaClassName = in.readUTF();
         rowMethodName = in.readUTF();
         constructorMethodName = in.readUTF();
+        if (in.readBoolean())
+            vtiProjection = (String[]) in.readObject();
+        if (in.readBoolean())
+            vtiRestriction = (Restriction) in.readObject();
     }
 
     @Override
@@ -211,6 +222,12 @@ public class VTIOperation extends SpliceBaseOperation {
         out.writeUTF(javaClassName);
         out.writeUTF(rowMethodName);
         out.writeUTF(constructorMethodName);
+        out.writeBoolean(vtiProjection != null);
+        if (vtiProjection != null)
+            out.writeObject(vtiProjection);
+        out.writeBoolean(vtiRestriction != null);
+        if (vtiRestriction != null)
+            out.writeObject(vtiRestriction);
     }
 
 
@@ -260,7 +277,15 @@ public class VTIOperation extends SpliceBaseOperation {
 
     @Override
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException {
-        return getDataSetProvider().getDataSet(this, dsp,getAllocatedRow());
+        DatasetProvider provider = getDataSetProvider();
+        if (provider instanceof RestrictedVTI && vtiProjection != null) {
+            try {
+                ((RestrictedVTI) provider).initScan(vtiProjection, vtiRestriction);
+            } catch (SQLException se) {
+                throw StandardException.plainWrapException(se);
+            }
+        }
+        return provider.getDataSet(this, dsp,getAllocatedRow());
     }
 
     @Override
@@ -19,27 +19,70 @@ import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.sql.ResultColumnDescriptor;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
 import com.splicemachine.db.iapi.types.TypeId;
-import org.supercsv.io.CsvListWriter;
 
+import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.FieldPosition;
 import java.text.NumberFormat;
 
 import static org.spark_project.guava.base.Preconditions.checkNotNull;
 
 /**
- * Writes ExecRows to a CSVWriter
+ * Writes ExecRows as CSV to an OutputStream.
+ *
+ * Each row is formatted straight from its DataValueDescriptors into a reusable character buffer, then encoded into a
+ * reusable byte buffer which is written out once it fills up, so exporting a row allocates next to nothing. Fields
+ * are quoted and escaped the way SuperCSV's default encoder does it: a field is quoted when it contains the field
+ * delimiter, the quote character or a line break, quote characters are doubled and line breaks are replaced by the
+ * record delimiter.
  */
+@NotThreadSafe
 public class ExportExecRowWriter implements Closeable {
 
-    private CsvListWriter csvWriter;
-    private NumberFormat decimalFormat = NumberFormat.getInstance();
+    private static final int WRITE_BUFFER_SIZE_BYTES = 64 * 1024;
+
+    private final OutputStream outputStream;
+    private final char fieldDelimiter;
+    private final char quoteChar;
+    private final char[] recordDelimiter;
+    private final CharsetEncoder encoder;
+    private final boolean asciiCompatible;
+
+    private final NumberFormat decimalFormat = NumberFormat.getInstance();
+    private final StringBuffer decimalBuffer = new StringBuffer(32);
+    private final FieldPosition fieldPosition = new FieldPosition(0);
+
+    private char[] field = new char[64];
+    private char[] row = new char[256];
+    private int rowLength;
+    private byte[] bytes = new byte[WRITE_BUFFER_SIZE_BYTES];
+    private int byteLength;
 
-    public ExportExecRowWriter(CsvListWriter csvWriter) {
-        checkNotNull(csvWriter);
-        this.csvWriter = csvWriter;
+    public ExportExecRowWriter(OutputStream outputStream, ExportParams exportParams) {
+        checkNotNull(outputStream);
+        this.outputStream = outputStream;
+        this.fieldDelimiter = exportParams.getFieldDelimiter();
+        this.quoteChar = exportParams.getQuoteChar();
+        this.recordDelimiter = exportParams.getRecordDelimiter().toCharArray();
+        Charset charset = Charset.forName(exportParams.getCharacterEncoding());
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+        this.decimalFormat.setGroupingUsed(false);
     }
 
     /**
@@ -47,33 +90,56 @@ public class ExportExecRowWriter implements Closeable {
      */
     public void writeRow(ExecRow execRow, ResultColumnDescriptor[] columnDescriptors) throws IOException, StandardException {
         DataValueDescriptor[] rowArray = execRow.getRowArray();
-        String[] stringRowArray = new String[rowArray.length];
+        rowLength = 0;
         for (int i = 0; i < rowArray.length; i++) {
+            if (i > 0) {
+                append(fieldDelimiter);
+            }
             DataValueDescriptor value = rowArray[i];
 
             // null
             if (value == null || value.isNull()) {
-                stringRowArray[i] = null;
+                continue;
             }
 
             // decimal -- We format the number in the CSV to have the same scale as the source decimal column type.
             // Apparently some tools (Ab Initio) cannot import from CSV a number "15" that is supposed
             // to be decimal(31, 7) unless the CSV contains exactly "15.0000000".
-            else if (isDecimal(columnDescriptors[i])) {
+            if (isDecimal(columnDescriptors[i])) {
                 int scale = columnDescriptors[i].getType().getScale();
                 decimalFormat.setMaximumFractionDigits(scale);
                 decimalFormat.setMinimumFractionDigits(scale);
-                decimalFormat.setGroupingUsed(false);
-                BigDecimal valueObject = (BigDecimal) value.getObject();
-                stringRowArray[i] = decimalFormat.format(valueObject);
+                decimalBuffer.setLength(0);
+                decimalFormat.format(value.getObject(), decimalBuffer, fieldPosition);
+                int length = decimalBuffer.length();
+                decimalBuffer.getChars(0, length, fieldBuffer(length), 0);
+                appendField(field, length);
+            }
+
+            // integers -- formatted without going through a String
+            else if (isIntegral(value)) {
+                appendField(field, formatLong(value.getLong()));
+            }
+
+            // character data -- copied from the value's own buffer when it has one
+            else if (value instanceof SQLChar) {
+                SQLChar chars = (SQLChar) value;
+                appendField(chars.getCharArray(), chars.getLength());
             }
 
             // everything else
             else {
-                stringRowArray[i] = value.getString();
+                String string = value.getString();
+                int length = string.length();
+                string.getChars(0, length, fieldBuffer(length), 0);
+                appendField(field, length);
             }
         }
-        csvWriter.write(stringRowArray);
+        append(recordDelimiter, recordDelimiter.length);
+        encodeRow();
+        if (byteLength >= WRITE_BUFFER_SIZE_BYTES) {
+            flushBytes();
+        }
     }
 
     private boolean isDecimal(ResultColumnDescriptor columnDescriptor) {
@@ -81,12 +147,166 @@ public class ExportExecRowWriter implements Closeable {
         return typeId != null && typeId.getTypeFormatId() == StoredFormatIds.DECIMAL_TYPE_ID;
     }
 
+    private static boolean isIntegral(DataValueDescriptor value) {
+        switch (value.getTypeFormatId()) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Formats {@code value} into the field buffer, and returns its length.
+     */
+    private int formatLong(long value) {
+        char[] chars = fieldBuffer(20);
+        if (value == Long.MIN_VALUE) {
+            String string = Long.toString(value);
+            string.getChars(0, string.length(), chars, 0);
+            return string.length();
+        }
+        boolean negative = value < 0;
+        long remaining = negative ? -value : value;
+        int position = chars.length;
+        do {
+            chars[--position] = (char) ('0' + (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            chars[--position] = '-';
+        }
+        int length = chars.length - position;
+        System.arraycopy(chars, position, chars, 0, length);
+        return length;
+    }
+
+    private char[] fieldBuffer(int length) {
+        if (field.length < length) {
+            field = new char[Math.max(length, 2 * field.length)];
+        }
+        return field;
+    }
+
+    private void appendField(char[] chars, int length) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < length && !needsQuotes; i++) {
+            char c = chars[i];
+            needsQuotes = c == fieldDelimiter || c == quoteChar || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            append(chars, length);
+            return;
+        }
+        append(quoteChar);
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c == quoteChar) {
+                append(quoteChar);
+                append(quoteChar);
+            } else if (c == '\r') {
+                append(recordDelimiter, recordDelimiter.length);
+                if (i + 1 < length && chars[i + 1] == '\n') {
+                    i++;
+                }
+            } else if (c == '\n') {
+                append(recordDelimiter, recordDelimiter.length);
+            } else {
+                append(c);
+            }
+        }
+        append(quoteChar);
+    }
+
+    private void append(char c) {
+        if (rowLength == row.length) {
+            growRow(1);
+        }
+        row[rowLength++] = c;
+    }
+
+    private void append(char[] chars, int length) {
+        if (row.length - rowLength < length) {
+            growRow(length);
+        }
+        System.arraycopy(chars, 0, row, rowLength, length);
+        rowLength += length;
+    }
+
+    private void growRow(int needed) {
+        char[] newRow = new char[Math.max(rowLength + needed, 2 * row.length)];
+        System.arraycopy(row, 0, newRow, 0, rowLength);
+        row = newRow;
+    }
+
+    /**
+     * Encodes the formatted row into the byte buffer. Runs of ASCII are copied directly when the character
+     * set encodes them as themselves, everything else goes through the character set's encoder.
+     */
+    private void encodeRow() throws IOException {
+        int position = 0;
+        if (asciiCompatible) {
+            if (bytes.length - byteLength < rowLength) {
+                flushBytes();
+                if (bytes.length < rowLength) {
+                    bytes = new byte[rowLength];
+                }
+            }
+            while (position < rowLength && row[position] < 0x80) {
+                bytes[byteLength++] = (byte) row[position++];
+            }
+            if (position == rowLength) {
+                return;
+            }
+        }
+        encode(CharBuffer.wrap(row, position, rowLength - position), false);
+    }
+
+    /**
+     * Runs the encoder over {@code in}. The encoder is shared by all the rows, like the one of an OutputStreamWriter,
+     * so that encodings which start with a byte order mark only write it once.
+     */
+    private void encode(CharBuffer in, boolean endOfInput) throws IOException {
+        while (true) {
+            ByteBuffer out = ByteBuffer.wrap(bytes, byteLength, bytes.length - byteLength);
+            CoderResult result = encoder.encode(in, out, endOfInput);
+            if (endOfInput && result.isUnderflow()) {
+                result = encoder.flush(out);
+            }
+            byteLength = out.position();
+            if (!result.isOverflow()) {
+                return;
+            }
+            if (byteLength == 0) {
+                bytes = new byte[2 * bytes.length];
+            } else {
+                flushBytes();
+            }
+        }
+    }
+
+    private void flushBytes() throws IOException {
+        if (byteLength > 0) {
+            outputStream.write(bytes, 0, byteLength);
+            byteLength = 0;
+        }
+    }
+
     /**
      * Will flush and close
      */
     @Override
     public void close() throws IOException {
-        csvWriter.close();
+        try {
+            encode(CharBuffer.allocate(0), true);
+            flushBytes();
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
     }
 
 }
@@ -21,6 +21,8 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.ResultColumnDescriptor;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.derby.iapi.sql.execute.*;
 import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
@@ -29,6 +31,7 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.output.DataSetWriter;
+import com.splicemachine.utils.IntArrays;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -71,7 +74,8 @@ public class ExportOperation extends SpliceBaseOperation {
                            int replicationCount,
                            String encoding,
                            String fieldSeparator,
-                           String quoteCharacter) throws StandardException {
+                           String quoteCharacter,
+                           String format) throws StandardException {
         super(activation, rsNumber, 0d, 0d);
 
         if (replicationCount <= 0 && replicationCount != ExportNode.DEFAULT_INT_VALUE) {
@@ -80,7 +84,7 @@ public class ExportOperation extends SpliceBaseOperation {
 
         this.source = source;
         this.sourceColumnDescriptors = sourceColumnDescriptors;
-        this.exportParams = new ExportParams(exportPath, compression, replicationCount, encoding, fieldSeparator, quoteCharacter);
+        this.exportParams = new ExportParams(exportPath, compression, replicationCount, encoding, fieldSeparator, quoteCharacter, format);
         this.activation = activation;
 
         try {
@@ -181,6 +185,8 @@ public class ExportOperation extends SpliceBaseOperation {
         if (LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG, "getDataSet(): begin");
         DataSet<ExecRow> dataset = source.getDataSet(dsp);
+        if (exportParams.isBinaryFormat())
+            return writeBinaryFiles(dsp, dataset);
         OperationContext<ExportOperation> operationContext = dsp.createOperationContext(this);
         DataSetWriter writer = dataset.writeToDisk()
             .directory(exportParams.getDirectory())
@@ -198,4 +204,31 @@ public class ExportOperation extends SpliceBaseOperation {
             operationContext.popScope();
         }
     }
+
+    /**
+     * Writes the rows to Parquet or ORC files through the data set, which names the columns and writes them with
+     * the row definition of the source operation, so the files are written under an operation context of the source.
+     */
+    private DataSet<ExecRow> writeBinaryFiles(DataSetProcessor dsp, DataSet<ExecRow> dataset) throws StandardException {
+        OperationContext sourceContext = dsp.createOperationContext(source);
+        int[] baseColumnMap = IntArrays.count(sourceColumnDescriptors.length);
+        String compression = exportParams.isCompression() ? "snappy" : "none";
+        sourceContext.pushScope();
+        try {
+            DataSet<ExecRow> written;
+            if (ExportParams.FORMAT_PARQUET.equals(exportParams.getFormat()))
+                written = dataset.writeParquetFile(baseColumnMap, new int[0], exportParams.getDirectory(), compression, sourceContext);
+            else
+                written = dataset.writeORCFile(baseColumnMap, new int[0], exportParams.getDirectory(), compression, sourceContext);
+            ExecRow writtenRow = written.toLocalIterator().next();
+            ValueRow valueRow = new ValueRow(2);
+            valueRow.setColumn(1, new SQLLongint(writtenRow.getColumn(1).getLong()));
+            valueRow.setColumn(2, new SQLInteger(0));
+            if (LOG.isTraceEnabled())
+                SpliceLogUtils.trace(LOG, "writeBinaryFiles(): done");
+            return dsp.singleRowDataSet(valueRow);
+        } finally {
+            sourceContext.popScope();
+        }
+    }
 }
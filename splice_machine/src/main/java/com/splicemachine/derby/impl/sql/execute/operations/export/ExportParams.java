@@ -31,6 +31,10 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
  */
 public class ExportParams implements Serializable {
 
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_PARQUET = "parquet";
+    public static final String FORMAT_ORC = "orc";
+
     private static final String DEFAULT_ENCODING = Charsets.UTF_8.name();
     private static final short DEFAULT_REPLICATION_COUNT = 1;
     private static final char DEFAULT_FIELD_DELIMITER = ',';
@@ -41,6 +45,7 @@ public class ExportParams implements Serializable {
     private short replicationCount = DEFAULT_REPLICATION_COUNT;
     private boolean compression;
     private String characterEncoding = DEFAULT_ENCODING;
+    private String format = FORMAT_CSV;
 
     private char fieldDelimiter = DEFAULT_FIELD_DELIMITER;
     private char quoteChar = DEFAULT_QUOTE_CHAR;
@@ -51,12 +56,18 @@ public class ExportParams implements Serializable {
 
     public ExportParams(String directory, boolean compression, int replicationCount, String characterEncoding,
                         String fieldDelimiter, String quoteChar) throws StandardException {
+        this(directory, compression, replicationCount, characterEncoding, fieldDelimiter, quoteChar, null);
+    }
+
+    public ExportParams(String directory, boolean compression, int replicationCount, String characterEncoding,
+                        String fieldDelimiter, String quoteChar, String format) throws StandardException {
         setDirectory(directory);
         setCompression(compression);
         setReplicationCount((short) replicationCount);
         setCharacterEncoding(characterEncoding);
         setDefaultFieldDelimiter(StringEscapeUtils.unescapeJava(fieldDelimiter));
         setQuoteChar(StringEscapeUtils.unescapeJava(quoteChar));
+        setFormat(format);
     }
 
     /**
@@ -96,6 +107,22 @@ public class ExportParams implements Serializable {
         return replicationCount;
     }
 
+    /**
+     * @return the format of the exported files, one of {@link #FORMAT_CSV}, {@link #FORMAT_PARQUET} or
+     * {@link #FORMAT_ORC}
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @return true if the rows are exported to Parquet or ORC files instead of CSV. Binary exports ignore the
+     * CSV options, and compress with the format's own codec.
+     */
+    public boolean isBinaryFormat() {
+        return !FORMAT_CSV.equals(format);
+    }
+
     // - - - - - - - - - - -
     // private setters
     // - - - - - - - - - - -
@@ -136,6 +163,15 @@ public class ExportParams implements Serializable {
         }
     }
 
+    public void setFormat(String format) throws StandardException {
+        if (!isBlank(format)) {
+            String lowerCase = format.trim().toLowerCase();
+            checkArgument(FORMAT_CSV.equals(lowerCase) || FORMAT_PARQUET.equals(lowerCase) || FORMAT_ORC.equals(lowerCase),
+                    "format", format);
+            this.format = lowerCase;
+        }
+    }
+
     private static void checkArgument(boolean isOk, String parameter, String value) throws StandardException {
         if (!isOk) {
             throw StandardException.newException(SQLState.UU_INVALID_PARAMETER, parameter, value);
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.export;
+
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output stream which compresses fixed size blocks of its input on a shared pool, each into an
+ * independent gzip member. It is meant for a single writer producing the whole export, as control mode does;
+ * Spark tasks already compress their parts in parallel, one per core.
+ *
+ * The members are written to the underlying stream in the order of their blocks, so the output is a regular
+ * multi-member gzip file, which gunzip, {@link java.util.zip.GZIPInputStream} and Hadoop's codecs all read
+ * as the concatenation of the blocks. The pool has a thread per core, but each stream keeps at most
+ * {@code 2 * MAX_STREAM_PARALLELISM} blocks in flight, which bounds its memory and leaves threads for
+ * concurrent exports.
+ */
+@NotThreadSafe
+public class ParallelGzipOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private static final int POOL_SIZE = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final int MAX_STREAM_PARALLELISM = Math.min(4, POOL_SIZE);
+    private static final int MAX_IN_FLIGHT = 2 * MAX_STREAM_PARALLELISM;
+    private static final ExecutorService COMPRESSION_POOL = Executors.newFixedThreadPool(POOL_SIZE,
+            new ThreadFactoryBuilder().setNameFormat("export-gzip-%d").setDaemon(true).build());
+
+    private final OutputStream out;
+    private final int blockSize;
+    private final ArrayDeque<Future<Block>> inFlight = new ArrayDeque<>(MAX_IN_FLIGHT);
+    private final ArrayDeque<byte[]> freeBuffers = new ArrayDeque<>(MAX_IN_FLIGHT);
+
+    private byte[] buffer;
+    private int position;
+    private boolean wroteMember;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int blockSize) {
+        assert blockSize > 0 : "Invalid block size " + blockSize;
+        this.out = out;
+        this.blockSize = blockSize;
+        this.buffer = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position == blockSize)
+            submitBlock();
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (position == blockSize)
+                submitBlock();
+            int toCopy = Math.min(len, blockSize - position);
+            System.arraycopy(b, off, buffer, position, toCopy);
+            position += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    /**
+     * Compresses what is buffered into a member of its own, and writes every pending member out.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (position > 0)
+            submitBlock();
+        while (!inFlight.isEmpty())
+            writeNextMember();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            flush();
+            if (!wroteMember) {
+                // an empty file isn't valid gzip, an empty member is
+                new GZIPOutputStream(out).finish();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (inFlight.size() >= MAX_IN_FLIGHT)
+            writeNextMember();
+        final byte[] data = buffer;
+        final int length = position;
+        inFlight.add(COMPRESSION_POOL.submit(() -> compress(data, length)));
+        buffer = freeBuffers.isEmpty() ? new byte[blockSize] : freeBuffers.poll();
+        position = 0;
+    }
+
+    private void writeNextMember() throws IOException {
+        Block block;
+        try {
+            block = inFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing export data");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException(cause);
+        }
+        block.compressed.writeTo(out);
+        wroteMember = true;
+        freeBuffers.add(block.data);
+    }
+
+    private static Block compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 64 * 1024)) {
+            gzip.write(data, 0, length);
+        }
+        return new Block(data, compressed);
+    }
+
+    private static class Block {
+        private final byte[] data;
+        private final ByteArrayOutputStream compressed;
+
+        private Block(byte[] data, ByteArrayOutputStream compressed) {
+            this.data = data;
+            this.compressed = compressed;
+        }
+    }
+}
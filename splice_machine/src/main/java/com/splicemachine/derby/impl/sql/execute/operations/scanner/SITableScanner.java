@@ -14,6 +14,8 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations.scanner;
 
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import org.spark_project.guava.base.Supplier;
 import org.spark_project.guava.base.Suppliers;
@@ -25,6 +27,7 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.derby.impl.store.ExecRowAccumulator;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.derby.utils.Scans;
 import com.splicemachine.derby.utils.StandardIterator;
 import com.splicemachine.derby.utils.marshall.dvd.TypeProvider;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
@@ -87,6 +90,8 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private final Counter outputBytesCounter;
     private long demarcationPoint;
     private DataValueDescriptor optionalProbeValue;
+    private Qualifier[][] qualifiers;
+    private int[] baseColumnMap;
 
     protected SITableScanner(DataScanner scanner,
                              final TransactionalRegion region,
@@ -180,11 +185,25 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
 
     }
 
+    /**
+     * Has the scanner evaluate {@code qualifiers} itself, on the columns they reference, before it decodes the
+     * other columns of the row, so that the rows they filter out never pay for decoding those. Rows returned
+     * then pass the qualifiers. Must be called before the first row is read, from the thread evaluating them.
+     *
+     * @param baseColumnMap the positions in the row of the base columns, by storage position
+     */
+    public void setQualifiers(Qualifier[][] qualifiers,int[] baseColumnMap){
+        assert siFilter==null:"Qualifiers set after the scan started";
+        this.qualifiers = qualifiers;
+        this.baseColumnMap = baseColumnMap;
+    }
+
     @Override
     public ExecRow next() throws StandardException, IOException {
         SIFilter filter = getSIFilter();
         do{
             template.resetRowArray(); //necessary to deal with null entries--maybe make the underlying call faster?
+            accumulator.discardDeferred();
             List<DataCell> keyValues=regionScanner.next(-1);
 
             if(keyValues.size()<=0){
@@ -206,6 +225,10 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
                     if (LOG.isTraceEnabled())
                         SpliceLogUtils.trace(LOG,"miss columns=%d",template.nColumns());
                 }
+                if(!qualifyRow()){
+                    filterCounter.increment();
+                    continue;
+                }
                 measureOutputSize(keyValues);
                 currentKeyValue = keyValues.get(0);
                 setRowLocation(currentKeyValue);
@@ -215,6 +238,17 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         }while(true); //TODO -sf- this doesn't seem quite right
     }
 
+    /**
+     * Evaluates the qualifiers on the columns decoded so far, and decodes the other columns of the row if it
+     * passes them.
+     */
+    private boolean qualifyRow() throws StandardException {
+        if(qualifiers!=null && !Scans.qualifyRecordFromRow(template.getRowArray(),qualifiers,baseColumnMap,optionalProbeValue))
+            return false;
+        accumulator.materialize();
+        return true;
+    }
+
     public long getBytesOutput(){
         return outputBytesCounter.getTotal();
     }
@@ -357,11 +391,30 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
             boolean isCountStar = scan.getAttribute(SIConstants.SI_COUNT_STAR)!=null;
             predicateFilter= buildInitialPredicateFilter();
             accumulator = ExecRowAccumulator.newAccumulator(predicateFilter, false, template, rowDecodingMap, tableVersion);
+            if(qualifiers!=null && rowDecodingMap!=null)
+                accumulator.deferDecoding(getDeferredColumns());
             siFilter = filterFactory.newFilter(predicateFilter,getRowEntryDecoder(),accumulator,isCountStar);
         }
         return siFilter;
     }
 
+    /**
+     * @return the storage positions of the columns to decode which no qualifier references
+     */
+    private BitSet getDeferredColumns(){
+        BitSet deferredColumns = new BitSet(rowDecodingMap.length);
+        for(int i=0;i<rowDecodingMap.length;i++){
+            if(rowDecodingMap[i]>=0)
+                deferredColumns.set(i);
+        }
+        for(Qualifier[] qualifierList : qualifiers){
+            for(Qualifier qualifier : qualifierList){
+                deferredColumns.clear(qualifier.getStoragePosition());
+            }
+        }
+        return deferredColumns;
+    }
+
     protected EntryDecoder getRowEntryDecoder() {
         return new EntryDecoder();
     }
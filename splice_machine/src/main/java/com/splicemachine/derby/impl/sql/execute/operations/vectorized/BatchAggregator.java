@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.vectorized;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.UserDataValue;
+import com.splicemachine.db.impl.sql.execute.AvgAggregator;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.DoubleBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.LongBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * Kernel of one system aggregate, which aggregates whole batches of values into primitive per group state.
+ *
+ * The state of a group is handed to the {@link ExecAggregator} of the group's row when the group is finished,
+ * so what comes out is the same as if the row had accumulated the values one by one. A long sum which would
+ * overflow is handed over early to an aggregator of its own, which promotes (or rejects) it the way it always has.
+ */
+@NotThreadSafe
+class BatchAggregator{
+    enum Kind{ COUNT_STAR, COUNT, SUM, AVG, MIN, MAX }
+
+    private static final DataValueDescriptor NULL_VALUE=new SQLLongint();
+
+    private final SpliceGenericAggregator aggregator;
+    private final Kind kind;
+    private final DataValueDescriptor prototype;
+    private final boolean floating;
+
+    private long[] counts;
+    private long[] longs;
+    private double[] doubles;
+    private boolean[] sawNull;
+    private ExecAggregator[] spilled;
+
+    private BatchAggregator(SpliceGenericAggregator aggregator,Kind kind,DataValueDescriptor prototype,boolean floating){
+        this.aggregator=aggregator;
+        this.kind=kind;
+        this.prototype=prototype;
+        this.floating=floating;
+        ensureGroups(1);
+    }
+
+    /**
+     * @param input the value the first row has in the input column of the aggregate
+     * @return a kernel for {@code aggregator}, or null if its values have to be aggregated row by row
+     */
+    static BatchAggregator create(SpliceGenericAggregator aggregator,DataValueDescriptor input) throws StandardException{
+        if(aggregator.getAggregatorInfo()!=null && aggregator.getAggregatorInfo().isDistinct())
+            return null;
+        ExecAggregator instance=aggregator.getAggregatorInstance();
+        ColumnVector.Kind vectorKind=input==null?ColumnVector.Kind.NULLS_ONLY:ColumnVector.kindOf(input);
+        boolean floating=vectorKind==ColumnVector.Kind.DOUBLE;
+        if(instance instanceof CountAggregator){
+            if(((CountAggregator)instance).isCountStar())
+                return new BatchAggregator(aggregator,Kind.COUNT_STAR,null,false);
+            return input==null?null:new BatchAggregator(aggregator,Kind.COUNT,null,false);
+        }
+        if(vectorKind==ColumnVector.Kind.NULLS_ONLY)
+            return null;
+        if(instance instanceof MaxMinAggregator){
+            Kind kind=((MaxMinAggregator)instance).isMax()?Kind.MAX:Kind.MIN;
+            return new BatchAggregator(aggregator,kind,input.getNewNull(),floating);
+        }
+        // REAL sums are kept in floats, which batches of doubles wouldn't reproduce
+        boolean summable=!floating || input.getTypeFormatId()==StoredFormatIds.SQL_DOUBLE_ID;
+        if(summable && instance instanceof AvgAggregator)
+            return new BatchAggregator(aggregator,Kind.AVG,null,floating);
+        if(floating?instance instanceof DoubleBufferedSumAggregator:instance instanceof LongBufferedSumAggregator)
+            return new BatchAggregator(aggregator,Kind.SUM,null,floating);
+        return null;
+    }
+
+    Kind getKind(){
+        return kind;
+    }
+
+    int getInputColumnId(){
+        return aggregator.getInputColumnId();
+    }
+
+    /**
+     * Aggregates the {@code selected} non null values of {@code input} at the positions in {@code selection}, all
+     * into group 0.
+     */
+    void aggregate(ColumnVector input,int size,int[] selection,int selected) throws StandardException{
+        switch(kind){
+            case COUNT_STAR:
+                counts[0]+=size;
+                return;
+            case COUNT:
+                counts[0]+=selected;
+                break;
+            case SUM:
+            case AVG:
+                if(floating){
+                    double[] values=input.doubles();
+                    double sum=doubles[0];
+                    for(int k=0;k<selected;k++)
+                        sum+=values[selection[k]];
+                    doubles[0]=sum;
+                    counts[0]+=selected;
+                }else
+                    sumLongs(input.longs(),selection,selected);
+                break;
+            default:
+                if(selected==0)
+                    break;
+                boolean max=kind==Kind.MAX;
+                if(floating){
+                    double[] values=input.doubles();
+                    double extreme=counts[0]==0?values[selection[0]]:doubles[0];
+                    for(int k=0;k<selected;k++){
+                        double v=values[selection[k]];
+                        if(max?v>extreme:v<extreme)
+                            extreme=v;
+                    }
+                    doubles[0]=extreme;
+                }else{
+                    long[] values=input.longs();
+                    long extreme=counts[0]==0?values[selection[0]]:longs[0];
+                    for(int k=0;k<selected;k++){
+                        long v=values[selection[k]];
+                        if(max?v>extreme:v<extreme)
+                            extreme=v;
+                    }
+                    longs[0]=extreme;
+                }
+                counts[0]+=selected;
+        }
+        if(selected<size)
+            sawNull[0]=true;
+    }
+
+    /**
+     * Aggregates the {@code selected} non null values of {@code input} at the positions in {@code selection}, each
+     * into the group {@code groups} has at its position.
+     */
+    void aggregate(ColumnVector input,int size,int[] selection,int selected,int[] groups,int numGroups) throws StandardException{
+        ensureGroups(numGroups);
+        if(kind==Kind.COUNT_STAR){
+            for(int i=0;i<size;i++)
+                counts[groups[i]]++;
+            return;
+        }
+        if(selected<size){
+            for(int i=0;i<size;i++){
+                if(input.isNull(i))
+                    sawNull[groups[i]]=true;
+            }
+        }
+        switch(kind){
+            case COUNT:
+                for(int k=0;k<selected;k++)
+                    counts[groups[selection[k]]]++;
+                break;
+            case SUM:
+            case AVG:
+                if(floating){
+                    double[] values=input.doubles();
+                    for(int k=0;k<selected;k++){
+                        int i=selection[k];
+                        doubles[groups[i]]+=values[i];
+                        counts[groups[i]]++;
+                    }
+                }else{
+                    long[] values=input.longs();
+                    for(int k=0;k<selected;k++){
+                        int i=selection[k];
+                        int g=groups[i];
+                        long sum=longs[g];
+                        long v=values[i];
+                        long result=sum+v;
+                        if(((sum^result)&(v^result))<0)
+                            spill(g,v);
+                        else{
+                            longs[g]=result;
+                            counts[g]++;
+                        }
+                    }
+                }
+                break;
+            default:
+                boolean max=kind==Kind.MAX;
+                if(floating){
+                    double[] values=input.doubles();
+                    for(int k=0;k<selected;k++){
+                        int i=selection[k];
+                        int g=groups[i];
+                        double v=values[i];
+                        if(counts[g]++==0 || (max?v>doubles[g]:v<doubles[g]))
+                            doubles[g]=v;
+                    }
+                }else{
+                    long[] values=input.longs();
+                    for(int k=0;k<selected;k++){
+                        int i=selection[k];
+                        int g=groups[i];
+                        long v=values[i];
+                        if(counts[g]++==0 || (max?v>longs[g]:v<longs[g]))
+                            longs[g]=v;
+                    }
+                }
+        }
+    }
+
+    /**
+     * Hands what group {@code group} has aggregated over to the aggregator of {@code row}, and clears the group.
+     */
+    void finish(int group,ExecRow row) throws StandardException{
+        ExecAggregator target=spilled[group];
+        if(target==null){
+            aggregator.initialize(row);
+            target=(ExecAggregator)row.getColumn(aggregator.getAggregatorColumnId()).getObject();
+        }
+        handOver(group,target);
+        if(spilled[group]!=null){
+            UserDataValue column=(UserDataValue)row.getColumn(aggregator.getAggregatorColumnId());
+            if(aggregator.isInitialized(row))
+                target.merge((ExecAggregator)column.getObject());
+            column.setValue(target);
+            spilled[group]=null;
+        }
+    }
+
+    /**
+     * Clears the state of every group.
+     */
+    void clear(){
+        Arrays.fill(counts,0L);
+        if(longs!=null)
+            Arrays.fill(longs,0L);
+        if(doubles!=null)
+            Arrays.fill(doubles,0d);
+        Arrays.fill(sawNull,false);
+        Arrays.fill(spilled,null);
+    }
+
+    private void sumLongs(long[] values,int[] selection,int selected) throws StandardException{
+        long sum=longs[0];
+        long count=counts[0];
+        for(int k=0;k<selected;k++){
+            long v=values[selection[k]];
+            long result=sum+v;
+            if(((sum^result)&(v^result))<0){
+                longs[0]=sum;
+                counts[0]=count;
+                spill(0,v);
+                sum=longs[0];
+                count=counts[0];
+            }else{
+                sum=result;
+                count++;
+            }
+        }
+        longs[0]=sum;
+        counts[0]=count;
+    }
+
+    private void spill(int group,long value) throws StandardException{
+        if(spilled[group]==null)
+            spilled[group]=aggregator.getAggregatorInstance();
+        handOver(group,spilled[group]);
+        longs[group]=value;
+        counts[group]=1;
+    }
+
+    private void handOver(int group,ExecAggregator target) throws StandardException{
+        long count=counts[group];
+        switch(kind){
+            case COUNT_STAR:
+            case COUNT:
+                ((CountAggregator)target).add(new SQLLongint(count));
+                break;
+            case SUM:
+                if(count>0)
+                    target.accumulate(sumValue(group),aggregator);
+                break;
+            case AVG:
+                if(count>0)
+                    ((AvgAggregator)target).add(sumValue(group),count);
+                break;
+            default:
+                if(count>0){
+                    DataValueDescriptor extreme=prototype.getNewNull();
+                    if(floating)
+                        extreme.setValue(doubles[group]);
+                    else
+                        extreme.setValue(longs[group]);
+                    target.accumulate(extreme,aggregator);
+                }
+        }
+        if(sawNull[group])
+            target.accumulate(NULL_VALUE,aggregator);
+        counts[group]=0;
+        if(longs!=null)
+            longs[group]=0L;
+        if(doubles!=null)
+            doubles[group]=0d;
+        sawNull[group]=false;
+    }
+
+    private DataValueDescriptor sumValue(int group) throws StandardException{
+        return floating?new SQLDouble(doubles[group]):new SQLLongint(longs[group]);
+    }
+
+    private void ensureGroups(int numGroups){
+        if(counts!=null && counts.length>=numGroups)
+            return;
+        int size=counts==null?1:counts.length;
+        while(size<numGroups)
+            size<<=1;
+        counts=counts==null?new long[size]:Arrays.copyOf(counts,size);
+        sawNull=sawNull==null?new boolean[size]:Arrays.copyOf(sawNull,size);
+        spilled=spilled==null?new ExecAggregator[size]:Arrays.copyOf(spilled,size);
+        if(kind==Kind.COUNT_STAR || kind==Kind.COUNT)
+            return;
+        if(floating)
+            doubles=doubles==null?new double[size]:Arrays.copyOf(doubles,size);
+        else
+            longs=longs==null?new long[size]:Arrays.copyOf(longs,size);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.vectorized;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * The values a batch of rows has in one column, held in a primitive array.
+ *
+ * Integral columns are held as longs and floating point ones as doubles. Any other column only has its nulls held,
+ * which is all COUNT needs of it.
+ */
+@NotThreadSafe
+public class ColumnVector{
+    public enum Kind{ LONG, DOUBLE, NULLS_ONLY }
+
+    private final Kind kind;
+    private final int typeFormatId;
+    private final long[] longs;
+    private final double[] doubles;
+    private final boolean[] nulls;
+    private boolean hasNulls;
+
+    public ColumnVector(Kind kind,int typeFormatId,int capacity){
+        this.kind=kind;
+        this.typeFormatId=typeFormatId;
+        this.longs=kind==Kind.LONG?new long[capacity]:null;
+        this.doubles=kind==Kind.DOUBLE?new double[capacity]:null;
+        this.nulls=new boolean[capacity];
+    }
+
+    /**
+     * @return the kind of vector the values of {@code prototype}'s type are held in
+     */
+    public static Kind kindOf(DataValueDescriptor prototype){
+        switch(prototype.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return Kind.LONG;
+            case StoredFormatIds.SQL_REAL_ID:
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return Kind.DOUBLE;
+            default:
+                return Kind.NULLS_ONLY;
+        }
+    }
+
+    public static ColumnVector create(DataValueDescriptor prototype,int capacity){
+        return new ColumnVector(kindOf(prototype),prototype.getTypeFormatId(),capacity);
+    }
+
+    public void set(int position,DataValueDescriptor value) throws StandardException{
+        if(value==null || value.isNull()){
+            nulls[position]=true;
+            hasNulls=true;
+            return;
+        }
+        nulls[position]=false;
+        switch(kind){
+            case LONG:
+                longs[position]=value.getLong();
+                break;
+            case DOUBLE:
+                doubles[position]=value.getDouble();
+                break;
+        }
+    }
+
+    /**
+     * Fills {@code selection} with the positions of the first {@code size} values which are not null.
+     *
+     * @return the number of positions selected
+     */
+    public int selectNonNull(int size,int[] selection){
+        if(!hasNulls){
+            for(int i=0;i<size;i++)
+                selection[i]=i;
+            return size;
+        }
+        int selected=0;
+        for(int i=0;i<size;i++){
+            if(!nulls[i])
+                selection[selected++]=i;
+        }
+        return selected;
+    }
+
+    /**
+     * Forgets the values held, ready for the next batch.
+     */
+    public void clear(){
+        hasNulls=false;
+    }
+
+    public Kind getKind(){
+        return kind;
+    }
+
+    public int getTypeFormatId(){
+        return typeFormatId;
+    }
+
+    public boolean isNull(int position){
+        return nulls[position];
+    }
+
+    long[] longs(){
+        return longs;
+    }
+
+    double[] doubles(){
+        return doubles;
+    }
+}
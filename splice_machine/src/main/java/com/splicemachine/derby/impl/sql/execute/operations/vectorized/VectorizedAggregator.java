@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.vectorized;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * Aggregates the input rows of an aggregate operation a batch at a time.
+ *
+ * Each row is only read once, into a {@link ColumnVector} per input column; the aggregates then run over the
+ * vectors of the whole batch, skipping nulls through a selection of the positions which aren't null. Rows are
+ * added to numbered groups, and a group only turns back into an {@link ExecRow} when it's finished, by handing
+ * its state over to the aggregators of the row it's finished into.
+ */
+@NotThreadSafe
+public class VectorizedAggregator{
+    private final BatchAggregator[] kernels;
+    private final int[] kernelVectors;
+    private final ColumnVector[] vectors;
+    private final int[] vectorColumns;
+    private final int[][] selections;
+    private final int[] selected;
+    private final int[] groups;
+    private final int capacity;
+
+    private int size;
+    private int numGroups;
+
+    private VectorizedAggregator(BatchAggregator[] kernels,int[] kernelVectors,ColumnVector[] vectors,int[] vectorColumns,int capacity){
+        this.kernels=kernels;
+        this.kernelVectors=kernelVectors;
+        this.vectors=vectors;
+        this.vectorColumns=vectorColumns;
+        this.capacity=capacity;
+        this.selections=new int[vectors.length][capacity];
+        this.selected=new int[vectors.length];
+        this.groups=new int[capacity];
+    }
+
+    /**
+     * @param aggregates the aggregates to compute
+     * @param firstRow the first input row, which the types of the input columns are taken from
+     * @param batchSize the number of rows in a batch
+     * @return an aggregator for {@code aggregates}, or null if any of them has to be aggregated row by row
+     */
+    public static VectorizedAggregator create(SpliceGenericAggregator[] aggregates,ExecRow firstRow,int batchSize) throws StandardException{
+        if(batchSize<=0 || aggregates==null || aggregates.length==0)
+            return null;
+        BatchAggregator[] kernels=new BatchAggregator[aggregates.length];
+        int[] kernelVectors=new int[aggregates.length];
+        int[] vectorColumns=new int[aggregates.length];
+        ColumnVector[] vectors=new ColumnVector[aggregates.length];
+        int numVectors=0;
+        for(int i=0;i<aggregates.length;i++){
+            SpliceGenericAggregator aggregate=aggregates[i];
+            int inputColumn=aggregate.getInputColumnId();
+            boolean hasInput=inputColumn>0 && inputColumn<=firstRow.nColumns();
+            BatchAggregator kernel=BatchAggregator.create(aggregate,hasInput?firstRow.getColumn(inputColumn):null);
+            if(kernel==null)
+                return null;
+            kernels[i]=kernel;
+            kernelVectors[i]=-1;
+            if(kernel.getKind()==BatchAggregator.Kind.COUNT_STAR)
+                continue;
+            for(int v=0;v<numVectors;v++){
+                if(vectorColumns[v]==inputColumn)
+                    kernelVectors[i]=v;
+            }
+            if(kernelVectors[i]<0){
+                vectorColumns[numVectors]=inputColumn;
+                vectors[numVectors]=ColumnVector.create(firstRow.getColumn(inputColumn),batchSize);
+                kernelVectors[i]=numVectors++;
+            }
+        }
+        return new VectorizedAggregator(kernels,kernelVectors,Arrays.copyOf(vectors,numVectors),
+                Arrays.copyOf(vectorColumns,numVectors),batchSize);
+    }
+
+    public void add(ExecRow row) throws StandardException{
+        add(row,0);
+    }
+
+    /**
+     * Adds {@code row} to group {@code group}. Groups are numbered from 0, and are best kept dense.
+     */
+    public void add(ExecRow row,int group) throws StandardException{
+        for(int v=0;v<vectors.length;v++)
+            vectors[v].set(size,row.getColumn(vectorColumns[v]));
+        groups[size]=group;
+        if(group>=numGroups)
+            numGroups=group+1;
+        if(++size==capacity)
+            process();
+    }
+
+    public void finish(ExecRow row) throws StandardException{
+        finish(0,row);
+    }
+
+    /**
+     * Hands the aggregates of group {@code group} over to the aggregator columns of {@code row}, initializing
+     * them if they aren't yet. The group starts over empty.
+     */
+    public void finish(int group,ExecRow row) throws StandardException{
+        if(size>0)
+            process();
+        for(BatchAggregator kernel:kernels)
+            kernel.finish(group,row);
+    }
+
+    /**
+     * Drops the state of every group.
+     */
+    public void clear(){
+        size=0;
+        numGroups=0;
+        for(ColumnVector vector:vectors)
+            vector.clear();
+        for(BatchAggregator kernel:kernels)
+            kernel.clear();
+    }
+
+    private void process() throws StandardException{
+        for(int v=0;v<vectors.length;v++)
+            selected[v]=vectors[v].selectNonNull(size,selections[v]);
+        for(int k=0;k<kernels.length;k++){
+            int v=kernelVectors[k];
+            ColumnVector vector=v<0?null:vectors[v];
+            int[] selection=v<0?null:selections[v];
+            int count=v<0?size:selected[v];
+            if(numGroups<=1)
+                kernels[k].aggregate(vector,size,selection,count);
+            else
+                kernels[k].aggregate(vector,size,selection,count,groups,numGroups);
+        }
+        for(ColumnVector vector:vectors)
+            vector.clear();
+        size=0;
+    }
+}
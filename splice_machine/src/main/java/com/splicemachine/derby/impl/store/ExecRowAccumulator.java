@@ -35,6 +35,11 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
     protected final DescriptorSerializer[] serializers;
     protected final int[] columnMap;
     protected final int[] columnLengths;
+    private BitSet deferredFields;
+    private BitSet pendingFields;
+    private byte[][] pendingData;
+    private int[] pendingOffsets;
+    private int[] pendingLengths;
 
     private ExecRowAccumulator(){
         super(null,false,null);
@@ -114,30 +119,82 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
         return newAccumulator(predicateFilter,returnIndex,row,keyColumns,null,tableVersion);
     }
 
+    /**
+     * Postpones decoding the fields at {@code positions} until {@link #materialize()} is called, so that rows
+     * which are filtered out on their other fields never pay for decoding them.
+     */
+    public void deferDecoding(BitSet positions){
+        if(positions==null || positions.isEmpty()){
+            deferredFields = null;
+            pendingFields = null;
+            return;
+        }
+        int size = (int)positions.length();
+        deferredFields = positions;
+        pendingFields = new BitSet(size);
+        pendingData = new byte[size][];
+        pendingOffsets = new int[size];
+        pendingLengths = new int[size];
+    }
+
+    /**
+     * Decodes the deferred fields of the current row. The bytes they were accumulated from must still be valid.
+     */
+    public void materialize(){
+        if(pendingFields==null) return;
+        for(int n=pendingFields.nextSetBit(0);n>=0;n=pendingFields.nextSetBit(n+1)){
+            decode(n,pendingData[n],pendingOffsets[n],pendingLengths[n]);
+        }
+        discardDeferred();
+    }
+
+    /**
+     * Drops the deferred fields of the current row without decoding them. Unlike {@link #reset()}, which also
+     * happens once a row is accumulated, this has to be called explicitly before the next row.
+     */
+    public void discardDeferred(){
+        if(pendingFields==null || pendingFields.isEmpty()) return;
+        for(int n=pendingFields.nextSetBit(0);n>=0;n=pendingFields.nextSetBit(n+1)){
+            pendingData[n] = null;
+        }
+        pendingFields.clear();
+    }
+
     @Override
     protected void occupy(int position, byte[] data, int offset, int length) {
-        decode(position, data, offset, length);
+        decodeOrDefer(position, data, offset, length);
         super.occupy(position,data,offset,length);
     }
 
     @Override
     protected void occupyDouble(int position, byte[] data, int offset, int length) {
-        decode(position, data, offset, length);
+        decodeOrDefer(position, data, offset, length);
         super.occupyDouble(position, data, offset, length);
     }
 
     @Override
     protected void occupyFloat(int position, byte[] data, int offset, int length) {
-        decode(position, data, offset, length);
+        decodeOrDefer(position, data, offset, length);
         super.occupyFloat(position, data, offset, length);
     }
 
     @Override
     protected void occupyScalar(int position, byte[] data, int offset, int length) {
-        decode(position,data,offset,length);
+        decodeOrDefer(position,data,offset,length);
         super.occupyScalar(position, data, offset, length);
     }
 
+    private void decodeOrDefer(int position, byte[] data, int offset, int length) {
+        if(deferredFields==null || !deferredFields.get(position)){
+            decode(position, data, offset, length);
+            return;
+        }
+        pendingFields.set(position);
+        pendingData[position] = data;
+        pendingOffsets[position] = offset;
+        pendingLengths[position] = length;
+    }
+
     @Override
     public byte[] finish() {
         return SIConstants.EMPTY_BYTE_ARRAY;
@@ -203,6 +260,7 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
         @Override protected void occupyFloat(int position, byte[] data, int offset, int length) { }
         @Override protected void occupyScalar(int position, byte[] data, int offset, int length) { }
         @Override public void reset() { }
+        @Override public void deferDecoding(BitSet positions) { }
 
         @Override public boolean isFinished() { return true; }
     };
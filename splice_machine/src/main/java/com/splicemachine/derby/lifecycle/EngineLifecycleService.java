@@ -131,8 +131,10 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
         try{
             ObjectName on=new ObjectName("com.splicemachine.utils.logging:type=LogManager");
             ObjectName execServ = new ObjectName("com.splicemachine.derby.lifecycle:type=ExecutorService");
+            ObjectName resultCache = new ObjectName("com.splicemachine.derby.impl.sql.execute:type=ResultCache");
             mbs.registerMBean(logging,on);
             mbs.registerMBean(EngineDriver.driver().getExecutorService(),execServ);
+            mbs.registerMBean(EngineDriver.driver().getResultCache(),resultCache);
             db.getDataDictionary().getDataDictionaryCache().registerJMX(mbs);
 
 
@@ -20,6 +20,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.conn.ControlExecutionLimiter;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.window.WindowContext;
 import com.splicemachine.derby.stream.control.output.ControlExportDataSetWriter;
@@ -32,9 +33,11 @@ import com.splicemachine.derby.stream.function.SplicePairFunction;
 import com.splicemachine.derby.stream.function.SplicePredicateFunction;
 import com.splicemachine.derby.stream.function.TakeFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.derby.stream.output.BulkDeleteDataSetWriterBuilder;
+import com.splicemachine.derby.stream.output.BulkLoadIndexDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.BulkInsertDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.DataSetWriter;
 import com.splicemachine.derby.stream.output.DataSetWriterBuilder;
@@ -452,7 +455,7 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     /**
      *
-     * Not Supported
+     * Writes the rows through the distributed processor
      *
      * @param baseColumnMap
      * @param partitionBy
@@ -462,7 +465,9 @@ public class ControlDataSet<V> implements DataSet<V> {
      */
     @Override
     public DataSet<ExecRow> writeParquetFile(int[] baseColumnMap, int[] partitionBy, String location, String compression, OperationContext context) {
-        throw new UnsupportedOperationException("Cannot write parquet files");
+        DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
+        OperationContext distributedContext = proc.createOperationContext(context.getOperation());
+        return new ControlDataSet<>(distributedCopy(proc).writeParquetFile(baseColumnMap, partitionBy, location, compression, distributedContext).toLocalIterator());
     }
 
     /**
@@ -482,7 +487,7 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     /**
      *
-     * Not Supported
+     * Writes the rows through the distributed processor
      *
      * @param baseColumnMap
      * @param partitionBy
@@ -492,7 +497,23 @@ public class ControlDataSet<V> implements DataSet<V> {
      */
     @Override
     public DataSet<ExecRow> writeORCFile(int[] baseColumnMap, int[] partitionBy, String location, String compression, OperationContext context) {
-        throw new UnsupportedOperationException("Cannot write orc files");
+        DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
+        OperationContext distributedContext = proc.createOperationContext(context.getOperation());
+        return new ControlDataSet<>(distributedCopy(proc).writeORCFile(baseColumnMap, partitionBy, location, compression, distributedContext).toLocalIterator());
+    }
+
+    /**
+     * Copies the rows into a data set of the distributed processor. The rows are cloned first, since the
+     * operations feeding this data set may reuse the same row for every element.
+     */
+    @SuppressWarnings("unchecked")
+    private DataSet<V> distributedCopy(DistributedDataSetProcessor proc) {
+        return proc.createDataSet(Iterators.transform(iterator, new Function<V, V>() {
+            @Override
+            public V apply(@Nullable V v) {
+                return v instanceof ExecRow ? (V) ((ExecRow) v).getClone() : v;
+            }
+        }));
     }
 
     /**
@@ -547,6 +568,11 @@ public class ControlDataSet<V> implements DataSet<V> {
         throw new RuntimeException("bulk load not supported");
     }
 
+    @Override
+    public BulkLoadIndexDataSetWriterBuilder bulkLoadIndex(DDLMessage.TentativeIndex tentativeIndex) throws StandardException {
+        throw new RuntimeException("bulk load not supported");
+    }
+
     /**
      *
      * Non Lazy Callable
@@ -22,6 +22,7 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.function.Partitioner;
 import com.splicemachine.derby.stream.iapi.DataSet;
@@ -30,6 +31,7 @@ import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.stream.iterator.ParallelTableScannerIterator;
 import com.splicemachine.derby.stream.iterator.TableScannerIterator;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.data.TxnOperationFactory;
@@ -39,6 +41,8 @@ import com.splicemachine.si.impl.TxnRegion;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.storage.Partition;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.collections.iterators.SingletonIterator;
@@ -54,8 +58,11 @@ import java.io.SequenceInputStream;
 import java.net.URISyntaxException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
 import java.util.zip.GZIPInputStream;
 
@@ -119,6 +126,21 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     TxnRegion localRegion=new TxnRegion(p,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
                             txnSupplier,transactory,txnOperationFactory);
 
+                    int parallelism=ParallelTableScannerIterator.parallelism(spliceOperation);
+                    if(parallelism>1 && !getScan().isDescendingScan()){
+                        List<Partition> ranges=p.subPartitions(getScan().getStartKey(),getScan().getStopKey());
+                        if(ranges.size()>1){
+                            this.region(localRegion);
+                            ParallelTableScannerIterator parallelIterator=new ParallelTableScannerIterator(
+                                    openRangeScanners(p,ranges),spliceOperation,getOptionalProbeValue(),parallelism,
+                                    EngineDriver.driver().getConfiguration().getControlScanQueueSize());
+                            if(spliceOperation!=null){
+                                spliceOperation.registerCloseable(parallelIterator);
+                                spliceOperation.registerCloseable(p);
+                            }
+                            return new ControlDataSet(parallelIterator);
+                        }
+                    }
                     this.region(localRegion).scanner(p.openScanner(getScan(),metricFactory)); //set the scanner
                     TableScannerIterator tableScannerIterator=new TableScannerIterator(this,spliceOperation);
                     if(spliceOperation!=null){
@@ -130,6 +152,43 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     throw Exceptions.parseException(e);
                 }
             }
+
+            /**
+             * Builds a scanner for each of the ranges, restricted to the part of the range this scan covers
+             */
+            private List<SITableScanner> openRangeScanners(Partition table,List<Partition> ranges) throws IOException{
+                List<Partition> sortedRanges=new ArrayList<>(ranges);
+                Collections.sort(sortedRanges,new Comparator<Partition>(){
+                    @Override
+                    public int compare(Partition o1,Partition o2){
+                        return Bytes.startComparator.compare(o1.getStartKey(),o2.getStartKey());
+                    }
+                });
+                DataScan scan=getScan();
+                ExecRow template=getTemplate();
+                List<SITableScanner> scanners=new ArrayList<>(sortedRanges.size());
+                try{
+                    for(Partition range : sortedRanges){
+                        DataScan rangeScan=scan.copy()
+                                .startKey(Bytes.max(Bytes.startComparator,scan.getStartKey(),range.getStartKey()))
+                                .stopKey(Bytes.min(Bytes.endComparator,scan.getStopKey(),range.getEndKey()));
+                        this.scan(rangeScan).template(template.getClone()).scanner(table.openScanner(rangeScan,metricFactory));
+                        scanners.add(build());
+                    }
+                }catch(IOException e){
+                    for(SITableScanner scanner : scanners){
+                        try{
+                            scanner.close();
+                        }catch(Exception ce){
+                            e.addSuppressed(ce);
+                        }
+                    }
+                    throw e;
+                }finally{
+                    this.scan(scan).template(template);
+                }
+                return scanners;
+            }
         };
     }
 
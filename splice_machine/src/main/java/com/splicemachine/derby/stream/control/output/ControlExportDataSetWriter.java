@@ -23,6 +23,7 @@ import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.export.ExportFile;
 import com.splicemachine.derby.impl.sql.execute.operations.export.ExportOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.export.ParallelGzipOutputStream;
 import com.splicemachine.derby.stream.control.ControlDataSet;
 import com.splicemachine.derby.stream.function.SpliceFunction2;
 import com.splicemachine.derby.stream.iapi.DataSet;
@@ -35,7 +36,6 @@ import org.apache.log4j.Logger;
 import java.io.OutputStream;
 import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Scott Fines
@@ -76,7 +76,7 @@ public class ControlExportDataSetWriter<V> implements DataSetWriter{
             try(OutputStream fileOut =dfs.newOutputStream(path /*directory*/,"part-r-00000"+extension/*file*/,StandardOpenOption.CREATE)){
                 OutputStream toWrite=fileOut;
                 if(isCompressed){
-                    toWrite=new GZIPOutputStream(fileOut);
+                    toWrite=new ParallelGzipOutputStream(fileOut);
                 }
                 count=exportFunction.call(toWrite,dataSet.toLocalIterator());
             }
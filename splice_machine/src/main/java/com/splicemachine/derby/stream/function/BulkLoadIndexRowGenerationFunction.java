@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.si.api.txn.TxnView;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Encodes the rows of a base table scan into rows of the index being created, for bulk loading into the
+ * index conglomerate.
+ */
+public class BulkLoadIndexRowGenerationFunction extends RowAndIndexGenerator {
+    private static final long serialVersionUID = 4076398917237564127L;
+
+    public BulkLoadIndexRowGenerationFunction() {
+    }
+
+    public BulkLoadIndexRowGenerationFunction(OperationContext operationContext,
+                                              TxnView txn,
+                                              DDLMessage.TentativeIndex tentativeIndex) {
+        super(operationContext, txn, tentativeIndex.getTable().getConglomerate(),
+                new ArrayList<>(Collections.singletonList(tentativeIndex)));
+    }
+
+    @Override
+    public Iterator<Tuple2<Long,Tuple2<byte[], byte[]>>> call(ExecRow locatedRow) throws Exception {
+        if (!initialized) {
+            indexTransformFunctions = new IndexTransformFunction[]{new IndexTransformFunction(tentativeIndices.get(0))};
+            initialized = true;
+        }
+        IndexTransformFunction indexTransformFunction = indexTransformFunctions[0];
+        KVPair indexKVPair = indexTransformFunction.call(locatedRow);
+        Tuple2<Long,Tuple2<byte[], byte[]>> indexRow = new Tuple2<>(indexTransformFunction.getIndexConglomerateId(),
+                new Tuple2<>(indexKVPair.getRowKey(), indexKVPair.getValue()));
+        return Collections.singletonList(indexRow).iterator();
+    }
+}
@@ -15,12 +15,10 @@
 package com.splicemachine.derby.stream.function;
 
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
-import com.splicemachine.derby.impl.sql.execute.operations.export.ExportCSVWriterBuilder;
 import com.splicemachine.derby.impl.sql.execute.operations.export.ExportExecRowWriter;
 import com.splicemachine.derby.impl.sql.execute.operations.export.ExportOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.export.ExportParams;
 import com.splicemachine.derby.stream.iapi.OperationContext;
-import org.supercsv.io.CsvListWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Iterator;
@@ -50,8 +48,7 @@ public class ExportFunction extends SpliceFunction2<ExportOperation, OutputStrea
         }
 
     public static ExportExecRowWriter initializeRowWriter(OutputStream outputStream, ExportParams exportParams) throws IOException {
-        CsvListWriter writer = new ExportCSVWriterBuilder().build(outputStream, exportParams);
-        return new ExportExecRowWriter(writer);
+        return new ExportExecRowWriter(outputStream, exportParams);
     }
 
 }
@@ -22,6 +22,7 @@ import com.splicemachine.db.iapi.sql.execute.ExecutionFactory;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.KeyLookupBatch;
 import com.splicemachine.derby.stream.iapi.IterableJoinFunction;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iterator.GetNLJoinIterator;
@@ -57,6 +58,10 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
     protected boolean isLeftOuterJoin;
     protected boolean isAntiJoin;
     protected boolean isOneRowInnerJoin;
+    protected boolean batchedKeyLookups;
+    protected OperationContext keyLookupContext;
+    protected Iterator<ExecRow> keyLookupLeftRows;
+    protected Iterator<ExecRow> concurrentLeftRows;
 
     protected ExecutorCompletionService<Pair<OperationContext, Iterator<ExecRow>>> completionService;
 
@@ -71,8 +76,12 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
         checkInit();
         SConfiguration configuration= EngineDriver.driver().getConfiguration();
         batchSize = configuration.getNestedLoopJoinBatchSize();
+        batchedKeyLookups = configuration.getNestedLoopJoinBatchedKeyLookups()
+                && KeyLookupBatch.findProbe(operationContext.getOperation().getRightOperation()) != null;
         nLeftRows = 0;
         leftSideIterator = from;
+        // with batched key lookups, only the batches which can't be read with a single scan are probed concurrently
+        concurrentLeftRows = batchedKeyLookups ? null : from;
         completionService = new ExecutorCompletionService<>(EngineDriver.driver().getExecutorService());
 
         initOperationContexts();
@@ -85,6 +94,9 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
             for (int i = 0; i < batchSize; ++i) {
                 operationContextList.add(operationContext.getClone());
             }
+            // the right side of a batch read with a single scan is probed for one left row at a time
+            if (batchedKeyLookups)
+                keyLookupContext = operationContext.getClone();
         }
         catch (Exception e) {
             throw Exceptions.parseException(e);
@@ -94,68 +106,121 @@ public abstract class NLJoinFunction <Op extends SpliceOperation, From, To> exte
     private void loadBatch() throws StandardException {
 
         try {
-            while (nLeftRows < batchSize) {
-                if (!leftSideIterator.hasNext())
-                    break;
-                nLeftRows++;
-                ExecRow execRow = leftSideIterator.next();
-                GetNLJoinIterator getNLJoinIterator =  GetNLJoinIterator.makeGetNLJoinIterator(joinType,
-                        operationContextList.remove(0), execRow);
-                completionService.submit(getNLJoinIterator);
-            }
-            if (nLeftRows > 0) {
-                Future<Pair<OperationContext, Iterator<ExecRow>>> future = completionService.take();
-                Pair<OperationContext, Iterator<ExecRow>> result = future.get();
-                currentOperationContext = result.getFirst();
-                rightSideNLJIterator = result.getSecond();
-                leftRow = currentOperationContext.getOperation().getLeftOperation().getCurrentRow();
-                leftRowLocation = new HBaseRowLocation(leftRow.getKey());
-                operationContext.getOperation().getLeftOperation().setCurrentRow(getLeftLocatedRow());
-                operationContext.getOperation().getLeftOperation().setCurrentRowLocation(getLeftRowLocation());
-                nLeftRows--;
+            if (batchedKeyLookups) {
+                loadKeyLookupBatch();
+                return;
             }
+            submitConcurrentProbes();
+            if (nLeftRows > 0)
+                takeConcurrentProbe();
         }
         catch (Exception e) {
             throw Exceptions.parseException(e);
         }
     }
 
+    /**
+     * Reads the next batch of left rows, and the right side rows for all of them with a single scan. When the
+     * right side can't be read for the whole batch in one go, its left rows are probed concurrently instead.
+     * @return false if the left side is exhausted
+     */
+    private boolean loadKeyLookupBatch() throws Exception {
+        List<ExecRow> leftRows = new ArrayList<>(batchSize);
+        while (leftRows.size() < batchSize && leftSideIterator.hasNext()) {
+            leftRows.add(leftSideIterator.next());
+        }
+        if (leftRows.isEmpty())
+            return false;
+        KeyLookupBatch keyLookupBatch = KeyLookupBatch.fetch(keyLookupContext.getOperation(), leftRows);
+        if (keyLookupBatch == null) {
+            // the key ranges of the batch overlap or are unbounded, so scan the right side for each left row
+            concurrentLeftRows = leftRows.iterator();
+            submitConcurrentProbes();
+            takeConcurrentProbe();
+            return true;
+        }
+        KeyLookupBatch.findProbe(keyLookupContext.getOperation().getRightOperation()).setKeyLookupBatch(keyLookupBatch);
+        keyLookupLeftRows = leftRows.iterator();
+        probeKeyLookup();
+        return true;
+    }
+
+    /**
+     * Probes the right side for the next left row of the batch, in the order the left rows came in
+     */
+    private void probeKeyLookup() throws Exception {
+        ExecRow execRow = keyLookupLeftRows.next();
+        GetNLJoinIterator getNLJoinIterator = GetNLJoinIterator.makeGetNLJoinIterator(joinType,
+                keyLookupContext, execRow);
+        setCurrentResult(getNLJoinIterator.call());
+    }
+
+    /**
+     * Submits a task to scan the right side for each left row still to be probed concurrently, while there are
+     * operation contexts free to do so
+     */
+    private void submitConcurrentProbes() {
+        while (nLeftRows < batchSize && concurrentLeftRows.hasNext()) {
+            submitConcurrentProbe();
+        }
+    }
+
+    private void submitConcurrentProbe() {
+        ExecRow execRow = concurrentLeftRows.next();
+        GetNLJoinIterator getNLJoinIterator =  GetNLJoinIterator.makeGetNLJoinIterator(joinType,
+                operationContextList.remove(0), execRow);
+        completionService.submit(getNLJoinIterator);
+        nLeftRows++;
+    }
+
+    private void takeConcurrentProbe() throws Exception {
+        Future<Pair<OperationContext, Iterator<ExecRow>>> future = completionService.take();
+        nLeftRows--;
+        setCurrentResult(future.get());
+    }
+
+    private void setCurrentResult(Pair<OperationContext, Iterator<ExecRow>> result) throws StandardException {
+        currentOperationContext = result.getFirst();
+        rightSideNLJIterator = result.getSecond();
+        leftRow = currentOperationContext.getOperation().getLeftOperation().getCurrentRow();
+        leftRowLocation = new HBaseRowLocation(leftRow.getKey());
+        operationContext.getOperation().getLeftOperation().setCurrentRow(getLeftLocatedRow());
+        operationContext.getOperation().getLeftOperation().setCurrentRowLocation(getLeftRowLocation());
+    }
+
     @Override
     public boolean hasNext() {
 
         try {
             if (rightSideNLJIterator == null)
                 return false;
-            while (nLeftRows > 0 && !rightSideNLJIterator.hasNext()) {
-
+            while (!rightSideNLJIterator.hasNext()) {
                 // We have consumed all rows from right side iterator, reclaim operation context
                 currentOperationContext.getOperation().close();
-                operationContextList.add(currentOperationContext);
-
-                if (leftSideIterator.hasNext()) {
-                    // If we haven't consumed left side iterator, submit a task to scan righ side
-                    ExecRow execRow = leftSideIterator.next();
-                    GetNLJoinIterator getNLJoinIterator = GetNLJoinIterator.makeGetNLJoinIterator(joinType,
-                            operationContextList.remove(0), execRow);
-                    completionService.submit(getNLJoinIterator);
-                    nLeftRows++;
-                }
+                if (currentOperationContext == keyLookupContext) {
+                    if (keyLookupLeftRows.hasNext()) {
+                        probeKeyLookup();
+                        continue;
+                    }
+                } else {
+                    operationContextList.add(currentOperationContext);
+
+                    // If we haven't consumed left side rows, submit a task to scan right side
+                    if (concurrentLeftRows.hasNext())
+                        submitConcurrentProbe();
 
-                if(nLeftRows > 0) {
-                    // If there are pending tasks, wait to get an iterator to righ side
-                    Future<Pair<OperationContext, Iterator<ExecRow>>> future = completionService.take();
-                    Pair<OperationContext, Iterator<ExecRow>> result = future.get();
-                    nLeftRows--;
-                    currentOperationContext = result.getFirst();
-                    rightSideNLJIterator = result.getSecond();
-                    leftRow = currentOperationContext.getOperation().getLeftOperation().getCurrentRow();
-                    leftRowLocation = new HBaseRowLocation(leftRow.getKey());
-                    operationContext.getOperation().getLeftOperation().setCurrentRow(getLeftLocatedRow());
-                    operationContext.getOperation().getLeftOperation().setCurrentRowLocation(getLeftRowLocation());
+                    if (nLeftRows > 0) {
+                        // If there are pending tasks, wait to get an iterator to right side
+                        takeConcurrentProbe();
+                        continue;
+                    }
+                }
+                if (!batchedKeyLookups || !loadKeyLookupBatch()) {
+                    rightSideNLJIterator = null;
+                    return false;
                 }
             }
-
-            return rightSideNLJIterator.hasNext();
+            return true;
         }
         catch (Exception e) {
             throw new RuntimeException(e);
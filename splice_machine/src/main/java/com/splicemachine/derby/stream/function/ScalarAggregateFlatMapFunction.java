@@ -18,6 +18,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.execute.operations.ScalarAggregateOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.vectorized.VectorizedAggregator;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import org.apache.commons.collections.iterators.SingletonIterator;
 
@@ -34,20 +35,31 @@ public class ScalarAggregateFlatMapFunction
     
     protected boolean initialized;
     protected boolean returnDefault;
+    protected int vectorizedBatchSize;
     protected ScalarAggregateOperation op;
     
     public ScalarAggregateFlatMapFunction() {
     }
 
     public ScalarAggregateFlatMapFunction(OperationContext<ScalarAggregateOperation> operationContext, boolean returnDefault) {
+        this(operationContext, returnDefault, 0);
+    }
+
+    /**
+     * @param vectorizedBatchSize the number of input rows to aggregate at a time, 0 to aggregate them one by one
+     */
+    public ScalarAggregateFlatMapFunction(OperationContext<ScalarAggregateOperation> operationContext, boolean returnDefault,
+                                          int vectorizedBatchSize) {
         super(operationContext);
         this.returnDefault = returnDefault;
+        this.vectorizedBatchSize = vectorizedBatchSize;
     }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         super.writeExternal(out);
         out.writeBoolean(returnDefault);
+        out.writeInt(vectorizedBatchSize);
     }
 
     @Override
@@ -55,6 +67,7 @@ public class ScalarAggregateFlatMapFunction
         throws IOException, ClassNotFoundException {
         super.readExternal(in);
         returnDefault = in.readBoolean();
+        vectorizedBatchSize = in.readInt();
     }
 
     private void accumulate(ExecRow next, ExecRow agg) throws StandardException {
@@ -92,6 +105,11 @@ public class ScalarAggregateFlatMapFunction
                 return Collections.EMPTY_LIST.iterator();
         }
         ExecRow r1 = locatedRows.next();
+        if (vectorizedBatchSize > 0 && !op.isInitialized(r1)) {
+            VectorizedAggregator vectorized = VectorizedAggregator.create(op.aggregates, r1, vectorizedBatchSize);
+            if (vectorized != null)
+                return aggregateBatches(vectorized, r1, locatedRows);
+        }
         if (!op.isInitialized(r1)) {
 //            if (RDDUtils.LOG.isTraceEnabled()) {
 //                RDDUtils.LOG.trace(String.format("Initializing and accumulating %s", r1));
@@ -109,4 +127,23 @@ public class ScalarAggregateFlatMapFunction
         op.finishAggregation(r1); // calls setCurrentRow
         return new SingletonIterator(r1);
     }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<ExecRow> aggregateBatches(VectorizedAggregator vectorized, ExecRow first, Iterator<ExecRow> locatedRows) throws StandardException {
+        vectorized.add(first);
+        ExecRow result = first.getClone();
+        for (SpliceGenericAggregator aggregate : op.aggregates)
+            aggregate.initialize(result);
+        while (locatedRows.hasNext()) {
+            ExecRow next = locatedRows.next();
+            if (!op.isInitialized(next)) {
+                vectorized.add(next);
+            } else {
+                merge(next, result);
+            }
+        }
+        vectorized.finish(result);
+        op.finishAggregation(result);
+        return new SingletonIterator(result);
+    }
 }
@@ -20,6 +20,7 @@ import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinKeyFilter;
 import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.utils.Scans;
@@ -45,6 +46,7 @@ public class TableScanTupleFunction<Op extends SpliceOperation> extends SpliceFl
     protected int[] baseColumnMap;
     protected boolean rowIdKey; // HACK Row ID Qualifiers point to the projection above them ?  TODO JL
     protected DataValueDescriptor optionalProbeValue;
+    protected JoinKeyFilter joinKeyFilter;
 
     public TableScanTupleFunction() {
         super();
@@ -79,9 +81,11 @@ public class TableScanTupleFunction<Op extends SpliceOperation> extends SpliceFl
                 this.qualifiers = op.getScanInformation().getScanQualifiers();
                 this.baseColumnMap = op.getOperationInformation().getBaseColumnMap();
                 this.rowIdKey = op.getRowIdKey();
+                this.joinKeyFilter = op.getJoinKeyFilter();
             }
         }
-        if (qualifiers == null || rowIdKey || Scans.qualifyRecordFromRow(from._2().getRowArray(), qualifiers,baseColumnMap,optionalProbeValue)) {
+        if ((qualifiers == null || rowIdKey || Scans.qualifyRecordFromRow(from._2().getRowArray(), qualifiers,baseColumnMap,optionalProbeValue))
+                && (joinKeyFilter == null || joinKeyFilter.accept(from._2()))) {
             this.operationContext.recordRead();
             if (op!=null) {
                 op.setCurrentRow(from._2());
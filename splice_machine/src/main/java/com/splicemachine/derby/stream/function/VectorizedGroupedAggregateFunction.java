@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.GroupedAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.vectorized.ColumnVector;
+import com.splicemachine.derby.impl.sql.execute.operations.vectorized.VectorizedAggregator;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import org.spark_project.guava.collect.AbstractIterator;
+import org.spark_project.guava.collect.Iterators;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Aggregates the rows of a partition by the grouping key before they're shuffled, a batch at a time, so the
+ * shuffle only carries a partially aggregated row per group rather than every input row.
+ *
+ * Only applies to a single grouping key of an integral or floating point type, and aggregates a
+ * {@link VectorizedAggregator} can compute; any other partition passes through untouched. Once a partition has
+ * seen too many groups, the groups it has are emitted and it starts over, which bounds the memory it takes.
+ */
+@NotThreadSafe
+public class VectorizedGroupedAggregateFunction extends SpliceFlatMapFunction<GroupedAggregateOperation,Iterator<ExecRow>,ExecRow>{
+    private static final int MAX_GROUPS=1<<16;
+
+    protected int vectorizedBatchSize;
+
+    public VectorizedGroupedAggregateFunction(){
+    }
+
+    public VectorizedGroupedAggregateFunction(OperationContext<GroupedAggregateOperation> operationContext,int vectorizedBatchSize){
+        super(operationContext);
+        this.vectorizedBatchSize=vectorizedBatchSize;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        super.writeExternal(out);
+        out.writeInt(vectorizedBatchSize);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        super.readExternal(in);
+        vectorizedBatchSize=in.readInt();
+    }
+
+    @Override
+    public Iterator<ExecRow> call(Iterator<ExecRow> rows) throws Exception{
+        if(!rows.hasNext())
+            return Collections.emptyIterator();
+        GroupedAggregateOperation op=getOperation();
+        int[] groupingKeys=op.groupedAggregateContext.getGroupingKeys();
+        ExecRow first=rows.next();
+        if(groupingKeys.length==1 && !op.isInitialized(first)){
+            int keyColumn=groupingKeys[0]+1;
+            ColumnVector.Kind keyKind=ColumnVector.kindOf(first.getColumn(keyColumn));
+            if(keyKind!=ColumnVector.Kind.NULLS_ONLY){
+                VectorizedAggregator aggregator=VectorizedAggregator.create(op.aggregates,first,vectorizedBatchSize);
+                if(aggregator!=null)
+                    return new GroupingIterator(op,aggregator,keyColumn,keyKind==ColumnVector.Kind.DOUBLE,first,rows);
+            }
+        }
+        return Iterators.concat(Iterators.singletonIterator(first),rows);
+    }
+
+    private static class GroupingIterator extends AbstractIterator<ExecRow>{
+        private final GroupedAggregateOperation op;
+        private final VectorizedAggregator aggregator;
+        private final int keyColumn;
+        private final boolean floatingKey;
+        private final Iterator<ExecRow> rows;
+        private final LongIntOpenHashMap groupIds=new LongIntOpenHashMap();
+
+        private ExecRow first;
+        private List<ExecRow> groupRows=new ArrayList<>();
+        private int nullGroup=-1;
+        private Iterator<ExecRow> finished=Collections.emptyIterator();
+
+        GroupingIterator(GroupedAggregateOperation op,VectorizedAggregator aggregator,int keyColumn,boolean floatingKey,
+                         ExecRow first,Iterator<ExecRow> rows){
+            this.op=op;
+            this.aggregator=aggregator;
+            this.keyColumn=keyColumn;
+            this.floatingKey=floatingKey;
+            this.first=first;
+            this.rows=rows;
+        }
+
+        @Override
+        protected ExecRow computeNext(){
+            if(finished.hasNext())
+                return finished.next();
+            try{
+                while(first!=null || rows.hasNext()){
+                    ExecRow row;
+                    if(first!=null){
+                        row=first;
+                        first=null;
+                    }else
+                        row=rows.next();
+                    if(op.isInitialized(row))
+                        return row;
+                    aggregator.add(row,groupOf(row));
+                    if(groupRows.size()>=MAX_GROUPS){
+                        finished=finishGroups();
+                        return finished.next();
+                    }
+                }
+                if(!groupRows.isEmpty()){
+                    finished=finishGroups();
+                    return finished.next();
+                }
+                return endOfData();
+            }catch(StandardException e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        private int groupOf(ExecRow row) throws StandardException{
+            DataValueDescriptor key=row.getColumn(keyColumn);
+            if(key.isNull()){
+                if(nullGroup<0)
+                    nullGroup=newGroup(row);
+                return nullGroup;
+            }
+            long bits;
+            if(floatingKey)
+                // the same identity DoubleEncoding gives the key when it's shuffled, so -0.0 and 0.0 stay apart
+                bits=Double.doubleToLongBits(key.getDouble());
+            else
+                bits=key.getLong();
+            // ids are kept off by one, as the map returns 0 for missing keys
+            int id=groupIds.get(bits);
+            if(id==0){
+                id=newGroup(row)+1;
+                groupIds.put(bits,id);
+            }
+            return id-1;
+        }
+
+        private int newGroup(ExecRow row){
+            groupRows.add(row.getClone());
+            return groupRows.size()-1;
+        }
+
+        private Iterator<ExecRow> finishGroups() throws StandardException{
+            List<ExecRow> finishedRows=groupRows;
+            for(int g=0;g<finishedRows.size();g++)
+                aggregator.finish(g,finishedRows.get(g));
+            aggregator.clear();
+            groupRows=new ArrayList<>();
+            groupIds.clear();
+            nullGroup=-1;
+            return finishedRows.iterator();
+        }
+    }
+}
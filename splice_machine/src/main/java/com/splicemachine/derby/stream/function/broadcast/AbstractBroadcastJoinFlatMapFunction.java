@@ -15,6 +15,7 @@
 package com.splicemachine.derby.stream.function.broadcast;
 
 import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.conn.ControlExecutionLimiter;
 import com.splicemachine.db.iapi.sql.conn.ResubmitDistributedException;
@@ -27,6 +28,7 @@ import com.splicemachine.derby.stream.function.InnerJoinNullFilterFunction;
 import com.splicemachine.derby.stream.function.SpliceFlatMapFunction;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.hash.BloomFilter;
 import com.splicemachine.stream.Stream;
 import com.splicemachine.stream.Streams;
 import org.spark_project.guava.base.Function;
@@ -116,7 +118,18 @@ public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends Spli
                 }));
             };
             ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
-            return broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
+            SConfiguration configuration = EngineDriver.driver().getConfiguration();
+            long rowLimit = operation.getFallbackRowThreshold();
+            long byteLimit = configuration.getBroadcastFallbackMBThreshold() * 1024 * 1024;
+            return broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate, rowLimit, byteLimit, operation.getRuntimeFilterFpp()).newTable();
         });
     }
+
+    /**
+     * @return the bloom filter over the join keys of the right side of the broadcast join {@code sequenceId}, if
+     * that side is loaded in this JVM with one
+     */
+    public static BloomFilter getKeyFilter(long sequenceId) {
+        return broadcastJoinCache.getKeyFilter(sequenceId);
+    }
 }
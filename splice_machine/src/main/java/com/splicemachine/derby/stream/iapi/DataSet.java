@@ -16,6 +16,7 @@ package com.splicemachine.derby.stream.iapi;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.window.WindowContext;
 import com.splicemachine.derby.stream.function.*;
@@ -329,6 +330,11 @@ public interface DataSet<V> extends Iterable<V>, Serializable {
 
     BulkDeleteDataSetWriterBuilder bulkDeleteData(OperationContext operationContext) throws StandardException;
 
+    /**
+     * Populate a new index with the index rows of this data set (a scan of the base table), by bulk loading them.
+     */
+    BulkLoadIndexDataSetWriterBuilder bulkLoadIndex(DDLMessage.TentativeIndex tentativeIndex) throws StandardException;
+
     DataSetWriterBuilder deleteData(OperationContext operationContext) throws StandardException;
     InsertDataSetWriterBuilder insertData(OperationContext operationContext) throws StandardException;
     UpdateDataSetWriterBuilder updateData(OperationContext operationContext) throws StandardException;
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.DMLWriteOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.DistinctScalarAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.GroupedAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinKeyFilter;
+import com.splicemachine.derby.impl.sql.execute.operations.MergeJoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.ScalarAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.SortOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.stream.utils.StreamLogUtils;
+import com.splicemachine.derby.utils.Scans;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exchange operator for control mode table scans. The scan is split into one {@link SITableScanner} per region,
+ * and the regions are read concurrently by at most {@code parallelism} tasks running on the
+ * {@link EngineDriver} thread pool, each one handing its rows to the consumer through a bounded queue.
+ *
+ * When the plan relies on the scan returning rows in key order, every region gets its own queue and the
+ * consumer drains them in key order, otherwise all regions share a single queue.
+ *
+ * Regions are claimed in key order. When the consumer runs out of rows and there is a region nobody has
+ * claimed yet, it claims it and reads it itself, so the scan progresses even when the thread pool is saturated.
+ *
+ * Qualifiers and the operation's current row are only evaluated and updated on the consumer thread.
+ */
+@NotThreadSafe
+public class ParallelTableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow>, Closeable {
+    private static final Logger LOG = Logger.getLogger(ParallelTableScannerIterator.class);
+    private static final ExecRow END = new ValueRow(0);
+
+    private final List<SITableScanner> scanners;
+    private final List<BlockingQueue<ExecRow>> buffers;
+    private final AtomicInteger nextScanner = new AtomicInteger(0);
+    private final List<Future<?>> workers;
+    private final boolean ordered;
+    private final int parallelism;
+    private final ScanOperation operation;
+    private final Qualifier[][] qualifiers;
+    private final int[] baseColumnMap;
+    private final boolean rowIdKey;
+    private final JoinKeyFilter joinKeyFilter;
+    private final DataValueDescriptor optionalProbeValue;
+
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private Thread consumer;
+    private boolean initialized;
+    private int current;
+    private int finished;
+    private SITableScanner inline;
+    private ExecRow execRow;
+    private boolean slotted;
+    private boolean hasNext;
+
+    public ParallelTableScannerIterator(List<SITableScanner> scanners,
+                                        SpliceOperation operation,
+                                        DataValueDescriptor optionalProbeValue,
+                                        int parallelism,
+                                        int queueSize) {
+        this.scanners = scanners;
+        this.operation = (ScanOperation) operation;
+        this.optionalProbeValue = optionalProbeValue;
+        this.parallelism = Math.min(parallelism, scanners.size());
+        this.ordered = requiresKeyOrder(operation);
+        this.workers = new ArrayList<>(this.parallelism);
+        int numBuffers = ordered ? scanners.size() : 1;
+        this.buffers = new ArrayList<>(numBuffers);
+        for (int i = 0; i < numBuffers; i++) {
+            buffers.add(new ArrayBlockingQueue<ExecRow>(queueSize));
+        }
+        if (operation != null) {
+            this.qualifiers = this.operation.getScanInformation().getScanQualifiers();
+            this.baseColumnMap = this.operation.getOperationInformation().getBaseColumnMap();
+            this.rowIdKey = this.operation.getRowIdKey();
+            this.joinKeyFilter = this.operation.getJoinKeyFilter();
+        } else {
+            this.qualifiers = null;
+            this.baseColumnMap = null;
+            this.rowIdKey = false;
+            this.joinKeyFilter = null;
+        }
+    }
+
+    /**
+     * @return the number of regions a control mode scan of {@code operation} should read concurrently, as
+     * set for the session, or else as configured
+     */
+    public static int parallelism(SpliceOperation operation) {
+        int parallelism = 0;
+        if (operation != null && operation.getActivation() != null)
+            parallelism = operation.getActivation().getLanguageConnectionContext().getControlScanParallelism();
+        if (parallelism <= 0)
+            parallelism = EngineDriver.driver().getConfiguration().getControlScanParallelism();
+        return parallelism;
+    }
+
+    /**
+     * Determines whether the plan may rely on the rows of {@code scan} coming back in key order. That's the
+     * case unless, on the way from the top of the plan to the scan, the rows go through an operation which
+     * doesn't care about the order of its input (a sort, an aggregation or a write) and no merge join after it.
+     * If the scan can't be found from the top of the plan, it's assumed to need its order.
+     */
+    public static boolean requiresKeyOrder(SpliceOperation scan) {
+        if (scan == null || scan.getActivation() == null || !(scan.getActivation().getResultSet() instanceof SpliceOperation))
+            return true;
+        Boolean ordered = requiresKeyOrder((SpliceOperation) scan.getActivation().getResultSet(), scan, true);
+        return ordered == null || ordered;
+    }
+
+    private static Boolean requiresKeyOrder(SpliceOperation op, SpliceOperation scan, boolean ordered) {
+        if (op == scan)
+            return ordered;
+        if (op instanceof MergeJoinOperation)
+            ordered = true;
+        else if (op instanceof SortOperation
+                || op instanceof ScalarAggregateOperation
+                || op instanceof DistinctScalarAggregateOperation
+                || op instanceof GroupedAggregateOperation
+                || op instanceof DMLWriteOperation)
+            ordered = false;
+        for (SpliceOperation child : op.getSubOperations()) {
+            if (child == null)
+                continue;
+            Boolean childOrdered = requiresKeyOrder(child, scan, ordered);
+            if (childOrdered != null)
+                return childOrdered;
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<ExecRow> iterator() {
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (slotted)
+                return hasNext;
+            slotted = true;
+            if (!initialized) {
+                initialized = true;
+                start();
+            }
+            while (true) {
+                execRow = nextRow();
+                if (execRow == null) {
+                    close();
+                    hasNext = false;
+                    return hasNext;
+                }
+                hasNext = true;
+                if ((qualifiers == null || rowIdKey || Scans.qualifyRecordFromRow(execRow.getRowArray(), qualifiers, baseColumnMap, optionalProbeValue))
+                        && (joinKeyFilter == null || joinKeyFilter.accept(execRow)))
+                    break;
+            }
+            return hasNext;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public ExecRow next() {
+        slotted = false;
+        if (operation != null) {
+            StreamLogUtils.logOperationRecord(execRow, operation);
+            operation.setCurrentRow(execRow);
+            operation.setCurrentRowLocation(new HBaseRowLocation(execRow.getKey()));
+        }
+        return execRow;
+    }
+
+    @Override
+    public void remove() {
+        throw new RuntimeException("Not Implemented");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        for (Future<?> worker : workers) {
+            worker.cancel(true);
+        }
+        for (BlockingQueue<ExecRow> buffer : buffers) {
+            buffer.clear();
+        }
+        // the workers close the scanners they claimed, close the ones nobody got to
+        int claimed = nextScanner.getAndSet(scanners.size());
+        for (int i = claimed; i < scanners.size(); i++) {
+            closeScanner(scanners.get(i));
+        }
+        if (inline != null) {
+            closeScanner(inline);
+            inline = null;
+        }
+    }
+
+    private void start() {
+        consumer = Thread.currentThread();
+        ExecutorService executor = EngineDriver.driver().getExecutorService();
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            }));
+        }
+    }
+
+    private ExecRow nextRow() throws Exception {
+        while (true) {
+            if (failure != null)
+                throw new IOException(failure);
+            if (inline != null) {
+                ExecRow row = inline.next();
+                if (row != null)
+                    return row.getClone();
+                closeScanner(inline);
+                inline = null;
+                if (!advance())
+                    return null;
+                continue;
+            }
+            if (ordered ? current >= scanners.size() : finished == scanners.size())
+                return null;
+            BlockingQueue<ExecRow> buffer = buffers.get(ordered ? current : 0);
+            ExecRow row = buffer.poll();
+            if (row == null) {
+                if (claim())
+                    continue;
+                row = buffer.take();
+            }
+            if (row != END)
+                return row;
+            if (!advance())
+                return null;
+        }
+    }
+
+    /**
+     * A region has been read to the end
+     * @return false if the scan is complete
+     */
+    private boolean advance() {
+        if (ordered)
+            return ++current < scanners.size();
+        return ++finished < scanners.size();
+    }
+
+    /**
+     * Claims the next region for the consumer thread to read, when nobody has
+     * @return true if the consumer has a region to read
+     */
+    private boolean claim() throws StandardException, IOException {
+        int next = nextScanner.get();
+        if (next >= scanners.size() || (ordered && next != current) || !nextScanner.compareAndSet(next, next + 1))
+            return false;
+        inline = scanners.get(next);
+        inline.open();
+        return true;
+    }
+
+    private void work() {
+        if (Thread.currentThread() == consumer) {
+            // the pool is full and rejected the task back to us, the consumer will read the regions itself
+            return;
+        }
+        int next;
+        while (!closed && failure == null && (next = nextScanner.getAndIncrement()) < scanners.size()) {
+            SITableScanner scanner = scanners.get(next);
+            BlockingQueue<ExecRow> buffer = buffers.get(ordered ? next : 0);
+            try {
+                scanner.open();
+                ExecRow row;
+                while (!closed && (row = scanner.next()) != null) {
+                    buffer.put(row.getClone());
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                if (!closed) {
+                    LOG.error("Error reading region of a parallel scan", t);
+                    failure = t;
+                }
+            } finally {
+                closeScanner(scanner);
+            }
+            try {
+                if (!closed)
+                    buffer.put(END);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void closeScanner(SITableScanner scanner) {
+        try {
+            scanner.close();
+        } catch (Exception e) {
+            LOG.warn("Error closing region scanner", e);
+        }
+    }
+}
@@ -20,11 +20,11 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinKeyFilter;
 import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.utils.StreamLogUtils;
-import com.splicemachine.derby.utils.Scans;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Closeable;
 import java.io.IOException;
@@ -46,6 +46,7 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
     protected Qualifier[][] qualifiers;
     protected int[] baseColumnMap;
     protected boolean rowIdKey; // HACK Row ID Qualifiers point to the projection above them ?  TODO JL
+    protected JoinKeyFilter joinKeyFilter;
 
     public TableScannerIterator(TableScannerBuilder siTableBuilder, SpliceOperation operation) throws StandardException {
         this.siTableBuilder = siTableBuilder;
@@ -54,6 +55,7 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
             this.qualifiers = ((ScanOperation) operation).getScanInformation().getScanQualifiers();
             this.baseColumnMap = ((ScanOperation) operation).getOperationInformation().getBaseColumnMap();
             this.rowIdKey = ((ScanOperation) operation).getRowIdKey();
+            this.joinKeyFilter = ((ScanOperation) operation).getJoinKeyFilter();
         }
     }
 
@@ -72,6 +74,9 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
                 initialized = true;
                 tableScanner = siTableBuilder.build();
                 tableScanner.open();
+                // the scanner evaluates the qualifiers before decoding the columns they don't reference
+                if (qualifiers != null && !rowIdKey)
+                    tableScanner.setQualifiers(qualifiers, baseColumnMap);
                 if (operation!= null) {
                     operation.registerCloseable(new Closeable() {
                         @Override
@@ -95,7 +100,7 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
                     return hasNext;
                 } else {
                     hasNext = true;
-                    if (qualifiers == null || rowIdKey || Scans.qualifyRecordFromRow(execRow.getRowArray(), qualifiers,baseColumnMap,siTableBuilder.getOptionalProbeValue() ))
+                    if (joinKeyFilter == null || joinKeyFilter.accept(execRow))
                         break;
                 }
             }
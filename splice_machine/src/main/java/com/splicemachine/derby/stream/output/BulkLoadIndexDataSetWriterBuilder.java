@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.output;
+
+/**
+ * Builds a writer which populates a new index by bulk loading HFiles into it.
+ */
+public interface BulkLoadIndexDataSetWriterBuilder extends DataSetWriterBuilder {
+
+    /**
+     * @param bulkLoadDirectory the directory in which the HFiles are staged until they are loaded
+     */
+    BulkLoadIndexDataSetWriterBuilder bulkLoadDirectory(String bulkLoadDirectory);
+
+    /**
+     * @param sampling whether to sample the data first, and pre-split the index on the sampled keys
+     */
+    BulkLoadIndexDataSetWriterBuilder sampling(boolean sampling);
+}
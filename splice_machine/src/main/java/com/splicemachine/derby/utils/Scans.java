@@ -16,6 +16,10 @@ package com.splicemachine.derby.utils;
 
 import com.splicemachine.db.iapi.types.DataType;
 import com.splicemachine.derby.impl.sql.execute.operations.QualifierUtils;
+import com.splicemachine.derby.utils.marshall.dvd.SerializerMap;
+import com.splicemachine.derby.utils.marshall.dvd.TypeProvider;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
@@ -110,7 +114,8 @@ public class Scans extends SpliceUtils {
                     sortOrder, formatIds, startScanKeys, keyTablePositionMap, keyDecodingMap, dataValueFactory, tableVersion, rowIdKey);
 
             if (!rowIdKey) {
-                buildPredicateFilter(qualifiers, scanColumnList, scan, keyDecodingMap);
+                buildPredicateFilter(qualifiers, scanColumnList, keyDecodingMap, formatIds, scan, tableVersion);
+                buildZonePredicate(qualifiers, formatIds, tableVersion, scan);
             }
 
 
@@ -144,7 +149,9 @@ public class Scans extends SpliceUtils {
                                             int[] columnTypes,
                                             DataScan scan,
                                             String tableVersion) throws StandardException, IOException {
-        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingMap);
+        EntryPredicateFilter pqf = getEntryPredicateFilter(qualifiers,
+                scanColumnList, keyColumnEncodingMap, columnTypes, tableVersion);
+        scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL, pqf.toBytes());
     }
 
     public static void buildPredicateFilter(Qualifier[][] qualifiers,
@@ -159,6 +166,18 @@ public class Scans extends SpliceUtils {
     public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
                                                      FormatableBitSet scanColumnList,
                                                      int[] keyColumnEncodingOrder) throws StandardException {
+        return getEntryPredicateFilter(qualifiers, scanColumnList, keyColumnEncodingOrder, null, null);
+    }
+
+    /**
+     * @param columnTypes the format ids of the columns of the conglomerate, by storage position, or null to
+     *                    leave the qualifiers to be evaluated on the decoded rows only
+     */
+    public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
+                                                     FormatableBitSet scanColumnList,
+                                                     int[] keyColumnEncodingOrder,
+                                                     int[] columnTypes,
+                                                     String tableVersion) throws StandardException {
         BitSet colsToReturn = new BitSet();
         if (qualifiers != null) {
             for (Qualifier[] qualifierList : qualifiers) {
@@ -182,7 +201,93 @@ public class Scans extends SpliceUtils {
                     colsToReturn.clear(col);
             }
         }
-        return new EntryPredicateFilter(colsToReturn, true);
+        return new EntryPredicateFilter(colsToReturn, true, getRowPredicate(qualifiers, columnTypes, tableVersion, keyColumnEncodingOrder));
+    }
+
+    /**
+     * Keeps the part of the zone predicate of {@code qualifiers} which the region can check against the encoded
+     * fields of each row it reads, so rows failing it are neither decoded nor returned. Clauses on primary key
+     * columns are left out, since those columns are only part of the row key.
+     */
+    private static ZonePredicate getRowPredicate(Qualifier[][] qualifiers,
+                                                 int[] columnTypes,
+                                                 String tableVersion,
+                                                 int[] keyColumnEncodingOrder) throws StandardException {
+        ZonePredicate rowPredicate = new ZonePredicate();
+        if (columnTypes == null)
+            return rowPredicate;
+        BitSet keyColumns = new BitSet();
+        if (keyColumnEncodingOrder != null) {
+            for (int col : keyColumnEncodingOrder) {
+                if (col >= 0)
+                    keyColumns.set(col);
+            }
+        }
+        for (ZonePredicate.ColumnPredicate[] clause : getZonePredicate(qualifiers, columnTypes, tableVersion).getClauses()) {
+            boolean onKey = false;
+            for (ZonePredicate.ColumnPredicate predicate : clause) {
+                onKey |= keyColumns.get(predicate.getColumn());
+            }
+            if (!onKey)
+                rowPredicate.addClause(clause);
+        }
+        return rowPredicate;
+    }
+
+    /**
+     * Attaches the part of {@code qualifiers} which the region can check against the zone maps of its store files,
+     * if any.
+     *
+     * @param columnTypes the format ids of the columns of the conglomerate, by storage position
+     */
+    public static void buildZonePredicate(Qualifier[][] qualifiers,
+                                          int[] columnTypes,
+                                          String tableVersion,
+                                          DataScan scan) throws StandardException, IOException {
+        ZonePredicate zonePredicate = getZonePredicate(qualifiers, columnTypes, tableVersion);
+        if (!zonePredicate.isEmpty())
+            scan.addAttribute(SIConstants.ZONE_PREDICATE_LABEL, zonePredicate.toBytes());
+    }
+
+    /**
+     * Keeps the qualifiers which compare a scalar column with a constant encoded the same way as the column,
+     * since zone maps only track scalar columns, by encoded value. An OR clause is kept only if all of its
+     * qualifiers are.
+     *
+     * @param columnTypes the format ids of the columns of the conglomerate, by storage position
+     */
+    public static ZonePredicate getZonePredicate(Qualifier[][] qualifiers,
+                                                 int[] columnTypes,
+                                                 String tableVersion) throws StandardException {
+        ZonePredicate zonePredicate = new ZonePredicate();
+        if (qualifiers == null || columnTypes == null)
+            return zonePredicate;
+        TypeProvider typeProvider = VersionedSerializers.typesForVersion(tableVersion);
+        SerializerMap serializers = VersionedSerializers.forVersion(tableVersion, true);
+        for (int i = 0; i < qualifiers.length; i++) {
+            Qualifier[] qualifierList = qualifiers[i];
+            if (qualifierList == null)
+                continue;
+            if (i == 0) {
+                // ANDed together
+                for (Qualifier qualifier : qualifierList) {
+                    ZonePredicate.ColumnPredicate predicate = toColumnPredicate(qualifier, columnTypes, typeProvider, serializers);
+                    if (predicate != null)
+                        zonePredicate.addClause(predicate);
+                }
+            } else if (qualifierList.length > 0) {
+                // ORed together
+                ZonePredicate.ColumnPredicate[] clause = new ZonePredicate.ColumnPredicate[qualifierList.length];
+                for (int j = 0; j < qualifierList.length && clause != null; j++) {
+                    clause[j] = toColumnPredicate(qualifierList[j], columnTypes, typeProvider, serializers);
+                    if (clause[j] == null)
+                        clause = null;
+                }
+                if (clause != null)
+                    zonePredicate.addClause(clause);
+            }
+        }
+        return zonePredicate;
     }
 
     private static void attachScanKeys(DataScan scan,
@@ -397,5 +502,59 @@ public class Scans extends SpliceUtils {
         return false;
     }
 
+    private static ZonePredicate.ColumnPredicate toColumnPredicate(Qualifier qualifier,
+                                                                   int[] columnTypes,
+                                                                   TypeProvider typeProvider,
+                                                                   SerializerMap serializers) throws StandardException {
+        int column = qualifier.getStoragePosition();
+        if (column < 0 || column >= columnTypes.length || qualifier.getOrderedNulls())
+            return null;
+        DataValueDescriptor orderable = qualifier.getOrderable();
+        if (orderable == null || orderable.isNull())
+            return null;
+        int columnType = columnTypes[column];
+        int constantType = orderable.getTypeFormatId();
+        if (!typeProvider.isScalar(columnType) || !typeProvider.isScalar(constantType))
+            return null;
+        // integers of any size are encoded alike, dates and times only like themselves
+        if (columnType != constantType && !(isInteger(columnType) && isInteger(constantType)))
+            return null;
+        boolean negate = qualifier.negateCompareResult();
+        byte operator;
+        switch (qualifier.getOperator()) {
+            case DataType.ORDER_OP_LESSTHAN:
+                operator = negate ? ZonePredicate.GREATER_OR_EQUALS : ZonePredicate.LESS_THAN;
+                break;
+            case DataType.ORDER_OP_LESSOREQUALS:
+                operator = negate ? ZonePredicate.GREATER_THAN : ZonePredicate.LESS_OR_EQUALS;
+                break;
+            case DataType.ORDER_OP_EQUALS:
+                operator = negate ? ZonePredicate.NOT_EQUALS : ZonePredicate.EQUALS;
+                break;
+            case DataType.ORDER_OP_GREATEROREQUALS:
+                operator = negate ? ZonePredicate.LESS_THAN : ZonePredicate.GREATER_OR_EQUALS;
+                break;
+            case DataType.ORDER_OP_GREATERTHAN:
+                operator = negate ? ZonePredicate.LESS_OR_EQUALS : ZonePredicate.GREATER_THAN;
+                break;
+            default:
+                return null;
+        }
+        byte[] value = serializers.getSerializer(orderable).encodeDirect(orderable, false);
+        // a null column compares as the unknown result, which is then negated as well
+        boolean nullsMatch = negate != qualifier.getUnknownRV();
+        return new ZonePredicate.ColumnPredicate(column, operator, value, nullsMatch);
+    }
 
+    private static boolean isInteger(int typeFormatId) {
+        switch (typeFormatId) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
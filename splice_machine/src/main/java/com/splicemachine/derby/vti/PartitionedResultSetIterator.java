@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.vti;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Iterator over the union of several queries against the same remote database, each of which
+ * is run on its own connection. At most {@code maxParallelism} of them run at once, the others
+ * wait for a thread to free up. Rows from all partitions are handed to the consumer
+ * through a bounded queue, so no particular order is guaranteed across partitions.
+ */
+@NotThreadSafe
+public class PartitionedResultSetIterator implements Iterable<ExecRow>, Iterator<ExecRow>, Closeable {
+    private static final ExecRow END_OF_PARTITION = new ValueRow(0);
+
+    private final BlockingQueue<ExecRow> queue;
+    private final ExecutorService fetchPool;
+    private final List<Future<?>> fetches;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private int remainingPartitions;
+    private ExecRow nextRow;
+    private volatile boolean closed;
+
+    public PartitionedResultSetIterator(String connectionUrl,
+                                        List<String> partitionQueries,
+                                        ExecRow execRow,
+                                        int[] columnMap,
+                                        int queueSize,
+                                        int maxParallelism) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.remainingPartitions = partitionQueries.size();
+        this.fetches = new ArrayList<>(partitionQueries.size());
+        int threads = Math.max(1, Math.min(partitionQueries.size(), maxParallelism));
+        this.fetchPool = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("jdbc-vti-fetch-%d").build());
+        for (String query : partitionQueries) {
+            fetches.add(fetchPool.submit(new PartitionFetch(connectionUrl, query, execRow, columnMap)));
+        }
+    }
+
+    @Override
+    public Iterator<ExecRow> iterator() {
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow != null)
+            return true;
+        try {
+            while (remainingPartitions > 0) {
+                ExecRow row = queue.take();
+                if (row == END_OF_PARTITION) {
+                    remainingPartitions--;
+                    checkError();
+                } else {
+                    nextRow = row;
+                    return true;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ie);
+        }
+        fetchPool.shutdown();
+        return false;
+    }
+
+    @Override
+    public ExecRow next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        ExecRow row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new RuntimeException("Not Implemented");
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (Future<?> fetch : fetches) {
+            fetch.cancel(true);
+        }
+        fetchPool.shutdownNow();
+        queue.clear();
+    }
+
+    private void checkError() {
+        Throwable t = error.get();
+        if (t == null)
+            return;
+        try {
+            close();
+        } catch (IOException ignored) {
+            // we are already failing, the original error is more interesting
+        }
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        throw new RuntimeException(t);
+    }
+
+    private class PartitionFetch implements Runnable {
+        private final String connectionUrl;
+        private final String query;
+        private final ExecRow execRow;
+        private final int[] columnMap;
+
+        PartitionFetch(String connectionUrl, String query, ExecRow execRow, int[] columnMap) {
+            this.connectionUrl = connectionUrl;
+            this.query = query;
+            this.execRow = execRow;
+            this.columnMap = columnMap;
+        }
+
+        @Override
+        public void run() {
+            Connection connection = null;
+            ResultSetIterator it = null;
+            try {
+                connection = DriverManager.getConnection(connectionUrl);
+                PreparedStatement ps = connection.prepareStatement(query);
+                it = new ResultSetIterator(connection, ps, execRow, columnMap);
+                while (!closed && it.hasNext()) {
+                    queue.put(it.next());
+                }
+            } catch (Throwable t) {
+                if (!closed)
+                    error.compareAndSet(null, t);
+            } finally {
+                try {
+                    if (it != null)
+                        it.close();
+                    else if (connection != null)
+                        connection.close();
+                } catch (Exception e) {
+                    error.compareAndSet(null, e);
+                }
+                if (!closed) {
+                    try {
+                        queue.put(END_OF_PARTITION);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+}
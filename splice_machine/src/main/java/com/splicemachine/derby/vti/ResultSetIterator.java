@@ -34,9 +34,19 @@ public class ResultSetIterator implements Iterable<ExecRow>, Iterator<ExecRow>,
     private ResultSet resultSet;
     private boolean[] isNullable;
     private Connection connection;
+    private int[] columnMap;
 
 
     public ResultSetIterator(Connection connection, PreparedStatement ps, ExecRow execRow) {
+        this(connection,ps,execRow,null);
+    }
+
+    /**
+     * @param columnMap the (1-based) position in {@code execRow} of each column of the result set, or
+     *                  {@code null} if the result set columns line up with the row's columns. Row columns which
+     *                  are not mapped are left as they are in the template row.
+     */
+    public ResultSetIterator(Connection connection, PreparedStatement ps, ExecRow execRow, int[] columnMap) {
         this.connection = connection;
         try {
             this.resultSet = ps.executeQuery();
@@ -55,6 +65,13 @@ public class ResultSetIterator implements Iterable<ExecRow>, Iterator<ExecRow>,
             throw new RuntimeException(e);
         }
         this.execRow = execRow;
+        if (columnMap == null) {
+            columnMap = new int[execRow.nColumns()];
+            for (int i = 0; i < columnMap.length; i++) {
+                columnMap[i] = i + 1;
+            }
+        }
+        this.columnMap = columnMap;
     }
 
     @Override
@@ -75,8 +92,8 @@ public class ResultSetIterator implements Iterable<ExecRow>, Iterator<ExecRow>,
     public ExecRow next() {
         try {
             ExecRow returnRow = execRow.getClone();
-            for (int i = 1; i <= execRow.nColumns(); i++) {
-                returnRow.getColumn(i).setValueFromResultSet(resultSet,i,isNullable[i-1]);
+            for (int i = 1; i <= columnMap.length; i++) {
+                returnRow.getColumn(columnMap[i-1]).setValueFromResultSet(resultSet,i,isNullable[i-1]);
             }
             return returnRow;
         } catch (Exception e) {
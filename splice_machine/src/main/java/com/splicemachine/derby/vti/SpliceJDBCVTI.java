@@ -14,8 +14,12 @@
 
 package com.splicemachine.derby.vti;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.util.IdUtil;
+import com.splicemachine.db.vti.RestrictedVTI;
+import com.splicemachine.db.vti.Restriction;
 import com.splicemachine.db.vti.VTICosting;
 import com.splicemachine.db.vti.VTIEnvironment;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
@@ -23,16 +27,56 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.vti.iapi.DatasetProvider;
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
+ * Reads a table (or the result of a query) from a remote database over JDBC.
+ *
+ * The projection and the simple qualifiers handed to {@link #initScan(String[], Restriction)} are
+ * pushed into the remote query, so only the referenced columns of the qualifying rows are shipped.
+ * The columns are matched to the remote ones by position, as the columns declared by the table function
+ * may be named differently than those of the remote table or query. When constructed with a partition column, the scan is split into ranges of that (numeric) column
+ * which are fetched concurrently, each on its own connection.
+ *
  * Created by jleach on 10/7/15.
  */
-public class SpliceJDBCVTI implements DatasetProvider, VTICosting {
+public class SpliceJDBCVTI implements DatasetProvider, VTICosting, RestrictedVTI {
+    /** Number of fetched rows buffered between the partition fetchers and the consumer */
+    private static final int PARTITION_QUEUE_SIZE = 1024;
+    /** Estimated cost (in microseconds) of fetching a single row from the remote database */
+    private static final double REMOTE_ROW_FETCH_COST = 10d;
+    /** Estimated cost (in microseconds) of opening a connection and running a query remotely */
+    private static final double REMOTE_QUERY_OPEN_COST = 5000d;
+    /**
+     * Row counts of the remote tables and queries, so that not every compilation of a statement reading them
+     * makes a round trip to count their rows. Keyed by connection url, without its password, and query.
+     */
+    private static final Cache<String, Double> REMOTE_ROW_COUNTS = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+    /** Passwords passed as connection url properties, e.g. {@code ;password=secret} or {@code ?password=secret} */
+    private static final Pattern URL_PASSWORD_PROPERTY = Pattern.compile("(?i)([;?&:](password|pwd)=)[^;&]*");
+    /** Passwords in the user info of the connection url, e.g. {@code //user:secret@host} or {@code thin:user/secret@host} */
+    private static final Pattern URL_USER_PASSWORD = Pattern.compile("(//|thin:)([^/:@;?]*)[:/][^/@;?]*@");
+
     private String connectionUrl;
     private String schemaName;
     private String tableName;
     private String sql; // Bind Variables?
+    private String partitionColumn;
+    private int numPartitions = 1;
+    private String[] projectedColumns;
+    private Restriction restriction;
+    private String[] remoteColumns;
     protected OperationContext operationContext;
     public SpliceJDBCVTI() {
 
@@ -43,6 +87,12 @@ public class SpliceJDBCVTI implements DatasetProvider, VTICosting {
         this.tableName = tableName;
     }
 
+    public SpliceJDBCVTI(String connectionUrl, String schemaName, String tableName, String partitionColumn, int numPartitions) {
+        this(connectionUrl, schemaName, tableName);
+        this.partitionColumn = partitionColumn;
+        this.numPartitions = Math.max(numPartitions, 1);
+    }
+
     public SpliceJDBCVTI(String connectionUrl, String sql) {
         this.connectionUrl = connectionUrl;
         this.sql = sql;
@@ -53,19 +103,39 @@ public class SpliceJDBCVTI implements DatasetProvider, VTICosting {
         return new SpliceJDBCVTI(connectionUrl, schemaName, tableName);
     }
 
+    public static DatasetProvider getJDBCPartitionedTableVTI(String connectionUrl, String schemaName, String tableName,
+                                                             String partitionColumn, int numPartitions) {
+        return new SpliceJDBCVTI(connectionUrl, schemaName, tableName, partitionColumn, numPartitions);
+    }
+
     public static DatasetProvider getJDBCSQLVTI(String connectionUrl, String sql) {
         return new SpliceJDBCVTI(connectionUrl, sql);
     }
 
+    @Override
+    public void initScan(String[] columnNames, Restriction restriction) throws SQLException {
+        this.projectedColumns = columnNames;
+        this.restriction = restriction;
+    }
+
     @Override
     public DataSet<ExecRow> getDataSet(SpliceOperation op,DataSetProcessor dsp,  ExecRow execRow) throws StandardException {
         Connection connection = null;
         operationContext = dsp.createOperationContext(op);
         final PreparedStatement ps;
         try {
+            int[] columnMap = getColumnMap();
+            if (partitionColumn != null && numPartitions > 1) {
+                int fetchParallelism = EngineDriver.driver().getConfiguration().getJdbcVtiFetchParallelism();
+                PartitionedResultSetIterator it = new PartitionedResultSetIterator(connectionUrl,
+                        getPartitionQueries(), execRow, columnMap, PARTITION_QUEUE_SIZE, fetchParallelism);
+                op.registerCloseable(it);
+                return dsp.createDataSet(it);
+            }
+            String query = getQuery(null);
             connection = DriverManager.getConnection(connectionUrl);
-            ps = connection.prepareStatement(sql != null ? sql : "select * from " + schemaName + "." + tableName);
-            ResultSetIterator it = new ResultSetIterator(connection,ps,execRow);
+            ps = connection.prepareStatement(query);
+            ResultSetIterator it = new ResultSetIterator(connection,ps,execRow,columnMap);
             op.registerCloseable(it);
             return dsp.createDataSet(it);
         } catch (SQLException e) {
@@ -75,12 +145,18 @@ public class SpliceJDBCVTI implements DatasetProvider, VTICosting {
 
     @Override
     public double getEstimatedRowCount(VTIEnvironment vtiEnvironment) throws SQLException {
-        return 1000;
+        double rowCount = getRemoteRowCount();
+        return rowCount < 0 ? VTICosting.defaultEstimatedRowCount : rowCount;
     }
 
     @Override
     public double getEstimatedCostPerInstantiation(VTIEnvironment vtiEnvironment) throws SQLException {
-        return 0;
+        double rowCount = getRemoteRowCount();
+        if (rowCount < 0)
+            return 0;
+        // IMPORTANT: this method needs to return MICROSECONDS, the internal unit for costs.
+        int parallelism = partitionColumn != null ? numPartitions : 1;
+        return REMOTE_QUERY_OPEN_COST * parallelism + REMOTE_ROW_FETCH_COST * rowCount / parallelism;
     }
 
     @Override
@@ -93,7 +169,7 @@ public class SpliceJDBCVTI implements DatasetProvider, VTICosting {
         Connection connection = DriverManager.getConnection(connectionUrl);
         PreparedStatement ps;
         try {
-            ps = connection.prepareStatement(sql != null ? sql : "select * from " + schemaName + "." + tableName);
+            ps = connection.prepareStatement(getBaseQuery());
             return ps.getMetaData();
         } finally {
             if (connection!=null)
@@ -105,4 +181,230 @@ public class SpliceJDBCVTI implements DatasetProvider, VTICosting {
     public OperationContext getOperationContext() {
         return operationContext;
     }
+
+    private String getBaseQuery() {
+        return sql != null ? sql : "select * from " + schemaName + "." + tableName;
+    }
+
+    /**
+     * @return the number of rows in the remote table or query, or -1 if it could not be determined
+     */
+    private double getRemoteRowCount() {
+        String key = withoutPassword(connectionUrl) + "\u0000" + getBaseQuery();
+        Double remoteRowCount = REMOTE_ROW_COUNTS.getIfPresent(key);
+        if (remoteRowCount != null)
+            return remoteRowCount;
+        try (Connection connection = DriverManager.getConnection(connectionUrl);
+             PreparedStatement ps = connection.prepareStatement("select count(*) from (" + getBaseQuery() + ") vti");
+             ResultSet rs = ps.executeQuery()) {
+            remoteRowCount = rs.next() ? (double) rs.getLong(1) : -1d;
+        } catch (SQLException se) {
+            // not every remote database can count a derived table, fall back to the defaults
+            remoteRowCount = -1d;
+        }
+        REMOTE_ROW_COUNTS.put(key, remoteRowCount);
+        return remoteRowCount;
+    }
+
+    /**
+     * @return the connection url with the values of its passwords blanked out, so that it can be kept around
+     */
+    static String withoutPassword(String connectionUrl) {
+        String url = URL_USER_PASSWORD.matcher(connectionUrl).replaceFirst("$1$2@");
+        return URL_PASSWORD_PROPERTY.matcher(url).replaceAll("$1");
+    }
+
+    /**
+     * @return the names of the columns of the remote table or query, by position
+     */
+    private String[] getRemoteColumns() throws SQLException {
+        if (remoteColumns != null)
+            return remoteColumns;
+        try (Connection connection = DriverManager.getConnection(connectionUrl);
+             PreparedStatement ps = connection.prepareStatement(getBaseQuery())) {
+            ResultSetMetaData metaData = ps.getMetaData();
+            String[] columns = new String[metaData.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = metaData.getColumnName(i + 1);
+            }
+            remoteColumns = columns;
+        }
+        return remoteColumns;
+    }
+
+    /**
+     * @return the restriction with its columns renamed to the remote columns in the same position, or null if
+     * none of it can be pushed. Parts of an AND which can't be pushed are dropped, as the restriction is applied
+     * to the fetched rows again anyway.
+     */
+    private Restriction toRemoteRestriction(Restriction restriction, Map<String, String> remoteNames) {
+        if (restriction instanceof Restriction.AND) {
+            Restriction.AND and = (Restriction.AND) restriction;
+            Restriction left = toRemoteRestriction(and.getLeftChild(), remoteNames);
+            Restriction right = toRemoteRestriction(and.getRightChild(), remoteNames);
+            if (left == null || right == null)
+                return left == null ? right : left;
+            return new Restriction.AND(left, right);
+        }
+        if (restriction instanceof Restriction.OR) {
+            Restriction.OR or = (Restriction.OR) restriction;
+            Restriction left = toRemoteRestriction(or.getLeftChild(), remoteNames);
+            Restriction right = toRemoteRestriction(or.getRightChild(), remoteNames);
+            if (left == null || right == null)
+                return null;
+            return new Restriction.OR(left, right);
+        }
+        if (restriction instanceof Restriction.ColumnQualifier) {
+            Restriction.ColumnQualifier qualifier = (Restriction.ColumnQualifier) restriction;
+            String remoteName = remoteNames.get(qualifier.getColumnName());
+            if (remoteName == null)
+                return null;
+            return new Restriction.ColumnQualifier(remoteName, qualifier.getComparisonOperator(), qualifier.getConstantOperand());
+        }
+        return null;
+    }
+
+    /**
+     * @return the position in the row of each column fetched by {@link #getQuery(String)}, or
+     * null if all columns are fetched
+     */
+    private int[] getColumnMap() {
+        if (!isProjected())
+            return null;
+        List<Integer> positions = new ArrayList<>(projectedColumns.length);
+        for (int i = 0; i < projectedColumns.length; i++) {
+            if (projectedColumns[i] != null)
+                positions.add(i + 1);
+        }
+        int[] columnMap = new int[positions.size()];
+        for (int i = 0; i < columnMap.length; i++) {
+            columnMap[i] = positions.get(i);
+        }
+        return columnMap;
+    }
+
+    private boolean isProjected() {
+        if (projectedColumns == null)
+            return false;
+        for (String column : projectedColumns) {
+            if (column != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Build the query to run remotely, with the pushed projection and restriction applied.
+     *
+     * @param partitionClause an additional condition selecting a single partition, or null
+     */
+    private String getQuery(String partitionClause) throws SQLException {
+        return getQuery(partitionClause, true);
+    }
+
+    /**
+     * @param project whether to fetch the projected columns only, or all of them
+     */
+    private String getQuery(String partitionClause, boolean project) throws SQLException {
+        boolean projected = project && isProjected();
+        if (!projected && restriction == null && partitionClause == null)
+            return getBaseQuery();
+
+        Map<String, String> remoteNames = new HashMap<>();
+        String[] columns = null;
+        if (isProjected()) {
+            columns = getRemoteColumns();
+            if (columns.length < projectedColumns.length)
+                throw new SQLException("The table function declares " + projectedColumns.length +
+                        " columns, but the remote table or query only has " + columns.length);
+            for (int i = 0; i < projectedColumns.length; i++) {
+                if (projectedColumns[i] != null)
+                    remoteNames.put(projectedColumns[i], columns[i]);
+            }
+        }
+
+        StringBuilder query = new StringBuilder("select ");
+        if (projected) {
+            boolean first = true;
+            for (int i = 0; i < projectedColumns.length; i++) {
+                if (projectedColumns[i] == null)
+                    continue;
+                if (!first)
+                    query.append(", ");
+                query.append(IdUtil.normalToDelimited(columns[i]));
+                first = false;
+            }
+        } else {
+            query.append("*");
+        }
+        query.append(" from ");
+        if (sql != null)
+            query.append("(").append(sql).append(") vti");
+        else
+            query.append(schemaName).append(".").append(tableName);
+
+        Restriction remoteRestriction = restriction == null ? null : toRemoteRestriction(restriction, remoteNames);
+        String where = remoteRestriction == null ? null : "( " + remoteRestriction.toSQL() + " )";
+        if (partitionClause != null)
+            where = where == null ? partitionClause : where + " AND " + partitionClause;
+        if (where != null)
+            query.append(" where ").append(where);
+        return query.toString();
+    }
+
+    /**
+     * Split the scan into {@code numPartitions} ranges of the partition column. The first and last ranges are
+     * open-ended (and the first one also picks up NULLs), so every row lands in exactly one partition.
+     */
+    private List<String> getPartitionQueries() throws SQLException {
+        String column = IdUtil.normalToDelimited(partitionColumn);
+        // the bounds are computed over all the columns, as the partition column need not be projected
+        String boundsQuery = "select min(" + column + "), max(" + column + ") from (" + getQuery(null, false) + ") vti";
+        long lower;
+        long upper;
+        try (Connection connection = DriverManager.getConnection(connectionUrl);
+             PreparedStatement ps = connection.prepareStatement(boundsQuery);
+             ResultSet rs = ps.executeQuery()) {
+            if (!rs.next())
+                return singlePartition();
+            lower = rs.getLong(1);
+            if (rs.wasNull())
+                return singlePartition();
+            upper = rs.getLong(2);
+        }
+
+        long span;
+        try {
+            span = Math.subtractExact(upper, lower);
+        } catch (ArithmeticException ae) {
+            // the bounds are further apart than a long can tell, which only happens when lower is negative,
+            // so lower + span can't overflow either
+            span = Long.MAX_VALUE;
+        }
+        int partitions = (int) Math.max(1, Math.min(numPartitions, span));
+        if (span <= 0 || partitions == 1)
+            return singlePartition();
+
+        long step = span / partitions;
+        List<String> queries = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            long start = lower + step * i;
+            long stop = lower + step * (i + 1);
+            String clause;
+            if (i == 0)
+                clause = "( " + column + " IS NULL OR " + column + " < " + stop + " )";
+            else if (i == partitions - 1)
+                clause = "( " + column + " >= " + start + " )";
+            else
+                clause = "( " + column + " >= " + start + " AND " + column + " < " + stop + " )";
+            queries.add(getQuery(clause));
+        }
+        return queries;
+    }
+
+    private List<String> singlePartition() throws SQLException {
+        List<String> queries = new ArrayList<>(1);
+        queries.add(getQuery(null));
+        return queries;
+    }
 }
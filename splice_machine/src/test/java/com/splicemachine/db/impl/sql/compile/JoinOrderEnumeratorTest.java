@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.iapi.sql.compile.JoinOrderEnumeration;
+import com.splicemachine.db.iapi.sql.compile.Optimizable;
+import com.splicemachine.db.iapi.sql.compile.OptimizableList;
+import com.splicemachine.db.iapi.sql.compile.OptimizablePredicate;
+import com.splicemachine.db.iapi.sql.compile.OptimizablePredicateList;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.util.JBitSet;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the join orders picked by {@link JoinOrderEnumerator} against an exhaustive search over the
+ * same cost model.
+ */
+@Category(ArchitectureIndependent.class)
+public class JoinOrderEnumeratorTest {
+
+    @Test
+    public void dynamicProgrammingFindsTheCheapestOrderOfRandomGraphs() throws Exception {
+        Random random = new Random(0x5eedL);
+        for (int n = 3; n <= 7; n++) {
+            for (int round = 0; round < 20; round++) {
+                JoinGraph graph = JoinGraph.random(random, n);
+                JoinOrderEnumerator enumerator = graph.enumerator();
+                int[] order = enumerator.dynamicProgramming();
+                assertNotNull(graph + " has no join order", order);
+                assertPermutation(order, n);
+
+                double optimum = graph.exhaustiveSearch();
+                assertEquals(graph + " is not optimal", optimum, enumerator.getCost(), optimum * 1e-9);
+                assertEquals(graph + " reports a wrong cost", graph.cost(order), enumerator.getCost(), optimum * 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void dynamicProgrammingAvoidsCartesianProducts() throws Exception {
+        // small(10) - big(1000) - small(10): the two small tables must not be joined to each other first
+        JoinGraph graph = new JoinGraph(new double[]{10, 1000, 10});
+        graph.edge(0, 1, 0.001);
+        graph.edge(1, 2, 0.001);
+        JoinOrderEnumerator enumerator = graph.enumerator();
+        int[] order = enumerator.dynamicProgramming();
+        assertNotNull(order);
+        for (int pos = 1; pos < order.length; pos++) {
+            assertTrue("table " + order[pos] + " is not connected to the tables before it",
+                    graph.connected(order, pos));
+        }
+        assertEquals(graph.exhaustiveSearch(), enumerator.getCost(), 1e-9);
+    }
+
+    @Test
+    public void dynamicProgrammingJoinsDisconnectedComponents() throws Exception {
+        JoinGraph graph = new JoinGraph(new double[]{100, 200, 300, 400});
+        graph.edge(0, 1, 0.01);
+        graph.edge(2, 3, 0.01);
+        JoinOrderEnumerator enumerator = graph.enumerator();
+        int[] order = enumerator.dynamicProgramming();
+        assertNotNull(order);
+        assertPermutation(order, 4);
+        assertEquals(graph.exhaustiveSearch(), enumerator.getCost(), 1e-6);
+    }
+
+    @Test
+    public void dynamicProgrammingHonorsLegalJoinOrders() throws Exception {
+        // table 0 is the cheapest start, but table 2 may only be joined after table 1 and table 0 only after table 2
+        JoinGraph graph = new JoinGraph(new double[]{10, 1000, 500, 800});
+        graph.edge(0, 1, 0.01);
+        graph.edge(0, 2, 0.01);
+        graph.edge(0, 3, 0.01);
+        graph.edge(1, 2, 0.01);
+        graph.requires(2, 1);
+        graph.requires(0, 2);
+        JoinOrderEnumerator enumerator = graph.enumerator();
+        int[] order = enumerator.dynamicProgramming();
+        assertNotNull(order);
+        assertTrue(indexOf(order, 1) < indexOf(order, 2));
+        assertTrue(indexOf(order, 2) < indexOf(order, 0));
+        assertEquals(graph.exhaustiveSearch(), enumerator.getCost(), 1e-6);
+    }
+
+    @Test
+    public void noLegalJoinOrder() throws Exception {
+        JoinGraph graph = new JoinGraph(new double[]{10, 20, 30});
+        graph.edge(0, 1, 0.1);
+        graph.edge(1, 2, 0.1);
+        graph.requires(0, 1);
+        graph.requires(1, 0);
+        assertNull(graph.enumerator().dynamicProgramming());
+        assertNull(graph.enumerator().greedy());
+    }
+
+    @Test
+    public void greedyPicksAConnectedLegalOrder() throws Exception {
+        Random random = new Random(0xfeedL);
+        for (int n = 3; n <= 7; n++) {
+            for (int round = 0; round < 20; round++) {
+                JoinGraph graph = JoinGraph.random(random, n);
+                JoinOrderEnumerator enumerator = graph.enumerator();
+                int[] order = enumerator.greedy();
+                assertNotNull(graph + " has no join order", order);
+                assertPermutation(order, n);
+
+                double optimum = graph.exhaustiveSearch();
+                assertEquals(graph + " reports a wrong cost", graph.cost(order), enumerator.getCost(), optimum * 1e-9);
+                assertTrue(graph + " beats the optimum", enumerator.getCost() >= optimum * (1 - 1e-9));
+            }
+        }
+    }
+
+    @Test
+    public void greedyStartsFromTheSelectiveEndOfAChain() throws Exception {
+        // a chain in which every table joins 1:1 with its neighbors, except for a very selective end
+        JoinGraph graph = new JoinGraph(new double[]{1000, 1000, 1000, 1000, 5});
+        graph.edge(0, 1, 0.001);
+        graph.edge(1, 2, 0.001);
+        graph.edge(2, 3, 0.001);
+        graph.edge(3, 4, 0.001);
+        JoinOrderEnumerator enumerator = graph.enumerator();
+        int[] order = enumerator.greedy();
+        assertNotNull(order);
+        assertTrue(Arrays.toString(order), order[0] == 4 || (order[0] == 3 && order[1] == 4));
+        assertEquals(graph.exhaustiveSearch(), enumerator.getCost(), 1e-6);
+    }
+
+    @Test
+    public void greedyHandlesMoreTablesThanDynamicProgramming() throws Exception {
+        int n = JoinOrderEnumerator.MAX_DP_OPTIMIZABLES + 10;
+        double[] rowCounts = new double[n];
+        for (int i = 0; i < n; i++) {
+            rowCounts[i] = 100 + i;
+        }
+        JoinGraph graph = new JoinGraph(rowCounts);
+        // a star around table n-1 plus a chain through the others
+        for (int i = 0; i < n - 1; i++) {
+            graph.edge(i, n - 1, 0.01);
+            if (i > 0)
+                graph.edge(i - 1, i, 0.01);
+        }
+        JoinOrderEnumerator enumerator = graph.enumerator();
+        int[] order = enumerator.greedy();
+        assertNotNull(order);
+        assertPermutation(order, n);
+        for (int pos = 1; pos < n; pos++) {
+            assertTrue(graph.connected(order, pos));
+        }
+        assertEquals(graph.cost(order), enumerator.getCost(), enumerator.getCost() * 1e-9);
+    }
+
+    @Test
+    public void autoPicksTheStrategyFromTheFromListSize() throws Exception {
+        assertEquals(JoinOrderEnumeration.PERMUTATION, JoinOrderEnumerator.resolve(null, 11, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.DYNAMIC_PROGRAMMING, JoinOrderEnumerator.resolve(null, 12, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.DYNAMIC_PROGRAMMING,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.AUTO, 18, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.GREEDY, JoinOrderEnumerator.resolve(null, 19, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.PERMUTATION,
+                JoinOrderEnumerator.resolve(null, 40, Integer.MAX_VALUE, Integer.MAX_VALUE, true));
+    }
+
+    @Test
+    public void requestedStrategyFallsBackWhenItCannotApply() throws Exception {
+        assertEquals(JoinOrderEnumeration.GREEDY,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.GREEDY, 5, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.DYNAMIC_PROGRAMMING,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.DYNAMIC_PROGRAMMING, 5, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.GREEDY,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.DYNAMIC_PROGRAMMING,
+                        JoinOrderEnumerator.MAX_DP_OPTIMIZABLES + 1, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.PERMUTATION,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.GREEDY, 2, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.PERMUTATION,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.GREEDY, JoinOrderEnumerator.MAX_OPTIMIZABLES + 1, 12, 18, true));
+        assertEquals(JoinOrderEnumeration.PERMUTATION,
+                JoinOrderEnumerator.resolve(JoinOrderEnumeration.DYNAMIC_PROGRAMMING, 5, 12, 18, false));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    private static void assertPermutation(int[] order, int n) {
+        assertEquals(n, order.length);
+        boolean[] seen = new boolean[n];
+        for (int opt : order) {
+            assertFalse("optimizable " + opt + " appears twice", seen[opt]);
+            seen[opt] = true;
+        }
+    }
+
+    private static int indexOf(int[] order, int opt) {
+        for (int pos = 0; pos < order.length; pos++) {
+            if (order[pos] == opt)
+                return pos;
+        }
+        return -1;
+    }
+
+    /**
+     * A join graph together with a brute force implementation of the enumerator's cost model: a join order
+     * costs the sum of the row counts of its tables and of its intermediate results (at least one row each),
+     * and a table must be connected to the tables before it unless none of the remaining tables is.
+     */
+    private static class JoinGraph {
+        private final int n;
+        private final double[] rowCounts;
+        private final double[][] selectivity;
+        private final List<int[]> edges = new ArrayList<>();
+        private final List<Double> edgeSelectivities = new ArrayList<>();
+        private final long[] required;
+
+        JoinGraph(double[] rowCounts) {
+            this.n = rowCounts.length;
+            this.rowCounts = rowCounts;
+            this.selectivity = new double[n][n];
+            for (double[] row : selectivity) {
+                Arrays.fill(row, 1.0d);
+            }
+            this.required = new long[n];
+        }
+
+        /**
+         * A graph whose row counts and selectivities keep every intermediate result above one row, so that
+         * the cardinality of a set of tables doesn't depend on the order they are joined in.
+         */
+        static JoinGraph random(Random random, int n) {
+            while (true) {
+                double[] rowCounts = new double[n];
+                for (int i = 0; i < n; i++) {
+                    rowCounts[i] = 10 + random.nextInt(10000);
+                }
+                JoinGraph graph = new JoinGraph(rowCounts);
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        if (random.nextInt(3) == 0)
+                            graph.edge(i, j, 1.0d / (1 + random.nextInt(1000)));
+                    }
+                }
+                if (graph.cardinalitiesAtLeastOne())
+                    return graph;
+            }
+        }
+
+        void edge(int i, int j, double sel) {
+            selectivity[i][j] *= sel;
+            selectivity[j][i] *= sel;
+            edges.add(new int[]{i, j});
+            edgeSelectivities.add(sel);
+        }
+
+        /** {@code table} may only be joined once {@code before} has been */
+        void requires(int table, int before) {
+            required[table] |= 1L << before;
+        }
+
+        JoinOrderEnumerator enumerator() throws Exception {
+            final Optimizable[] optimizables = new Optimizable[n];
+            for (int i = 0; i < n; i++) {
+                final JBitSet tableMap = new JBitSet(n);
+                tableMap.set(i);
+                final long requiredSet = required[i];
+                Optimizable optimizable = mock(Optimizable.class);
+                when(optimizable.getReferencedTableMap()).thenReturn(tableMap);
+                when(optimizable.legalJoinOrder(any(JBitSet.class))).thenAnswer(new Answer<Boolean>() {
+                    @Override
+                    public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                        JBitSet assigned = (JBitSet) invocation.getArguments()[0];
+                        for (int t = 0; t < n; t++) {
+                            if ((requiredSet & (1L << t)) != 0 && !assigned.get(t))
+                                return false;
+                        }
+                        return true;
+                    }
+                });
+                optimizables[i] = optimizable;
+            }
+            OptimizableList optimizableList = mock(OptimizableList.class);
+            when(optimizableList.size()).thenReturn(n);
+            for (int i = 0; i < n; i++) {
+                when(optimizableList.getOptimizable(i)).thenReturn(optimizables[i]);
+            }
+
+            OptimizablePredicateList predicateList = mock(OptimizablePredicateList.class);
+            when(predicateList.size()).thenReturn(edges.size());
+            for (int p = 0; p < edges.size(); p++) {
+                int[] edge = edges.get(p);
+                JBitSet referenced = new JBitSet(n);
+                referenced.set(edge[0]);
+                referenced.set(edge[1]);
+                OptimizablePredicate predicate = mock(OptimizablePredicate.class);
+                when(predicate.getReferencedMap()).thenReturn(referenced);
+                when(predicate.joinSelectivity(any(Optimizable.class), any(ConglomerateDescriptor.class),
+                        anyLong(), anyLong(), any(SelectivityUtil.SelectivityJoinType.class)))
+                        .thenReturn(edgeSelectivities.get(p));
+                when(predicateList.getOptPredicate(p)).thenReturn(predicate);
+            }
+            return new JoinOrderEnumerator(optimizableList, predicateList, rowCounts, n);
+        }
+
+        boolean connected(int[] order, int pos) {
+            long before = 0L;
+            for (int i = 0; i < pos; i++) {
+                before |= 1L << order[i];
+            }
+            return (neighbors(before) & (1L << order[pos])) != 0;
+        }
+
+        double cost(int[] order) {
+            long set = 1L << order[0];
+            double card = rowCounts[order[0]];
+            double total = card;
+            for (int pos = 1; pos < order.length; pos++) {
+                int next = order[pos];
+                card *= rowCounts[next];
+                for (int i = 0; i < n; i++) {
+                    if ((set & (1L << i)) != 0)
+                        card *= selectivity[next][i];
+                }
+                card = Math.max(1.0d, card);
+                set |= 1L << next;
+                total += rowCounts[next] + card;
+            }
+            return total;
+        }
+
+        double exhaustiveSearch() {
+            return search(new int[n], 0, 0L);
+        }
+
+        private double search(int[] order, int pos, long set) {
+            if (pos == n)
+                return cost(order);
+            long frontier = neighbors(set) & ~set;
+            double best = Double.MAX_VALUE;
+            for (int next = 0; next < n; next++) {
+                long bit = 1L << next;
+                if ((set & bit) != 0 || (frontier != 0 && (frontier & bit) == 0))
+                    continue;
+                if ((required[next] & set) != required[next])
+                    continue;
+                order[pos] = next;
+                best = Math.min(best, search(order, pos + 1, set | bit));
+            }
+            return best;
+        }
+
+        private long neighbors(long set) {
+            long neighbors = 0L;
+            for (int[] edge : edges) {
+                if ((set & (1L << edge[0])) != 0)
+                    neighbors |= 1L << edge[1];
+                if ((set & (1L << edge[1])) != 0)
+                    neighbors |= 1L << edge[0];
+            }
+            return neighbors;
+        }
+
+        private double unclampedCardinality(long set) {
+            double card = 1.0d;
+            for (int i = 0; i < n; i++) {
+                if ((set & (1L << i)) == 0)
+                    continue;
+                card *= rowCounts[i];
+                for (int j = 0; j < i; j++) {
+                    if ((set & (1L << j)) != 0)
+                        card *= selectivity[i][j];
+                }
+            }
+            return card;
+        }
+
+        private boolean cardinalitiesAtLeastOne() {
+            for (long set = 1; set < (1L << n); set++) {
+                if (unclampedCardinality(set) < 1.0d)
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("rowCounts=").append(Arrays.toString(rowCounts)).append(" edges=");
+            for (int[] edge : edges) {
+                sb.append('(').append(edge[0]).append(',').append(edge[1]).append(')');
+            }
+            return sb.toString();
+        }
+    }
+}
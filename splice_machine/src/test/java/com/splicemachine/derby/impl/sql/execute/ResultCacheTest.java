@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.compile.CursorNode;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.pipeline.ConglomerateWriteTracker;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResultCacheTest {
+    private static final long CONGLOMERATE = 1568L;
+
+    private TxnSupplier txnSupplier;
+    private ConglomerateWriteTracker tracker;
+    private ExecPreparedStatement ps;
+    private int servers;
+
+    @Before
+    public void setUp() throws Exception {
+        txnSupplier = mock(TxnSupplier.class);
+        tracker = new ConglomerateWriteTracker(txnSupplier, true);
+        ps = mock(ExecPreparedStatement.class);
+        when(ps.getObjectID()).thenReturn(mock(UUID.class));
+        when(ps.getVersionCounter()).thenReturn(1L);
+        when(ps.getReadConglomerates()).thenReturn(new long[]{CONGLOMERATE});
+        when(ps.getUpdateMode()).thenReturn(CursorNode.READ_ONLY);
+        servers = 1;
+    }
+
+    @Test
+    public void servesRowsUntilTheTableIsWritten() throws Exception {
+        ResultCache cache = newCache(100, 10);
+        ResultCache.Lookup lookup = cache.lookup(operation(100L));
+        assertFalse(lookup.isHit());
+        assertEquals(3, drain(lookup.record(rows(3).iterator())).size());
+
+        lookup = cache.lookup(operation(101L));
+        assertTrue(lookup.isHit());
+        List<ExecRow> cached = drain(lookup.getRows());
+        assertEquals(rows(3), cached);
+        assertEquals(1L, cache.getHits());
+        assertEquals(3L, cache.getCachedRows());
+
+        // the cached rows are copies, so changing the ones returned leaves the entry alone
+        cached.get(0).getColumn(1).setValue(-1);
+        assertEquals(rows(3), drain(cache.lookup(operation(102L)).getRows()));
+
+        tracker.recordWrite(CONGLOMERATE, txn(200L, Txn.State.COMMITTED, 210L));
+        assertFalse(cache.lookup(operation(300L)).isHit());
+        assertEquals(1L, cache.getInvalidations());
+        assertEquals(0L, cache.getEntries());
+    }
+
+    @Test
+    public void doesNotStoreWhileAWriterIsInFlight() throws Exception {
+        ResultCache cache = newCache(100, 10);
+        TxnView writer = txn(200L, Txn.State.ACTIVE, -1L);
+        tracker.recordWrite(CONGLOMERATE, writer);
+
+        drain(cache.lookup(operation(300L)).record(rows(3).iterator()));
+        assertEquals(0L, cache.getStores());
+
+        when(writer.getEffectiveState()).thenReturn(Txn.State.COMMITTED);
+        when(writer.getEffectiveCommitTimestamp()).thenReturn(310L);
+        // began before the writer committed, so it may not have seen all of its writes
+        drain(cache.lookup(operation(305L)).record(rows(3).iterator()));
+        assertEquals(0L, cache.getStores());
+
+        drain(cache.lookup(operation(320L)).record(rows(3).iterator()));
+        assertEquals(1L, cache.getStores());
+        assertFalse("Served to a transaction which can't see the last write", cache.lookup(operation(305L)).isHit());
+        assertTrue(cache.lookup(operation(330L)).isHit());
+    }
+
+    @Test
+    public void doesNotStoreTooManyRows() throws Exception {
+        ResultCache cache = newCache(100, 2);
+        assertEquals(3, drain(cache.lookup(operation(100L)).record(rows(3).iterator())).size());
+        assertEquals(0L, cache.getStores());
+        assertFalse(cache.lookup(operation(101L)).isHit());
+    }
+
+    @Test
+    public void turnsOffWithMoreThanOneServer() throws Exception {
+        servers = 2;
+        ResultCache cache = newCache(100, 10);
+        assertNull(cache.lookup(operation(100L)));
+        servers = 1;
+        assertNull("Turned back on with a single server", cache.lookup(operation(101L)));
+        assertEquals(0L, cache.getEntries());
+    }
+
+    @Test
+    public void disabledCacheLooksNothingUp() throws Exception {
+        assertNull(newCache(0, 10).lookup(operation(100L)));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private ResultCache newCache(long maxRows, int maxEntryRows) {
+        return new ResultCache(maxRows, maxEntryRows) {
+            @Override
+            protected ConglomerateWriteTracker writeTracker() {
+                return tracker;
+            }
+
+            @Override
+            protected int countServers() throws IOException {
+                return servers;
+            }
+        };
+    }
+
+    private SpliceOperation operation(long beginTimestamp) throws Exception {
+        SpliceOperation op = mock(SpliceOperation.class);
+        Activation activation = mock(Activation.class);
+        when(activation.getResultSet()).thenReturn(op);
+        when(activation.getPreparedStatement()).thenReturn(ps);
+        when(op.getActivation()).thenReturn(activation);
+        when(op.returnsRows()).thenReturn(true);
+        TxnView txn = mock(TxnView.class);
+        when(txn.getBeginTimestamp()).thenReturn(beginTimestamp);
+        when(op.getCurrentTransaction()).thenReturn(txn);
+        return op;
+    }
+
+    private TxnView txn(long txnId, Txn.State state, long commitTimestamp) throws Exception {
+        TxnView txn = mock(TxnView.class);
+        when(txn.getTxnId()).thenReturn(txnId);
+        when(txn.getEffectiveState()).thenReturn(state);
+        when(txn.getEffectiveCommitTimestamp()).thenReturn(commitTimestamp);
+        when(txnSupplier.getTransaction(txnId)).thenReturn(txn);
+        return txn;
+    }
+
+    private static List<ExecRow> rows(int count) {
+        List<ExecRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ValueRow row = new ValueRow(1);
+            row.setColumn(1, new SQLInteger(i));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<ExecRow> drain(Iterator<ExecRow> it) {
+        List<ExecRow> rows = new ArrayList<>();
+        while (it.hasNext()) {
+            rows.add(it.next());
+        }
+        return rows;
+    }
+}
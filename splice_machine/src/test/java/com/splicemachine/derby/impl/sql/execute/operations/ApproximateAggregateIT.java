@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * APPROX_COUNT_DISTINCT, APPROX_PERCENTILE and APPROX_TOP_K in scalar and grouped queries, in control
+ * as well as in Spark.
+ */
+@RunWith(Parameterized.class)
+public class ApproximateAggregateIT {
+    private static final String SCHEMA = ApproximateAggregateIT.class.getSimpleName().toUpperCase();
+    private static final String URL = "jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin;useSpark=%s";
+    private static final String INVALID_ARGUMENT = "22008";
+
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{{false}, {true}});
+    }
+
+    private final boolean useSpark;
+    private TestConnection conn;
+
+    public ApproximateAggregateIT(boolean useSpark) {
+        this.useSpark = useSpark;
+    }
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        // v: 1..4000, g: v % 4, f: 1 for the first 2000 rows, 2 for the next 1000, v for the rest
+        List<Iterable<Object>> tRows = new ArrayList<>();
+        for (int v = 1; v <= 4000; v++)
+            tRows.add(row(v % 4, v, v <= 2000 ? 1 : v <= 3000 ? 2 : v));
+        new TableCreator(classWatcher.getOrCreateConnection())
+                .withCreate(String.format("create table %s.t (g int, v int, f int)", SCHEMA))
+                .withInsert(String.format("insert into %s.t values(?,?,?)", SCHEMA))
+                .withRows(rows(tRows))
+                .create();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        conn = new TestConnection(DriverManager.getConnection(String.format(URL, useSpark), new Properties()));
+        conn.setSchema(SCHEMA);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    public void scalarAggregates() throws Exception {
+        try (ResultSet rs = conn.query("select approx_count_distinct(v), approx_percentile(v, 0.5), approx_top_k(f, 2) from t")) {
+            assertTrue(rs.next());
+            assertWithin(4000, rs.getLong(1), 0.05);
+            assertWithin(2000, rs.getInt(2), 0.05);
+            assertEquals("1=2000, 2=1000", rs.getString(3));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void groupedAggregates() throws Exception {
+        try (ResultSet rs = conn.query("select g, approx_count_distinct(v), approx_percentile(v, 0.9), approx_top_k(f, 1) " +
+                "from t group by g order by g")) {
+            for (int g = 0; g < 4; g++) {
+                assertTrue(rs.next());
+                assertEquals(g, rs.getInt(1));
+                assertWithin(1000, rs.getLong(2), 0.05);
+                assertWithin(3600, rs.getInt(3), 0.05);
+                assertEquals("1=500", rs.getString(4));
+            }
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void emptyInput() throws Exception {
+        try (ResultSet rs = conn.query("select approx_count_distinct(v), approx_percentile(v, 0.5), approx_top_k(f, 3) from t where v < 0")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getLong(1));
+            rs.getInt(2);
+            assertTrue(rs.wasNull());
+            assertEquals(null, rs.getString(3));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void invalidArgumentsAreRejectedAtBindTime() throws Exception {
+        assertInvalidArgument("select approx_percentile(v, 1.5) from t");
+        assertInvalidArgument("select approx_percentile(v, v) from t");
+        assertInvalidArgument("select approx_top_k(f, 0) from t");
+        assertInvalidArgument("select approx_top_k(f, 100000) from t");
+    }
+
+    @Test
+    public void routineShadowsTheAggregate() throws Exception {
+        try (Statement s = conn.createStatement()) {
+            s.execute("create function approx_top_k(a int, b int) returns int " +
+                    "language java parameter style java no sql external name 'java.lang.Math.max'");
+            try {
+                try (ResultSet rs = s.executeQuery("select approx_top_k(v, 3000) from t where v >= 2999 order by v")) {
+                    assertTrue(rs.next());
+                    assertEquals(3000, rs.getInt(1));
+                    assertTrue(rs.next());
+                    assertEquals(3000, rs.getInt(1));
+                    assertTrue(rs.next());
+                    assertEquals(3001, rs.getInt(1));
+                }
+            } finally {
+                s.execute("drop function approx_top_k");
+            }
+        }
+    }
+
+    private void assertInvalidArgument(String sql) throws Exception {
+        try (ResultSet rs = conn.query(sql)) {
+            rs.next();
+            fail("Expected " + sql + " to be rejected");
+        } catch (SQLException se) {
+            assertEquals(sql, INVALID_ARGUMENT, se.getSQLState());
+        }
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        assertTrue("Expected " + expected + " but got " + actual,
+                Math.abs(actual - expected) <= expected * relativeError);
+    }
+}
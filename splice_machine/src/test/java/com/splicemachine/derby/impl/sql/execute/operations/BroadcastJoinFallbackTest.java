@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.conn.ResubmitDistributedException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.pipeline.api.PipelineExceptionFactory;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.apache.spark.SparkException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that a broadcast join which loads too much of its right side gives up in a way the top operation
+ * can act upon, wherever the join ran.
+ */
+public class BroadcastJoinFallbackTest {
+    private static final long OPERATION_ID = 1568L;
+
+    @Test
+    public void loadGivesUpPastTheRowLimit() throws Exception {
+        try {
+            load(20, 10, 0);
+            fail("Expected the load to give up");
+        } catch (BroadcastJoinMemoryLimitException e) {
+            assertEquals(OPERATION_ID, e.getOperationId());
+            assertEquals(11, e.getRows());
+        }
+    }
+
+    @Test
+    public void loadGivesUpPastTheByteLimit() throws Exception {
+        try {
+            load(20, 0, 64);
+            fail("Expected the load to give up");
+        } catch (BroadcastJoinMemoryLimitException e) {
+            assertEquals(OPERATION_ID, e.getOperationId());
+            assertTrue(e.getRows() < 20);
+            assertTrue(e.getBytes() > 64);
+        }
+    }
+
+    @Test
+    public void loadWithinTheLimitsSucceeds() throws Exception {
+        assertNotNull(load(20, 20, 0));
+        assertNotNull(load(20, 0, 0));
+    }
+
+    @Test
+    public void cacheRethrowsTheLimitException() throws Exception {
+        BroadcastJoinCache cache = new BroadcastJoinCache();
+        try {
+            cache.get(OPERATION_ID, rows(20), new int[]{0}, new int[]{0}, template(), 10, 0, 0d);
+            fail("Expected the load to give up");
+        } catch (BroadcastJoinMemoryLimitException e) {
+            assertEquals(OPERATION_ID, e.getOperationId());
+        }
+    }
+
+    /**
+     * In Spark the exception is raised in an executor, wrapped by Spark and by the olap job, and shipped back to
+     * the client in the job's failure. The client must still see it for what it is, or it can't fall back.
+     */
+    @Test
+    public void limitExceptionSurvivesTheRemoteRoundTrip() throws Exception {
+        BroadcastJoinMemoryLimitException thrown = new BroadcastJoinMemoryLimitException(OPERATION_ID, 11, 1024);
+        Throwable failure = new ExecutionException(new SparkException("Job aborted due to stage failure", thrown));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(failure);
+        }
+        Throwable received;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            received = (Throwable) ois.readObject();
+        }
+
+        StandardException se = Exceptions.parseException(new RuntimeException(received),
+                mock(PipelineExceptionFactory.class), mock(ExceptionFactory.class));
+        assertTrue(se instanceof ResubmitDistributedException);
+        assertTrue(se instanceof BroadcastJoinMemoryLimitException);
+        BroadcastJoinMemoryLimitException e = (BroadcastJoinMemoryLimitException) se;
+        assertEquals(OPERATION_ID, e.getOperationId());
+        assertEquals(11, e.getRows());
+        assertEquals(1024, e.getBytes());
+        assertEquals(thrown.getSQLState(), e.getSQLState());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static JoinTable.Factory load(int numRows, long rowLimit, long byteLimit) throws Exception {
+        return ByteBufferMapTableLoader.INSTANCE.load(OPERATION_ID, rows(numRows), new int[]{0}, new int[]{0},
+                template(), rowLimit, byteLimit, 0d);
+    }
+
+    private static Callable<Stream<ExecRow>> rows(int numRows) {
+        final ExecRow[] rows = new ExecRow[numRows];
+        for (int i = 0; i < numRows; i++) {
+            ExecRow row = new ValueRow(2);
+            row.setColumn(1, new SQLInteger(i % 5));
+            row.setColumn(2, new SQLInteger(i));
+            rows[i] = row;
+        }
+        return new Callable<Stream<ExecRow>>() {
+            @Override
+            public Stream<ExecRow> call() throws Exception {
+                return Streams.of(rows);
+            }
+        };
+    }
+
+    private static ExecRow template() {
+        ExecRow row = new ValueRow(1);
+        row.setColumn(1, new SQLInteger());
+        return row;
+    }
+}
@@ -26,6 +26,10 @@ import org.junit.rules.TestRule;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static com.splicemachine.test_tools.Rows.row;
 import static com.splicemachine.test_tools.Rows.rows;
@@ -55,6 +59,8 @@ public class VTIOperationIT extends SpliceUnitTest {
     public static void tearDown() throws Exception {
         spliceClassWatcher.execute("drop function JDBCTableVTI ");
         spliceClassWatcher.execute("drop function JDBCSQLVTI ");
+        spliceClassWatcher.execute("drop function JDBCPartitionedTableVTI ");
+        spliceClassWatcher.execute("drop function JDBCRenamedTableVTI ");
     }
 
     private static void setup(SpliceWatcher spliceClassWatcher) throws Exception {
@@ -66,6 +72,15 @@ public class VTIOperationIT extends SpliceUnitTest {
                         row("Andy", 1, 100000, 1),
                         row("Billy", 2, 100000, 2))).create();
 
+        List<Iterable<Object>> ranked = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            ranked.add(row("Employee" + i, i, 1000 * i, i));
+        }
+        new TableCreator(conn)
+                .withCreate("create table ranked_employee (name varchar(56),id bigint,salary numeric(9,2),ranking int)")
+                .withInsert("insert into ranked_employee values(?,?,?,?)")
+                .withRows(ranked).create();
+
         String sql = "create function JDBCTableVTI(conn varchar(32672), s varchar(1024), t varchar(1024))\n" +
                 "returns table\n" +
                 "(\n" +
@@ -93,6 +108,36 @@ public class VTIOperationIT extends SpliceUnitTest {
                 "no sql\n" +
                 "external name 'com.splicemachine.derby.vti.SpliceJDBCVTI.getJDBCSQLVTI'";
         spliceClassWatcher.execute(sql);
+
+        sql = "create function JDBCPartitionedTableVTI(conn varchar(32672), s varchar(1024), t varchar(1024), " +
+                "c varchar(1024), p int)\n" +
+                "returns table\n" +
+                "(\n" +
+                "   name varchar(56),\n" +
+                "   id bigint,\n" +
+                "   salary numeric(9,2),\n" +
+                "   ranking int\n" +
+                ")\n" +
+                "language java\n" +
+                "parameter style SPLICE_JDBC_RESULT_SET\n" +
+                "no sql\n" +
+                "external name 'com.splicemachine.derby.vti.SpliceJDBCVTI.getJDBCPartitionedTableVTI'";
+        spliceClassWatcher.execute(sql);
+
+        // declares the remote columns under other names
+        sql = "create function JDBCRenamedTableVTI(conn varchar(32672), s varchar(1024), t varchar(1024))\n" +
+                "returns table\n" +
+                "(\n" +
+                "   emp_name varchar(56),\n" +
+                "   emp_id bigint,\n" +
+                "   emp_salary numeric(9,2),\n" +
+                "   emp_ranking int\n" +
+                ")\n" +
+                "language java\n" +
+                "parameter style SPLICE_JDBC_RESULT_SET\n" +
+                "no sql\n" +
+                "external name 'com.splicemachine.derby.vti.SpliceJDBCVTI.getJDBCTableVTI'";
+        spliceClassWatcher.execute(sql);
     }
 
     @Test
@@ -119,6 +164,54 @@ public class VTIOperationIT extends SpliceUnitTest {
         Assert.assertEquals(2, count);
     }
 
+    @Test
+    public void testJDBCTableVTIWithRestriction() throws Exception {
+        String sql = String.format("select name from table (JDBCTableVTI('jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin', '%s', '%s'))a" +
+                " where a.id = 2", CLASS_NAME, TABLE_NAME);
+        ResultSet rs = spliceClassWatcher.executeQuery(sql);
+        Assert.assertTrue(rs.next());
+        Assert.assertEquals("Billy", rs.getString(1));
+        Assert.assertFalse(rs.next());
+    }
+
+    @Test
+    public void testJDBCPartitionedTableVTI() throws Exception {
+        String sql = String.format("select * from table (JDBCPartitionedTableVTI('jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin', '%s', '%s', 'RANKING', 4))a", CLASS_NAME, TABLE_NAME);
+        ResultSet rs = spliceClassWatcher.executeQuery(sql);
+        int count = 0;
+        while (rs.next()) {
+            count++;
+        }
+        Assert.assertEquals(2, count);
+    }
+
+    @Test
+    public void testJDBCPartitionedTableVTIWithProjection() throws Exception {
+        // the partition column is neither selected nor restricted on
+        String sql = String.format("select name from table (JDBCPartitionedTableVTI('jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin', '%s', '%s', 'RANKING', 4))a" +
+                " where a.id > 5", CLASS_NAME, "RANKED_EMPLOYEE");
+        ResultSet rs = spliceClassWatcher.executeQuery(sql);
+        Set<String> names = new HashSet<>();
+        while (rs.next()) {
+            Assert.assertTrue("Duplicate row " + rs.getString(1), names.add(rs.getString(1)));
+        }
+        Assert.assertEquals(15, names.size());
+        for (int i = 6; i <= 20; i++) {
+            Assert.assertTrue("Missing row " + i, names.contains("Employee" + i));
+        }
+    }
+
+    @Test
+    public void testJDBCTableVTIWithRenamedColumns() throws Exception {
+        String sql = String.format("select emp_name, emp_ranking from table (JDBCRenamedTableVTI('jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin', '%s', '%s'))a" +
+                " where a.emp_id = 2", CLASS_NAME, TABLE_NAME);
+        ResultSet rs = spliceClassWatcher.executeQuery(sql);
+        Assert.assertTrue(rs.next());
+        Assert.assertEquals("Billy", rs.getString(1));
+        Assert.assertEquals(2, rs.getInt(2));
+        Assert.assertFalse(rs.next());
+    }
+
     @Test
     public void testJDBCTableVTIWithJoin() throws Exception {
         String sql = String.format("select * from table (JDBCTableVTI('jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin', '%s', '%s'))a" +
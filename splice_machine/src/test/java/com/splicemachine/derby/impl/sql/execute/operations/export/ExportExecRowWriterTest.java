@@ -22,10 +22,9 @@ import com.splicemachine.db.iapi.types.*;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import org.junit.Test;
 import org.supercsv.io.CsvListWriter;
-import org.supercsv.prefs.CsvPreference;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.math.BigDecimal;
 
 import static org.junit.Assert.assertEquals;
@@ -38,9 +37,8 @@ public class ExportExecRowWriterTest {
     public void writeRow_withNullValue() throws IOException, StandardException {
 
         // given
-        StringWriter writer = new StringWriter(100);
-        CsvListWriter csvWriter = new CsvListWriter(writer, CsvPreference.EXCEL_PREFERENCE);
-        ExportExecRowWriter execRowWriter = new ExportExecRowWriter(csvWriter);
+        ByteArrayOutputStream writer = new ByteArrayOutputStream(100);
+        ExportExecRowWriter execRowWriter = new ExportExecRowWriter(writer, new ExportParams());
         ResultColumnDescriptor[] columnDescriptors = columnDescriptors();
 
         // when
@@ -54,7 +52,71 @@ public class ExportExecRowWriterTest {
                 "AAA,BBB,CCC,DDD,EEE,111.12,222.1234567\n" +
                 "AAA,BBB,,DDD,EEE,111.12,222.1234567\n" +
                 "AAA,BBB,CCC,DDD,EEE,111.12,222.1234567\n" +
-                "", writer.toString());
+                "", writer.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeRow_quotesAndEscapesLikeSuperCsv() throws IOException, StandardException {
+
+        // given
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        CsvListWriter csvWriter = new ExportCSVWriterBuilder().build(expected, new ExportParams());
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ExportExecRowWriter execRowWriter = new ExportExecRowWriter(actual, new ExportParams());
+        ResultColumnDescriptor[] columnDescriptors = columnDescriptors();
+        String[][] rows = {
+                {"a,b", "say \"hi\"", "line\nbreak", "cr\r\nlf", "", "\u00e9t\u00e9 \u65e5\u672c", " spaces "},
+                {"\"", ",", "\r", "plain", "x", "\ud83d\ude00", "-"}
+        };
+
+        // when
+        for (String[] row : rows) {
+            csvWriter.write((Object[]) row);
+            execRowWriter.writeRow(buildVarchars(row), varcharDescriptors(row.length));
+        }
+        csvWriter.close();
+        execRowWriter.close();
+
+        // then
+        assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+    }
+
+    @Test
+    public void writeRow_integersAndOtherEncodings() throws IOException, StandardException {
+
+        // given
+        ByteArrayOutputStream writer = new ByteArrayOutputStream();
+        ExportExecRowWriter execRowWriter = new ExportExecRowWriter(writer,
+                new ExportParams("/dir", false, 1, "UTF-16BE", "|", null));
+        ExecRow row = new ValueRow(5);
+        row.setRowArray(new DataValueDescriptor[]{new SQLInteger(-42), new SQLLongint(Long.MIN_VALUE),
+                new SQLSmallint(0), new SQLLongint(), new SQLVarchar("a|\u00e9")});
+        ResultColumnDescriptor[] columnDescriptors = varcharDescriptors(5);
+
+        // when
+        execRowWriter.writeRow(row, columnDescriptors);
+        execRowWriter.close();
+
+        // then
+        assertEquals("-42|-9223372036854775808|0||\"a|\u00e9\"\n", writer.toString("UTF-16BE"));
+    }
+
+    private ExecRow buildVarchars(String... values) {
+        ExecRow row = new ValueRow(values.length);
+        DataValueDescriptor[] rowValues = new DataValueDescriptor[values.length];
+        for (int i = 0; i < values.length; i++) {
+            rowValues[i] = new SQLVarchar(values[i]);
+        }
+        row.setRowArray(rowValues);
+        return row;
+    }
+
+    private ResultColumnDescriptor[] varcharDescriptors(int count) {
+        ResultColumnDescriptor[] array = new ResultColumnDescriptor[count];
+        for (int i = 0; i < count; i++) {
+            array[i] = mockColDesc(StoredFormatIds.VARCHAR_TYPE_ID, 0);
+        }
+        return array;
     }
 
     private ExecRow build(String c1, String c2, String c3, String c4, String c5, double d1, double d2) throws StandardException {
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.export;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.ResultColumnDescriptor;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.iapi.types.TypeId;
+import com.splicemachine.db.impl.sql.GenericColumnDescriptor;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import org.supercsv.io.CsvListWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the export throughput of the String based SuperCSV row formatting it replaced with that of
+ * {@link ExportExecRowWriter}, then the throughput of the writer with each of the codecs an export can use:
+ * none, a single threaded {@link GZIPOutputStream} and {@link ParallelGzipOutputStream}.
+ *
+ * Run from the command line, optionally passing the number of rows.
+ */
+public class ExportMicroBenchmark{
+    private static final int WARMUP_ITERATIONS=3;
+    private static final int ITERATIONS=5;
+
+    private enum Codec{ NONE, GZIP, PARALLEL_GZIP }
+
+    public static void main(String...args) throws Exception{
+        int numRows=args.length>0?Integer.parseInt(args[0]):500000;
+        ExecRow[] rows=rows(numRows);
+        ResultColumnDescriptor[] columns=columns();
+        for(int i=0;i<WARMUP_ITERATIONS;i++){
+            benchmarkSuperCsv(rows,columns,false);
+            for(Codec codec:Codec.values())
+                benchmarkWriter(rows,columns,codec,false);
+        }
+        for(int i=0;i<ITERATIONS;i++){
+            System.out.printf("-----iteration %d%n",i);
+            benchmarkSuperCsv(rows,columns,true);
+            for(Codec codec:Codec.values())
+                benchmarkWriter(rows,columns,codec,true);
+        }
+    }
+
+    private static void benchmarkSuperCsv(ExecRow[] rows,ResultColumnDescriptor[] columns,boolean print) throws Exception{
+        CountingOutputStream out=new CountingOutputStream();
+        long start=System.nanoTime();
+        CsvListWriter writer=new ExportCSVWriterBuilder().build(out,new ExportParams());
+        for(ExecRow row:rows){
+            DataValueDescriptor[] rowArray=row.getRowArray();
+            String[] strings=new String[rowArray.length];
+            for(int i=0;i<rowArray.length;i++){
+                strings[i]=rowArray[i].getString();
+            }
+            writer.write((Object[])strings);
+        }
+        writer.close();
+        if(print)
+            report("supercsv",rows.length,System.nanoTime()-start,out.count);
+    }
+
+    private static void benchmarkWriter(ExecRow[] rows,ResultColumnDescriptor[] columns,Codec codec,boolean print) throws IOException, StandardException{
+        CountingOutputStream out=new CountingOutputStream();
+        long start=System.nanoTime();
+        OutputStream compressed;
+        switch(codec){
+            case GZIP: compressed=new GZIPOutputStream(out); break;
+            case PARALLEL_GZIP: compressed=new ParallelGzipOutputStream(out); break;
+            default: compressed=out;
+        }
+        ExportExecRowWriter writer=new ExportExecRowWriter(compressed,new ExportParams());
+        for(ExecRow row:rows){
+            writer.writeRow(row,columns);
+        }
+        writer.close();
+        if(print)
+            report("writer/"+codec.name().toLowerCase(),rows.length,System.nanoTime()-start,out.count);
+    }
+
+    private static void report(String name,int numRows,long time,long bytes){
+        double seconds=time/1e9d;
+        System.out.printf("%-22s %10.0f rows/s %8.1f MB/s out (%d bytes)%n",
+                name,numRows/seconds,bytes/seconds/(1<<20),bytes);
+    }
+
+    private static ExecRow[] rows(int numRows) throws StandardException{
+        Random random=new Random(0);
+        ExecRow[] rows=new ExecRow[numRows];
+        for(int i=0;i<numRows;i++){
+            ExecRow row=new ValueRow(5);
+            row.setRowArray(new DataValueDescriptor[]{
+                    new SQLInteger(i),
+                    new SQLLongint(random.nextLong()),
+                    new SQLVarchar("customer-"+random.nextInt(100000)),
+                    new SQLVarchar(i%10==0?"note, with \"quotes\"":"plain note"),
+                    new SQLDecimal(BigDecimal.valueOf(random.nextInt(10000000),2),15,2)
+            });
+            rows[i]=row;
+        }
+        return rows;
+    }
+
+    private static ResultColumnDescriptor[] columns(){
+        return new ResultColumnDescriptor[]{
+                new GenericColumnDescriptor("C1",DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.INTEGER)),
+                new GenericColumnDescriptor("C2",DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("C3",DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR,32)),
+                new GenericColumnDescriptor("C4",DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR,32)),
+                new GenericColumnDescriptor("C5",new DataTypeDescriptor(TypeId.getBuiltInTypeId(Types.DECIMAL),15,2,true,17))
+        };
+    }
+
+    private static class CountingOutputStream extends OutputStream{
+        private long count;
+
+        @Override
+        public void write(int b){
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b,int off,int len){
+            count+=len;
+        }
+    }
+}
@@ -18,6 +18,8 @@ import org.spark_project.guava.base.Charsets;
 import com.splicemachine.db.iapi.error.StandardException;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class ExportParamsTest {
@@ -108,5 +110,25 @@ public class ExportParamsTest {
         }
     }
 
+    @Test
+    public void constructor_format() throws StandardException {
+        assertEquals(ExportParams.FORMAT_CSV, new ExportParams("/dir", true, 1, "UTF-8", ",", null).getFormat());
+        assertFalse(new ExportParams("/dir", true, 1, "UTF-8", ",", null, "").isBinaryFormat());
+
+        ExportParams parquet = new ExportParams("/dir", true, 1, "UTF-8", ",", null, "Parquet");
+        assertEquals(ExportParams.FORMAT_PARQUET, parquet.getFormat());
+        assertTrue(parquet.isBinaryFormat());
+        assertEquals(ExportParams.FORMAT_ORC, new ExportParams("/dir", true, 1, "UTF-8", ",", null, "orc").getFormat());
+    }
+
+    @Test
+    public void constructor_badFormat() {
+        try {
+            new ExportParams("/dir", true, 1, "UTF-8", ",", null, "avro");
+            fail();
+        } catch (Exception e) {
+            assertEquals("Invalid parameter 'format'='avro'.", e.getMessage());
+        }
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.derby.impl.sql.execute.operations.joins;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Broadcast joins whose right side grows past the session's broadcastFallbackRowThreshold must fall back to
+ * a merge sort join, and still return the right results, in control as well as in Spark. In control, the
+ * fallback is reported to the client as a warning; in Spark it happens on the OLAP server, whose warnings
+ * aren't sent back.
+ */
+@RunWith(Parameterized.class)
+public class BroadcastJoinFallbackIT {
+    private static final String SCHEMA = BroadcastJoinFallbackIT.class.getSimpleName().toUpperCase();
+    private static final String FALLBACK_WARNING = "01506";
+    private static final String URL = "jdbc:splice://localhost:1527/splicedb;create=true;user=splice;password=admin;" +
+            "useSpark=%s;broadcastFallbackRowThreshold=10";
+
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{{false}, {true}});
+    }
+
+    private final boolean useSpark;
+    private TestConnection conn;
+
+    public BroadcastJoinFallbackIT(boolean useSpark) {
+        this.useSpark = useSpark;
+    }
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        // a: 1..110, b: 500 rows, five for each of a's first 100 rows
+        List<Iterable<Object>> aRows = new ArrayList<>();
+        for (int i = 1; i <= 110; i++)
+            aRows.add(row(i));
+        new TableCreator(classWatcher.getOrCreateConnection())
+                .withCreate(String.format("create table %s.a (i int)", SCHEMA))
+                .withInsert(String.format("insert into %s.a values(?)", SCHEMA))
+                .withRows(rows(aRows))
+                .create();
+
+        List<Iterable<Object>> bRows = new ArrayList<>();
+        for (int j = 1; j <= 500; j++)
+            bRows.add(row(j, j % 100 + 1));
+        new TableCreator(classWatcher.getOrCreateConnection())
+                .withCreate(String.format("create table %s.b (j int, k int)", SCHEMA))
+                .withInsert(String.format("insert into %s.b values(?,?)", SCHEMA))
+                .withRows(rows(bRows))
+                .create();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        conn = new TestConnection(DriverManager.getConnection(String.format(URL, useSpark), new Properties()));
+        conn.setSchema(SCHEMA);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    public void innerJoinFallsBack() throws Exception {
+        try (ResultSet rs = conn.query("select count(*), sum(b.j) from --splice-properties joinOrder=fixed\n" +
+                "a, b --splice-properties joinStrategy=BROADCAST\n" +
+                "where a.i = b.k")) {
+            assertTrue(rs.next());
+            assertEquals(500, rs.getInt(1));
+            assertEquals(125250, rs.getLong(2));
+            assertFalse(rs.next());
+            if (!useSpark)
+                assertTrue("Fallback not reported", hasFallbackWarning(rs));
+        }
+    }
+
+    @Test
+    public void rowsAreCorrectAfterFallingBack() throws Exception {
+        int[][] expected = {{2, 1}, {1, 100}, {2, 101}, {1, 200}, {2, 201}, {1, 300}, {2, 301}, {1, 400}, {2, 401}, {1, 500}};
+        try (ResultSet rs = conn.query("select a.i, b.j from --splice-properties joinOrder=fixed\n" +
+                "a, b --splice-properties joinStrategy=BROADCAST\n" +
+                "where a.i = b.k and a.i <= 2 order by b.j")) {
+            for (int[] row : expected) {
+                assertTrue(rs.next());
+                assertEquals(row[0], rs.getInt(1));
+                assertEquals(row[1], rs.getInt(2));
+            }
+            assertFalse(rs.next());
+            if (!useSpark)
+                assertTrue("Fallback not reported", hasFallbackWarning(rs));
+        }
+    }
+
+    @Test
+    public void outerJoinFallsBack() throws Exception {
+        try (ResultSet rs = conn.query("select count(*), count(b.j) from --splice-properties joinOrder=fixed\n" +
+                "a left outer join b --splice-properties joinStrategy=BROADCAST\n" +
+                "on a.i = b.k")) {
+            assertTrue(rs.next());
+            assertEquals(510, rs.getInt(1));
+            assertEquals(500, rs.getInt(2));
+            assertFalse(rs.next());
+            if (!useSpark)
+                assertTrue("Fallback not reported", hasFallbackWarning(rs));
+        }
+    }
+
+    @Test
+    public void smallRightSideStaysBroadcast() throws Exception {
+        String sql = "select count(*) from --splice-properties joinOrder=fixed\n" +
+                "a, b --splice-properties joinStrategy=BROADCAST\n" +
+                "where a.i = b.k and b.j <= 8";
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = conn.query("explain " + sql)) {
+            while (rs.next())
+                plan.append(rs.getString(1)).append('\n');
+        }
+        assertTrue("Not planned as a broadcast join: " + plan, plan.toString().contains("BroadcastJoin"));
+
+        try (ResultSet rs = conn.query(sql)) {
+            assertTrue(rs.next());
+            assertEquals(8, rs.getInt(1));
+            assertFalse(rs.next());
+            assertFalse("Broadcast join fell back", hasFallbackWarning(rs));
+        }
+    }
+
+    private static boolean hasFallbackWarning(ResultSet rs) throws SQLException {
+        return hasWarning(rs.getWarnings(), FALLBACK_WARNING) || hasWarning(rs.getStatement().getWarnings(), FALLBACK_WARNING);
+    }
+
+    private static boolean hasWarning(SQLWarning warning, String sqlState) {
+        for (SQLWarning w = warning; w != null; w = w.getNextWarning()) {
+            if (sqlState.equals(w.getSQLState()))
+                return true;
+        }
+        return false;
+    }
+}
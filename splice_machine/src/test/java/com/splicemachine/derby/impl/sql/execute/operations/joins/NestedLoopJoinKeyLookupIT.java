@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.joins;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.splicemachine.homeless.TestUtils.FormattedResult.ResultFactory;
+import static com.splicemachine.test_tools.Rows.row;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Nested loop joins whose right side is probed by key, with left sides that have duplicate keys, keys with no
+ * match and probes whose key ranges overlap, so that both the batches read with a single scan and those which
+ * fall back to a scan per left row are exercised. Each join is checked against the same join as a sort merge join.
+ */
+public class NestedLoopJoinKeyLookupIT {
+
+    private static final String CLASS_NAME = NestedLoopJoinKeyLookupIT.class.getSimpleName().toUpperCase();
+
+    private static final SpliceWatcher spliceClassWatcher = new SpliceWatcher(CLASS_NAME);
+
+    @ClassRule
+    public static SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(CLASS_NAME);
+
+    @Rule
+    public SpliceWatcher watcher = new SpliceWatcher(CLASS_NAME);
+
+    @BeforeClass
+    public static void createTables() throws Exception {
+        Connection conn = spliceClassWatcher.getOrCreateConnection();
+
+        // left side: every key appears several times, in no particular order, and some keys have no match
+        List<Iterable<Object>> outerRows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int key = (i * 37) % 60;
+            outerRows.add(row(i, key, key, key + (i % 7)));
+        }
+        new TableCreator(conn)
+                .withCreate("create table outer_t (id int, k int, lo int, hi int)")
+                .withInsert("insert into outer_t values(?,?,?,?)")
+                .withRows(outerRows)
+                .create();
+
+        List<Iterable<Object>> innerRows = new ArrayList<>();
+        for (int k = 0; k < 50; k++) {
+            for (int j = 0; j < 3; j++) {
+                innerRows.add(row(k, j, k * 100 + j));
+            }
+        }
+        new TableCreator(conn)
+                .withCreate("create table inner_t (k int, j int, v int, primary key(k, j))")
+                .withInsert("insert into inner_t values(?,?,?)")
+                .withRows(innerRows)
+                .create();
+
+        new TableCreator(conn)
+                .withCreate("create table inner_idx (k int, v int)")
+                .withIndex("create index inner_idx_k on inner_idx(k)")
+                .withInsert("insert into inner_idx values(?,?)")
+                .withRows(innerRows(50))
+                .create();
+    }
+
+    @Test
+    public void innerJoinWithDuplicateKeys() throws Exception {
+        assertSameAsMergeJoin("select o.id, i.k, i.j, i.v from %s o inner join inner_t i %s on o.k = i.k order by o.id, i.j");
+    }
+
+    @Test
+    public void innerJoinOnIndexWithDuplicateKeys() throws Exception {
+        assertSameAsMergeJoin("select o.id, i.k, i.v from %s o inner join inner_idx i %s on o.k = i.k order by o.id, i.v");
+    }
+
+    @Test
+    public void leftOuterJoinWithDuplicateAndMissingKeys() throws Exception {
+        assertSameAsMergeJoin("select o.id, i.k, i.j, i.v from %s o left outer join inner_t i %s on o.k = i.k order by o.id, i.j");
+    }
+
+    @Test
+    public void antiJoinWithDuplicateAndMissingKeys() throws Exception {
+        assertSameAsMergeJoin("select o.id from %s o where not exists (select 1 from inner_t i %s where o.k = i.k) order by o.id");
+    }
+
+    @Test
+    public void overlappingKeyRanges() throws Exception {
+        String sql = "select o.id, i.k, i.j from --SPLICE-PROPERTIES joinOrder=fixed\n" +
+                "outer_t o, inner_t i --SPLICE-PROPERTIES joinStrategy=NESTEDLOOP\n" +
+                "where i.k between o.lo and o.hi order by o.id, i.k, i.j";
+        int expected = 0;
+        for (int i = 0; i < 300; i++) {
+            int key = (i * 37) % 60;
+            for (int k = key; k <= key + (i % 7); k++) {
+                if (k < 50)
+                    expected += 3;
+            }
+        }
+        try (ResultSet rs = watcher.executeQuery(sql)) {
+            int count = 0;
+            int lastId = -1;
+            int lastK = -1;
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                int k = rs.getInt(2);
+                assertTrue("Row out of its left row's range", k >= (id * 37) % 60 && k <= (id * 37) % 60 + (id % 7));
+                assertTrue("Rows out of order", id > lastId || (id == lastId && k >= lastK));
+                lastId = id;
+                lastK = k;
+                count++;
+            }
+            assertEquals("Incorrect number of rows", expected, count);
+        }
+    }
+
+    private void assertSameAsMergeJoin(String sql) throws Exception {
+        String fixedOrder = "--SPLICE-PROPERTIES joinOrder=fixed\nouter_t";
+        String nestedLoop = String.format(sql, fixedOrder, "--SPLICE-PROPERTIES joinStrategy=NESTEDLOOP\n");
+        String mergeJoin = String.format(sql, fixedOrder, "--SPLICE-PROPERTIES joinStrategy=SORTMERGE\n");
+        String expected;
+        try (ResultSet rs = watcher.executeQuery(mergeJoin)) {
+            expected = ResultFactory.toString(rs);
+        }
+        assertTrue("No rows to compare", !expected.isEmpty());
+        try (ResultSet rs = watcher.executeQuery(nestedLoop)) {
+            assertEquals(nestedLoop, expected, ResultFactory.toString(rs));
+        }
+    }
+
+    private static List<Iterable<Object>> innerRows(int keys) {
+        List<Iterable<Object>> rows = new ArrayList<>();
+        for (int k = 0; k < keys; k++) {
+            for (int j = 0; j < 3; j++) {
+                rows.add(row(k, k * 100 + j));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.si.api.filter.RowAccumulator;
+import com.splicemachine.si.api.filter.SIFilter;
+import com.splicemachine.si.api.server.TransactionalRegion;
+import com.splicemachine.si.impl.filter.HRowAccumulator;
+import com.splicemachine.storage.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests qualifiers evaluated by the {@link SITableScanner} itself, between decoding the columns they reference
+ * and decoding the others.
+ *
+ * The table is (c0 int primary key, c1 int, c2 varchar, c3 double), holding (i, 10*i, 'v'+i, 1.5*i) for i in
+ * 1..10, except that c2 is null for i=4.
+ */
+public class SITableScannerQualifierTest {
+    private static final int ROWS = 10;
+    private static final int NULL_C2 = 4;
+    private static final int[] BASE_COLUMN_MAP = new int[]{0, 1, 2, 3};
+
+    @Test
+    public void testNoQualifiers() throws Exception {
+        assertScan(null, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void testQualifierOnNonKeyColumn() throws Exception {
+        // c1 > 50, c2 and c3 are deferred
+        SITableScanner scanner = assertScan(and(qualifier(1, new SQLInteger(50), Orderable.ORDER_OP_GREATERTHAN)),
+                6, 7, 8, 9, 10);
+        Assert.assertEquals(5, scanner.getRowsFiltered());
+    }
+
+    @Test
+    public void testQualifierOnKeyColumn() throws Exception {
+        // c0 < 4, every non-key column is deferred
+        assertScan(and(qualifier(0, new SQLInteger(4), Orderable.ORDER_OP_LESSTHAN)), 1, 2, 3);
+    }
+
+    @Test
+    public void testQualifiersOnKeyAndNonKeyColumns() throws Exception {
+        // c0 > 2 and c3 < 9.0, c1 and c2 are deferred
+        assertScan(and(qualifier(0, new SQLInteger(2), Orderable.ORDER_OP_GREATERTHAN),
+                qualifier(3, new SQLDouble(9.0d), Orderable.ORDER_OP_LESSTHAN)),
+                3, 4, 5);
+    }
+
+    @Test
+    public void testQualifierOnTheOnlyDeferrableColumns() throws Exception {
+        // c1 > 20 and c2 = 'v3' and c3 < 100, nothing is deferred
+        assertScan(and(qualifier(1, new SQLInteger(20), Orderable.ORDER_OP_GREATERTHAN),
+                qualifier(2, new SQLVarchar("v3"), Orderable.ORDER_OP_EQUALS),
+                qualifier(3, new SQLDouble(100.0d), Orderable.ORDER_OP_LESSTHAN)),
+                3);
+    }
+
+    @Test
+    public void testOrQualifiers() throws Exception {
+        // c1 > 0 and (c0 = 2 or c2 = 'v7'), c3 is deferred
+        Qualifier[][] qualifiers = new Qualifier[][]{
+                {qualifier(1, new SQLInteger(0), Orderable.ORDER_OP_GREATERTHAN)},
+                {qualifier(0, new SQLInteger(2), Orderable.ORDER_OP_EQUALS),
+                        qualifier(2, new SQLVarchar("v7"), Orderable.ORDER_OP_EQUALS)}
+        };
+        assertScan(qualifiers, 2, 7);
+    }
+
+    @Test
+    public void testRowsAroundANullDeferredColumn() throws Exception {
+        // c1 >= 30 and c1 <= 50, the null c2 of the middle row must not take the value of its neighbors
+        assertScan(and(qualifier(1, new SQLInteger(30), Orderable.ORDER_OP_LESSTHAN, true),
+                qualifier(1, new SQLInteger(50), Orderable.ORDER_OP_GREATERTHAN, true)),
+                3, NULL_C2, 5);
+    }
+
+    @Test
+    public void testNoRowPasses() throws Exception {
+        SITableScanner scanner = assertScan(and(qualifier(2, new SQLVarchar("nope"), Orderable.ORDER_OP_EQUALS)));
+        Assert.assertEquals(ROWS, scanner.getRowsFiltered());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static Qualifier[][] and(Qualifier... qualifiers) {
+        return new Qualifier[][]{qualifiers};
+    }
+
+    private static Qualifier qualifier(int column, DataValueDescriptor value, int operator) {
+        return qualifier(column, value, operator, false);
+    }
+
+    private static Qualifier qualifier(int column, DataValueDescriptor value, int operator, boolean negate) {
+        GenericScanQualifier qualifier = new GenericScanQualifier();
+        qualifier.setQualifier(column, column, value, operator, negate, false, false);
+        return qualifier;
+    }
+
+    /**
+     * Scans the table with {@code qualifiers} and checks that exactly the rows {@code expected} come back,
+     * fully decoded.
+     */
+    private static SITableScanner assertScan(Qualifier[][] qualifiers, int... expected) throws Exception {
+        SITableScanner scanner = scanner();
+        if (qualifiers != null)
+            scanner.setQualifiers(qualifiers, BASE_COLUMN_MAP);
+        try {
+            for (int i : expected) {
+                ExecRow row = scanner.next();
+                Assert.assertNotNull("Missing row " + i, row);
+                Assert.assertEquals(i, row.getColumn(1).getInt());
+                Assert.assertEquals(10 * i, row.getColumn(2).getInt());
+                if (i == NULL_C2)
+                    Assert.assertTrue(row.getColumn(3).isNull());
+                else
+                    Assert.assertEquals("v" + i, row.getColumn(3).getString());
+                Assert.assertEquals(1.5d * i, row.getColumn(4).getDouble(), 0.0d);
+            }
+            Assert.assertNull("Unexpected row", scanner.next());
+        } finally {
+            scanner.close();
+        }
+        return scanner;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SITableScanner scanner() throws Exception {
+        final Iterator<List<DataCell>> rows = encodeRows().iterator();
+        DataScanner dataScanner = mock(DataScanner.class);
+        when(dataScanner.next(anyInt())).thenAnswer(invocation ->
+                rows.hasNext() ? rows.next() : Collections.<DataCell>emptyList());
+        TransactionalRegion region = mock(TransactionalRegion.class);
+        when(region.getRegionName()).thenReturn("region");
+
+        ExecRow template = new ValueRow(4);
+        template.setRowArray(new DataValueDescriptor[]{new SQLInteger(), new SQLInteger(), new SQLVarchar(), new SQLDouble()});
+        FormatableBitSet accessedKeys = new FormatableBitSet(1);
+        accessedKeys.set(0);
+        TableScannerBuilder builder = new TableScannerBuilder() {
+            @Override
+            public DataSet buildDataSet() throws StandardException {
+                throw new UnsupportedOperationException("improper access path for test");
+            }
+        };
+        builder.scan(mock(DataScan.class));
+        builder.scanner(dataScanner);
+        builder.region(region);
+        builder.template(template);
+        builder.tableVersion("2.0");
+        builder.rowDecodingMap(new int[]{-1, 1, 2, 3});
+        builder.keyColumnEncodingOrder(new int[]{0});
+        builder.keyColumnTypes(new int[]{new SQLInteger().getTypeFormatId()});
+        builder.keyDecodingMap(new int[]{0});
+        builder.accessedKeyColumns(accessedKeys);
+        builder.filterFactory(new SIFilterFactory() {
+            @Override
+            public SIFilter newFilter(EntryPredicateFilter predicateFilter,
+                                      EntryDecoder rowEntryDecoder,
+                                      EntryAccumulator accumulator,
+                                      boolean isCountStar) throws IOException {
+                return new AcceptAllFilter(new HRowAccumulator(predicateFilter, rowEntryDecoder, accumulator, isCountStar));
+            }
+        });
+        return builder.build();
+    }
+
+    private static List<List<DataCell>> encodeRows() throws Exception {
+        List<List<DataCell>> rows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            ExecRow row = new ValueRow(4);
+            row.setRowArray(new DataValueDescriptor[]{
+                    new SQLInteger(i),
+                    new SQLInteger(10 * i),
+                    new SQLVarchar(i == NULL_C2 ? null : "v" + i),
+                    new SQLDouble(1.5d * i)});
+            DescriptorSerializer[] serializers = VersionedSerializers.latestVersion(true).getSerializers(row);
+            byte[] key = new KeyEncoder(NoOpPrefix.INSTANCE, BareKeyHash.encoder(new int[]{0}, null, serializers),
+                    NoOpPostfix.INSTANCE).getKey(row);
+            EntryDataHash hash = new EntryDataHash(new int[]{-1, 1, 2, 3}, null, serializers);
+            hash.setRow(row);
+            byte[] value = hash.encode();
+
+            DataCell cell = mock(DataCell.class);
+            when(cell.dataType()).thenReturn(CellType.USER_DATA);
+            when(cell.keyArray()).thenReturn(key);
+            when(cell.keyOffset()).thenReturn(0);
+            when(cell.keyLength()).thenReturn(key.length);
+            when(cell.valueArray()).thenReturn(value);
+            when(cell.valueOffset()).thenReturn(0);
+            when(cell.valueLength()).thenReturn(value.length);
+            when(cell.encodedLength()).thenReturn(key.length + value.length);
+            rows.add(Collections.singletonList(cell));
+        }
+        return rows;
+    }
+
+    /**
+     * Accumulates every row, as if every row was visible to the transaction.
+     */
+    private static class AcceptAllFilter implements SIFilter {
+        private final RowAccumulator accumulator;
+
+        private AcceptAllFilter(RowAccumulator accumulator) {
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        public void nextRow() {
+        }
+
+        @Override
+        public RowAccumulator getAccumulator() {
+            return accumulator;
+        }
+
+        @Override
+        public DataFilter.ReturnCode filterCell(DataCell kv) throws IOException {
+            if (kv.dataType() != CellType.USER_DATA)
+                return DataFilter.ReturnCode.SKIP;
+            if (!accumulator.isFinished() && accumulator.isInteresting(kv) && !accumulator.accumulateCell(kv))
+                return DataFilter.ReturnCode.NEXT_ROW;
+            return DataFilter.ReturnCode.INCLUDE;
+        }
+    }
+}
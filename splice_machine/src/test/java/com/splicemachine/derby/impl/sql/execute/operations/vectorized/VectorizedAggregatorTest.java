@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.vectorized;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLReal;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.AvgAggregator;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class VectorizedAggregatorTest {
+
+    private static final int LONG_INPUT = 1;
+    private static final int DOUBLE_INPUT = 2;
+
+    @Test
+    public void matchesRowByRowAggregation() throws StandardException {
+
+        // given
+        SpliceGenericAggregator[] aggregates = allAggregates();
+        VectorizedAggregator vectorized = VectorizedAggregator.create(aggregates, row(aggregates, 0L, 0d), 64);
+        ExecRow expected = row(aggregates, null, null);
+        for (SpliceGenericAggregator aggregate : aggregates)
+            aggregate.initialize(expected);
+
+        // when
+        Random random = new Random(0);
+        for (int i = 0; i < 5000; i++) {
+            ExecRow next = row(aggregates,
+                    random.nextInt(10) == 0 ? null : (long) random.nextInt(),
+                    random.nextInt(7) == 0 ? null : random.nextGaussian());
+            vectorized.add(next);
+            for (SpliceGenericAggregator aggregate : aggregates)
+                aggregate.accumulate(next, expected);
+        }
+        ExecRow actual = row(aggregates, null, null);
+        vectorized.finish(actual);
+
+        // then
+        assertSameResults(aggregates, expected, actual);
+    }
+
+    @Test
+    public void aggregatesGroupsIndependently() throws StandardException {
+
+        // given
+        SpliceGenericAggregator[] aggregates = allAggregates();
+        VectorizedAggregator vectorized = VectorizedAggregator.create(aggregates, row(aggregates, 0L, 0d), 16);
+        ExecRow[] expected = new ExecRow[3];
+        for (int g = 0; g < expected.length; g++) {
+            expected[g] = row(aggregates, null, null);
+            for (SpliceGenericAggregator aggregate : aggregates)
+                aggregate.initialize(expected[g]);
+        }
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            int group = i % 3;
+            // group 2 only ever sees nulls
+            ExecRow next = group == 2 ? row(aggregates, null, null) : row(aggregates, (long) (i * (group + 1)), i / 3d);
+            vectorized.add(next, group);
+            for (SpliceGenericAggregator aggregate : aggregates)
+                aggregate.accumulate(next, expected[group]);
+        }
+
+        // then
+        for (int g = 0; g < expected.length; g++) {
+            ExecRow actual = row(aggregates, null, null);
+            vectorized.finish(g, actual);
+            assertSameResults(aggregates, expected[g], actual);
+        }
+    }
+
+    @Test
+    public void overflowingSumIsStillRejected() throws StandardException {
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[]{
+                aggregate(SumAggregator.getBufferedAggregator(DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)), LONG_INPUT, 3)};
+        VectorizedAggregator vectorized = VectorizedAggregator.create(aggregates, row(aggregates, 0L, 0d), 64);
+        vectorized.add(row(aggregates, Long.MAX_VALUE, null));
+        vectorized.add(row(aggregates, 1L, null));
+        ExecRow actual = row(aggregates, null, null);
+        vectorized.finish(actual);
+        try {
+            ((ExecAggregator) actual.getColumn(3).getObject()).getResult();
+            fail("Overflow not detected");
+        } catch (StandardException e) {
+            assertEquals(SQLState.LANG_OUTSIDE_RANGE_FOR_DATATYPE, e.getMessageId());
+        }
+    }
+
+    @Test
+    public void realSumsAreLeftToTheRows() throws StandardException {
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[]{
+                aggregate(SumAggregator.getBufferedAggregator(DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.REAL)), DOUBLE_INPUT, 3)};
+        ExecRow first = row(aggregates, 0L, null);
+        first.setColumn(DOUBLE_INPUT, new SQLReal(1f));
+        assertNull(VectorizedAggregator.create(aggregates, first, 64));
+    }
+
+    private static SpliceGenericAggregator[] allAggregates() {
+        DataTypeDescriptor bigint = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT);
+        DataTypeDescriptor doubleType = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.DOUBLE);
+        ExecAggregator[] instances = new ExecAggregator[]{
+                new CountAggregator().setup(null, "COUNT(*)", bigint),
+                new CountAggregator().setup(null, "COUNT", bigint),
+                SumAggregator.getBufferedAggregator(bigint),
+                new AvgAggregator().setup(null, "AVG", bigint),
+                new MaxMinAggregator().setup(null, "MIN", bigint),
+                new MaxMinAggregator().setup(null, "MAX", bigint),
+                new CountAggregator().setup(null, "COUNT", doubleType),
+                SumAggregator.getBufferedAggregator(doubleType),
+                new AvgAggregator().setup(null, "AVG", doubleType),
+                new MaxMinAggregator().setup(null, "MIN", doubleType),
+                new MaxMinAggregator().setup(null, "MAX", doubleType)
+        };
+        SpliceGenericAggregator[] aggregates = new SpliceGenericAggregator[instances.length];
+        for (int i = 0; i < instances.length; i++)
+            aggregates[i] = aggregate(instances[i], i < 6 ? LONG_INPUT : DOUBLE_INPUT, 3 + i);
+        return aggregates;
+    }
+
+    private static SpliceGenericAggregator aggregate(ExecAggregator instance, int inputColumn, int aggregatorColumn) {
+        return new SpliceGenericAggregator(instance, aggregatorColumn, inputColumn, aggregatorColumn);
+    }
+
+    private static ExecRow row(SpliceGenericAggregator[] aggregates, Long longValue, Double doubleValue) throws StandardException {
+        ExecRow row = new ValueRow(2 + aggregates.length);
+        row.setColumn(LONG_INPUT, longValue == null ? new SQLLongint() : new SQLLongint(longValue));
+        row.setColumn(DOUBLE_INPUT, doubleValue == null ? new SQLDouble() : new SQLDouble(doubleValue));
+        for (int i = 0; i < aggregates.length; i++)
+            row.setColumn(3 + i, new UserType());
+        return row;
+    }
+
+    private static void assertSameResults(SpliceGenericAggregator[] aggregates, ExecRow expected, ExecRow actual) throws StandardException {
+        for (SpliceGenericAggregator aggregate : aggregates) {
+            int column = aggregate.getAggregatorColumnId();
+            ExecAggregator expectedAggregator = (ExecAggregator) expected.getColumn(column).getObject();
+            ExecAggregator actualAggregator = (ExecAggregator) actual.getColumn(column).getObject();
+            DataValueDescriptor expectedResult = expectedAggregator.getResult();
+            DataValueDescriptor actualResult = actualAggregator.getResult();
+            String message = "aggregate " + column + ": " + expectedAggregator;
+            if (expectedResult == null || expectedResult.isNull()) {
+                assertEquals(message, true, actualResult == null || actualResult.isNull());
+            } else if (expectedResult instanceof SQLDouble) {
+                assertEquals(message, expectedResult.getDouble(), actualResult.getDouble(), 1e-9 * Math.max(1d, Math.abs(expectedResult.getDouble())));
+            } else {
+                assertEquals(message, expectedResult.getString(), actualResult.getString());
+            }
+            assertEquals(message, expectedAggregator.didEliminateNulls(), actualAggregator.didEliminateNulls());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.store;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the deferred decoding of {@link ExecRowAccumulator}.
+ */
+public class ExecRowAccumulatorTest {
+    private static final int[] COLUMNS = new int[]{0, 1, 2};
+
+    @Test
+    public void testDeferredFieldsAreDecodedOnMaterialize() throws Exception {
+        ExecRow template = template();
+        ExecRowAccumulator accumulator = accumulator(template);
+        accumulator.deferDecoding(bits(1, 2));
+
+        accumulate(accumulator, row(7, "seven", 7.5d));
+        Assert.assertEquals(7, template.getColumn(1).getInt());
+        Assert.assertTrue("Deferred field was decoded", template.getColumn(2).isNull());
+        Assert.assertTrue("Deferred field was decoded", template.getColumn(3).isNull());
+
+        accumulator.materialize();
+        Assert.assertEquals("seven", template.getColumn(2).getString());
+        Assert.assertEquals(7.5d, template.getColumn(3).getDouble(), 0.0d);
+    }
+
+    @Test
+    public void testDiscardedFieldsAreNeverDecoded() throws Exception {
+        ExecRow template = template();
+        ExecRowAccumulator accumulator = accumulator(template);
+        accumulator.deferDecoding(bits(2));
+
+        accumulate(accumulator, row(1, "one", 1.5d));
+        Assert.assertEquals("one", template.getColumn(2).getString());
+        Assert.assertTrue(template.getColumn(3).isNull());
+        accumulator.discardDeferred();
+        accumulator.materialize();
+        Assert.assertTrue("Discarded field was decoded", template.getColumn(3).isNull());
+
+        // the next row doesn't see the discarded field either
+        template.resetRowArray();
+        accumulator.reset();
+        accumulate(accumulator, row(2, "two", 2.5d));
+        accumulator.materialize();
+        Assert.assertEquals(2, template.getColumn(1).getInt());
+        Assert.assertEquals("two", template.getColumn(2).getString());
+        Assert.assertEquals(2.5d, template.getColumn(3).getDouble(), 0.0d);
+    }
+
+    @Test
+    public void testMissingDeferredFieldStaysNull() throws Exception {
+        ExecRow template = template();
+        ExecRowAccumulator accumulator = accumulator(template);
+        accumulator.deferDecoding(bits(1, 2));
+
+        accumulate(accumulator, row(3, null, 3.5d));
+        accumulator.materialize();
+        Assert.assertEquals(3, template.getColumn(1).getInt());
+        Assert.assertTrue(template.getColumn(2).isNull());
+        Assert.assertEquals(3.5d, template.getColumn(3).getDouble(), 0.0d);
+    }
+
+    @Test
+    public void testNoDeferralDecodesEagerly() throws Exception {
+        ExecRow template = template();
+        ExecRowAccumulator accumulator = accumulator(template);
+        accumulator.deferDecoding(bits(1));
+        accumulator.deferDecoding(new BitSet());
+
+        accumulate(accumulator, row(4, "four", 4.5d));
+        Assert.assertEquals(4, template.getColumn(1).getInt());
+        Assert.assertEquals("four", template.getColumn(2).getString());
+        Assert.assertEquals(4.5d, template.getColumn(3).getDouble(), 0.0d);
+        accumulator.materialize();
+        Assert.assertEquals("four", template.getColumn(2).getString());
+    }
+
+    private static ExecRow template() {
+        ValueRow template = new ValueRow(3);
+        template.setRowArray(new DataValueDescriptor[]{new SQLInteger(), new SQLVarchar(), new SQLDouble()});
+        return template;
+    }
+
+    private static ExecRowAccumulator accumulator(ExecRow template) {
+        return ExecRowAccumulator.newAccumulator(EntryPredicateFilter.emptyPredicate(), false, template, COLUMNS, "2.0");
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet bits = new BitSet(COLUMNS.length);
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+
+    private static byte[] row(int i, String s, double d) throws Exception {
+        ValueRow row = new ValueRow(3);
+        row.setRowArray(new DataValueDescriptor[]{new SQLInteger(i), new SQLVarchar(s), new SQLDouble(d)});
+        EntryDataHash hash = new EntryDataHash(COLUMNS, null, VersionedSerializers.latestVersion(true).getSerializers(row));
+        hash.setRow(row);
+        return hash.encode();
+    }
+
+    private static void accumulate(ExecRowAccumulator accumulator, byte[] value) throws Exception {
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(value);
+        Assert.assertTrue(EntryPredicateFilter.emptyPredicate().match(decoder, accumulator));
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.SqlEnvironment;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.MergeJoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.SortOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.TableScanOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelTableScannerIteratorTest {
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        SqlEnvironment ese = Mockito.mock(SqlEnvironment.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(ese.getConfiguration().getThreadPoolMaxSize()).thenReturn(30);
+        EngineDriver.loadDriver(ese);
+    }
+
+    @Test
+    public void testRowsComeBackInKeyOrder() throws Exception {
+        // the first regions are the slowest, so the later ones are done long before the consumer gets to them
+        List<SITableScanner> scanners = new ArrayList<>();
+        for (int region = 0; region < 8; region++) {
+            scanners.add(scanner(region * 1000, 200, region < 4 ? 1 : 0, -1, new AtomicInteger()));
+        }
+        ParallelTableScannerIterator iterator = new ParallelTableScannerIterator(scanners, null, null, 4, 16);
+        try {
+            int expectedRegion = 0;
+            int expectedRow = 0;
+            for (ExecRow row : iterator) {
+                Assert.assertEquals("Row out of key order", expectedRegion * 1000 + expectedRow, row.getColumn(1).getInt());
+                if (++expectedRow == 200) {
+                    expectedRow = 0;
+                    expectedRegion++;
+                }
+            }
+            Assert.assertEquals("Missing rows", 8, expectedRegion);
+        } finally {
+            iterator.close();
+        }
+        for (SITableScanner scanner : scanners) {
+            Mockito.verify(scanner, Mockito.timeout(5000)).close();
+        }
+    }
+
+    @Test
+    public void testSingleThreadKeepsKeyOrder() throws Exception {
+        List<SITableScanner> scanners = new ArrayList<>();
+        for (int region = 0; region < 5; region++) {
+            scanners.add(scanner(region * 1000, 50, 0, -1, new AtomicInteger()));
+        }
+        ParallelTableScannerIterator iterator = new ParallelTableScannerIterator(scanners, null, null, 1, 4);
+        int expected = 0;
+        try {
+            for (ExecRow row : iterator) {
+                Assert.assertEquals("Row out of key order", (expected / 50) * 1000 + expected % 50, row.getColumn(1).getInt());
+                expected++;
+            }
+        } finally {
+            iterator.close();
+        }
+        Assert.assertEquals("Missing rows", 250, expected);
+    }
+
+    @Test
+    public void testEarlyCloseStopsTheWorkers() throws Exception {
+        AtomicInteger rowsRead = new AtomicInteger();
+        List<SITableScanner> scanners = new ArrayList<>();
+        for (int region = 0; region < 6; region++) {
+            scanners.add(scanner(region * 100000, 100000, 0, -1, rowsRead));
+        }
+        ParallelTableScannerIterator iterator = new ParallelTableScannerIterator(scanners, null, null, 3, 8);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(i, iterator.next().getColumn(1).getInt());
+        }
+        iterator.close();
+
+        // every scanner is closed, whether a worker claimed it or not
+        for (SITableScanner scanner : scanners) {
+            Mockito.verify(scanner, Mockito.timeout(5000)).close();
+        }
+        int read = rowsRead.get();
+        Thread.sleep(100);
+        Assert.assertEquals("Regions are still being read after close", read, rowsRead.get());
+        Assert.assertTrue("Regions were read to the end", read < 6 * 100000);
+    }
+
+    @Test
+    public void testWorkerFailureReachesTheConsumer() throws Exception {
+        List<SITableScanner> scanners = new ArrayList<>();
+        for (int region = 0; region < 4; region++) {
+            scanners.add(scanner(region * 1000, 100, 0, region == 2 ? 30 : -1, new AtomicInteger()));
+        }
+        ParallelTableScannerIterator iterator = new ParallelTableScannerIterator(scanners, null, null, 4, 8);
+        int rows = 0;
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+                rows++;
+            }
+            Assert.fail("The failure of region 2 was swallowed");
+        } catch (RuntimeException re) {
+            Assert.assertNotNull("Unexpected failure " + re, cause(re, "region failed"));
+        } finally {
+            iterator.close();
+        }
+        Assert.assertTrue("Read rows past the failed region", rows <= 230);
+        for (SITableScanner scanner : scanners) {
+            Mockito.verify(scanner, Mockito.timeout(5000)).close();
+        }
+    }
+
+    @Test
+    public void testOpenFailureReachesTheConsumer() throws Exception {
+        SITableScanner failing = scanner(0, 10, 0, -1, new AtomicInteger());
+        Mockito.doThrow(new IOException("cannot open region")).when(failing).open();
+        List<SITableScanner> scanners = Arrays.asList(scanner(0, 10, 0, -1, new AtomicInteger()), failing);
+        ParallelTableScannerIterator iterator = new ParallelTableScannerIterator(scanners, null, null, 2, 8);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            Assert.fail("The failure to open a region was swallowed");
+        } catch (RuntimeException re) {
+            Assert.assertNotNull("Unexpected failure " + re, cause(re, "cannot open region"));
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test
+    public void testKeyOrderIsRequiredUnlessSorted() throws Exception {
+        TableScanOperation scan = Mockito.mock(TableScanOperation.class);
+        Assert.assertTrue("No plan to look at", ParallelTableScannerIterator.requiresKeyOrder(null));
+        Assert.assertTrue("No plan to look at", ParallelTableScannerIterator.requiresKeyOrder(scan));
+
+        SortOperation sort = Mockito.mock(SortOperation.class);
+        Mockito.when(sort.getSubOperations()).thenReturn(Collections.<SpliceOperation>singletonList(scan));
+        plan(scan, sort);
+        Assert.assertFalse("A sort doesn't need ordered input", ParallelTableScannerIterator.requiresKeyOrder(scan));
+
+        MergeJoinOperation mergeJoin = Mockito.mock(MergeJoinOperation.class);
+        Mockito.when(sort.getSubOperations()).thenReturn(Collections.<SpliceOperation>singletonList(mergeJoin));
+        Mockito.when(mergeJoin.getSubOperations()).thenReturn(Collections.<SpliceOperation>singletonList(scan));
+        Assert.assertTrue("A merge join below the sort needs ordered input", ParallelTableScannerIterator.requiresKeyOrder(scan));
+
+        plan(scan, Mockito.mock(SortOperation.class));
+        Assert.assertTrue("The scan is not part of the plan", ParallelTableScannerIterator.requiresKeyOrder(scan));
+    }
+
+    private static Throwable cause(Throwable t, String message) {
+        while (t != null && !message.equals(t.getMessage()))
+            t = t.getCause();
+        return t;
+    }
+
+    private static void plan(SpliceOperation scan, SpliceOperation top) {
+        Activation activation = Mockito.mock(Activation.class);
+        Mockito.when(activation.getResultSet()).thenReturn(top);
+        Mockito.when(scan.getActivation()).thenReturn(activation);
+    }
+
+    /**
+     * A region scanner returning {@code numRows} consecutive integers starting at {@code start}
+     *
+     * @param delay milliseconds to wait before each row
+     * @param failAfter number of rows after which the scanner fails, or -1
+     * @param rowsRead incremented for each row read
+     */
+    private static SITableScanner scanner(final int start, final int numRows, final long delay, final int failAfter,
+                                          final AtomicInteger rowsRead) throws Exception {
+        SITableScanner scanner = Mockito.mock(SITableScanner.class);
+        final AtomicInteger position = new AtomicInteger();
+        Mockito.when(scanner.next()).thenAnswer(new Answer<ExecRow>() {
+            @Override
+            public ExecRow answer(InvocationOnMock invocation) throws Throwable {
+                int i = position.getAndIncrement();
+                if (i == failAfter)
+                    throw new IOException("region failed");
+                if (i >= numRows)
+                    return null;
+                if (delay > 0)
+                    Thread.sleep(delay);
+                rowsRead.incrementAndGet();
+                ValueRow row = new ValueRow(1);
+                row.setColumn(1, new SQLInteger(start + i));
+                return row;
+            }
+        });
+        return scanner;
+    }
+}
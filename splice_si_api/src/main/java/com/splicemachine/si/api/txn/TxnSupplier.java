@@ -42,6 +42,19 @@ public interface TxnSupplier {
 		 */
 		TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException;
 
+		/**
+		 * Get the transaction associated with {@code txnId}, on behalf of a reader which must decide
+		 * whether it can see that transaction's writes.
+		 *
+		 * When timestamps come from hybrid logical clocks, the reader's begin timestamp is handed to
+		 * the transaction table, so that a transaction the reader sees as active can only commit
+		 * after the reader began. Otherwise this is equivalent to {@link #getTransaction(long)}.
+		 *
+		 * @param txnId the transaction id to fetch.
+		 * @param readerBeginTimestamp the begin timestamp of the reader
+		 */
+		TxnView getTransactionForReader(long txnId,long readerBeginTimestamp) throws IOException;
+
 		/**
 		 * Determines whether this Store has the transaction in its local cache
 		 * or not.
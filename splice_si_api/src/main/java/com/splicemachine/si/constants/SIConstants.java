@@ -91,6 +91,7 @@ public class SIConstants {
     public static final String CHECK_BLOOM_ATTRIBUTE_NAME = "cb";
 
     public static final String ENTRY_PREDICATE_LABEL= "p";
+    public static final String ZONE_PREDICATE_LABEL= "zp";
 
     public static final int DEFAULT_CACHE_SIZE=1<<10;
 
@@ -22,6 +22,7 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.txn.ReadOnlyTxn;
 import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.timestamp.api.TimestampSource;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 
@@ -41,6 +42,7 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
     @ThreadSafe private TxnStore store;
     @ThreadSafe private KeepAliveScheduler keepAliveScheduler;
     @ThreadSafe private final ExceptionFactory exceptionFactory;
+    @ThreadSafe private SnapshotTimestampLease snapshotLease; //null unless read-only snapshots may be reused
 
     private volatile boolean restoreMode=false;
 
@@ -58,6 +60,10 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         this.keepAliveScheduler = kas;
     }
 
+    public void setSnapshotLease(SnapshotTimestampLease snapshotLease){
+        this.snapshotLease = snapshotLease;
+    }
+
     @Override
     public Txn beginTransaction() throws IOException{
         return beginTransaction(Txn.ROOT_TRANSACTION.getIsolationLevel());
@@ -118,10 +124,11 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
                 Txn parent = (Txn) parentTxn;
                 long subId = parent.newSubId();
                 if (subId <= SIConstants.SUBTRANSANCTION_ID_MASK)
-                    return createWritableTransaction(parent.getBeginTimestamp(), subId, parent, isolationLevel, additive, parentTxn, destinationTable);
+                    return createWritableTransaction(parent.getTxnId() & SIConstants.TRANSANCTION_ID_MASK, parent.getBeginTimestamp(),
+                            subId, parent, isolationLevel, additive, parentTxn, destinationTable);
             }
             long timestamp = timestampSource.nextTimestamp();
-            return createWritableTransaction(timestamp, 0, null, isolationLevel, additive, parentTxn, destinationTable);
+            return createWritableTransaction(timestamp, timestamp, 0, null, isolationLevel, additive, parentTxn, destinationTable);
         }else
             return createReadableTransaction(isolationLevel,additive,parentTxn);
     }
@@ -155,7 +162,7 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         long oldTs=txnToCommit.getCommitTimestamp();
 
         if(destinationTable!=null)
-            return createWritableTransaction(oldTs, 0, null, isolationLevel,additive,parentTxn,destinationTable);
+            return createWritableTransaction(oldTs, oldTs, 0, null, isolationLevel,additive,parentTxn,destinationTable);
         else{
             if(parentTxn.equals(Txn.ROOT_TRANSACTION)){
                 return ReadOnlyTxn.createReadOnlyParentTransaction(oldTs,oldTs,isolationLevel,this,exceptionFactory,additive);
@@ -175,7 +182,16 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         if(!txn.allowsWrites()){
             //we've elevated from a read-only to a writable, so make sure that we add
             //it to the keep alive
-            Txn writableTxn=new WritableTxn(txn,this,destinationTable,exceptionFactory);
+            Txn writableTxn;
+            if(txn instanceof LeasedReadOnlyTxn){
+                /*
+                 * Other read-only transactions may share our id, so we need one of our own before anything
+                 * is written under it. We keep the begin timestamp, since we may already have read with it.
+                 */
+                writableTxn=new WritableTxn(timestampSource.nextTimestamp(),txn.getBeginTimestamp(),txn,txn.getIsolationLevel(),
+                        txn.getParentTxnView(),this,txn.isAdditive(),destinationTable,exceptionFactory);
+            }else
+                writableTxn=new WritableTxn(txn,this,destinationTable,exceptionFactory);
             store.recordNewTransaction(writableTxn);
             keepAliveScheduler.scheduleKeepAlive(writableTxn);
             txn=writableTxn;
@@ -189,7 +205,11 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         if(restoreMode){
             return -1; // we are in restore mode, don't try to access the store
         }
-        return store.commit(txnId);
+        long commitTs=store.commit(txnId);
+        SnapshotTimestampLease lease=snapshotLease;
+        if(lease!=null)
+            lease.committed(commitTs);
+        return commitTs;
         //TODO -sf- add the transaction to the global cache?
     }
 
@@ -212,7 +232,8 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
 
     /**********************************************************************************************************/
         /*private helper method*/
-    private Txn createWritableTransaction(long timestamp,
+    private Txn createWritableTransaction(long txnId,
+                                          long timestamp,
                                           long subId,
                                           Txn parentReference,
                                           Txn.IsolationLevel isolationLevel,
@@ -225,7 +246,7 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
 		 * This uses 2 network calls--once to get a beginTimestamp, and then once to record the
 		 * transaction to the table.
 		 */
-        WritableTxn newTxn=new WritableTxn(timestamp ^ subId, timestamp, parentReference,
+        WritableTxn newTxn=new WritableTxn(txnId ^ subId, timestamp, parentReference,
                 isolationLevel,parentTxn,this,additive,destinationTable,exceptionFactory);
         if (subId == 0) {
             //record the transaction on the transaction table--network call
@@ -255,6 +276,11 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
 		 *
 		 */
         if(parentTxn.equals(Txn.ROOT_TRANSACTION)){
+            SnapshotTimestampLease lease=snapshotLease;
+            if(lease!=null){
+                long beginTimestamp=lease.beginTimestamp();
+                return new LeasedReadOnlyTxn(beginTimestamp,isolationLevel,this,exceptionFactory,additive);
+            }
             long beginTimestamp=timestampSource.nextTimestamp();
             return ReadOnlyTxn.createReadOnlyParentTransaction(beginTimestamp,beginTimestamp,isolationLevel,this,exceptionFactory,additive);
         }else{
@@ -262,4 +288,18 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         }
     }
 
+    /**
+     * A top-level read-only transaction begun from the {@link SnapshotTimestampLease}, whose id may be shared
+     * with other transactions.
+     */
+    @SuppressFBWarnings("SE_NO_SUITABLE_CONSTRUCTOR_FOR_EXTERNALIZATION")
+    private static class LeasedReadOnlyTxn extends ReadOnlyTxn{
+        LeasedReadOnlyTxn(long beginTimestamp,
+                          Txn.IsolationLevel isolationLevel,
+                          TxnLifecycleManager tc,
+                          ExceptionFactory exceptionFactory,
+                          boolean additive){
+            super(beginTimestamp,beginTimestamp,isolationLevel,ROOT_TRANSACTION,tc,exceptionFactory,additive);
+        }
+    }
 }
@@ -211,7 +211,7 @@ public class SimpleTxnFilter implements TxnFilter{
     private TxnView fetchTransaction(long txnId) throws IOException{
         TxnView toCompare=currentTxn;
         if(currentTxn==null || currentTxn.getTxnId()!=txnId){
-            toCompare=transactionStore.getTransaction(txnId);
+            toCompare=transactionStore.getTransactionForReader(txnId,myTxn.getBeginTimestamp());
             currentTxn=toCompare;
         }
         return toCompare;
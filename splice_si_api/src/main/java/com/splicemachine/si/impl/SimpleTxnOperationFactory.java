@@ -23,6 +23,7 @@ import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.txn.ActiveWriteTxn;
 import com.splicemachine.si.impl.txn.ReadOnlyTxn;
 import com.splicemachine.storage.*;
@@ -41,11 +42,23 @@ import static com.splicemachine.si.constants.SIConstants.*;
 public class SimpleTxnOperationFactory implements TxnOperationFactory{
     private final ExceptionFactory exceptionLib;
     private final OperationFactory operationFactory;
+    private final HLCTimestampSource hlc; //null unless the hybrid logical clock is on
 
     public SimpleTxnOperationFactory(ExceptionFactory exceptionFactory,
                                      OperationFactory baseFactory){
+        this(exceptionFactory,baseFactory,null);
+    }
+
+    /**
+     * @param hlc this server's hybrid logical clock, which is advanced past the begin timestamp of every
+     *            transaction decoded here, or null if timestamps come from the timestamp server
+     */
+    public SimpleTxnOperationFactory(ExceptionFactory exceptionFactory,
+                                     OperationFactory baseFactory,
+                                     HLCTimestampSource hlc){
         this.exceptionLib = exceptionFactory;
         this.operationFactory = baseFactory;
+        this.hlc = hlc;
     }
 
     @Override
@@ -128,6 +141,7 @@ public class SimpleTxnOperationFactory implements TxnOperationFactory{
         MultiFieldDecoder decoder=MultiFieldDecoder.wrap(data,off,length);
         long txnId=decoder.decodeNextLong();
         long beginTs=decoder.decodeNextLong();
+        receive(beginTs);
         boolean additive=decoder.decodeNextBoolean();
         Txn.IsolationLevel level=Txn.IsolationLevel.fromByte(decoder.decodeNextByte());
         //throw away the allow reads bit, since we won't care anyway
@@ -174,6 +188,7 @@ public class SimpleTxnOperationFactory implements TxnOperationFactory{
         MultiFieldDecoder decoder=MultiFieldDecoder.wrap(data,offset,length);
         long txnId=decoder.decodeNextLong();
         long beginTs=decoder.decodeNextLong();
+        receive(beginTs);
         boolean additive=decoder.decodeNextBoolean();
         Txn.IsolationLevel level=Txn.IsolationLevel.fromByte(decoder.decodeNextByte());
         boolean allowsWrites=decoder.decodeNextBoolean();
@@ -217,6 +232,16 @@ public class SimpleTxnOperationFactory implements TxnOperationFactory{
         op.addAttribute(SI_NEEDED,SI_NEEDED_VALUE_BYTES);
     }
 
+    /*
+     * A transaction sent to us began as of its server's clock, which may be ahead of ours. Advancing past its
+     * begin timestamp keeps the transaction table lookups we make for it, and the child transactions we begin
+     * for it, later than it began.
+     */
+    private void receive(long beginTimestamp){
+        if(hlc!=null)
+            hlc.receiveTimestamp(beginTimestamp);
+    }
+
     protected void makeNonTransactional(Attributable op){
         op.addAttribute(SI_EXEMPT,TRUE_BYTES);
     }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.annotations.ThreadSafe;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.timestamp.api.TimestampSource;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out recent timestamps as the begin timestamps of read-only transactions, so that most of them don't
+ * have to go to the timestamp server.
+ *
+ * A timestamp is reused for as long as it is at most {@code maxStalenessMillis} old, and until a transaction
+ * commits through this server; a transaction begun after a commit returns always gets a timestamp later than
+ * the commit's, so every connection still reads its own writes. Since a newer timestamp only ever replaces an
+ * older one, the snapshots a connection reads from never go backwards.
+ *
+ * Transactions which begin from the same timestamp share their transaction id as well, so a transaction begun
+ * from this lease must be given an id of its own before it is elevated.
+ */
+@ThreadSafe
+public class SnapshotTimestampLease{
+    private final TimestampSource timestampSource;
+    private final Clock clock;
+    private final long maxStalenessMillis;
+
+    private final AtomicReference<Lease> lease=new AtomicReference<>();
+    private final AtomicLong lastCommitTimestamp=new AtomicLong(0L);
+
+    public SnapshotTimestampLease(TimestampSource timestampSource,Clock clock,long maxStalenessMillis){
+        this.timestampSource=timestampSource;
+        this.clock=clock;
+        this.maxStalenessMillis=maxStalenessMillis;
+    }
+
+    /**
+     * @return a begin timestamp for a new read-only transaction, which may be shared with other read-only
+     * transactions
+     */
+    public long beginTimestamp(){
+        Lease current=lease.get();
+        if(current!=null
+                && current.timestamp>lastCommitTimestamp.get()
+                && clock.currentTimeMillis()-current.acquiredAt<=maxStalenessMillis)
+            return current.timestamp;
+
+        //read the clock first, so the lease can only ever look older than it is
+        long acquiredAt=clock.currentTimeMillis();
+        long timestamp=timestampSource.nextTimestamp();
+        Lease fresh=new Lease(timestamp,acquiredAt);
+        do{
+            current=lease.get();
+            if(current!=null && current.timestamp>=timestamp) break; //someone fetched a newer one meanwhile
+        }while(!lease.compareAndSet(current,fresh));
+        return timestamp;
+    }
+
+    /**
+     * Called once a transaction has committed through this server, so no transaction begun from now on reuses a
+     * timestamp from before the commit.
+     */
+    public void committed(long commitTimestamp){
+        long last;
+        do{
+            last=lastCommitTimestamp.get();
+            if(last>=commitTimestamp) return;
+        }while(!lastCommitTimestamp.compareAndSet(last,commitTimestamp));
+    }
+
+    private static class Lease{
+        private final long timestamp;
+        private final long acquiredAt;
+
+        Lease(long timestamp,long acquiredAt){
+            this.timestamp=timestamp;
+            this.acquiredAt=acquiredAt;
+        }
+    }
+}
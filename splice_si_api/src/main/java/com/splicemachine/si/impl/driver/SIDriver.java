@@ -35,7 +35,9 @@ import com.splicemachine.si.api.txn.TxnLifecycleManager;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.SnapshotTimestampLease;
 import com.splicemachine.si.impl.TxnRegion;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
@@ -119,6 +121,9 @@ public class SIDriver {
         ClientTxnLifecycleManager clientTxnLifecycleManager=new ClientTxnLifecycleManager(this.timestampSource,env.exceptionFactory());
         clientTxnLifecycleManager.setTxnStore(this.txnStore);
         clientTxnLifecycleManager.setKeepAliveScheduler(env.keepAliveScheduler());
+        long snapshotStaleness=config.getReadOnlySnapshotStaleness();
+        if(snapshotStaleness>0)
+            clientTxnLifecycleManager.setSnapshotLease(new SnapshotTimestampLease(this.timestampSource,this.clock,snapshotStaleness));
         this.lifecycleManager =clientTxnLifecycleManager;
         readController = new SITransactionReadController(txnSupplier);
         readResolver = initializedReadResolver(config,env.keyedReadResolver());
@@ -169,6 +174,14 @@ public class SIDriver {
         return timestampSource;
     }
 
+    /**
+     * @return this server's hybrid logical clock, whose timestamps are exchanged on requests between servers, or
+     * null if timestamps come from the timestamp server
+     */
+    public HLCTimestampSource getHybridLogicalClock() {
+        return timestampSource instanceof HLCTimestampSource ? (HLCTimestampSource) timestampSource : null;
+    }
+
     public Transactor getTransactor(){
         return transactor;
     }
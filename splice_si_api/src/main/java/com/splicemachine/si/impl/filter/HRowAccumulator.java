@@ -72,6 +72,10 @@ public class HRowAccumulator implements RowAccumulator{
 
     @Override
     public byte[] result() {
+        if(!predicateFilter.qualifies(entryAccumulator)){
+            entryAccumulator.reset();
+            return null;
+        }
         final byte[] result = entryAccumulator.finish();
         entryAccumulator.reset();
         return result;
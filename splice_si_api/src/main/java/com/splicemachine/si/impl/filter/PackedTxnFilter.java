@@ -92,6 +92,8 @@ public class PackedTxnFilter implements TxnFilter, SIFilter{
         if(resultData!=null){
             return lastValidCell.copyValue(resultData,CellType.USER_DATA);
         }else{
+            //the row failed the predicate of the accumulator
+            excludeRow=true;
             return null;
         }
     }
@@ -14,6 +14,9 @@
 
 package com.splicemachine.si.impl.hlc;
 
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.SystemClock;
+
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -22,20 +25,37 @@ import java.util.concurrent.atomic.AtomicLong;
  * Please see https://www.cse.buffalo.edu/tech-reports/2014-04.pdf
  * if you are interested in the underpinnings of the hybrid logical clock.
  *
+ * The physical part of the clock counts milliseconds since {@link #EPOCH}, and the logical part is kept in the
+ * low {@link #hlcNumBitsToShift} bits. Should the logical part overflow, it carries into the physical part, which
+ * keeps the clock increasing at the cost of running it slightly ahead of the wall clock.
+ *
  * Created by jleach on 4/21/16.
  */
 public class HLC {
-    public static final int hlcNumBitsToShift = 12;
+    public static final int hlcNumBitsToShift = 6;
     public static final int hlcLogicalBitsMask = (1 << hlcNumBitsToShift) - 1;
+    /**
+     * 2016-01-01T00:00:00Z, so that 41 bits of physical time last until 2085
+     */
+    public static final long EPOCH = 1451606400000L;
+    private final Clock clock;
     AtomicLong atomicHLC = new AtomicLong(physicalAndLogicalToHLC(0l, 0l));
 
+    public HLC() {
+        this(new SystemClock());
+    }
+
+    public HLC(Clock clock) {
+        this.clock = clock;
+    }
+
     public long sendOrLocalEvent() {
         long currentHLC;
         long returnHLC;
         while (true) {
             currentHLC = atomicHLC.get();
             long[] hlc = HLCToPhysicalAndLogical(currentHLC);
-            long logical = Math.max(hlc[0], System.currentTimeMillis());
+            long logical = Math.max(hlc[0], physicalTime());
             if (logical == hlc[0])
                 hlc[1]++;
             else {
@@ -54,10 +74,10 @@ public class HLC {
         long[] messageHLC = HLCToPhysicalAndLogical(message);
         while (true) {
             currentHLC = atomicHLC.get();
-            long[] hlc = HLCToPhysicalAndLogical(atomicHLC.get());
-            long logical = Math.max(hlc[0],Math.max(messageHLC[0], System.currentTimeMillis()));
+            long[] hlc = HLCToPhysicalAndLogical(currentHLC);
+            long logical = Math.max(hlc[0],Math.max(messageHLC[0], physicalTime()));
             if (logical == hlc[0] && logical==messageHLC[0])
-                hlc[1] = Math.max(hlc[0],messageHLC[0]) +1;
+                hlc[1] = Math.max(hlc[1],messageHLC[1]) +1;
             else if (logical == hlc[0])
                 hlc[1]++;
             else if (logical == messageHLC[0]) {
@@ -74,20 +94,31 @@ public class HLC {
         }
     }
 
+    /**
+     * @return the latest value this clock has handed out or received, without advancing it
+     */
+    public long current() {
+        return atomicHLC.get();
+    }
+
+    private long physicalTime() {
+        return clock.currentTimeMillis() - EPOCH;
+    }
+
     /**
      * Converts the provided timestamp, in the provided unit, to the HybridTime timestamp
      * format. Logical bits are set to 0.
      *
-     * @param timestamp the value of the timestamp, must be greater than 0
+     * @param timestamp the value of the timestamp since 1970, must be at least {@link #EPOCH}
      * @param timeUnit  the time unit of the timestamp
-     * @throws IllegalArgumentException if the timestamp is less than 0
+     * @throws IllegalArgumentException if the timestamp is before {@link #EPOCH}
      */
     public static long clockTimestampToHLC(long timestamp, TimeUnit timeUnit) {
-        if (timestamp < 0) {
-            throw new IllegalArgumentException("Timestamp cannot be less than 0");
+        long timestampInMillis = TimeUnit.MILLISECONDS.convert(timestamp, timeUnit);
+        if (timestampInMillis < EPOCH) {
+            throw new IllegalArgumentException("Timestamp cannot be before the epoch");
         }
-        long timestampInMicros = TimeUnit.MICROSECONDS.convert(timestamp, timeUnit);
-        return timestampInMicros << hlcNumBitsToShift;
+        return (timestampInMillis - EPOCH) << hlcNumBitsToShift;
     }
 
     /**
@@ -97,15 +128,15 @@ public class HLC {
      * @return a pair of {physical, logical} long values in an array
      */
     public static long[] HLCToPhysicalAndLogical(long htTimestamp) {
-        long timestampInMicros = htTimestamp >> hlcNumBitsToShift;
+        long timestampInMillis = htTimestamp >> hlcNumBitsToShift;
         long logicalValues = htTimestamp & hlcLogicalBitsMask;
-        return new long[] {timestampInMicros, logicalValues};
+        return new long[] {timestampInMillis, logicalValues};
     }
 
     /**
      * Encodes separate physical and logical components into a single HT timestamp
      *
-     * @param physical the physical component, in microseconds
+     * @param physical the physical component, in milliseconds since {@link #EPOCH}
      * @param logical  the logical component
      * @return an encoded HT timestamp
      */
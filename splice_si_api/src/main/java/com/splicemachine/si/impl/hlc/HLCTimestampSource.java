@@ -14,35 +14,94 @@
 
 package com.splicemachine.si.impl.hlc;
 
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.timestamp.api.TimestampSource;
 
 /**
+ * Generates transaction timestamps from this server's own {@link HLC}, rather than fetching them from the
+ * timestamp server.
+ *
+ * A timestamp holds the clock value in its high bits, then a byte identifying the server, then the byte left
+ * free for sub-transaction ids:
+ * <pre>
+ *     | hlc (47 bits) | node (8 bits) | sub-transaction (8 bits) |
+ * </pre>
+ * so timestamps of different servers never collide, and are ordered by their clock values. The node byte is
+ * xor'ed with the low byte of the clock value, so that the transactions of a server are spread over the
+ * transaction table's buckets, which are chosen by the bits right above the sub-transaction byte.
+ *
+ * The node id must be unique among all running JVMs which begin transactions, executors included, so it is
+ * claimed from ZooKeeper at startup rather than configured. A wider node id would take bits from the clock,
+ * whose 41 bits of milliseconds since {@link HLC#EPOCH} last until 2085, so at most 256 such JVMs may run at once.
+ *
+ * Clock values are exchanged between servers by piggybacking {@link #currentTimestamp()} on requests and
+ * responses, and handing what was received to {@link #receiveTimestamp(long)}, which also receives the begin
+ * timestamp of every transaction sent from another server. The minimum active timestamp is
+ * cluster wide state, so is still remembered by the delegate.
+ *
  * Created by jleach on 4/21/16.
  */
 public class HLCTimestampSource implements TimestampSource {
-    public static HLC hlc = new HLC();
+    public static final int NODE_ID_BITS = 8;
+    public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+    private static final int SUBTRANSACTION_BITS = Long.bitCount(SIConstants.SUBTRANSANCTION_ID_MASK);
+    private static final int HLC_SHIFT = NODE_ID_BITS + SUBTRANSACTION_BITS;
 
-    public HLCTimestampSource() {
-    }
+    private final HLC hlc;
+    private final int nodeId;
+    private final TimestampSource delegate;
 
+    public HLCTimestampSource(HLC hlc, int nodeId, TimestampSource delegate) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID)
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", not " + nodeId);
+        this.hlc = hlc;
+        this.nodeId = nodeId;
+        this.delegate = delegate;
+    }
 
     @Override
     public long nextTimestamp() {
-        return hlc.sendOrLocalEvent();
+        return toTimestamp(hlc.sendOrLocalEvent());
+    }
+
+    /**
+     * @return a timestamp at least as large as any this source has generated or received, to be sent to another
+     * server
+     */
+    public long currentTimestamp() {
+        return toTimestamp(hlc.current());
+    }
+
+    /**
+     * Advances the clock past a timestamp another server generated or received, so that every timestamp this
+     * source generates from now on is larger.
+     */
+    public void receiveTimestamp(long timestamp) {
+        if (timestamp > 0)
+            hlc.receiveEvent(timestamp >>> HLC_SHIFT);
     }
 
     @Override
     public void rememberTimestamp(long timestamp) {
-        // No Op
+        delegate.rememberTimestamp(timestamp);
     }
 
     @Override
     public long retrieveTimestamp() {
-        return 0;
+        return delegate.retrieveTimestamp();
     }
 
     @Override
     public void shutdown() {
+        delegate.shutdown();
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
 
+    private long toTimestamp(long hlcValue) {
+        long node = (nodeId ^ hlcValue) & MAX_NODE_ID;
+        return (hlcValue << HLC_SHIFT) | (node << SUBTRANSACTION_BITS);
     }
 }
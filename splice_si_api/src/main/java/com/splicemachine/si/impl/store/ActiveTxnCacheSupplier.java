@@ -61,6 +61,18 @@ public class ActiveTxnCacheSupplier implements TxnSupplier {
 				return txn;
 		}
 
+		@Override
+		public TxnView getTransactionForReader(long txnId,long readerBeginTimestamp) throws IOException {
+        TxnView txn = this.cache.get(txnId);
+				if(txn!=null) return txn;
+				txn = delegate.getTransactionForReader(txnId,readerBeginTimestamp);
+				if(txn==null) return null;
+
+				if(txn.getEffectiveState()== Txn.State.ACTIVE)
+            this.cache.put(txnId,txn);
+				return txn;
+		}
+
 		@Override
 		public boolean transactionCached(long txnId) {
         return cache.get(txnId) !=null;
@@ -58,7 +58,6 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     }
 
     @Override
-    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
     public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
         if(txnId==-1)
             return Txn.ROOT_TRANSACTION;
@@ -70,6 +69,24 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
         }
         //bummer, we aren't in the cache, need to check the delegate
         TxnView transaction=delegate.getTransaction(txnId,getDestinationTables);
+        return cacheIfCompleted(transaction);
+    }
+
+    @Override
+    public TxnView getTransactionForReader(long txnId,long readerBeginTimestamp) throws IOException{
+        if(txnId==-1)
+            return Txn.ROOT_TRANSACTION;
+        requests.incrementAndGet();
+        TxnView txn=cache.get(txnId);
+        if(txn!=null){
+            hits.incrementAndGet();
+            return txn;
+        }
+        return cacheIfCompleted(delegate.getTransactionForReader(txnId,readerBeginTimestamp));
+    }
+
+    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
+    private TxnView cacheIfCompleted(TxnView transaction){
         if(transaction==null) //noinspection ConstantConditions
             return transaction; //don't cache read-only transactions;
 
@@ -57,6 +57,20 @@ public class SimpleCompletedTxnCacheSupplier implements TxnSupplier{
         }
     }
 
+    @Override
+    public TxnView getTransactionForReader(final long txnId,final long readerBeginTimestamp) throws IOException {
+        try {
+            return cache.get(txnId,new Callable<TxnView>() {
+                @Override
+                public TxnView call() throws Exception {
+                    return delegate.getTransactionForReader(txnId,readerBeginTimestamp);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw (IOException)e.getCause();
+        }
+    }
+
     @Override
     public boolean transactionCached(long txnId) {
         return getTransactionFromCache(txnId)!=null;
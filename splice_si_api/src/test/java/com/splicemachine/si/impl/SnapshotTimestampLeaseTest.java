@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.store.TestingTimestampSource;
+import com.splicemachine.si.impl.store.TestingTxnStore;
+import com.splicemachine.si.testenv.ArchitectureSpecific;
+import com.splicemachine.si.testenv.SITestEnvironment;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+@Category(ArchitectureSpecific.class)
+public class SnapshotTimestampLeaseTest{
+    private static final byte[] TABLE=new byte[]{1};
+    private static final long STALENESS_MS=10;
+
+    private IncrementingClock clock;
+    private TxnStore txnStore;
+    private ClientTxnLifecycleManager lifecycleManager;
+
+    @Before
+    public void setUp() throws Exception{
+        ExceptionFactory exceptionFactory=SITestEnvironment.loadTestDataEnvironment().getExceptionFactory();
+        TestingTimestampSource timestampSource=new TestingTimestampSource();
+        clock=new IncrementingClock();
+        txnStore=new TestingTxnStore(clock,timestampSource,exceptionFactory,Long.MAX_VALUE);
+        lifecycleManager=new ClientTxnLifecycleManager(timestampSource,exceptionFactory);
+        lifecycleManager.setTxnStore(txnStore);
+        lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(txnStore));
+        lifecycleManager.setSnapshotLease(new SnapshotTimestampLease(timestampSource,clock,STALENESS_MS));
+    }
+
+    @Test
+    public void readOnlyTransactionsShareRecentTimestamp() throws Exception{
+        Txn first=lifecycleManager.beginTransaction();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(STALENESS_MS));
+        Txn second=lifecycleManager.beginTransaction();
+        Assert.assertEquals(first.getBeginTimestamp(),second.getBeginTimestamp());
+    }
+
+    @Test
+    public void staleTimestampIsReplaced() throws Exception{
+        Txn first=lifecycleManager.beginTransaction();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(STALENESS_MS+1));
+        Txn second=lifecycleManager.beginTransaction();
+        Assert.assertTrue("Snapshot went backwards",second.getBeginTimestamp()>first.getBeginTimestamp());
+    }
+
+    @Test
+    public void readsOwnWritesAfterCommit() throws Exception{
+        Txn before=lifecycleManager.beginTransaction();
+        Txn writer=lifecycleManager.beginTransaction(TABLE);
+        writer.commit();
+        Txn after=lifecycleManager.beginTransaction();
+
+        TxnView committed=txnStore.getTransaction(writer.getTxnId());
+        Assert.assertFalse(before.canSee(committed));
+        Assert.assertTrue("Began before the commit",after.getBeginTimestamp()>writer.getCommitTimestamp());
+        Assert.assertTrue("Can't see our own write",after.canSee(committed));
+    }
+
+    @Test
+    public void elevatedTransactionsGetTheirOwnIds() throws Exception{
+        Txn first=lifecycleManager.beginTransaction();
+        Txn second=lifecycleManager.beginTransaction();
+        Assert.assertEquals(first.getTxnId(),second.getTxnId());
+
+        Txn firstWriter=first.elevateToWritable(TABLE);
+        Txn secondWriter=second.elevateToWritable(TABLE);
+        Assert.assertNotEquals(firstWriter.getTxnId(),secondWriter.getTxnId());
+        Assert.assertNotEquals(first.getTxnId(),firstWriter.getTxnId());
+        Assert.assertEquals("Snapshot changed on elevation",first.getBeginTimestamp(),firstWriter.getBeginTimestamp());
+        Assert.assertEquals(first.getBeginTimestamp(),secondWriter.getBeginTimestamp());
+        Assert.assertEquals(first.getBeginTimestamp(),txnStore.getTransaction(firstWriter.getTxnId()).getBeginTimestamp());
+
+        Txn child=lifecycleManager.beginChildTransaction(firstWriter,Txn.IsolationLevel.SNAPSHOT_ISOLATION,false,TABLE,true);
+        Assert.assertEquals("Sub-transaction isn't numbered under its parent",
+                firstWriter.getTxnId(),child.getTxnId()&SIConstants.TRANSANCTION_ID_MASK);
+        Assert.assertEquals(first.getBeginTimestamp(),child.getBeginTimestamp());
+    }
+}
@@ -17,6 +17,8 @@ package com.splicemachine.si.impl.hlc;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Created by jleach on 4/21/16.
  */
@@ -32,4 +34,23 @@ public class HLCTest {
             value = comparison;
         }
     }
+
+    @Test
+    public void receivedEventsAreOrderedBeforeLaterLocalEvents() {
+        HLC behind = new HLC();
+        long ahead = HLC.clockTimestampToHLC(System.currentTimeMillis() + 60000, TimeUnit.MILLISECONDS);
+        long received = behind.receiveEvent(ahead);
+        Assert.assertTrue("received event is not after the message", received > ahead);
+        Assert.assertTrue("went backwards after a receive", behind.sendOrLocalEvent() > received);
+    }
+
+    @Test
+    public void nodeIdsKeepTimestampsApart() {
+        HLC clock = new HLC();
+        HLCTimestampSource first = new HLCTimestampSource(clock, 1, null);
+        HLCTimestampSource second = new HLCTimestampSource(clock, 2, null);
+        long value = clock.current();
+        Assert.assertNotEquals(first.currentTimestamp(), second.currentTimestamp());
+        Assert.assertEquals(value, clock.current());
+    }
 }
@@ -78,6 +78,11 @@ public class TestingTxnStore implements TxnStore{
         return getTransaction(txnId);
     }
 
+    @Override
+    public Txn getTransactionForReader(long txnId,long readerBeginTimestamp) throws IOException{
+        return getTransaction(txnId);
+    }
+
 
     @Override
     public boolean transactionCached(long txnId){
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hash;
+
+import com.splicemachine.annotations.ThreadSafe;
+
+/**
+ * Bloom filter over byte arrays, sized for a known number of entries and false positive rate.
+ *
+ * The bit positions of an entry are derived from a single 64-bit Murmur2 hash, by combining its two halves
+ * (Kirsch and Mitzenmacher). Adding entries isn't thread safe, checking them is once they've all been added.
+ */
+public class BloomFilter{
+    private static final Hash64 HASH=HashFunctions.murmur2_64(0x3c074a61);
+
+    private final long[] words;
+    private final long numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedEntries the number of entries the filter will hold
+     * @param falsePositiveRate the rate of false positives once it holds them, in (0,1)
+     */
+    public BloomFilter(long expectedEntries,double falsePositiveRate){
+        assert falsePositiveRate>0d && falsePositiveRate<1d: "Invalid false positive rate "+falsePositiveRate;
+        long n=Math.max(expectedEntries,1L);
+        long bits=(long)Math.ceil(-n*Math.log(falsePositiveRate)/(Math.log(2)*Math.log(2)));
+        int numWords=(int)Math.min(Integer.MAX_VALUE-8,Math.max(1L,(bits+63)>>>6));
+        this.words=new long[numWords];
+        this.numBits=(long)numWords<<6;
+        this.numHashes=Math.max(1,(int)Math.round((double)numBits/n*Math.log(2)));
+    }
+
+    public void add(byte[] entry){
+        long hash=HASH.hash(entry,0,entry.length);
+        int h1=(int)hash;
+        int h2=(int)(hash>>>32);
+        for(int i=1;i<=numHashes;i++){
+            long bit=position(h1+i*h2);
+            words[(int)(bit>>>6)]|=1L<<bit;
+        }
+    }
+
+    /**
+     * @return false if {@code entry} was never added, true if it was or, at the false positive rate, if it wasn't
+     */
+    @ThreadSafe
+    public boolean mightContain(byte[] entry){
+        long hash=HASH.hash(entry,0,entry.length);
+        int h1=(int)hash;
+        int h2=(int)(hash>>>32);
+        for(int i=1;i<=numHashes;i++){
+            long bit=position(h1+i*h2);
+            if((words[(int)(bit>>>6)]&(1L<<bit))==0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the filter, in bytes
+     */
+    public long getSize(){
+        return (long)words.length<<3;
+    }
+
+    private long position(int combinedHash){
+        if(combinedHash<0)
+            combinedHash=~combinedHash;
+        return combinedHash%numBits;
+    }
+}
@@ -119,111 +119,19 @@ public class Bytes {
     }
 
     public static boolean empty(byte[] x) {
-        return x == null || BASE_COMPARATOR.compare(x, EMPTY_BYTE_ARRAY) == 0;
+        return x == null || x.length == 0;
     }
 
 
-    public static final ByteComparator BASE_COMPARATOR = new ByteComparator() {
-        @Override
-        public int compare(byte[] b1, int b1Offset, int b1Length, byte[] b2, int b2Offset, int b2Length) {
-            if (b1 == b2 && b1Offset == b2Offset && b1Length == b2Length) {
-                return 0;
-            } else {
-                int end1 = b1Offset + b1Length;
-                int end2 = b2Offset + b2Length;
-                int i = b1Offset;
-
-                for (int j = b2Offset; i < end1 && j < end2; ++j) {
-                    int a = b1[i] & 255;
-                    int b = b2[j] & 255;
-                    if (a != b) {
-                        return a - b;
-                    }
-
-                    ++i;
-                }
-
-                return b1Length - b2Length;
-            }
-        }
-
-        @Override
-        public int compare(ByteBuffer buffer, byte[] b2, int b2Offset, int b2Length) {
-            buffer.mark();
-            try {
-                int b1Length = buffer.remaining();
-                int length = b1Length <= b2Length ? b1Length : b2Length;
-                for (int i = 0; i < length; i++) {
-                    int leftByte = buffer.get() & 0xff;
-                    int rightByte = b2[b2Offset + i] & 0xff;
-                    if (leftByte != rightByte) return leftByte - rightByte;
-                }
-                return b1Length - b2Length;
-            } finally {
-                buffer.reset();
-            }
-        }
-
-        @Override
-        public int compare(ByteBuffer lBuffer, ByteBuffer rBuffer) {
-            if (lBuffer == rBuffer) return 0;
-            lBuffer.mark();
-            rBuffer.mark();
-            try {
-                int lLength = lBuffer.remaining();
-                int rLength = rBuffer.remaining();
-                int length = lLength <= rLength ? lLength : rLength;
-                for (int i = 0; i < length; i++) {
-                    int leftByte = lBuffer.get() & 0xff;
-                    int rightByte = rBuffer.get() & 0xff;
-                    if (leftByte < rightByte) {
-                        return -1;
-                    } else if (rightByte < leftByte) return 1;
-                }
-                return lLength - rLength;
-            } finally {
-                lBuffer.reset();
-                rBuffer.reset();
-            }
-        }
-
-        @Override
-        public boolean equals(byte[] b1, int b1Offset, int b1Length, byte[] b2, int b2Offset, int b2Length) {
-            return compare(b1, b1Offset, b1Length, b2, b2Offset, b2Length) == 0;
-        }
-
-        @Override
-        public boolean equals(byte[] b1, byte[] b2) {
-            return equals(b1, 0, b1.length, b2, 0, b2.length);
-        }
-
-        @Override
-        public boolean equals(ByteBuffer buffer, byte[] b2, int b2Offset, int b2Length) {
-            return compare(buffer, b2, b2Offset, b2Length) == 0;
-        }
-
-        @Override
-        public boolean equals(ByteBuffer lBuffer, ByteBuffer rBuffer) {
-            return compare(lBuffer, rBuffer) == 0;
-        }
-
-        @Override
-        public int compare(byte[] o1, byte[] o2) {
-            return compare(o1, 0, o1.length, o2, 0, o2.length);
-        }
-
-        @Override
-        public boolean isEmpty(byte[] stop) {
-            return stop == null || stop.length == 0;
-        }
-    };
+    /**
+     * Unsigned lexicographical comparison, a word at a time.
+     */
+    public static final ByteComparator BASE_COMPARATOR = LexicographicByteComparator.INSTANCE;
     public static boolean isLittleEndian = ByteOrder.nativeOrder().equals(ByteOrder.LITTLE_ENDIAN);
 
     /**
-     * @return A Simple ByteComparator which performs comparisons using one-byte-at-a-time logic.
-     * A more efficient implementation would compare them one word at a time, which is what Hbase does.
-     * However, to avoid the Hbase dependency, we don't have that implementation here; it is preferable
-     * that you use that instead of this when performance is necessary.
+     * @return A ByteComparator which compares unsigned bytes one word at a time, the way Hbase does,
+     * without the Hbase dependency.
      */
     public static ByteComparator basicByteComparator() {
         return BASE_COMPARATOR;
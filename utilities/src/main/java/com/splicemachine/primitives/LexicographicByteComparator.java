@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.primitives;
+
+import com.splicemachine.utils.UnsafeUtil;
+import sun.misc.Unsafe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compares bytes as unsigned values, in lexicographical order, 8 bytes at a time.
+ *
+ * Arrays are read a long at a time through {@link Unsafe} and buffers through {@link ByteBuffer#getLong(int)}.
+ * Only once two words differ are they put into big-endian order, so that the first differing byte is the most
+ * significant one. The result is the difference of the first pair of bytes which differ, or of the lengths if
+ * one is a prefix of the other, which is exactly what a byte-at-a-time comparison returns.
+ *
+ * Where {@link Unsafe} can't be had, or the platform doesn't allow unaligned reads, arrays are compared a byte
+ * at a time.
+ *
+ * @see Bytes#BASE_COMPARATOR
+ */
+public final class LexicographicByteComparator implements ByteComparator{
+    public static final LexicographicByteComparator INSTANCE=new LexicographicByteComparator();
+
+    private static final Unsafe UNSAFE=unalignedUnsafe();
+    private static final long BYTE_ARRAY_OFFSET=UNSAFE==null?0L:UNSAFE.arrayBaseOffset(byte[].class);
+    private static final boolean LITTLE_ENDIAN=ByteOrder.nativeOrder().equals(ByteOrder.LITTLE_ENDIAN);
+
+    private LexicographicByteComparator(){}
+
+    @Override
+    public int compare(byte[] b1,int b1Offset,int b1Length,byte[] b2,int b2Offset,int b2Length){
+        if(b1==b2 && b1Offset==b2Offset && b1Length==b2Length) return 0;
+        int length=Math.min(b1Length,b2Length);
+        int i=0;
+        if(UNSAFE!=null){
+            long a1=BYTE_ARRAY_OFFSET+b1Offset;
+            long a2=BYTE_ARRAY_OFFSET+b2Offset;
+            int words=length&~(Bytes.SIZEOF_LONG-1);
+            for(;i<words;i+=Bytes.SIZEOF_LONG){
+                long l=UNSAFE.getLong(b1,a1+i);
+                long r=UNSAFE.getLong(b2,a2+i);
+                if(l!=r){
+                    if(LITTLE_ENDIAN)
+                        return firstDifference(Long.reverseBytes(l),Long.reverseBytes(r));
+                    return firstDifference(l,r);
+                }
+            }
+        }
+        for(;i<length;i++){
+            int a=b1[b1Offset+i]&0xff;
+            int b=b2[b2Offset+i]&0xff;
+            if(a!=b) return a-b;
+        }
+        return b1Length-b2Length;
+    }
+
+    @Override
+    public int compare(ByteBuffer buffer,byte[] b2,int b2Offset,int b2Length){
+        if(buffer.hasArray())
+            return compare(buffer.array(),buffer.arrayOffset()+buffer.position(),buffer.remaining(),b2,b2Offset,b2Length);
+        int b1Offset=buffer.position();
+        int b1Length=buffer.remaining();
+        int length=Math.min(b1Length,b2Length);
+        boolean bigEndian=buffer.order()==ByteOrder.BIG_ENDIAN;
+        int i=0;
+        int words=length&~(Bytes.SIZEOF_LONG-1);
+        for(;i<words;i+=Bytes.SIZEOF_LONG){
+            long l=buffer.getLong(b1Offset+i);
+            long r=BigEndianBits.toLong(b2,b2Offset+i);
+            if(!bigEndian)
+                l=Long.reverseBytes(l);
+            if(l!=r)
+                return firstDifference(l,r);
+        }
+        for(;i<length;i++){
+            int a=buffer.get(b1Offset+i)&0xff;
+            int b=b2[b2Offset+i]&0xff;
+            if(a!=b) return a-b;
+        }
+        return b1Length-b2Length;
+    }
+
+    @Override
+    public int compare(ByteBuffer lBuffer,ByteBuffer rBuffer){
+        if(lBuffer==rBuffer) return 0;
+        if(rBuffer.hasArray())
+            return compare(lBuffer,rBuffer.array(),rBuffer.arrayOffset()+rBuffer.position(),rBuffer.remaining());
+        if(lBuffer.hasArray())
+            return -compare(rBuffer,lBuffer.array(),lBuffer.arrayOffset()+lBuffer.position(),lBuffer.remaining());
+        int lOffset=lBuffer.position();
+        int rOffset=rBuffer.position();
+        int lLength=lBuffer.remaining();
+        int rLength=rBuffer.remaining();
+        int length=Math.min(lLength,rLength);
+        boolean lBigEndian=lBuffer.order()==ByteOrder.BIG_ENDIAN;
+        boolean rBigEndian=rBuffer.order()==ByteOrder.BIG_ENDIAN;
+        int i=0;
+        int words=length&~(Bytes.SIZEOF_LONG-1);
+        for(;i<words;i+=Bytes.SIZEOF_LONG){
+            long l=lBuffer.getLong(lOffset+i);
+            long r=rBuffer.getLong(rOffset+i);
+            if(!lBigEndian)
+                l=Long.reverseBytes(l);
+            if(!rBigEndian)
+                r=Long.reverseBytes(r);
+            if(l!=r)
+                return firstDifference(l,r);
+        }
+        for(;i<length;i++){
+            int a=lBuffer.get(lOffset+i)&0xff;
+            int b=rBuffer.get(rOffset+i)&0xff;
+            if(a!=b) return a-b;
+        }
+        return lLength-rLength;
+    }
+
+    @Override
+    public boolean equals(byte[] b1,int b1Offset,int b1Length,byte[] b2,int b2Offset,int b2Length){
+        return b1Length==b2Length && compare(b1,b1Offset,b1Length,b2,b2Offset,b2Length)==0;
+    }
+
+    @Override
+    public boolean equals(byte[] b1,byte[] b2){
+        return equals(b1,0,b1.length,b2,0,b2.length);
+    }
+
+    @Override
+    public boolean equals(ByteBuffer buffer,byte[] b2,int b2Offset,int b2Length){
+        return buffer.remaining()==b2Length && compare(buffer,b2,b2Offset,b2Length)==0;
+    }
+
+    @Override
+    public boolean equals(ByteBuffer lBuffer,ByteBuffer rBuffer){
+        return lBuffer.remaining()==rBuffer.remaining() && compare(lBuffer,rBuffer)==0;
+    }
+
+    @Override
+    public int compare(byte[] o1,byte[] o2){
+        return compare(o1,0,o1.length,o2,0,o2.length);
+    }
+
+    @Override
+    public boolean isEmpty(byte[] stop){
+        return stop==null || stop.length==0;
+    }
+
+    /**
+     * @return the difference of the first (most significant) bytes which differ in two different big-endian words
+     */
+    private static int firstDifference(long l,long r){
+        int shift=56-(Long.numberOfLeadingZeros(l^r)&~7);
+        return (int)((l>>>shift)&0xff)-(int)((r>>>shift)&0xff);
+    }
+
+    private static Unsafe unalignedUnsafe(){
+        String arch=System.getProperty("os.arch");
+        boolean unaligned="amd64".equals(arch) || "x86_64".equals(arch) || "i386".equals(arch) || "x86".equals(arch)
+                || "aarch64".equals(arch) || "ppc64le".equals(arch);
+        if(!unaligned) return null;
+        try{
+            return UnsafeUtil.unsafe();
+        }catch(Throwable t){
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hash;
+
+import com.splicemachine.primitives.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest{
+
+    @Test
+    public void containsEveryAddedEntry() throws Exception{
+        BloomFilter filter=new BloomFilter(10000,0.01d);
+        for(int i=0;i<10000;i++){
+            filter.add(Bytes.toBytes(i));
+        }
+        for(int i=0;i<10000;i++){
+            Assert.assertTrue("Missing entry "+i,filter.mightContain(Bytes.toBytes(i)));
+        }
+    }
+
+    @Test
+    public void falsePositiveRateIsCloseToTheRequestedOne() throws Exception{
+        BloomFilter filter=new BloomFilter(10000,0.01d);
+        for(int i=0;i<10000;i++){
+            filter.add(Bytes.toBytes(i));
+        }
+        int falsePositives=0;
+        for(int i=10000;i<110000;i++){
+            if(filter.mightContain(Bytes.toBytes(i)))
+                falsePositives++;
+        }
+        Assert.assertTrue("Too many false positives: "+falsePositives,falsePositives<2000);
+    }
+
+    @Test
+    public void emptyFilterContainsNothing() throws Exception{
+        BloomFilter filter=new BloomFilter(0,0.01d);
+        Assert.assertFalse(filter.mightContain(Bytes.toBytes("a")));
+        Assert.assertFalse(filter.mightContain(new byte[0]));
+    }
+}
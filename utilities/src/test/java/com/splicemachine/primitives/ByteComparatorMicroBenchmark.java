@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.primitives;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Compares the throughput of {@link LexicographicByteComparator} with that of a byte-at-a-time comparison, for
+ * keys of several lengths which only differ in their last byte, so that the whole key has to be compared.
+ *
+ * Run from the command line, optionally passing the number of comparisons per measurement.
+ */
+public class ByteComparatorMicroBenchmark{
+    private static final int WARMUP_ITERATIONS=3;
+    private static final int ITERATIONS=5;
+    private static final int[] KEY_LENGTHS={8,16,32,128,1024};
+    private static final int NUM_KEYS=64;
+
+    public static void main(String...args){
+        int numComparisons=args.length>0?Integer.parseInt(args[0]):5000000;
+        for(int i=0;i<WARMUP_ITERATIONS;i++){
+            for(int keyLength : KEY_LENGTHS)
+                benchmark(keyLength,numComparisons,false);
+        }
+        for(int i=0;i<ITERATIONS;i++){
+            System.out.printf("-----iteration %d%n",i);
+            for(int keyLength : KEY_LENGTHS)
+                benchmark(keyLength,numComparisons,true);
+        }
+    }
+
+    private static void benchmark(int keyLength,int numComparisons,boolean print){
+        byte[][] keys=keys(keyLength);
+        ByteBuffer[] directKeys=new ByteBuffer[keys.length];
+        for(int i=0;i<keys.length;i++){
+            directKeys[i]=ByteBuffer.allocateDirect(keyLength);
+            directKeys[i].put(keys[i]).flip();
+        }
+        int mask=keys.length-1;
+
+        long sum=0;
+        long start=System.nanoTime();
+        for(int i=0;i<numComparisons;i++){
+            sum+=byteAtATime(keys[i&mask],keys[(i+1)&mask]);
+        }
+        long byteTime=System.nanoTime()-start;
+
+        ByteComparator comparator=LexicographicByteComparator.INSTANCE;
+        start=System.nanoTime();
+        for(int i=0;i<numComparisons;i++){
+            byte[] left=keys[i&mask];
+            byte[] right=keys[(i+1)&mask];
+            sum+=comparator.compare(left,0,left.length,right,0,right.length);
+        }
+        long wordTime=System.nanoTime()-start;
+
+        start=System.nanoTime();
+        for(int i=0;i<numComparisons;i++){
+            byte[] right=keys[(i+1)&mask];
+            sum+=comparator.compare(directKeys[i&mask],right,0,right.length);
+        }
+        long directTime=System.nanoTime()-start;
+        if(print){
+            //print the sum so that the loops don't get optimized away
+            System.out.printf("%4d byte keys (sum=%d): byte-at-a-time %.0f ops/s, word-at-a-time %.0f ops/s (%.1fx), direct buffer %.0f ops/s%n",
+                    keyLength,sum,throughput(numComparisons,byteTime),throughput(numComparisons,wordTime),
+                    byteTime/(double)wordTime,throughput(numComparisons,directTime));
+        }
+    }
+
+    private static byte[][] keys(int keyLength){
+        Random random=new Random(keyLength);
+        byte[] prefix=new byte[keyLength];
+        random.nextBytes(prefix);
+        byte[][] keys=new byte[NUM_KEYS][];
+        for(int i=0;i<keys.length;i++){
+            keys[i]=prefix.clone();
+            keys[i][keyLength-1]=(byte)random.nextInt();
+        }
+        return keys;
+    }
+
+    private static int byteAtATime(byte[] b1,byte[] b2){
+        int length=Math.min(b1.length,b2.length);
+        for(int i=0;i<length;i++){
+            int a=b1[i]&0xff;
+            int b=b2[i]&0xff;
+            if(a!=b) return a-b;
+        }
+        return b1.length-b2.length;
+    }
+
+    private static double throughput(long ops,long nanos){
+        return ops/(nanos/1e9d);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.primitives;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LexicographicByteComparatorTest {
+    private static final ByteComparator COMPARATOR = LexicographicByteComparator.INSTANCE;
+
+    @Test
+    public void matchesByteAtATimeComparison() {
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            byte[] left = randomBytes(random);
+            byte[] right = mutate(random, left);
+            int leftOffset = random.nextInt(left.length + 1);
+            int rightOffset = random.nextBoolean() ? Math.min(leftOffset, right.length) : random.nextInt(right.length + 1);
+            int leftLength = random.nextInt(left.length - leftOffset + 1);
+            int rightLength = random.nextInt(right.length - rightOffset + 1);
+            int expected = byteAtATime(left, leftOffset, leftLength, right, rightOffset, rightLength);
+
+            assertEquals(expected, COMPARATOR.compare(left, leftOffset, leftLength, right, rightOffset, rightLength));
+            assertEquals(expected == 0, COMPARATOR.equals(left, leftOffset, leftLength, right, rightOffset, rightLength));
+            ByteBuffer direct = direct(left, leftOffset, leftLength, random.nextBoolean() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            assertEquals(expected, COMPARATOR.compare(direct, right, rightOffset, rightLength));
+            assertEquals(expected, COMPARATOR.compare(direct, direct(right, rightOffset, rightLength, ByteOrder.LITTLE_ENDIAN)));
+            assertEquals(expected, COMPARATOR.compare(ByteBuffer.wrap(left, leftOffset, leftLength).slice(), ByteBuffer.wrap(right, rightOffset, rightLength)));
+        }
+    }
+
+    @Test
+    public void comparesBytesAsUnsigned() {
+        byte[] low = {0, 0, 0, 0, 0, 0, 0, 0x7f, 1};
+        byte[] high = {0, 0, 0, 0, 0, 0, 0, (byte) 0x80, 0};
+        assertTrue(COMPARATOR.compare(low, high) < 0);
+        assertTrue(COMPARATOR.compare(high, low) > 0);
+        assertTrue(COMPARATOR.compare(low, 0, 8, low, 0, 9) < 0);
+        assertFalse(COMPARATOR.equals(low, high));
+        assertTrue(COMPARATOR.equals(direct(high, 0, high.length, ByteOrder.BIG_ENDIAN), high, 0, high.length));
+    }
+
+    private static byte[] randomBytes(Random random) {
+        byte[] bytes = new byte[random.nextInt(40)];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return a copy of {@code bytes} with at most one byte changed, and perhaps cut short or extended
+     */
+    private static byte[] mutate(Random random, byte[] bytes) {
+        byte[] copy = new byte[Math.max(0, bytes.length + random.nextInt(5) - 2)];
+        System.arraycopy(bytes, 0, copy, 0, Math.min(bytes.length, copy.length));
+        if (copy.length > 0 && random.nextBoolean())
+            copy[random.nextInt(copy.length)] = (byte) random.nextInt();
+        return copy;
+    }
+
+    private static ByteBuffer direct(byte[] bytes, int offset, int length, ByteOrder order) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length + 3).order(order);
+        buffer.position(3);
+        buffer.put(bytes, offset, length);
+        buffer.position(3);
+        return buffer;
+    }
+
+    private static int byteAtATime(byte[] b1, int b1Offset, int b1Length, byte[] b2, int b2Offset, int b2Length) {
+        for (int i = 0; i < b1Length && i < b2Length; i++) {
+            int a = b1[b1Offset + i] & 0xff;
+            int b = b2[b2Offset + i] & 0xff;
+            if (a != b) return a - b;
+        }
+        return b1Length - b2Length;
+    }
+}